@@ -0,0 +1,95 @@
+/*
+ * Mars Simulation Project
+ * BuildingPathBenchmark.java
+ * @date 2023-07-19
+ * @author Barry Evans
+ */
+package org.mars_sim.benchmarks;
+
+import java.awt.geom.Line2D;
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.msp.core.LocalAreaUtil;
+import org.mars_sim.msp.core.LocalPosition;
+import org.mars_sim.msp.core.person.Person;
+import org.mars_sim.msp.core.person.ai.task.WalkingSteps;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.building.Building;
+import org.mars_sim.msp.core.structure.building.BuildingManager;
+import org.mars_sim.msp.core.structure.building.connection.BuildingConnectorManager;
+import org.mars_sim.msp.core.structure.building.connection.InsideBuildingPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the path finding used when a Person moves around a settlement. The
+ * settlement is a line of connected buildings and each path runs end to end.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildingPathBenchmark {
+
+	@Param({"5", "20"})
+	private int buildings;
+
+	private Settlement settlement;
+	private BuildingConnectorManager connectors;
+	private Building first;
+	private Building last;
+	private LocalPosition start;
+	private LocalPosition end;
+	private Person person;
+	private Line2D clearLine;
+
+	@Setup
+	public void setup() {
+		SimulationFixture fixture = new SimulationFixture();
+		settlement = fixture.createSettlement();
+		Building[] line = fixture.createBuildingLine(settlement, buildings);
+		connectors = settlement.getBuildingConnectorManager();
+
+		first = line[0];
+		last = line[buildings - 1];
+		start = first.getPosition();
+		end = last.getPosition();
+
+		person = fixture.createPerson("Walker", settlement);
+		BuildingManager.addPersonOrRobotToBuilding(person, first);
+
+		// Runs alongside the buildings so every one is checked
+		clearLine = new Line2D.Double(start.getX(), 10D, end.getX(), 10D);
+	}
+
+	@Benchmark
+	public InsideBuildingPath shortestPath() {
+		return connectors.determineShortestPath(first, start, last, end);
+	}
+
+	@Benchmark
+	public WalkingSteps walkingSteps() {
+		return new WalkingSteps(person, end, 0D, last);
+	}
+
+	@Benchmark
+	public boolean linePathCollision() {
+		return LocalAreaUtil.isLinePathCollisionFree(clearLine, settlement.getCoordinates(), false);
+	}
+
+	@Benchmark
+	public boolean linePathCollisionCached() {
+		return LocalAreaUtil.isLinePathCollisionFree(clearLine, settlement.getCoordinates(), true);
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Mars Simulation Project
+ * CoordinatesBenchmark.java
+ * @date 2023-07-19
+ * @author Barry Evans
+ */
+package org.mars_sim.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.msp.core.Coordinates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the great circle distance used by the mission planning and the
+ * settlement searches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinatesBenchmark {
+
+	private static final int LOCATIONS = 1000;
+
+	private Coordinates[] locations;
+
+	@Setup
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(42);
+		locations = new Coordinates[LOCATIONS];
+		for (int i = 0; i < LOCATIONS; i++) {
+			locations[i] = new Coordinates(random.nextDouble(Math.PI), random.nextDouble(2 * Math.PI));
+		}
+	}
+
+	/**
+	 * Distance between each location and the next.
+	 */
+	@Benchmark
+	public double getDistance() {
+		double total = 0D;
+		for (int i = 1; i < LOCATIONS; i++) {
+			total += locations[i - 1].getDistance(locations[i]);
+		}
+		return total;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Mars Simulation Project
+ * InventoryBenchmark.java
+ * @date 2023-07-19
+ * @author Barry Evans
+ */
+package org.mars_sim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.msp.core.equipment.EquipmentInventory;
+import org.mars_sim.msp.core.equipment.MicroInventory;
+import org.mars_sim.msp.core.resource.ResourceUtil;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures storing and retrieving resources like the processes and tasks do; a small
+ * quantity in then out of each resource held. Also the lookup of the amount stored.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryBenchmark {
+
+	private static final double CAPACITY = 1000D;
+	private static final double QUANTITY = 0.5D;
+
+	private int[] resources;
+	private MicroInventory micro;
+	private EquipmentInventory equipment;
+
+	@Setup
+	public void setup() {
+		SimulationFixture fixture = new SimulationFixture();
+		Settlement settlement = fixture.createSettlement();
+
+		resources = new int[] {ResourceUtil.oxygenID, ResourceUtil.waterID, ResourceUtil.foodID,
+							   ResourceUtil.co2ID, ResourceUtil.methaneID, ResourceUtil.hydrogenID,
+							   ResourceUtil.greyWaterID, ResourceUtil.iceID};
+
+		micro = new MicroInventory(settlement);
+		equipment = new EquipmentInventory(settlement, 0D);
+		for (int r : resources) {
+			micro.setCapacity(r, CAPACITY);
+			equipment.setResourceCapacity(r, CAPACITY);
+
+			// Start half full so neither call hits a limit
+			micro.storeAmountResource(r, CAPACITY / 2);
+			equipment.storeAmountResource(r, CAPACITY / 2);
+		}
+	}
+
+	@Benchmark
+	public double microInventory() {
+		double excess = 0D;
+		for (int r : resources) {
+			excess += micro.storeAmountResource(r, QUANTITY);
+			excess += micro.retrieveAmountResource(r, QUANTITY);
+		}
+		return excess + micro.getStoredMass();
+	}
+
+	@Benchmark
+	public double microInventoryStored() {
+		double total = 0D;
+		for (int r : resources) {
+			total += micro.getAmountResourceStored(r);
+		}
+		return total;
+	}
+
+	@Benchmark
+	public double equipmentInventory() {
+		double excess = 0D;
+		for (int r : resources) {
+			excess += equipment.storeAmountResource(r, QUANTITY);
+			excess += equipment.retrieveAmountResource(r, QUANTITY);
+		}
+		return excess + equipment.getStoredMass();
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Mars Simulation Project
+ * MapRenderBenchmark.java
+ * @date 2023-07-14
+ * @author Barry Evans
+ */
+package org.mars_sim.benchmarks;
+
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.mapdata.CpuMapRenderer;
+import org.mars_sim.mapdata.IntegerMapData;
+import org.mars_sim.mapdata.MapTileCache;
+import org.mars_sim.mapdata.MapTilePyramid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the original CPU rendering of IntegerMapData, which converts each pixel
+ * through a Point2D and copies the result with setRGB, with the CpuMapRenderer drawing
+ * from the full pixel array and from the tile pyramid. The source is a random map the
+ * size of the 2880x1440 maps measured by PerformanceTest.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapRenderBenchmark {
+
+	private static final int MAP_WIDTH = 2880;
+	private static final int MAP_HEIGHT = 1440;
+
+	@Param({"600", "1200"})
+	private int viewSize;
+
+	/** Magnification; below 1 the view is zoomed out. */
+	@Param({"1", "0.25"})
+	private double zoom;
+
+	private int[][] pixels;
+	private MapTilePyramid pyramid;
+	private double rho;
+	private double phi;
+	private double theta;
+
+	@Setup
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(42);
+		pixels = new int[MAP_HEIGHT][MAP_WIDTH];
+		for (int[] row : pixels) {
+			for (int i = 0; i < row.length; i++) {
+				row[i] = random.nextInt() | 0xff000000;
+			}
+		}
+		// Relative to the default scale of IntegerMapData
+		rho = zoom * MAP_HEIGHT / Math.PI;
+		pyramid = new MapTilePyramid("benchmark", 0L, pixels, new MapTileCache(64L * 1024 * 1024));
+		phi = 1.2D;
+		theta = 2.3D;
+	}
+
+	@Benchmark
+	public BufferedImage original() {
+		BufferedImage result = new BufferedImage(viewSize, viewSize, BufferedImage.TYPE_INT_ARGB);
+		int[] mapArray = new int[viewSize * viewSize];
+		int half = viewSize / 2;
+		for (int y = 0; y < viewSize; y++) {
+			for (int x = 0; x < viewSize; x++) {
+				Point2D loc = IntegerMapData.convertRectToSpherical(x - half, y - half, phi, theta, rho);
+				mapArray[x + (y * viewSize)] = IntegerMapData.getRGBColorInt(pixels, loc.getX(), loc.getY());
+			}
+		}
+		result.setRGB(0, 0, viewSize, viewSize, mapArray, 0, viewSize);
+		return result;
+	}
+
+	@Benchmark
+	public BufferedImage renderer() {
+		BufferedImage result = new BufferedImage(viewSize, viewSize, BufferedImage.TYPE_INT_ARGB);
+		int[] mapArray = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+		CpuMapRenderer.render(pixels, phi, theta, viewSize, viewSize, rho, mapArray);
+		return result;
+	}
+
+	@Benchmark
+	public BufferedImage tiles() {
+		BufferedImage result = new BufferedImage(viewSize, viewSize, BufferedImage.TYPE_INT_ARGB);
+		int[] mapArray = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+		CpuMapRenderer.render(pyramid, phi, theta, viewSize, viewSize, rho, mapArray);
+		return result;
+	}
+}
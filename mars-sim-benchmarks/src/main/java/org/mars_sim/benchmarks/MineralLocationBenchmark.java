@@ -0,0 +1,105 @@
+/*
+ * Mars Simulation Project
+ * MineralLocationBenchmark.java
+ * @date 2023-07-12
+ * @author Barry Evans
+ */
+package org.mars_sim.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.msp.core.Coordinates;
+import org.mars_sim.msp.core.environment.MineralLocationIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the scan of every mineral location previously used by RandomMineralMap with
+ * the MineralLocationIndex at different map densities. The range query is the one used
+ * to pick an exploration site; the box query is the one used to draw the mineral layer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MineralLocationBenchmark {
+
+	/** Range of an exploration search in km. */
+	private static final double RANGE = 500D;
+	/** Half width of the display box at a magnification of 1. */
+	private static final double ANGLE = .025D;
+
+	@Param({"1000", "10000", "100000"})
+	private int locations;
+
+	private SplittableRandom random;
+	private List<Coordinates> all;
+	private MineralLocationIndex index;
+
+	@Setup
+	public void setup() {
+		random = new SplittableRandom(42);
+		all = new ArrayList<>(locations);
+		index = new MineralLocationIndex();
+		for (int i = 0; i < locations; i++) {
+			Coordinates c = randomLocation();
+			all.add(c);
+			index.add(c);
+		}
+	}
+
+	private Coordinates randomLocation() {
+		return new Coordinates(random.nextDouble(Math.PI), random.nextDouble(Math.PI * 2D));
+	}
+
+	@Benchmark
+	public int scanWithin() {
+		Coordinates center = randomLocation();
+		int found = 0;
+		for (Coordinates c : all) {
+			if (RANGE > Coordinates.computeDistance(center, c)) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int indexWithin() {
+		return index.findWithin(randomLocation(), RANGE).size();
+	}
+
+	@Benchmark
+	public int scanBox() {
+		Coordinates center = randomLocation();
+		int found = 0;
+		for (Coordinates c : all) {
+			if ((Math.abs(center.getPhi() - c.getPhi()) < ANGLE)
+					&& (Math.abs(center.getTheta() - c.getTheta()) < ANGLE)) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int indexBox() {
+		int[] found = new int[1];
+		index.visitBox(randomLocation(), ANGLE, c -> found[0]++);
+		return found[0];
+	}
+}
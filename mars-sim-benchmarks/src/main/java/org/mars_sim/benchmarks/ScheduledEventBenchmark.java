@@ -0,0 +1,157 @@
+/*
+ * Mars Simulation Project
+ * ScheduledEventBenchmark.java
+ * @date 2023-07-13
+ * @author Barry Evans
+ */
+package org.mars_sim.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.events.ScheduledEventHandler;
+import org.mars_sim.msp.core.events.ScheduledEventManager;
+import org.mars_sim.msp.core.time.ClockPulse;
+import org.mars_sim.msp.core.time.MarsTime;
+import org.mars_sim.msp.core.time.MasterClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the sorted list previously used by ScheduledEventManager with the heap. Each
+ * operation schedules a set of events, cancels a tenth of them and then runs pulses
+ * until every event has executed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduledEventBenchmark {
+
+	/** Millisols advanced by each pulse. */
+	private static final int PULSE = 5;
+
+	private static class CountingHandler implements ScheduledEventHandler {
+
+		private static final long serialVersionUID = 1L;
+
+		private int count = 0;
+
+		@Override
+		public String getEventDescription() {
+			return "Benchmark";
+		}
+
+		@Override
+		public int execute(MarsTime currentTime) {
+			count++;
+			return 0;
+		}
+	}
+
+	/**
+	 * An event as held by the original sorted list.
+	 */
+	private static record ListEvent(double when, ScheduledEventHandler handler)
+			implements Comparable<ListEvent> {
+
+		@Override
+		public int compareTo(ListEvent o) {
+			return Double.compare(when, o.when);
+		}
+	}
+
+	@Param({"1000", "10000"})
+	private int events;
+
+	private MasterClock clock;
+	private MarsTime start;
+	private int[] durations;
+	private CountingHandler[] handlers;
+
+	@Setup
+	public void setup() {
+		SimulationConfig.instance().loadConfig();
+		Simulation sim = Simulation.instance();
+		sim.testRun();
+		clock = sim.getMasterClock();
+		start = clock.getMarsTime();
+
+		SplittableRandom random = new SplittableRandom(42);
+		durations = new int[events];
+		handlers = new CountingHandler[events];
+		for (int i = 0; i < events; i++) {
+			// Spread over a sol or so like the settlement events
+			durations[i] = 1 + random.nextInt(1000 + events / 10);
+			handlers[i] = new CountingHandler();
+		}
+	}
+
+	/**
+	 * The original queue; sorted on every insert and scanned to remove a handler.
+	 */
+	@Benchmark
+	public int sortedList() {
+		List<ListEvent> queue = new ArrayList<>();
+		double base = start.getTotalMillisols();
+		for (int i = 0; i < events; i++) {
+			queue.add(new ListEvent(base + durations[i], handlers[i]));
+			Collections.sort(queue);
+		}
+		for (int i = 0; i < events; i += 10) {
+			for (ListEvent e : queue) {
+				if (e.handler().equals(handlers[i])) {
+					queue.remove(e);
+					break;
+				}
+			}
+		}
+
+		int executed = 0;
+		MarsTime now = start;
+		while (!queue.isEmpty()) {
+			now = now.addTime(PULSE);
+			while (!queue.isEmpty() && (queue.get(0).when() <= now.getTotalMillisols())) {
+				queue.remove(0).handler().execute(now);
+				executed++;
+			}
+		}
+		return executed;
+	}
+
+	@Benchmark
+	public int heap() {
+		ScheduledEventManager mgr = new ScheduledEventManager(clock);
+		List<ScheduledEventManager.ScheduledEvent> added = new ArrayList<>(events);
+		for (int i = 0; i < events; i++) {
+			added.add(mgr.addEvent(durations[i], handlers[i]));
+		}
+		for (int i = 0; i < events; i += 10) {
+			mgr.cancelEvent(added.get(i));
+		}
+
+		long id = 1;
+		MarsTime now = start;
+		while (mgr.getNextEventTime() != null) {
+			now = now.addTime(PULSE);
+			mgr.timePassing(new ClockPulse(id++, PULSE, null, now, null, false, true));
+		}
+		return mgr.getEvents().size();
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Mars Simulation Project
+ * SettlementBenchmark.java
+ * @date 2023-07-19
+ * @author Barry Evans
+ */
+package org.mars_sim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.time.ClockPulse;
+import org.mars_sim.msp.core.time.MarsTime;
+import org.mars_sim.msp.core.time.MasterClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the settlement wide updates; the goods valuation and a complete pulse of
+ * the Settlement and everything in it. A MockSettlement lacks most of the managers
+ * so the settlement is built from a template.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SettlementBenchmark {
+
+	/** Millisols advanced by each pulse. */
+	private static final double PULSE = 1D;
+
+	@Param({"Phase 1-US", "Phase 3-US"})
+	private String template;
+
+	private MasterClock clock;
+	private Settlement settlement;
+	private long pulseId = 1;
+
+	@Setup
+	public void setup() {
+		settlement = SimulationFixture.buildTemplateSettlement(template);
+		clock = Simulation.instance().getMasterClock();
+	}
+
+	@Benchmark
+	public void updateGoodValues() {
+		settlement.getGoodsManager().updateGoodValues();
+	}
+
+	/**
+	 * One pulse; the clock moves on each call.
+	 */
+	@Benchmark
+	public boolean timePassing() {
+		MarsTime now = clock.getMarsTime();
+		MarsTime next = now.addTime(PULSE);
+		clock.setMarsTime(next);
+		clock.getMarsClock().addTime(PULSE);
+
+		boolean newSol = (next.getMissionSol() != now.getMissionSol());
+		boolean newMSol = (next.getMillisolInt() != now.getMillisolInt());
+		return settlement.timePassing(new ClockPulse(pulseId++, PULSE, clock.getMarsClock(), next, clock,
+													newSol, newMSol));
+	}
+}
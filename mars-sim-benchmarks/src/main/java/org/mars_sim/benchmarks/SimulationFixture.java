@@ -0,0 +1,94 @@
+/*
+ * Mars Simulation Project
+ * SimulationFixture.java
+ * @date 2023-07-19
+ * @author Barry Evans
+ */
+package org.mars_sim.benchmarks;
+
+import org.mars_sim.msp.core.AbstractMarsSimUnitTest;
+import org.mars_sim.msp.core.LocalPosition;
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.SimulationBuilder;
+import org.mars_sim.msp.core.person.Person;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.building.Building;
+import org.mars_sim.msp.core.structure.building.BuildingManager;
+import org.mars_sim.msp.core.structure.building.connection.BuildingConnector;
+
+/**
+ * Builds the benchmark fixtures with the same helpers as the unit tests so the
+ * benchmarks run against the same MockSettlement based setup. Paths that need a fully
+ * equipped settlement use a simulation built from a template instead.
+ */
+public class SimulationFixture extends AbstractMarsSimUnitTest {
+
+	/**
+	 * Creates a fresh test Simulation.
+	 */
+	public SimulationFixture() {
+		super("Benchmark");
+		setUp();
+	}
+
+	/**
+	 * Builds a complete simulation from a settlement template like the headless edition.
+	 * This needs the terrain elevation data.
+	 *
+	 * @param template Name of the settlement template
+	 * @return The settlement created
+	 */
+	public static Settlement buildTemplateSettlement(String template) {
+		SimulationBuilder builder = new SimulationBuilder();
+		builder.setTemplate(template);
+		builder.setLatitude("10.0 N");
+		builder.setLongitude("20.0 E");
+		builder.setSeed(42L);
+		Simulation sim = builder.build();
+
+		return sim.getUnitManager().getSettlements().iterator().next();
+	}
+
+	public Simulation getSim() {
+		return sim;
+	}
+
+	public Settlement createSettlement() {
+		return buildSettlement();
+	}
+
+	public Person createPerson(String name, Settlement settlement) {
+		return buildPerson(name, settlement);
+	}
+
+	/**
+	 * Builds a line of adjoining buildings along the x axis, each connected by a hatch
+	 * to the next. The first building is an EVA airlock.
+	 *
+	 * @param settlement
+	 * @param count Number of buildings
+	 * @return Buildings in order along the line
+	 */
+	public Building[] createBuildingLine(Settlement settlement, int count) {
+		BuildingManager mgr = settlement.getBuildingManager();
+		Building[] result = new Building[count];
+		for (int i = 0; i < count; i++) {
+			LocalPosition pos = new LocalPosition(-BUILDING_LENGTH * i, 0D);
+			if (i == 0) {
+				result[i] = buildEVA(mgr, pos, 0D, i);
+			}
+			else {
+				result[i] = buildBuilding(mgr, pos, 0D, i);
+			}
+		}
+
+		for (int i = 1; i < count; i++) {
+			LocalPosition hatch = new LocalPosition(-BUILDING_LENGTH * (i - 0.5D), 0D);
+			settlement.getBuildingConnectorManager().addBuildingConnection(
+						new BuildingConnector(result[i - 1], hatch, 90D, result[i], hatch, 270D));
+		}
+		mgr.setupBuildingFunctionsMap();
+
+		return result;
+	}
+}
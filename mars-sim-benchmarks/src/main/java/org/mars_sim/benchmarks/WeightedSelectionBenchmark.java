@@ -0,0 +1,130 @@
+/*
+ * Mars Simulation Project
+ * WeightedSelectionBenchmark.java
+ * @date 2023-07-10
+ * @author Barry Evans
+ */
+package org.mars_sim.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.msp.core.tool.WeightedSampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the linear scan previously used by TaskCache and MissionManager with the
+ * WeightedSampler. The static case selects from a fixed set; the transient case builds
+ * a set then selects and removes until it is empty like a transient TaskCache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeightedSelectionBenchmark {
+
+	/**
+	 * An entry as held by the original scan.
+	 */
+	private static record Entry(int id, double score) {}
+
+	@Param({"10", "100", "1000"})
+	private int entries;
+
+	private SplittableRandom random;
+	private double[] scores;
+
+	private List<Entry> scanEntries;
+	private double scanTotal;
+	private WeightedSampler<Entry> sampler;
+
+	@Setup
+	public void setup() {
+		random = new SplittableRandom(42);
+		scores = new double[entries];
+		scanEntries = new ArrayList<>(entries);
+		sampler = new WeightedSampler<>(random, entries);
+		scanTotal = 0D;
+		for (int i = 0; i < entries; i++) {
+			scores[i] = random.nextDouble(0.1D, 100D);
+			Entry e = new Entry(i, scores[i]);
+			scanEntries.add(e);
+			scanTotal += scores[i];
+			sampler.add(e, scores[i]);
+		}
+	}
+
+	/**
+	 * The original selection; a linear scan of the cumulative weight.
+	 */
+	private Entry scanSelect(List<Entry> list, double total) {
+		Entry lastEntry = null;
+		double r = random.nextDouble() * total;
+		for (Entry entry : list) {
+			double probWeight = entry.score();
+			if (r <= probWeight) {
+				return entry;
+			}
+			r -= probWeight;
+			lastEntry = entry;
+		}
+		return lastEntry;
+	}
+
+	@Benchmark
+	public Entry scanStatic() {
+		return scanSelect(scanEntries, scanTotal);
+	}
+
+	@Benchmark
+	public Entry samplerStatic() {
+		return sampler.sample();
+	}
+
+	@Benchmark
+	public int scanTransient() {
+		List<Entry> list = new ArrayList<>(entries);
+		double total = 0D;
+		for (int i = 0; i < entries; i++) {
+			list.add(new Entry(i, scores[i]));
+			total += scores[i];
+		}
+
+		int sum = 0;
+		while (!list.isEmpty()) {
+			Entry e = scanSelect(list, total);
+			list.remove(e);
+			total -= e.score();
+			sum += e.id();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int samplerTransient() {
+		WeightedSampler<Entry> s = new WeightedSampler<>(random, entries);
+		for (int i = 0; i < entries; i++) {
+			s.add(new Entry(i, scores[i]), scores[i]);
+		}
+
+		int sum = 0;
+		while (!s.isEmpty()) {
+			sum += s.sampleAndRemove().id();
+		}
+		return sum;
+	}
+}
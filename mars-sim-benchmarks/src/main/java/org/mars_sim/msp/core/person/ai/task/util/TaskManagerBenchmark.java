@@ -0,0 +1,74 @@
+/*
+ * Mars Simulation Project
+ * TaskManagerBenchmark.java
+ * @date 2023-07-19
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.person.ai.task.util;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.benchmarks.SimulationFixture;
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.person.Person;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.time.MarsClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how a Person picks the next Task; building the TaskCache from the MetaTasks
+ * and then drawing from it. This lives in the TaskManager package as both steps are
+ * not public. The MetaTasks look at much of the settlement so it is built from a template.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+
+	private PersonTaskManager taskManager;
+	private List<TaskJob> jobs;
+	private MarsClock now;
+
+	@Setup
+	public void setup() {
+		Settlement settlement = SimulationFixture.buildTemplateSettlement("Phase 1-US");
+		Person person = settlement.getAllAssociatedPeople().iterator().next();
+		taskManager = person.getMind().getTaskManager();
+
+		now = Simulation.instance().getMasterClock().getMarsClock();
+		jobs = taskManager.rebuildTaskCache().getTasks();
+	}
+
+	@Benchmark
+	public TaskCache rebuildTaskCache() {
+		return taskManager.rebuildTaskCache();
+	}
+
+	/**
+	 * Fills a transient cache and selects until it is empty.
+	 */
+	@Benchmark
+	public int selectAll() {
+		TaskCache cache = new TaskCache("Benchmark", now);
+		cache.add(jobs);
+
+		int selected = 0;
+		while (cache.getRandomSelection() != null) {
+			selected++;
+		}
+		return selected;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Mars Simulation Project
+ * MetricsCommand.java
+ * @date 2023-07-20
+ * @author Barry Evans
+ */
+
+package org.mars.sim.console.chat.simcommand;
+
+import java.util.Map;
+
+import org.mars.sim.console.chat.ChatCommand;
+import org.mars.sim.console.chat.Conversation;
+import org.mars.sim.console.chat.ConversationRole;
+import org.mars_sim.msp.core.time.PulseMetrics;
+import org.mars_sim.msp.core.time.PulseTimer;
+
+/**
+ * Displays the pulse timers and counters. An argument of 'reset' clears them; any
+ * other argument only shows the entries starting with it.
+ * This is a singleton.
+ */
+public class MetricsCommand extends ChatCommand {
+
+	public static final ChatCommand METRICS = new MetricsCommand();
+
+	private static final String RESET = "reset";
+	private static final int NAME_WIDTH = 30;
+
+	private MetricsCommand() {
+		super(TopLevel.SIMULATION_GROUP, "mt", "metrics", "Timings of the pulse; optional name prefix or 'reset'");
+		addRequiredRole(ConversationRole.EXPERT);
+	}
+
+	@Override
+	public boolean execute(Conversation context, String input) {
+		String prefix = (input != null ? input.trim() : "");
+		if (prefix.equalsIgnoreCase(RESET)) {
+			PulseMetrics.reset();
+			context.println("Metrics reset");
+			return true;
+		}
+
+		StructuredResponse response = new StructuredResponse();
+		response.appendTableHeading("Timer", NAME_WIDTH, "Count", 8, "Mean ms", "p50 ms",
+									"p99 ms", "Max ms");
+		for (PulseTimer t : PulseMetrics.getTimers()) {
+			if (t.getName().startsWith(prefix) && (t.getCount() > 0)) {
+				PulseTimer.Stats s = t.getStats();
+				response.appendTableRow(s.getName(), s.getCount(), s.getMeanMs(), s.getP50Ms(),
+										s.getP99Ms(), s.getMaxMs());
+			}
+		}
+
+		response.appendBlankLine();
+		response.appendTableHeading("Counter", NAME_WIDTH, "Value", 8);
+		for (Map.Entry<String, Long> c : PulseMetrics.getCounters().entrySet()) {
+			if (c.getKey().startsWith(prefix)) {
+				response.appendTableRow(c.getKey(), c.getValue());
+			}
+		}
+
+		if (!PulseMetrics.isEnabled()) {
+			response.appendText("Recording is disabled");
+		}
+
+		context.println(response.getOutput());
+		return true;
+	}
+}
@@ -30,6 +30,7 @@ public class TopLevel extends InteractiveChatCommand {
 																	ExpertCommand.EXPERT,
 																	EventCommand.EVENT,
 																	DiagnosticsCommand.DIAGNOSTICS,
+																	MetricsCommand.METRICS,
 																	
 																	// Admin commands
 																	new SaveCommand(),
@@ -33,6 +33,8 @@ class BacklogCommand extends AbstractSettlementCommand {
         StructuredResponse response = new StructuredResponse();
         response.appendLabeledString("Reuse ratio", String.format(CommandHelper.DOUBLE_FORMAT, stm.getReuseScore()));
         response.appendLabelledDigit("Tasks Executed", stm.getExecutedCount());
+        response.appendLabeledString("Score reuse ratio", String.format(CommandHelper.DOUBLE_FORMAT,
+                                                                    stm.getSharedScoreReuse()));
 
         List<SettlementTask> tasks = stm.getAvailableTasks();
         if (tasks != null) {
@@ -7,8 +7,6 @@
 package org.mars_sim.msp.core;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
@@ -24,11 +22,12 @@ import java.text.DateFormat;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.random.RandomGenerator;
 
 import org.mars_sim.msp.core.air.AirComposition;
 import org.mars_sim.msp.core.data.DataLogger;
@@ -66,6 +65,10 @@ import org.mars_sim.msp.core.person.health.MedicalManager;
 import org.mars_sim.msp.core.person.health.RadiationExposure;
 import org.mars_sim.msp.core.reportingAuthority.ReportingAuthorityFactory;
 import org.mars_sim.msp.core.resource.ResourceUtil;
+import org.mars_sim.msp.core.saving.DeltaSaveCodec;
+import org.mars_sim.msp.core.saving.SaveCodec;
+import org.mars_sim.msp.core.saving.SaveCodecFactory;
+import org.mars_sim.msp.core.saving.SaveSnapshot;
 import org.mars_sim.msp.core.science.ScientificStudy;
 import org.mars_sim.msp.core.science.ScientificStudyManager;
 import org.mars_sim.msp.core.science.ScientificStudyUtil;
@@ -85,6 +88,7 @@ import org.mars_sim.msp.core.time.MarsClock;
 import org.mars_sim.msp.core.time.MasterClock;
 import org.mars_sim.msp.core.time.SystemDateTime;
 import org.mars_sim.msp.core.tool.CheckSerializedSize;
+import org.mars_sim.msp.core.tool.RandomUtil;
 
 /**
  * The Simulation class is the primary singleton class in the MSP simulation.
@@ -95,6 +99,8 @@ public class Simulation implements ClockListener, Serializable {
 	private static class AutoSaveTrigger implements ClockListener {
 		private Simulation sim;
 		private SaveType type;
+		private long lastPauseTime;
+		private long lastWriteTime;
 		
 		public AutoSaveTrigger(Simulation sim, SaveType type) {
 			super();
@@ -112,6 +118,19 @@ public class Simulation implements ClockListener, Serializable {
 			// Set the pending save flag for an auto save
 			sim.savePending = type;
 		}
+
+		/**
+		 * Records the cost of the last autosave.
+		 * 
+		 * @param pauseTime Milliseconds the simulation was held still
+		 * @param writeTime Milliseconds taken to write the file
+		 */
+		void saveCompleted(long pauseTime, long writeTime) {
+			lastPauseTime = pauseTime;
+			lastWriteTime = writeTime;
+			logger.config("Autosave paused the simulation for " + pauseTime + " ms and took "
+						+ writeTime + " ms to write.");
+		}
 	}
 	
 	/** default serial id. */
@@ -165,7 +184,8 @@ public class Simulation implements ClockListener, Serializable {
 	/** Flag to keep track of whether the initial state of simulation has been initialized. */
 	private transient boolean doneInitializing = false;
 
-	private transient boolean justSaved = true;
+	/** Set by the autosave thread and read by the clock thread. */
+	private transient volatile boolean justSaved = true;
 
 	private transient boolean clockOnPause = false;
 
@@ -175,7 +195,19 @@ public class Simulation implements ClockListener, Serializable {
 	private Date lastSaveTimeStamp = null;
 	
 	/** Clock listener that triggers autosaving **/
-	private transient ClockListener autoSaveHandler;
+	private transient AutoSaveTrigger autoSaveHandler;
+	/** The format used to write save files. */
+	private transient SaveCodec saveCodec = SaveCodecFactory.getDefault();
+	/** Are autosaves captured in memory and written in the background ? */
+	private transient boolean snapshotAutoSave = true;
+	/** Writes the snapshots to disk. */
+	private transient ExecutorService snapshotWriter;
+	/** Size of the last snapshot; used to presize the next one. */
+	private transient int lastSnapshotSize = 0;
+	/** Writes autosaves as a base plus deltas; null for full autosaves. */
+	private transient DeltaSaveCodec deltaAutoSave = null;
+	/** Random draws made by the planet wide models in the pulse. */
+	private transient RandomGenerator randomStream;
 
 	// Intransient data members (stored in save file)
 	/** Planet Mars. */
@@ -706,7 +738,8 @@ public class Simulation implements ClockListener, Serializable {
 		long autoSaveDuration = simulationConfig.getAutosaveInterval() * 60000L;
 		logger.config("Adding autosave handled for every " + autoSaveDuration + "ms (" +
 				autoSaveDuration/60.0/1000.0 + " mins).");
-		masterClock.addClockListener(autoSaveHandler, autoSaveDuration);
+		// The pending save is picked up by the Simulation on the next pulse
+		masterClock.addClockListener(autoSaveHandler, autoSaveDuration, this);
 		masterClock.start();
 		
 		printLastSavedSol();
@@ -753,14 +786,14 @@ public class Simulation implements ClockListener, Serializable {
      */
     private void deserialize(File file) throws IOException, ClassNotFoundException {
 
-		FileInputStream in = null;
 	    ObjectInputStream ois = null;
 
 		try {
-			in = new FileInputStream(file);
+			SaveCodec codec = SaveCodecFactory.detect(file);
+			logger.config("Loading " + file.getName() + " using the " + codec.getName() + " save format.");
 
 			// Stream the file directly into the Object stream to reduce memory
-			ois = new ObjectInputStream(new GZIPInputStream(in));
+			ois = new ObjectInputStream(codec.openInput(file));
 
 			// Load remaining serialized objects
 			lastSaveTimeStamp = (Date) ois.readObject();
@@ -779,13 +812,13 @@ public class Simulation implements ClockListener, Serializable {
 			UnitSet.reinit(unitManager);
 
 		} catch (ClassNotFoundException e) {
-			logger.log(Level.SEVERE, ois.getClass().getSimpleName() + ": Can't find class when loading " + file + " : " + e.getMessage());
+			logger.log(Level.SEVERE, "ObjectInputStream: Can't find class when loading " + file + " : " + e.getMessage());
 
 		} catch (ObjectStreamException e) {
-			logger.log(Level.SEVERE, ois.getClass().getSimpleName() + ": Can't read object stream when loading " + file + " : " + e.getMessage());
+			logger.log(Level.SEVERE, "ObjectInputStream: Can't read object stream when loading " + file + " : " + e.getMessage());
 	
 		} catch (IOException e) {
-			logger.log(Level.SEVERE, ois.getClass().getSimpleName() + ": Input/Output problem when loading " + file + " : ", e.getMessage()); 
+			logger.log(Level.SEVERE, "ObjectInputStream: Input/Output problem when loading " + file + " : " + e.getMessage()); 
 
 		} catch (Exception e) {
 			logger.log(Level.SEVERE, "Cannot deserialize : " + e.getMessage());
@@ -795,10 +828,6 @@ public class Simulation implements ClockListener, Serializable {
 			if (ois != null) {
 				ois.close();
 			}
-
-			if (in != null) {
-				in.close();
-			}
 		}
     }
 
@@ -891,6 +920,7 @@ public class Simulation implements ClockListener, Serializable {
 	 * @param callback
 	 */
 	private synchronized void saveSimulation(SaveType type, File file, SimulationListener callback) {
+		long pauseStart = System.currentTimeMillis();
 
 		// Checks to see if the simulation is on pause
 		boolean isAlreadyPaused = masterClock.isPaused();
@@ -964,10 +994,18 @@ public class Simulation implements ClockListener, Serializable {
 			file.getParentFile().mkdirs();
 		}
 
-		boolean success = checkHeapSizeSerialize(type, file, srcPath, destPath);
-			
-		if (callback != null) {
-			callback.eventPerformed(success ? SimulationListener.SAVE_COMPLETED : SimulationListener.SAVE_FAILED);
+		boolean isSnapshot = snapshotAutoSave
+					&& (type == SaveType.AUTOSAVE || type == SaveType.AUTOSAVE_AS_DEFAULT);
+		if (isSnapshot) {
+			// Only the capture holds the simulation; the file is written in the background
+			saveSnapshot(type, file, srcPath, destPath, callback, pauseStart);
+		}
+		else {
+			boolean success = checkHeapSizeSerialize(type, file, srcPath, destPath);
+				
+			if (callback != null) {
+				callback.eventPerformed(success ? SimulationListener.SAVE_COMPLETED : SimulationListener.SAVE_FAILED);
+			}
 		}
 
 		// Restarts the master clock and adds back the Simulation clock listener
@@ -975,6 +1013,180 @@ public class Simulation implements ClockListener, Serializable {
 			masterClock.setPaused(false, false);
 		
 		masterClock.restart();
+
+		if (!isSnapshot) {
+			long saveTime = System.currentTimeMillis() - pauseStart;
+			reportSaveTimes(type, saveTime, saveTime);
+		}
+	}
+
+	/**
+	 * Captures the simulation into memory and hands it to the background writer.
+	 * 
+	 * @param type
+	 * @param file
+	 * @param srcPath Location of the backup save, may be null
+	 * @param destPath Location of the previous save, may be null
+	 * @param callback
+	 * @param pauseStart When the simulation was paused
+	 */
+	private void saveSnapshot(SaveType type, File file, Path srcPath, Path destPath,
+							SimulationListener callback, long pauseStart) {
+		SaveSnapshot snapshot = null;
+		try {
+			snapshot = SaveSnapshot.capture(this::writeState, lastSnapshotSize);
+		}
+		catch (IOException e) {
+			logger.log(Level.SEVERE, Msg.getString("Simulation.log.saveError"), e); //$NON-NLS-1$
+			restoreBackup(srcPath, destPath);
+			if (callback != null) {
+				callback.eventPerformed(SimulationListener.SAVE_FAILED);
+			}
+			return;
+		}
+
+		long pauseTime = System.currentTimeMillis() - pauseStart;
+		lastSnapshotSize = snapshot.getSize();
+		logger.config("Captured a snapshot of " + formatSize(snapshot.getSize()) + " in "
+					+ snapshot.getCaptureTime() + " ms. The simulation resumes.");
+
+		final SaveSnapshot toWrite = snapshot;
+		getSnapshotWriter().execute(() -> {
+			long writeStart = System.currentTimeMillis();
+			boolean success = writeSnapshot(type, file, srcPath, destPath, toWrite);
+			long writeTime = System.currentTimeMillis() - writeStart;
+
+			if (callback != null) {
+				callback.eventPerformed(success ? SimulationListener.SAVE_COMPLETED : SimulationListener.SAVE_FAILED);
+			}
+			reportSaveTimes(type, pauseTime, writeTime);
+		});
+	}
+
+	/**
+	 * Writes a captured snapshot to the save file.
+	 * 
+	 * @return Was the write successful
+	 */
+	private boolean writeSnapshot(SaveType type, File file, Path srcPath, Path destPath,
+								SaveSnapshot snapshot) {
+		boolean success = false;
+		try {
+			snapshot.writeTo(getSaveCodec(type), file);
+			logger.config("           File size: " + computeFileSize(file));
+			success = true;
+
+			if (type == SaveType.AUTOSAVE) {
+				// Purge old auto backups
+				purgeAutoSaves();
+			}
+		}
+		catch (IOException e) {
+			logger.log(Level.SEVERE, Msg.getString("Simulation.log.saveError"), e); //$NON-NLS-1$
+			discardFailedSave(file, srcPath, destPath);
+		}
+		finally {
+			justSaved = true;
+		}
+		return success;
+	}
+
+	/**
+	 * Gets the single thread that writes snapshots so they reach the disk in order.
+	 */
+	private synchronized ExecutorService getSnapshotWriter() {
+		if (snapshotWriter == null) {
+			snapshotWriter = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, "save-writer");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return snapshotWriter;
+	}
+
+	/**
+	 * Waits for any snapshot still being written.
+	 */
+	private synchronized void finishSnapshotWrites() {
+		if (snapshotWriter != null) {
+			snapshotWriter.shutdown();
+			try {
+				if (!snapshotWriter.awaitTermination(60, TimeUnit.SECONDS)) {
+					logger.warning("Timed out waiting for the save to be written.");
+				}
+			} catch (InterruptedException e) {
+				logger.log(Level.SEVERE, "Interrupted waiting for the save to be written.");
+				Thread.currentThread().interrupt();
+			}
+			snapshotWriter = null;
+		}
+	}
+
+	/**
+	 * Deletes what a failed save wrote so it cannot be mistaken for a complete save, then
+	 * puts back the previous default save.
+	 * 
+	 * @param file The failed save
+	 * @param srcPath Location of the save
+	 * @param destPath Location of the backup
+	 */
+	private static void discardFailedSave(File file, Path srcPath, Path destPath) {
+		try {
+			Files.deleteIfExists(file.toPath());
+		}
+		catch (IOException ioe) {
+			logger.severe("Problem deleting the incomplete save " + file + " " + ioe.getMessage());
+		}
+		restoreBackup(srcPath, destPath);
+	}
+
+	/**
+	 * Puts back the previous default save after a failed save.
+	 * 
+	 * @param srcPath Location of the save
+	 * @param destPath Location of the backup
+	 */
+	private static void restoreBackup(Path srcPath, Path destPath) {
+		if ((srcPath != null) && (destPath != null) && Files.exists(destPath)) {
+			try {
+				Files.move(destPath, srcPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (IOException ioe) {
+				logger.severe("Problem restoring the previous save " + ioe.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Gets the codec to write a type of save.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	private SaveCodec getSaveCodec(SaveType type) {
+		if ((deltaAutoSave != null) && (type == SaveType.AUTOSAVE)) {
+			return deltaAutoSave;
+		}
+		return saveCodec;
+	}
+
+	/**
+	 * Purges the old autosaves but keeps the files the latest delta save needs.
+	 */
+	private void purgeAutoSaves() {
+		List<File> needed = (deltaAutoSave != null ? deltaAutoSave.getChainFiles() : List.of());
+		SimulationFiles.purgeAutoSave(simulationConfig.getNumberAutoSaves(), SAVE_FILE_EXTENSION, needed);
+	}
+
+	/**
+	 * Passes the cost of an autosave to the trigger.
+	 */
+	private void reportSaveTimes(SaveType type, long pauseTime, long writeTime) {
+		if ((autoSaveHandler != null)
+				&& (type == SaveType.AUTOSAVE || type == SaveType.AUTOSAVE_AS_DEFAULT)) {
+			autoSaveHandler.saveCompleted(pauseTime, writeTime);
+		}
 	}
 
 	private boolean checkHeapSizeSerialize(SaveType type, File file, Path  srcPath, Path destPath) {
@@ -995,7 +1207,7 @@ public class Simulation implements ClockListener, Serializable {
 
 			if (sucessful && (type == SaveType.AUTOSAVE)) {
 				// Purge old auto backups
-				SimulationFiles.purgeAutoSave(simulationConfig.getNumberAutoSaves(), SAVE_FILE_EXTENSION);
+				purgeAutoSaves();
 			}
 		}
 		catch (IOException ioe) {
@@ -1040,26 +1252,15 @@ public class Simulation implements ClockListener, Serializable {
     private boolean serialize(SaveType type, File file, Path srcPath, Path destPath)
             throws IOException {
 		boolean success = false;
-	    ObjectOutputStream oos = new ObjectOutputStream(
-	    			new GZIPOutputStream(new FileOutputStream(file)));
+		SaveCodec codec = getSaveCodec(type);
+		logger.config("Saving using the " + codec.getName() + " save format.");
+	    ObjectOutputStream oos = new ObjectOutputStream(codec.openOutput(file));
 		try {
 
 			// Set a delay for 500 millis to avoid java.util.ConcurrentModificationException
 			delay(500L);
 
-			// Store the in-transient objects.
-			oos.writeObject(lastSaveTimeStamp);
-			oos.writeObject(malfunctionFactory);
-			oos.writeObject(orbitInfo);
-			oos.writeObject(weather);
-			oos.writeObject(surfaceFeatures);		
-			oos.writeObject(missionManager);
-			oos.writeObject(medicalManager);
-			oos.writeObject(scientificStudyManager);
-			oos.writeObject(eventManager);
-			oos.writeObject(transportManager);
-			oos.writeObject(unitManager);
-			oos.writeObject(masterClock);
+			writeState(oos);
 
 			oos.flush();
 			oos.close();
@@ -1078,26 +1279,22 @@ public class Simulation implements ClockListener, Serializable {
 		} catch (IOException e0) {
 			logger.log(Level.SEVERE, oos.getClass().getSimpleName() + ": " + Msg.getString("Simulation.log.saveError"), e0); //$NON-NLS-1$
 
-			if ((type == SaveType.AUTOSAVE_AS_DEFAULT || type == SaveType.SAVE_DEFAULT) 
-				&& file.exists() && !file.isDirectory()) {
-				// Backup the existing default.sim
-				Files.move(destPath, srcPath, StandardCopyOption.REPLACE_EXISTING);
-			}
-
 		} catch (Exception e) {
 			logger.log(Level.SEVERE, oos.getClass().getSimpleName() + ": " + Msg.getString("Simulation.log.saveError"), e); //$NON-NLS-1$
-
-			if ((type == SaveType.AUTOSAVE_AS_DEFAULT || type == SaveType.SAVE_DEFAULT)
-				&& file.exists() && !file.isDirectory()) {
-				// backup the existing default.sim
-				Files.move(destPath, srcPath, StandardCopyOption.REPLACE_EXISTING);
-			}
 		}
 
 		finally {
 
-			if (oos != null)
-				oos.close();
+			if (!success) {
+				// The stream may still write a complete header so close it before deleting
+				try {
+					oos.close();
+				}
+				catch (IOException e) {
+					// Already failed
+				}
+				discardFailedSave(file, srcPath, destPath);
+			}
 
 			justSaved = true;
 		}
@@ -1105,6 +1302,27 @@ public class Simulation implements ClockListener, Serializable {
 		return success;
     }
 
+	/**
+	 * Writes the in-transient objects to the stream.
+	 * 
+	 * @param oos
+	 * @throws IOException
+	 */
+	private void writeState(ObjectOutputStream oos) throws IOException {
+		oos.writeObject(lastSaveTimeStamp);
+		oos.writeObject(malfunctionFactory);
+		oos.writeObject(orbitInfo);
+		oos.writeObject(weather);
+		oos.writeObject(surfaceFeatures);		
+		oos.writeObject(missionManager);
+		oos.writeObject(medicalManager);
+		oos.writeObject(scientificStudyManager);
+		oos.writeObject(eventManager);
+		oos.writeObject(transportManager);
+		oos.writeObject(unitManager);
+		oos.writeObject(masterClock);
+	}
+
 	/**
 	 * Prints the object and its size.
 	 * 
@@ -1237,6 +1455,8 @@ public class Simulation implements ClockListener, Serializable {
 		logger.log(Level.CONFIG, "Exiting the simulation. Good Bye !");
 
 		instance().stop();
+		// Let a background save reach the disk
+		finishSnapshotWrites();
 		// Ends the clock listener executor in master clock
 		if (masterClock != null)
 			masterClock.shutdown();
@@ -1342,6 +1562,63 @@ public class Simulation implements ClockListener, Serializable {
 		return masterClock;
 	}
 
+	/**
+	 * Sets the format used to write save files. Loading detects the format
+	 * of the file.
+	 *
+	 * @param codec
+	 */
+	public void setSaveCodec(SaveCodec codec) {
+		saveCodec = codec;
+	}
+
+	/**
+	 * Gets the format used to write save files.
+	 *
+	 * @return
+	 */
+	public SaveCodec getSaveCodec() {
+		return saveCodec;
+	}
+
+	/**
+	 * Sets autosaves to write a full base save followed by delta saves that only hold
+	 * what has changed. The chain is compacted into a new base after a number of deltas.
+	 *
+	 * @param maxDeltas Deltas written before a new base; zero writes full autosaves
+	 */
+	public void setDeltaAutoSave(int maxDeltas) {
+		deltaAutoSave = (maxDeltas > 0 ? new DeltaSaveCodec(maxDeltas) : null);
+	}
+
+	/**
+	 * Sets whether autosaves capture the simulation in memory and write it in the
+	 * background rather than holding the clock for the whole save.
+	 *
+	 * @param snapshot
+	 */
+	public void setSnapshotAutoSave(boolean snapshot) {
+		snapshotAutoSave = snapshot;
+	}
+
+	/**
+	 * Gets how long the last autosave held the simulation still.
+	 *
+	 * @return Milliseconds
+	 */
+	public long getAutoSavePauseTime() {
+		return (autoSaveHandler != null ? autoSaveHandler.lastPauseTime : 0L);
+	}
+
+	/**
+	 * Gets how long the last autosave took to write to disk.
+	 *
+	 * @return Milliseconds
+	 */
+	public long getAutoSaveWriteTime() {
+		return (autoSaveHandler != null ? autoSaveHandler.lastWriteTime : 0L);
+	}
+
 	/**
 	 * Sets if simulation was loaded with GUI.
 	 *
@@ -1400,16 +1677,26 @@ public class Simulation implements ClockListener, Serializable {
 		if (doneInitializing && !clockOnPause) {
 			// Refresh all Data loggers; this can be refactored later to a Manager class
 			DataLogger.changeTime(pulse.getMasterClock().getMarsTime());
-			
-			orbitInfo.timePassing(pulse);
 
-			weather.timePassing(pulse);
+			// Key of -1 does not clash with a Unit identifier
+			if (randomStream == null) {
+				randomStream = RandomUtil.createStream(-1);
+			}
+			RandomGenerator previousStream = RandomUtil.bindStream(randomStream);
+			try {
+				orbitInfo.timePassing(pulse);
+
+				weather.timePassing(pulse);
 
-			surfaceFeatures.timePassing(pulse);
+				surfaceFeatures.timePassing(pulse);
 
-			unitManager.timePassing(pulse);
+				unitManager.timePassing(pulse);
 
-			transportManager.timePassing(pulse);
+				transportManager.timePassing(pulse);
+			}
+			finally {
+				RandomUtil.bindStream(previousStream);
+			}
 			
 			// Pending save
 			if (savePending != null) {
@@ -25,6 +25,8 @@ import org.mars_sim.msp.core.logging.DiagnosticsManager;
 import org.mars_sim.msp.core.person.Crew;
 import org.mars_sim.msp.core.person.CrewConfig;
 import org.mars_sim.msp.core.reportingAuthority.ReportingAuthority;
+import org.mars_sim.msp.core.saving.SaveCodec;
+import org.mars_sim.msp.core.saving.SaveCodecFactory;
 import org.mars_sim.msp.core.structure.InitialSettlement;
 import org.mars_sim.msp.core.structure.SettlementBuilder;
 import org.mars_sim.msp.core.structure.SettlementConfig;
@@ -46,6 +48,9 @@ public class SimulationBuilder {
 	private static final String CREW_ARG = "crew";
 	private static final String DIAGNOSTICS_ARG = "diags";
 	private static final String SCENARIO_ARG = "scenario";
+	private static final String SAVECODEC_ARG = "savecodec";
+	private static final String DELTASAVE_ARG = "deltasave";
+	private static final String SEED_ARG = "seed";
 	private static final String WHITESPACES = "---------------------------------------------------";
 	
 	private static final Logger logger = Logger.getLogger(SimulationBuilder.class.getName());
@@ -60,6 +65,9 @@ public class SimulationBuilder {
 	private boolean useCrews = true;
 	private UserConfigurableConfig<Crew> crewConfig;
 	private Scenario bootstrap;
+	private SaveCodec saveCodec = null;
+	private int maxDeltaSaves = 0;
+	private Long seed = null;
 
 	public SimulationBuilder() {
 		super();
@@ -126,6 +134,33 @@ public class SimulationBuilder {
 		}
 	}
 	
+	/**
+	 * Sets the format used to write save files.
+	 * 
+	 * @param name Name of the save codec
+	 */
+	public void setSaveCodec(String name) {
+		saveCodec = SaveCodecFactory.getCodec(name);
+	}
+
+	/**
+	 * Sets autosaves to be written as a base followed by deltas.
+	 * 
+	 * @param maxDeltas Number of deltas before a new base
+	 */
+	public void setDeltaSaves(int maxDeltas) {
+		maxDeltaSaves = maxDeltas;
+	}
+
+	/**
+	 * Sets the master seed of the random streams so a run can be repeated.
+	 * 
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
 	/**
 	 * Reload a previous simulation
 	 * @param filename
@@ -191,6 +226,13 @@ public class SimulationBuilder {
 				.desc("Enable or disable use of the crews").build());	
 		options.add(Option.builder(DIAGNOSTICS_ARG).argName("<module>,<module>.....").hasArg().optionalArg(false)
 				.desc("Enable diagnositics modules").build());	
+		options.add(Option.builder(SAVECODEC_ARG).argName(String.join("|", SaveCodecFactory.getNames()))
+				.hasArg().optionalArg(false)
+				.desc("Set the format of the save files").build());
+		options.add(Option.builder(DELTASAVE_ARG).argName("max deltas").hasArg().optionalArg(false)
+				.desc("Autosave changes as deltas on a base save").build());
+		options.add(Option.builder(SEED_ARG).argName("seed").hasArg().optionalArg(false)
+				.desc("Set the random seed to repeat a run").build());
 		return options;
 	}
 
@@ -231,6 +273,15 @@ public class SimulationBuilder {
 		if (line.hasOption(DIAGNOSTICS_ARG)) {
 			setDiagnostics(line.getOptionValue(DIAGNOSTICS_ARG));
 		}		
+		if (line.hasOption(SAVECODEC_ARG)) {
+			setSaveCodec(line.getOptionValue(SAVECODEC_ARG));
+		}
+		if (line.hasOption(DELTASAVE_ARG)) {
+			setDeltaSaves(Integer.parseInt(line.getOptionValue(DELTASAVE_ARG)));
+		}
+		if (line.hasOption(SEED_ARG)) {
+			setSeed(Long.parseLong(line.getOptionValue(SEED_ARG)));
+		}
 	}
 
 	/**
@@ -266,7 +317,40 @@ public class SimulationBuilder {
 	 * @return The new simulation started
 	 */
 	public Simulation start() {
+		Simulation sim = build();
+
+		while (true) {
+	        try {
+				TimeUnit.MILLISECONDS.sleep(1000);
+				if (!sim.isUpdating()) {
+					logger.config("Starting the Master Clock...");		
+					sim.startClock(false);
+					break;
+				}
+	        } catch (InterruptedException e) {
+				logger.log(Level.WARNING, "Trouble starting Main Window. ", e); 
+				// Restore interrupted state...
+			    Thread.currentThread().interrupt();
+	        }
+		}
+
+		return sim;
+	}
+
+	/**
+	 * Uses the previously defines options to create or load the required Simulation
+	 * but does not start the clock.
+	 * 
+	 * @return The new simulation ready to run
+	 */
+	public Simulation build() {
 		
+		// Seed before anything draws a random number
+		if (seed != null) {
+			RandomUtil.setSeed(seed);
+		}
+		logger.config("Random seed is " + RandomUtil.getSeed());
+
 		// Load xml files but not until arguments parsed since it may change 
 		// the data directory
 		SimulationConfig simConfig = SimulationConfig.instance();
@@ -277,6 +361,10 @@ public class SimulationBuilder {
 //		simConfig.createStorageManager().start();
 		
 		Simulation sim = Simulation.instance();
+		if (saveCodec != null) {
+			sim.setSaveCodec(saveCodec);
+		}
+		sim.setDeltaAutoSave(maxDeltaSaves);
 			
 		boolean loaded = false;
 		if (simFile != null) {
@@ -321,22 +409,6 @@ public class SimulationBuilder {
 			sim.getTransportManager().init(sim);
 		}
 
-		while (true) {
-	        try {
-				TimeUnit.MILLISECONDS.sleep(1000);
-				if (!sim.isUpdating()) {
-					logger.config("Starting the Master Clock...");		
-					sim.startClock(false);
-					break;
-				}
-	        } catch (InterruptedException e) {
-				logger.log(Level.WARNING, "Trouble starting Main Window. ", e); 
-				// Restore interrupted state...
-			    Thread.currentThread().interrupt();
-	        }
-		}
-
-		
 		return sim;
 	}
 
@@ -122,6 +122,8 @@ public class SimulationConfig implements Serializable {
 	private static final String DEFAULT_TIME_PULSE = "default-time-pulse";
 	private static final String BASE_TIME_RATIO = "base-time-ratio";
 	private static final String DEFAULT_UNUSEDCORES = "unused-cores";
+	private static final String LISTENER_DISPATCH = "listener-dispatch";
+	private static final String LISTENER_TIMEOUT = "listener-timeout";
 
 	private static final String MISSION_CONFIGURATION = "mission-configuration";
 	private static final String EVA_LIGHT = "min-eva-light";
@@ -140,6 +142,8 @@ public class SimulationConfig implements Serializable {
 	private int numberOfAutoSaves = 0;
 	private int averageTransitTime = 0;
 	private int unusedCores = 0;	
+	private MasterClock.ListenerDispatch listenerDispatch = MasterClock.ListenerDispatch.SEQUENTIAL;
+	private int listenerTimeout = 30000;
 	private transient boolean loaded = false;
 	
 	/*
@@ -254,6 +258,19 @@ public class SimulationConfig implements Serializable {
 		averageTransitTime = loadIntValue(timeConfig, AVERAGE_TRANSIT_TIME, 0, 430);
 		autosaveInterval = loadIntValue(timeConfig, AUTOSAVE_INTERVAL, 1, 360);
 		numberOfAutoSaves = loadIntValue(timeConfig, AUTOSAVE_NUMBER, 1, 100);
+		// The clock listener settings are optional so older files still load
+		if (timeConfig.getChild(LISTENER_DISPATCH) != null) {
+			String dispatch = loadValue(timeConfig, LISTENER_DISPATCH);
+			try {
+				listenerDispatch = MasterClock.ListenerDispatch.valueOf(dispatch.toUpperCase());
+			}
+			catch (IllegalArgumentException iae) {
+				throw new IllegalStateException(LISTENER_DISPATCH + " must be sequential or parallel : " + dispatch);
+			}
+		}
+		if (timeConfig.getChild(LISTENER_TIMEOUT) != null) {
+			listenerTimeout = loadIntValue(timeConfig, LISTENER_TIMEOUT, 1, 600_000);
+		}
 
 		// LOad MIssion Types
 		Element missionConfig = root.getChild(MISSION_CONFIGURATION);
@@ -597,6 +614,25 @@ public class SimulationConfig implements Serializable {
 		return unusedCores;
 	}
 
+	/**
+	 * Gets how the clock listeners are dispatched on each pulse.
+	 * 
+	 * @return
+	 */
+	public MasterClock.ListenerDispatch getListenerDispatch() {
+		return listenerDispatch;
+	}
+
+	/**
+	 * Gets the maximum time a clock listener can take to process a pulse
+	 * in the parallel dispatch.
+	 * 
+	 * @return Timeout in milliseconds
+	 */
+	public int getListenerTimeout() {
+		return listenerTimeout;
+	}
+
 	/**
 	 * The the minimum light needed for EVAs.
 	 * 
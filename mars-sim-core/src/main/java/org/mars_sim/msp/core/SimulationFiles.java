@@ -7,10 +7,16 @@
 package org.mars_sim.msp.core;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.mars_sim.msp.common.FileLocator;
+import org.mars_sim.msp.core.saving.DeltaSaveCodec;
 
 /**
  * A singleton that controls where the simulation files reside on the file system.
@@ -74,10 +80,51 @@ public class SimulationFiles {
 	 * Purges any old same simulation files from auto save dir.
 	 */
     public static void purgeAutoSave(int retainedCount, String saveFileExtension) {
-		File[] files = (new File(getAutoSaveDir())).listFiles((d, name) -> name.endsWith(saveFileExtension));
+		purgeAutoSave(retainedCount, saveFileExtension, List.of());
+    }
+
+    /**
+     * Purges the old autosave files but never the ones needed by the latest save.
+     * 
+     * @param retainedCount Number of files to retain
+     * @param saveFileExtension Extension of the save files
+     * @param needed Files that must be kept regardless of age
+     */
+    public static void purgeAutoSave(int retainedCount, String saveFileExtension, Collection<File> needed) {
+		purgeSaves(new File(getAutoSaveDir()), retainedCount, saveFileExtension, needed);
+    }
+
+    /**
+     * Purges the old save files of a folder. A file that a retained delta save refers to
+     * is kept as well so every retained save can still be loaded.
+     * 
+     * @param dir Folder of the saves
+     * @param retainedCount Number of files to retain
+     * @param saveFileExtension Extension of the save files
+     * @param needed Files that must be kept regardless of age
+     */
+    static void purgeSaves(File dir, int retainedCount, String saveFileExtension, Collection<File> needed) {
+		File[] files = dir.listFiles((d, name) -> name.endsWith(saveFileExtension));
+		if (files == null) {
+			return;
+		}
 		Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
 
+		Set<File> keep = new HashSet<>();
+		needed.forEach(f -> keep.add(f.getAbsoluteFile()));
+		for (int i = 0; i < Math.min(retainedCount, files.length); i++) {
+			try {
+				DeltaSaveCodec.getReferencedFiles(files[i]).forEach(f -> keep.add(f.getAbsoluteFile()));
+			}
+			catch (IOException e) {
+				System.err.println("Failed to read the chain of sim file " + files[i]);
+			}
+		}
+
 		for (int i = retainedCount; i < files.length; i++) {
+			if (keep.contains(files[i].getAbsoluteFile())) {
+				continue;
+			}
 			try {
 				if (!files[i].delete())
 					System.err.println("Failed to delete old sim file " + files[i]);
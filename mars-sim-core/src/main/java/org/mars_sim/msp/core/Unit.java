@@ -9,8 +9,9 @@ package org.mars_sim.msp.core;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.io.Serializable;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.random.RandomGenerator;
 
 import org.mars_sim.msp.core.environment.Weather;
 import org.mars_sim.msp.core.location.LocationStateType;
@@ -24,6 +25,7 @@ import org.mars_sim.msp.core.time.ClockPulse;
 import org.mars_sim.msp.core.time.MarsClock;
 import org.mars_sim.msp.core.time.MarsClockFormat;
 import org.mars_sim.msp.core.time.MasterClock;
+import org.mars_sim.msp.core.tool.RandomUtil;
 import org.mars_sim.msp.core.vehicle.Vehicle;
 
 /**
@@ -68,8 +70,10 @@ public abstract class Unit implements Serializable, Loggable, UnitIdentifer, Com
 
 	/** The unit's current location state. */
 	protected LocationStateType currentStateType;
-	/** Unit listeners. */
-	private transient Set<UnitListener> listeners;
+	/** Unit listeners; copied on write so firing an event takes no lock. */
+	private transient volatile Set<UnitListener> listeners;
+	/** Random draws made while this Unit is updated. */
+	private transient RandomGenerator randomStream;
 
 	protected static SimulationConfig simulationConfig = SimulationConfig.instance();
 
@@ -569,16 +573,30 @@ public abstract class Unit implements Serializable, Loggable, UnitIdentifer, Com
 		return baseMass;
 	}
 	
+	/**
+	 * Gets the random stream used while this Unit is updated. It is derived from the
+	 * master seed and the identifier so it is the same whichever thread runs the Unit.
+	 * 
+	 * @return
+	 */
+	public RandomGenerator getRandomStream() {
+		if (randomStream == null) {
+			randomStream = RandomUtil.createStream(getIdentifier());
+		}
+		return randomStream;
+	}
+
 	/**
 	 * Checks if it has a unit listener.
 	 * 
 	 * @param listener
 	 * @return
 	 */
-	public synchronized boolean hasUnitListener(UnitListener listener) {
-		if (listeners == null)
+	public boolean hasUnitListener(UnitListener listener) {
+		Set<UnitListener> current = listeners;
+		if (current == null)
 			return false;
-		return listeners.contains(listener);
+		return current.contains(listener);
 	}
 
 	/**
@@ -589,12 +607,15 @@ public abstract class Unit implements Serializable, Loggable, UnitIdentifer, Com
 	public synchronized final void addUnitListener(UnitListener newListener) {
 		if (newListener == null)
 			throw new IllegalArgumentException();
-		if (listeners == null)
-			listeners = new HashSet<>();
+		// Only created under the lock; the volatile write publishes the new set
+		Set<UnitListener> current = listeners;
+		if (current == null) {
+			current = new CopyOnWriteArraySet<>();
+			listeners = current;
+		}
 
-		synchronized(listeners) {	
-			//logger.info(this, "Add listeners #" + listeners.size() + " " + newListener.toString());
-			listeners.add(newListener);
+		if (current.add(newListener)) {
+			UnitEventDispatcher.register(newListener);
 		}
 	}
 
@@ -607,11 +628,9 @@ public abstract class Unit implements Serializable, Loggable, UnitIdentifer, Com
 		if (oldListener == null)
 			throw new IllegalArgumentException();
 
-		if (listeners != null) {
-			synchronized(listeners) {
-				//logger.info(this, "Remove listeners #" + listeners.size() + " " + oldListener.toString());
-				listeners.remove(oldListener);
-			}
+		Set<UnitListener> current = listeners;
+		if ((current != null) && current.remove(oldListener)) {
+			UnitEventDispatcher.unregister(oldListener);
 		}
 	}
 
@@ -625,28 +644,19 @@ public abstract class Unit implements Serializable, Loggable, UnitIdentifer, Com
 	}
 
 	/**
-	 * Fires a unit update event.
+	 * Fires a unit update event. The listeners are normally called later on
+	 * another thread.
 	 *
 	 * @param updateType the update type.
 	 * @param target     the event target object or null if none.
+	 * @see UnitEventDispatcher
 	 */
 	public final void fireUnitUpdate(UnitEventType updateType, Object target) {
-		if (listeners == null || listeners.isEmpty()) {
+		Set<UnitListener> current = listeners;
+		if (current == null || current.isEmpty()) {
 			return;
 		}
-		final UnitEvent ue = new UnitEvent(this, updateType, target);
-		synchronized (listeners) {
-			for(UnitListener i : listeners) {
-				try {
-					// Stop listeners breaking th update thread
-					i.unitUpdate(ue);
-				}
-				catch(RuntimeException rte) {
-					logger.warning(this, "Problem executing listener " + i + " for event " + ue
-									+ " due to " + rte.getMessage());
-				}
-			}
-		}
+		UnitEventDispatcher.dispatch(new UnitEvent(this, updateType, target), current);
 	}
 
 	public LocationStateType getLocationStateType() {
@@ -853,7 +863,12 @@ public abstract class Unit implements Serializable, Loggable, UnitIdentifer, Com
 		location = null;
 		name = null;
 		description = null;
-		listeners = null;
+		synchronized (this) {
+			if (listeners != null) {
+				listeners.forEach(UnitEventDispatcher::unregister);
+				listeners = null;
+			}
+		}
 	}
 
 }
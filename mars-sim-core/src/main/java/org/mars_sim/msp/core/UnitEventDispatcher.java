@@ -0,0 +1,275 @@
+/*
+ * Mars Simulation Project
+ * UnitEventDispatcher.java
+ * @date 2023-07-17
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mars_sim.msp.core.logging.SimLogger;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Delivers UnitEvents to the UnitListeners. By default the events are not delivered
+ * on the thread that fired them; instead each listener has a mailbox that is drained
+ * on a small pool of consumer threads. An event replaces any undelivered event of the
+ * same Unit, type and target so a listener only sees the latest change, and each
+ * listener is only called by one consumer at a time. Events that add or remove a Unit
+ * are never replaced and are delivered in the order fired. No event is dropped; when
+ * a mailbox is full the firing thread waits for the listener to catch up.
+ * The synchronous mode delivers on the firing thread and is intended for tests.
+ */
+public final class UnitEventDispatcher {
+
+	private static final SimLogger logger = SimLogger.getLogger(UnitEventDispatcher.class.getName());
+
+	/** Consumer threads delivering the events. */
+	private static final int CONSUMERS = 2;
+
+	/** Default number of undelivered events a mailbox holds before the poster waits. */
+	private static final int DEFAULT_CAPACITY = 10_000;
+
+	/** How long a poster waits for a full mailbox before warning again. */
+	private static final long FULL_WAIT = 1_000L;
+
+	/** Events that add or remove a Unit; each one must be delivered. */
+	private static final Set<UnitEventType> ORDERED = EnumSet.of(
+			UnitEventType.INVENTORY_STORING_UNIT_EVENT,
+			UnitEventType.INVENTORY_RETRIEVING_UNIT_EVENT,
+			UnitEventType.ADD_ASSOCIATED_PERSON_EVENT,
+			UnitEventType.REMOVE_ASSOCIATED_PERSON_EVENT,
+			UnitEventType.ADD_ASSOCIATED_ROBOT_EVENT,
+			UnitEventType.REMOVE_ASSOCIATED_ROBOT_EVENT,
+			UnitEventType.ADD_ASSOCIATED_EQUIPMENT_EVENT,
+			UnitEventType.REMOVE_ASSOCIATED_EQUIPMENT_EVENT);
+
+	/**
+	 * Identifies events that can be coalesced. The source is compared by identity as
+	 * the Unit hash code has a narrow range.
+	 */
+	private static final class EventKey {
+
+		private final Object source;
+		private final UnitEventType type;
+		private final Object target;
+
+		EventKey(UnitEvent event) {
+			this.source = event.getSource();
+			this.type = event.getType();
+			this.target = event.getTarget();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof EventKey k) && (k.source == source) && (k.type == type)
+						&& Objects.equals(k.target, target);
+		}
+
+		@Override
+		public int hashCode() {
+			return (((System.identityHashCode(source) * 31) + type.ordinal()) * 31) + Objects.hashCode(target);
+		}
+	}
+
+	/**
+	 * The undelivered events of one listener.
+	 */
+	private static class Mailbox implements Runnable {
+
+		private UnitListener listener;
+		private int registrations = 0;
+		/** Holds an EventKey for an event that can be replaced, otherwise the UnitEvent. */
+		private Queue<Object> queue = new ConcurrentLinkedQueue<>();
+		private AtomicInteger size = new AtomicInteger(0);
+		private Map<EventKey, UnitEvent> latest = new ConcurrentHashMap<>();
+		private AtomicBoolean scheduled = new AtomicBoolean(false);
+
+		Mailbox(UnitListener listener) {
+			this.listener = listener;
+		}
+
+		void post(UnitEvent event) {
+			if (ORDERED.contains(event.getType())) {
+				waitForSpace(event);
+				size.incrementAndGet();
+				queue.add(event);
+			}
+			else {
+				EventKey key = new EventKey(event);
+				if (latest.put(key, event) == null) {
+					// New key so it needs a place in the queue
+					waitForSpace(event);
+					size.incrementAndGet();
+					queue.add(key);
+				}
+			}
+
+			if (scheduled.compareAndSet(false, true)) {
+				consumers.execute(this);
+			}
+		}
+
+		/**
+		 * Waits while the mailbox is full. A consumer thread never waits as it may be
+		 * the one that has to drain the mailbox; it can overfill it instead.
+		 * 
+		 * @param event Event being posted
+		 */
+		private void waitForSpace(UnitEvent event) {
+			if (consumerThread.get() || (size.get() < capacity)) {
+				return;
+			}
+
+			synchronized (this) {
+				while (size.get() >= capacity) {
+					logger.warning((Unit) event.getSource(), 10_000L, "Events for " + listener
+							+ " are not being delivered fast enough; waiting to post " + event.getType());
+					try {
+						wait(FULL_WAIT);
+					}
+					catch (InterruptedException e) {
+						// Still post the event rather than drop it
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Delivers the events; runs on a consumer thread.
+		 */
+		@Override
+		public void run() {
+			consumerThread.set(Boolean.TRUE);
+			do {
+				Object item;
+				while ((item = queue.poll()) != null) {
+					if (size.getAndDecrement() >= capacity) {
+						// Posters may be waiting for space
+						synchronized (this) {
+							notifyAll();
+						}
+					}
+					UnitEvent event = (item instanceof UnitEvent e ? e : latest.remove(item));
+					if (event != null) {
+						deliver(listener, event);
+					}
+				}
+				scheduled.set(false);
+
+				// Pick up an event posted after the queue was found empty
+			} while (!queue.isEmpty() && scheduled.compareAndSet(false, true));
+		}
+	}
+
+	private static volatile boolean synchronous = false;
+
+	private static volatile int capacity = DEFAULT_CAPACITY;
+
+	private static ThreadLocal<Boolean> consumerThread = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+	private static Map<UnitListener, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+	private static ExecutorService consumers = Executors.newFixedThreadPool(CONSUMERS,
+					new ThreadFactoryBuilder().setNameFormat("unit-event-%d").setDaemon(true).build());
+
+	private UnitEventDispatcher() {
+		// Static helper class
+	}
+
+	/**
+	 * Sets whether events are delivered on the thread firing them.
+	 *
+	 * @param sync
+	 */
+	public static void setSynchronous(boolean sync) {
+		synchronous = sync;
+	}
+
+	public static boolean isSynchronous() {
+		return synchronous;
+	}
+
+	/**
+	 * Sets how many undelivered events a mailbox holds before the poster waits.
+	 *
+	 * @param newCapacity
+	 */
+	static void setCapacity(int newCapacity) {
+		capacity = newCapacity;
+	}
+
+	/**
+	 * A listener has been added to a Unit.
+	 *
+	 * @param listener
+	 */
+	static void register(UnitListener listener) {
+		mailboxes.compute(listener, (k, m) -> {
+			Mailbox result = (m != null ? m : new Mailbox(k));
+			result.registrations++;
+			return result;
+		});
+	}
+
+	/**
+	 * A listener has been removed from a Unit. The mailbox is discarded once the
+	 * listener is not registered with any Unit.
+	 *
+	 * @param listener
+	 */
+	static void unregister(UnitListener listener) {
+		mailboxes.computeIfPresent(listener, (k, m) -> {
+			m.registrations--;
+			return (m.registrations > 0 ? m : null);
+		});
+	}
+
+	/**
+	 * Dispatches an event to the listeners of its Unit.
+	 *
+	 * @param event
+	 * @param listeners
+	 */
+	static void dispatch(UnitEvent event, Collection<UnitListener> listeners) {
+		if (synchronous) {
+			for (UnitListener l : listeners) {
+				deliver(l, event);
+			}
+			return;
+		}
+
+		for (UnitListener l : listeners) {
+			Mailbox m = mailboxes.get(l);
+			if (m != null) {
+				m.post(event);
+			}
+		}
+	}
+
+	private static void deliver(UnitListener listener, UnitEvent event) {
+		try {
+			// Stop listeners breaking the update thread
+			listener.unitUpdate(event);
+		}
+		catch (RuntimeException rte) {
+			logger.warning((Unit) event.getSource(), "Problem executing listener " + listener + " for event " + event
+							+ " due to " + rte.getMessage());
+		}
+	}
+}
@@ -10,6 +10,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -20,10 +21,13 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
+import java.util.random.RandomGenerator;
 
 import org.mars_sim.msp.core.data.UnitSet;
 import org.mars_sim.msp.core.environment.MarsSurface;
@@ -38,11 +42,12 @@ import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.building.Building;
 import org.mars_sim.msp.core.structure.construction.ConstructionSite;
 import org.mars_sim.msp.core.time.ClockPulse;
+import org.mars_sim.msp.core.time.PulseMetrics;
+import org.mars_sim.msp.core.time.PulseTimer;
 import org.mars_sim.msp.core.time.Temporal;
+import org.mars_sim.msp.core.tool.RandomUtil;
 import org.mars_sim.msp.core.vehicle.Vehicle;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
-
 /**
  * The UnitManager class contains and manages all units in virtual Mars. It has
  * methods for getting information about units. It is also responsible for
@@ -77,7 +82,8 @@ public class UnitManager implements Serializable, Temporal {
 	/** List of unit manager listeners. */
 	private transient Map<UnitType, Set<UnitManagerListener>> listeners;
 
-	private transient ExecutorService executor;
+	/** Work-stealing pool running the settlement updates. */
+	private transient ForkJoinPool executor;
 
 	private transient Set<SettlementTask> settlementTasks = new HashSet<>();
 	/** Map of equipment types and their numbers. */
@@ -388,16 +394,20 @@ public class UnitManager implements Serializable, Temporal {
 	}
 
 	/**
-	 * Sets up executive service.
+	 * Sets up executive service. The pool is resized if the number of settlements
+	 * has changed the preferred parallelism.
 	 */
 	private void setupExecutor() {
-		if (executor == null) {
-			int size = (int)(getSettlementNum()/2D);
-			int num = Math.min(size, Simulation.NUM_THREADS - simulationConfig.getUnusedCores());
-			if (num <= 0) num = 1;
+		int num = Math.min(getSettlementNum(), Simulation.NUM_THREADS - simulationConfig.getUnusedCores());
+		if (num <= 0) num = 1;
+
+		if ((executor == null) || (executor.getParallelism() != num)) {
+			if (executor != null) {
+				// Let any running work complete on the old pool
+				executor.shutdown();
+			}
 			logger.config("Setting up " + num + " thread(s) for running the settlement update.");
-			executor = Executors.newFixedThreadPool(num,
-					new ThreadFactoryBuilder().setNameFormat("unitmanager-thread-%d").build());
+			executor = new ForkJoinPool(num, new SettlementThreadFactory(), null, false);
 		}
 	}
 
@@ -425,6 +435,11 @@ public class UnitManager implements Serializable, Temporal {
 		logger.config("Setting up settlement task thread for " + s + ".");
 		SettlementTask st = new SettlementTask(s);
 		settlementTasks.add(st);
+
+		// A running simulation may need a bigger pool
+		if (executor != null) {
+			setupExecutor();
+		}
 	}
 
 	/**
@@ -457,15 +472,19 @@ public class UnitManager implements Serializable, Temporal {
 	 * @param pulse
 	 */
 	private void runExecutor(ClockPulse pulse) {
-		setupExecutor();
 		setupTasks();
-		// May use parallelStream() after it's proven to be safe
-		settlementTasks.stream().forEach(s -> s.setCurrentPulse(pulse));
+		setupExecutor();
+
+		// Submit the most expensive settlements first so the cheaper ones
+		// fill in the gaps at the end of the pulse
+		List<SettlementTask> tasks = new ArrayList<>(settlementTasks);
+		tasks.sort(Comparator.comparingLong(SettlementTask::getLastCost).reversed());
+		tasks.forEach(s -> s.setCurrentPulse(pulse));
 
 		// Execute all listener concurrently and wait for all to complete before advancing
 		// Ensure that Settlements stay synch'ed and some don't get ahead of others as tasks queue
 		try {
-			List<Future<String>> results = executor.invokeAll(settlementTasks);
+			List<Future<String>> results = executor.invokeAll(tasks);
 			for (Future<String> future : results) {
 				future.get();
 			}
@@ -482,6 +501,21 @@ public class UnitManager implements Serializable, Temporal {
 		}
 	}
 
+	/**
+	 * Gets the time each settlement took to handle the last pulse.
+	 *
+	 * @return Nanoseconds by Settlement
+	 */
+	public Map<Settlement, Long> getSettlementPulseCosts() {
+		Map<Settlement, Long> result = new HashMap<>();
+		if (settlementTasks != null) {
+			for (SettlementTask st : new ArrayList<>(settlementTasks)) {
+				result.put(st.getSettlement(), st.getLastCost());
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Ends the current executor.
 	 */
@@ -704,10 +738,10 @@ public class UnitManager implements Serializable, Temporal {
 			s.reinit();
 		}
 
-		// Sets up the executor
-		setupExecutor();
 		// Sets up the concurrent tasks
 		setupTasks();
+		// Sets up the executor
+		setupExecutor();
 	}
 	
 //	/**
@@ -778,31 +812,59 @@ public class UnitManager implements Serializable, Temporal {
 		listeners = null;
 	}
 
+	/**
+	 * Names the worker threads of the settlement pool.
+	 */
+	private static class SettlementThreadFactory implements ForkJoinWorkerThreadFactory {
+		private static final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			t.setName("unitmanager-thread-" + count.getAndIncrement());
+			return t;
+		}
+	}
+
 	/**
 	 * Prepares the Settlement task for setting up its own thread.
 	 */
 	class SettlementTask implements Callable<String> {
 		private Settlement settlement;
 		private ClockPulse currentPulse;
+		/** Time [in ns] taken by the previous pulse. */
+		private long lastCost;
+		private PulseTimer timer;
 
 		protected Settlement getSettlement() {
 			return settlement;
 		}
 
+		/**
+		 * Gets the time taken by the last pulse of this settlement.
+		 * 
+		 * @return Nanoseconds
+		 */
+		long getLastCost() {
+			return lastCost;
+		}
+
 		public void setCurrentPulse(ClockPulse pulse) {
 			this.currentPulse = pulse;
 		}
 
 		private SettlementTask(Settlement settlement) {
 			this.settlement = settlement;
+			this.timer = PulseMetrics.getTimer("settlement." + settlement.getName());
 		}
 
 		@Override
 		public String call() throws Exception {
+			long start = System.nanoTime();
+			RandomGenerator previousStream = RandomUtil.bindStream(settlement.getRandomStream());
 			try {
 				activeSettlement.set(settlement);
 				settlement.timePassing(currentPulse);
-				activeSettlement.remove();
 			}
 			catch (RuntimeException rte) {
 				String msg = "Problem with pulse on " + settlement.getName()
@@ -810,6 +872,12 @@ public class UnitManager implements Serializable, Temporal {
 	            logger.log(Level.SEVERE, msg, rte);
 	            return msg;
 			}
+			finally {
+				activeSettlement.remove();
+				RandomUtil.bindStream(previousStream);
+				lastCost = System.nanoTime() - start;
+				timer.record(lastCost);
+			}
 			return settlement.getName() + " completed pulse #" + currentPulse.getId();
 		}
 	}
@@ -0,0 +1,99 @@
+/*
+ * Mars Simulation Project
+ * EnvironmentSnapshot.java
+ * @date 2023-07-16
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.environment;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mars_sim.msp.core.Coordinates;
+
+/**
+ * An immutable copy of the outside conditions at the locations of interest, i.e. the
+ * settlements and vehicles, taken once at the start of a pulse. The readings are held
+ * in arrays by a compact location index so the Units updated in parallel can read them
+ * without taking a lock or racing with the weather calculations.
+ */
+public final class EnvironmentSnapshot {
+
+	/** A snapshot with no locations. */
+	static final EnvironmentSnapshot EMPTY = new EnvironmentSnapshot(new Coordinates[0],
+							new double[0], new double[0], new double[0], new double[0], new double[0]);
+
+	private final Coordinates[] locations;
+	private final Map<Coordinates, Integer> index;
+	private final double[] irradiance;
+	private final double[] opticalDepth;
+	private final double[] temperature;
+	private final double[] airPressure;
+	private final double[] windSpeed;
+
+	/**
+	 * Creates a snapshot; the arrays are owned by the snapshot from now on.
+	 *
+	 * @param locations Locations in index order
+	 * @param irradiance Solar irradiance in W/m2
+	 * @param opticalDepth Optical depth of the dust
+	 * @param temperature Temperature in deg Celsius
+	 * @param airPressure Air pressure in kPa
+	 * @param windSpeed Wind speed in m/s
+	 */
+	EnvironmentSnapshot(Coordinates[] locations, double[] irradiance, double[] opticalDepth,
+			double[] temperature, double[] airPressure, double[] windSpeed) {
+		this.locations = locations;
+		this.irradiance = irradiance;
+		this.opticalDepth = opticalDepth;
+		this.temperature = temperature;
+		this.airPressure = airPressure;
+		this.windSpeed = windSpeed;
+
+		Map<Coordinates, Integer> m = new HashMap<>();
+		for (int i = 0; i < locations.length; i++) {
+			m.put(locations[i], i);
+		}
+		this.index = Collections.unmodifiableMap(m);
+	}
+
+	/**
+	 * Gets the index of a location.
+	 *
+	 * @param location
+	 * @return Index or -1 if the location is not covered
+	 */
+	public int indexOf(Coordinates location) {
+		Integer i = index.get(location);
+		return (i != null ? i : -1);
+	}
+
+	public int size() {
+		return locations.length;
+	}
+
+	public Coordinates getLocation(int i) {
+		return locations[i];
+	}
+
+	public double getSolarIrradiance(int i) {
+		return irradiance[i];
+	}
+
+	public double getOpticalDepth(int i) {
+		return opticalDepth[i];
+	}
+
+	public double getTemperature(int i) {
+		return temperature[i];
+	}
+
+	public double getAirPressure(int i) {
+		return airPressure[i];
+	}
+
+	public double getWindSpeed(int i) {
+		return windSpeed[i];
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Mars Simulation Project
+ * MineralLocationIndex.java
+ * @date 2023-07-12
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.environment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.mars_sim.msp.core.Coordinates;
+
+/**
+ * A spatial index of locations on the surface. Locations are bucketed into a grid of
+ * phi/theta cells so a query only visits the cells overlapping its bounds rather than
+ * every location. Locations may be added while other threads run queries.
+ */
+public class MineralLocationIndex {
+
+	private static final double TWO_PI = Math.PI * 2D;
+
+	/** Default cell size of 1 degree. */
+	private static final int DEFAULT_ROWS = 180;
+
+	private int rows;
+	private int cols;
+	private double cellPhi;
+	private double cellTheta;
+	private List<Coordinates>[] cells;
+	private int size = 0;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Creates an index with cells of 1 degree.
+	 */
+	public MineralLocationIndex() {
+		this(DEFAULT_ROWS);
+	}
+
+	/**
+	 * Creates an index.
+	 *
+	 * @param rows Number of phi rows; there are twice as many theta columns
+	 */
+	@SuppressWarnings("unchecked")
+	public MineralLocationIndex(int rows) {
+		this.rows = rows;
+		this.cols = rows * 2;
+		this.cellPhi = Math.PI / rows;
+		this.cellTheta = TWO_PI / cols;
+		this.cells = new List[rows * cols];
+	}
+
+	private int row(double phi) {
+		return Math.max(0, Math.min(rows - 1, (int) (phi / cellPhi)));
+	}
+
+	private int col(double theta) {
+		int c = (int) Math.floor(theta / cellTheta) % cols;
+		return (c < 0 ? c + cols : c);
+	}
+
+	/**
+	 * Adds a location. The caller must not add the same location twice.
+	 *
+	 * @param location
+	 */
+	public void add(Coordinates location) {
+		int idx = row(location.getPhi()) * cols + col(location.getTheta());
+		lock.writeLock().lock();
+		try {
+			List<Coordinates> cell = cells[idx];
+			if (cell == null) {
+				cell = new ArrayList<>(4);
+				cells[idx] = cell;
+			}
+			cell.add(location);
+			size++;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of locations held.
+	 *
+	 * @return
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Visits the locations whose phi and theta are both within an angle of the center.
+	 * Theta does not wrap around at zero; this matches the box used for map display.
+	 * The visitor is called while locations cannot be added so it must not add any.
+	 *
+	 * @param center
+	 * @param angle Half width of the box in radians
+	 * @param visitor
+	 */
+	public void visitBox(Coordinates center, double angle, Consumer<Coordinates> visitor) {
+		double phi = center.getPhi();
+		double theta = center.getTheta();
+		int r0 = row(phi - angle);
+		int r1 = row(phi + angle);
+		int c0 = Math.max(0, (int) ((theta - angle) / cellTheta));
+		int c1 = Math.min(cols - 1, (int) ((theta + angle) / cellTheta));
+
+		lock.readLock().lock();
+		try {
+			for (int r = r0; r <= r1; r++) {
+				for (int c = c0; c <= c1; c++) {
+					List<Coordinates> cell = cells[r * cols + c];
+					if (cell != null) {
+						for (Coordinates l : cell) {
+							if ((Math.abs(phi - l.getPhi()) < angle)
+									&& (Math.abs(theta - l.getTheta()) < angle)) {
+								visitor.accept(l);
+							}
+						}
+					}
+				}
+			}
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the locations closer than a distance to the center.
+	 *
+	 * @param center
+	 * @param range Distance in km
+	 * @return
+	 */
+	public List<Coordinates> findWithin(Coordinates center, double range) {
+		List<Coordinates> result = new ArrayList<>();
+		double angle = range / Coordinates.MARS_RADIUS_KM;
+		double phi = center.getPhi();
+		double theta = center.getTheta();
+
+		int r0 = row(phi - angle);
+		int r1 = row(phi + angle);
+
+		// Longitude spread of the cap; all columns when it covers a pole
+		int c0 = 0;
+		int c1 = cols - 1;
+		double sinPhi = Math.sin(phi);
+		if ((angle < Math.PI / 2D) && (phi - angle > 0D) && (phi + angle < Math.PI)
+				&& (Math.sin(angle) < sinPhi)) {
+			double spread = Math.asin(Math.sin(angle) / sinPhi);
+			int span = (int) Math.ceil(spread / cellTheta);
+			if ((span * 2) + 1 < cols) {
+				c0 = col(theta) - span;
+				c1 = c0 + (span * 2);
+			}
+		}
+
+		lock.readLock().lock();
+		try {
+			for (int r = r0; r <= r1; r++) {
+				for (int c = c0; c <= c1; c++) {
+					int wrapped = (c < 0 ? c + cols : (c >= cols ? c - cols : c));
+					List<Coordinates> cell = cells[r * cols + wrapped];
+					if (cell != null) {
+						for (Coordinates l : cell) {
+							if (range > Coordinates.computeDistance(center, l)) {
+								result.add(l);
+							}
+						}
+					}
+				}
+			}
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		return result;
+	}
+}
@@ -11,6 +11,8 @@ import java.awt.Color;
 import java.awt.Image;
 import java.awt.image.ImageObserver;
 import java.awt.image.PixelGrabber;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.net.URL;
 import java.util.ArrayList;
@@ -21,6 +23,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -79,7 +82,8 @@ public class RandomMineralMap implements Serializable, MineralMap {
 
 	private String[] mineralTypeNames;
 	
-	private static Set<Coordinates> allLocations;
+	/** Spatial index of the mineral locations; rebuilt after loading. */
+	private transient MineralLocationIndex locationIndex;
 	
 	private static MineralMapConfig mineralMapConfig = SimulationConfig.instance().getMineralMapConfiguration();
 	
@@ -88,11 +92,22 @@ public class RandomMineralMap implements Serializable, MineralMap {
 	 */
 	RandomMineralMap() {
 	
-		allMineralsByLocation = new HashMap<>();
+		allMineralsByLocation = new ConcurrentHashMap<>();
+		locationIndex = new MineralLocationIndex();
 		// Determine mineral concentrations.
 		determineMineralConcentrations();
-		
-		allLocations = allMineralsByLocation.keySet();
+	}
+
+	/**
+	 * Custom read to rebuild the spatial index of the mineral locations. Settlements
+	 * explore in parallel so the index is built before any of them can use it.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+
+		allMineralsByLocation = new ConcurrentHashMap<>(allMineralsByLocation);
+		locationIndex = new MineralLocationIndex();
+		allMineralsByLocation.keySet().forEach(locationIndex::add);
 	}
 
 	/**
@@ -212,7 +227,10 @@ public class RandomMineralMap implements Serializable, MineralMap {
 			map.put(mineralName, (int)Math.round(concentration));
 		}
 		
-		allMineralsByLocation.put(newLocation, map);
+		if (allMineralsByLocation.put(newLocation, map) == null) {
+			// Only index a location once even if another thread added it since the check
+			locationIndex.add(newLocation);
+		}
 
 		return remainingConc;
 	}
@@ -371,22 +389,17 @@ public class RandomMineralMap implements Serializable, MineralMap {
 		
 		boolean emptyMap = true;
 		
-		if (allLocations == null) {
-			allLocations = allMineralsByLocation.keySet();
-		}
+		// Only visit the locations within a certain boundary
+		List<Coordinates> nearby = new ArrayList<>();
+		locationIndex.visitBox(aLocation, angle, nearby::add);
 		
-		Iterator<Coordinates> i = allLocations.iterator();
+		Iterator<Coordinates> i = nearby.iterator();
 		while (i.hasNext()) {
 			Coordinates c = i.next();
 	
 			double concentrationPhi = c.getPhi();
-			double concentrationTheta = c.getTheta();
-			double phiDiff = Math.abs(aLocation.getPhi() - concentrationPhi);
-			double thetaDiff = Math.abs(aLocation.getTheta() - concentrationTheta);
 
-			// Only take in what's within a certain boundary
-			if (concentrationPhi > LIMIT && concentrationPhi < Math.PI - LIMIT
-				&& phiDiff < angle && thetaDiff < angle) {
+			if (concentrationPhi > LIMIT && concentrationPhi < Math.PI - LIMIT) {
 				
 				Map<String, Integer> map = allMineralsByLocation.get(c);
 				
@@ -528,20 +541,7 @@ public class RandomMineralMap implements Serializable, MineralMap {
 	public Coordinates findRandomMineralLocation(Coordinates startingLocation, double range) {
 		Coordinates result = null;
 
-		List<Coordinates> locales = new ArrayList<>();
-		
-		if (allLocations == null) {
-			allLocations = allMineralsByLocation.keySet();
-		}
-		
-		Iterator<Coordinates> i = allLocations.iterator();
-		while (i.hasNext()) {
-			Coordinates c = i.next();
-			double distance = Coordinates.computeDistance(startingLocation, c);
-			if (range > distance) {
-				locales.add(c);
-			}
-		}
+		List<Coordinates> locales = locationIndex.findWithin(startingLocation, range);
 
 		if (locales.size() > 0) {
 			int index = RandomUtil.getRandomInt(locales.size() - 1);
@@ -561,6 +561,7 @@ public class RandomMineralMap implements Serializable, MineralMap {
 	public void destroy() {
 //		mineralConcentrations = null;
 		allMineralsByLocation = null;
+		locationIndex = null;
 		mineralMapConfig = null;
 	}
 }
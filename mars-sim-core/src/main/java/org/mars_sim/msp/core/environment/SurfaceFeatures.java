@@ -10,16 +10,16 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.mars_sim.msp.core.Coordinates;
 import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.logging.SimLogger;
 import org.mars_sim.msp.core.person.ai.mission.Mining;
 import org.mars_sim.msp.core.structure.Settlement;
@@ -28,6 +28,7 @@ import org.mars_sim.msp.core.time.MarsTime;
 import org.mars_sim.msp.core.time.MasterClock;
 import org.mars_sim.msp.core.time.Temporal;
 import org.mars_sim.msp.core.tool.RandomUtil;
+import org.mars_sim.msp.core.vehicle.Vehicle;
 
 
 /**
@@ -83,9 +84,11 @@ public class SurfaceFeatures implements Serializable, Temporal {
 	/** The locations that have been explored and/or mined. */
 	private List<ExploredLocation> exploredLocations;
 	/** The most recent value of optical depth by Coordinate. */
-	private transient Map<Coordinates, Double> opticalDepthMap = new HashMap<>();
+	private transient Map<Coordinates, Double> opticalDepthMap = new ConcurrentHashMap<>();
 	/** The most recent value of solar irradiance by Coordinate. */
-	private transient Map<Coordinates, Double> currentIrradiance = new HashMap<>();
+	private transient Map<Coordinates, Double> currentIrradiance = new ConcurrentHashMap<>();
+	/** The conditions at the settlements and vehicles taken at the start of the pulse. */
+	private transient volatile EnvironmentSnapshot snapshot = EnvironmentSnapshot.EMPTY;
 
 	private MasterClock clock;
 	private Weather weather;
@@ -124,6 +127,15 @@ public class SurfaceFeatures implements Serializable, Temporal {
 	}
 
 
+	/**
+	 * Gets the conditions at the settlements and vehicles at the start of the pulse.
+	 *
+	 * @return
+	 */
+	public EnvironmentSnapshot getEnvironmentSnapshot() {
+		return snapshot;
+	}
+
 	/**
 	 * Gets the optical depth due to the martian dust.
 	 *
@@ -131,12 +143,26 @@ public class SurfaceFeatures implements Serializable, Temporal {
 	 * @return
 	 */
 	public double getOpticalDepth(Coordinates location) {
-		if (!opticalDepthMap.isEmpty()) {
-			Double value = opticalDepthMap.get(location);
-			if (value != null)
-				return value.doubleValue();
+		EnvironmentSnapshot s = snapshot;
+		int i = s.indexOf(location);
+		if (i >= 0) {
+			return s.getOpticalDepth(i);
 		}
 
+		return lookupOpticalDepth(location);
+	}
+
+	/**
+	 * Gets the most recent optical depth of a location not in the snapshot.
+	 *
+	 * @param location
+	 * @return
+	 */
+	private double lookupOpticalDepth(Coordinates location) {
+		Double value = opticalDepthMap.get(location);
+		if (value != null)
+			return value.doubleValue();
+
 		return computeOpticalDepth(location);
 	}
 
@@ -293,13 +319,26 @@ public class SurfaceFeatures implements Serializable, Temporal {
 	 * @return solar irradiance (W/m2)
 	 */
 	public double getSolarIrradiance(Coordinates location) {
-		if (!currentIrradiance.isEmpty()) {
-			Double value = currentIrradiance.get(location);
-			if (value != null)
-				return value.doubleValue();
-			return 0;
+		EnvironmentSnapshot s = snapshot;
+		int i = s.indexOf(location);
+		if (i >= 0) {
+			return s.getSolarIrradiance(i);
 		}
 
+		return lookupSolarIrradiance(location);
+	}
+
+	/**
+	 * Gets the most recent solar irradiance of a location not in the snapshot.
+	 *
+	 * @param location
+	 * @return
+	 */
+	private double lookupSolarIrradiance(Coordinates location) {
+		Double value = currentIrradiance.get(location);
+		if (value != null)
+			return value.doubleValue();
+
 		return calculateSolarIrradiance(location);
 	}
 
@@ -468,7 +507,7 @@ public class SurfaceFeatures implements Serializable, Temporal {
 			// PART 4 : OPTICAL DEPTH - CALCULATING ABSORPTION AND SCATTERING OF SOLAR
 			// RADIATION
 
-			double tau = getOpticalDepth(location);
+			double tau = lookupOpticalDepth(location);
 		
 			// For future,
 			// Part 4a : Reduce the opacity of the Martian atmosphere due to local dust
@@ -761,45 +800,88 @@ public class SurfaceFeatures implements Serializable, Temporal {
 	@Override
 	public boolean timePassing(ClockPulse pulse) {
 
+		// TODO Resolve this; put Simualtino in ClockPulse
+		UnitManager um = Simulation.instance().getUnitManager();
+		Set<Coordinates> locations = new LinkedHashSet<>();
+		for (Settlement s: um.getSettlements()) {
+			locations.add(s.getCoordinates());
+		}
+		int numSettlements = locations.size();
+		for (Vehicle v: um.getVehicles()) {
+			locations.add(v.getCoordinates());
+		}
+
 		if (pulse.isNewMSol()) {
-			// TODO Resolve this; put Simualtino in ClockPulse
-			Collection<Settlement> col = Simulation.instance().getUnitManager().getSettlements();
-			Set<Coordinates> sSet = new HashSet<>();
-			for (Settlement s: col) {
-				sSet.add(s.getCoordinates());
-			}
-			
-			double msol = pulse.getMarsTime().getMillisolInt();
-			
-			// the value of optical depth doesn't need to be refreshed too often
-			if (msol % OPTICAL_DEPTH_REFRESH == 0) {
-				Iterator<Coordinates> it = opticalDepthMap.keySet().iterator();
-				while (it.hasNext()) {
-					Coordinates coord = it.next();
-					if (sSet.contains(coord)) {
-						computeOpticalDepth(coord);
-					}
-					else {
-						// Clear only those values that are non-settlement
-						it.remove();
-					}
-				}
-			}
-			
-			Iterator<Coordinates> it = currentIrradiance.keySet().iterator();
-			while (it.hasNext()) {
-				Coordinates coord = it.next();
-				if (sSet.contains(coord)) {
-					calculateSolarIrradiance(coord);
+			// Clear only those values that are not of a settlement or vehicle
+			opticalDepthMap.keySet().retainAll(locations);
+			currentIrradiance.keySet().retainAll(locations);
+		}
+
+		snapshot = createSnapshot(locations, numSettlements, pulse);
+
+		return true;
+	}
+
+	/**
+	 * Takes the conditions at a set of locations. The readings are refreshed on a new
+	 * millisol; otherwise they are carried over from the previous snapshot and only
+	 * locations not seen before, e.g. a moving vehicle, are looked up.
+	 * Only the settlement locations are tracked by the Weather; the weather at the other
+	 * locations is estimated so a moving vehicle does not add a location on every pulse.
+	 *
+	 * @param locations Settlement locations first followed by the vehicle locations
+	 * @param numSettlements Number of settlement locations
+	 * @param pulse
+	 * @return
+	 */
+	private EnvironmentSnapshot createSnapshot(Set<Coordinates> locations, int numSettlements, ClockPulse pulse) {
+		EnvironmentSnapshot previous = snapshot;
+		boolean refresh = pulse.isNewMSol();
+		// the value of optical depth doesn't need to be refreshed too often
+		boolean refreshTau = refresh
+					&& (pulse.getMarsTime().getMillisolInt() % OPTICAL_DEPTH_REFRESH == 0);
+
+		int size = locations.size();
+		Coordinates[] coords = locations.toArray(new Coordinates[size]);
+		double[] irradiance = new double[size];
+		double[] opticalDepth = new double[size];
+		double[] temperature = new double[size];
+		double[] airPressure = new double[size];
+		double[] windSpeed = new double[size];
+
+		for (int i = 0; i < size; i++) {
+			Coordinates c = coords[i];
+			int p = previous.indexOf(c);
+			boolean found = (p >= 0);
+
+			if (refreshTau)
+				opticalDepth[i] = computeOpticalDepth(c);
+			else
+				opticalDepth[i] = (found ? previous.getOpticalDepth(p) : lookupOpticalDepth(c));
+
+			if (refresh || !found) {
+				irradiance[i] = (refresh ? calculateSolarIrradiance(c) : lookupSolarIrradiance(c));
+				if (i < numSettlements) {
+					// Temperature uses the latest wind speed
+					windSpeed[i] = weather.computeWindSpeed(c);
+					temperature[i] = weather.getCachedTemperature(c);
+					airPressure[i] = weather.getCachedAirPressure(c);
 				}
 				else {
-					// Clear only those values that are non-settlement
-					it.remove();
+					windSpeed[i] = weather.estimateWindSpeed(c, opticalDepth[i]);
+					temperature[i] = weather.estimateTemperature(c);
+					airPressure[i] = weather.estimateAirPressure(c);
 				}
 			}
+			else {
+				irradiance[i] = previous.getSolarIrradiance(p);
+				windSpeed[i] = previous.getWindSpeed(p);
+				temperature[i] = previous.getTemperature(p);
+				airPressure[i] = previous.getAirPressure(p);
+			}
 		}
-		
-		return true;
+
+		return new EnvironmentSnapshot(coords, irradiance, opticalDepth, temperature, airPressure, windSpeed);
 	}
 
 	/**
@@ -813,8 +895,9 @@ public class SurfaceFeatures implements Serializable, Temporal {
 		// Perform the default de-serialization first
 	    aInputStream.defaultReadObject();
 	    
-		opticalDepthMap = new HashMap<>();
-		currentIrradiance = new HashMap<>();
+		opticalDepthMap = new ConcurrentHashMap<>();
+		currentIrradiance = new ConcurrentHashMap<>();
+		snapshot = EnvironmentSnapshot.EMPTY;
 	}
 	 
 	/**
@@ -826,6 +909,7 @@ public class SurfaceFeatures implements Serializable, Temporal {
 		opticalDepthMap = null;
 		currentIrradiance.clear();
 		currentIrradiance = null;
+		snapshot = EnvironmentSnapshot.EMPTY;
 		mineralMap.destroy();
 		mineralMap = null;
 		exploredLocations.clear();
@@ -13,6 +13,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.mars_sim.msp.core.CollectionUtils;
 import org.mars_sim.msp.core.Coordinates;
@@ -111,10 +112,10 @@ public class Weather implements Serializable, Temporal {
 		coordinateList = new ArrayList<>();
 		dustStorms = new ArrayList<>();
 		
-		temperatureCacheMap = new HashMap<>();
-		airPressureCacheMap = new HashMap<>();
-		windSpeedCacheMap = new HashMap<>();
-		windDirCacheMap = new HashMap<>();
+		temperatureCacheMap = new ConcurrentHashMap<>();
+		airPressureCacheMap = new ConcurrentHashMap<>();
+		windSpeedCacheMap = new ConcurrentHashMap<>();
+		windDirCacheMap = new ConcurrentHashMap<>();
 
 		this.orbitInfo = orbitInfo;
 		this.clock = clock;
@@ -130,7 +131,7 @@ public class Weather implements Serializable, Temporal {
 	 * 
 	 * @param location
 	 */
-	public void checkLocation(Coordinates location) {
+	public synchronized void checkLocation(Coordinates location) {
 		if (!coordinateList.contains(location))
 			coordinateList.add(location);
 	}
@@ -167,7 +168,7 @@ public class Weather implements Serializable, Temporal {
 		double newSpeed = 0;
 		
 		if (windSpeedCacheMap == null)
-			windSpeedCacheMap = new HashMap<>();
+			windSpeedCacheMap = new ConcurrentHashMap<>();
 
 		// On sol 214 in this list of Viking wind speeds, 
 		// 25.9 m/sec (93.24 km/hr) was recorded.
@@ -295,12 +296,35 @@ public class Weather implements Serializable, Temporal {
 		return newSpeed;
 	}
 
+	/**
+	 * Estimates the wind speed at a location without tracking or caching the 
+	 * location, e.g. for a moving vehicle. A location without a reading gets the 
+	 * average wind speed for the dust in the air; the terrain is not profiled as 
+	 * that is cached per location.
+	 * 
+	 * @param location
+	 * @param optical Optical depth at the location
+	 * @return wind speed in m/s.
+	 */
+	public double estimateWindSpeed(Coordinates location, double optical) {
+		Double speed = (windSpeedCacheMap != null ? windSpeedCacheMap.get(location) : null);
+		if (speed != null) {
+			return speed;
+		}
+		return Math.round(AVERAGE_WINDSPEED * optical * 1000.0)/1000.0;
+	}
+
 	/**
 	 * Gets the wind speed at a given location.
 	 * 
 	 * @return wind speed in m/s.
 	 */
 	public double getWindSpeed(Coordinates location) {
+		EnvironmentSnapshot s = getSnapshot();
+		int i = s.indexOf(location);
+		if (i >= 0) {
+			return s.getWindSpeed(i);
+		}
 		return computeWindSpeed(location);
 	}
 
@@ -327,7 +351,7 @@ public class Weather implements Serializable, Temporal {
 		int newDir = RandomUtil.getRandomInt(359);
 
 		if (windDirCacheMap == null)
-			windDirCacheMap = new HashMap<>();
+			windDirCacheMap = new ConcurrentHashMap<>();
 
 		if (windDirCacheMap.containsKey(location))
 			// TODO: should the ratio of the weight of the past direction and present
@@ -351,6 +375,11 @@ public class Weather implements Serializable, Temporal {
 	 * @return air pressure in Pa.
 	 */
 	public double getAirPressure(Coordinates location) {
+		EnvironmentSnapshot s = getSnapshot();
+		int i = s.indexOf(location);
+		if (i >= 0) {
+			return s.getAirPressure(i);
+		}
 		return getCachedAirPressure(location);
 	}
 
@@ -372,7 +401,7 @@ public class Weather implements Serializable, Temporal {
 
 		// Lazy instantiation of airPressureCacheMap.
 		if (airPressureCacheMap == null) {
-			airPressureCacheMap = new HashMap<>();
+			airPressureCacheMap = new ConcurrentHashMap<>();
 		}
 
 		if (clock.getMarsTime().getMillisolInt() % MILLISOLS_PER_UPDATE == 1) {
@@ -384,6 +413,20 @@ public class Weather implements Serializable, Temporal {
 		}
 	}
 
+	/**
+	 * Estimates the air pressure at a location without tracking or caching the 
+	 * location, e.g. for a moving vehicle.
+	 * 
+	 * @return air pressure in kPa.
+	 */
+	public double estimateAirPressure(Coordinates location) {
+		Double p = (airPressureCacheMap != null ? airPressureCacheMap.get(location) : null);
+		if (p != null) {
+			return p;
+		}
+		return calculateAirPressure(location, 0);
+	}
+
 	/**
 	 * Calculates the air pressure at a given location and/or height.
 	 * 
@@ -429,12 +472,26 @@ public class Weather implements Serializable, Temporal {
 	 * @return temperature in deg Celsius.
 	 */
 	public double getTemperature(Coordinates location) {
+		EnvironmentSnapshot s = getSnapshot();
+		int i = s.indexOf(location);
+		if (i >= 0) {
+			return s.getTemperature(i);
+		}
+		return getCachedTemperature(location);
+	}
+
+	/**
+	 * Gets the cached temperature at a given location.
+	 * 
+	 * @return temperature in deg Celsius.
+	 */
+	public double getCachedTemperature(Coordinates location) {
 
 		checkLocation(location);
 
 		// Lazy instantiation of temperatureCacheMap.
 		if (temperatureCacheMap == null) {
-			temperatureCacheMap = new HashMap<>();
+			temperatureCacheMap = new ConcurrentHashMap<>();
 		}
 
 		double t = 0;
@@ -457,6 +514,20 @@ public class Weather implements Serializable, Temporal {
 		return t;
 	}
 
+	/**
+	 * Estimates the temperature at a location without tracking or caching the 
+	 * location, e.g. for a moving vehicle.
+	 * 
+	 * @return temperature in deg Celsius.
+	 */
+	public double estimateTemperature(Coordinates location) {
+		Double t = (temperatureCacheMap != null ? temperatureCacheMap.get(location) : null);
+		if (t != null) {
+			return t;
+		}
+		return calculateTemperature(location);
+	}
+
 	/**
 	 * Calculates the mid-air temperature.
 	 * 
@@ -595,7 +666,7 @@ public class Weather implements Serializable, Temporal {
 			// (5). Add windspeed
 			double windDt = 0;
 			if (windSpeedCacheMap == null)
-				windSpeedCacheMap = new HashMap<>();
+				windSpeedCacheMap = new ConcurrentHashMap<>();
 
 			if (windSpeedCacheMap.containsKey(location))
 				windDt = 10.0 / (1 + Math.exp(-.15 * windSpeedCacheMap.get(location)));
@@ -623,7 +694,7 @@ public class Weather implements Serializable, Temporal {
 					
 			double previousTemperature = 0;
 			if (temperatureCacheMap == null) {
-				temperatureCacheMap = new HashMap<>();
+				temperatureCacheMap = new ConcurrentHashMap<>();
 			}
 
 			if (temperatureCacheMap.containsKey(location)) {
@@ -673,10 +744,10 @@ public class Weather implements Serializable, Temporal {
 		} else {
 			double cache = 0;
 			// if (value == TEMPERATURE )
-			if (map.equals(temperatureCacheMap))
+			if (map == temperatureCacheMap)
 				cache = calculateTemperature(location);
 			// else if (value == AIR_PRESSURE )
-			else if (map.equals(airPressureCacheMap))
+			else if (map == airPressureCacheMap)
 				cache = calculateAirPressure(location, 0);
 
 			map.put(location, cache);
@@ -963,6 +1034,14 @@ public class Weather implements Serializable, Temporal {
 		}
 	}
 
+	/**
+	 * Gets the readings taken at the start of the pulse.
+	 */
+	private EnvironmentSnapshot getSnapshot() {
+		return (surfaceFeatures != null ? surfaceFeatures.getEnvironmentSnapshot()
+						: EnvironmentSnapshot.EMPTY);
+	}
+
 	public double getDailyVariationAirPressure(Coordinates location) {
 		return dailyVariationAirPressure;
 	}
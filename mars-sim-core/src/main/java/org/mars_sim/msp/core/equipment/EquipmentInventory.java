@@ -267,6 +267,21 @@ public class EquipmentInventory
 		return microInventory.storeAmountResource(resource, quantity);
 	}
 
+	/**
+	 * Stores and retrieves several amount resources as one change.
+	 *
+	 * @param resources Resource ids
+	 * @param changes Amount to store if positive or retrieve if negative
+	 */
+	public void changeAmountResources(int[] resources, double[] changes) {
+		for (int i = 0; i < resources.length; i++) {
+			if ((changes[i] > 0D) && !microInventory.isResourceSupported(resources[i])) {
+				microInventory.setCapacity(resources[i], cargoCapacity);
+			}
+		}
+		microInventory.changeAmountResources(resources, changes);
+	}
+
 	/**
 	 * Gets the item resource stored.
 	 *
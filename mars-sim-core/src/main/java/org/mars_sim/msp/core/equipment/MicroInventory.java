@@ -6,11 +6,16 @@
  */
 package org.mars_sim.msp.core.equipment;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.mars_sim.msp.core.Unit;
 import org.mars_sim.msp.core.UnitEventType;
@@ -21,9 +26,15 @@ import org.mars_sim.msp.core.resource.ResourceUtil;
 
 /**
  * The MicroInventory class represents a simple resource storage solution.
+ * The resources are held in arrays sorted by resource id so a lookup is a binary search
+ * with no boxing. The saved form is still the maps of AmountStored and ItemStored so
+ * older saves can be loaded.
  */
 public class MicroInventory implements Serializable {
 
+	/**
+	 * The saved form of an amount resource.
+	 */
 	static final class AmountStored implements Serializable {
 
 		/** default serial id. */
@@ -45,6 +56,9 @@ public class MicroInventory implements Serializable {
 		}
 	}
 
+	/**
+	 * The saved form of an item resource.
+	 */
 	static final class ItemStored implements Serializable {
 
 		/** default serial id. */
@@ -69,21 +83,42 @@ public class MicroInventory implements Serializable {
 	/** default serial id. */
 	private static final long serialVersionUID = 1L;
 
+	/** The fields that are saved; these are the fields of the map based version. */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("owner", Unit.class),
+		new ObjectStreamField("amountStorage", Map.class),
+		new ObjectStreamField("itemStorage", Map.class),
+		new ObjectStreamField("amountTotalMass", double.class),
+		new ObjectStreamField("itemTotalMass", double.class),
+		new ObjectStreamField("sharedCapacity", double.class)
+	};
+
 	/* default logger. */
 	private static final SimLogger logger = SimLogger.getLogger(MicroInventory.class.getName());
 
 	private static final double SMALL_AMOUNT = 0.000001;
 
+	private static final int[] NO_IDS = new int[0];
+	private static final double[] NO_DOUBLES = new double[0];
+	private static final int[] NO_INTS = new int[0];
+
 	/** The owner of this micro inventory. */
 	private Unit owner;
-	/** A map of amount resources. */
-	private Map<Integer, AmountStored> amountStorage = new HashMap<>();
-	/** A map of item resources. */
-	private Map<Integer, ItemStored> itemStorage = new HashMap<>();
+
+	/** Amount resources; the ids are sorted and the other arrays are in the same order. */
+	private int[] amountIds = NO_IDS;
+	private double[] amountCapacities = NO_DOUBLES;
+	private double[] amountStored = NO_DOUBLES;
+	private int numAmounts = 0;
+
+	/** Item resources; the ids are sorted and the other arrays are in the same order. */
+	private int[] itemIds = NO_IDS;
+	private int[] itemQuantities = NO_INTS;
+	private double[] itemMasses = NO_DOUBLES;
+	private int numItems = 0;
 
 	private double amountTotalMass = 0D;
 	private double itemTotalMass = 0D;
-//	private double generalTotalMass = 0D;
 
 	private double sharedCapacity = 0D;
 
@@ -96,6 +131,74 @@ public class MicroInventory implements Serializable {
 		this.sharedCapacity = sharedCapacity;
 	}
 
+	/**
+	 * Finds the position of an amount resource.
+	 *
+	 * @return Index into the amount arrays; negative if it is not held
+	 */
+	private int findAmount(int resource) {
+		return Arrays.binarySearch(amountIds, 0, numAmounts, resource);
+	}
+
+	/**
+	 * Finds the position of an item resource.
+	 *
+	 * @return Index into the item arrays; negative if it is not held
+	 */
+	private int findItem(int resource) {
+		return Arrays.binarySearch(itemIds, 0, numItems, resource);
+	}
+
+	/**
+	 * Adds a new amount resource at the position given by a failed search.
+	 *
+	 * @return Index of the new resource
+	 */
+	private int insertAmount(int notFound, int resource, double capacity) {
+		int idx = -notFound - 1;
+		if (numAmounts == amountIds.length) {
+			int size = Math.max(4, numAmounts * 2);
+			amountIds = Arrays.copyOf(amountIds, size);
+			amountCapacities = Arrays.copyOf(amountCapacities, size);
+			amountStored = Arrays.copyOf(amountStored, size);
+		}
+		int moved = numAmounts - idx;
+		System.arraycopy(amountIds, idx, amountIds, idx + 1, moved);
+		System.arraycopy(amountCapacities, idx, amountCapacities, idx + 1, moved);
+		System.arraycopy(amountStored, idx, amountStored, idx + 1, moved);
+
+		amountIds[idx] = resource;
+		amountCapacities[idx] = capacity;
+		amountStored[idx] = 0D;
+		numAmounts++;
+		return idx;
+	}
+
+	/**
+	 * Adds a new item resource at the position given by a failed search.
+	 *
+	 * @return Index of the new resource
+	 */
+	private int insertItem(int notFound, int resource, double massPerItem) {
+		int idx = -notFound - 1;
+		if (numItems == itemIds.length) {
+			int size = Math.max(4, numItems * 2);
+			itemIds = Arrays.copyOf(itemIds, size);
+			itemQuantities = Arrays.copyOf(itemQuantities, size);
+			itemMasses = Arrays.copyOf(itemMasses, size);
+		}
+		int moved = numItems - idx;
+		System.arraycopy(itemIds, idx, itemIds, idx + 1, moved);
+		System.arraycopy(itemQuantities, idx, itemQuantities, idx + 1, moved);
+		System.arraycopy(itemMasses, idx, itemMasses, idx + 1, moved);
+
+		itemIds[idx] = resource;
+		itemQuantities[idx] = 0;
+		itemMasses[idx] = massPerItem;
+		numItems++;
+		return idx;
+	}
+
 	/**
 	 * Gets the shared/general/stock capacity.
 	 *
@@ -120,9 +223,9 @@ public class MicroInventory implements Serializable {
      * @return capacity (kg).
      */
     public double getCapacity(int resource) {
-		AmountStored s = amountStorage.get(resource);
-		if (s != null) {
-			return s.capacity;
+		int idx = findAmount(resource);
+		if (idx >= 0) {
+			return amountCapacities[idx];
 		}
 		return sharedCapacity;
     }
@@ -134,12 +237,12 @@ public class MicroInventory implements Serializable {
 	 * @param capacity
 	 */
 	public void setCapacity(int resource, double capacity) {
-		AmountStored s = amountStorage.get(resource);
-		if (s != null) {
-			s.capacity = capacity;
+		int idx = findAmount(resource);
+		if (idx >= 0) {
+			amountCapacities[idx] = capacity;
 		}
 		else {
-			amountStorage.put(resource, new AmountStored(capacity));
+			insertAmount(idx, resource, capacity);
 		}
 	}
 
@@ -150,12 +253,12 @@ public class MicroInventory implements Serializable {
 	 * @param capacity
 	 */
 	public void addCapacity(int resource, double capacity) {
-		AmountStored s = amountStorage.get(resource);
-		if (s != null) {
-			s.capacity += capacity;
+		int idx = findAmount(resource);
+		if (idx >= 0) {
+			amountCapacities[idx] += capacity;
 		}
 		else {
-			amountStorage.put(resource, new AmountStored(capacity));
+			insertAmount(idx, resource, capacity);
 		}
 	}
 
@@ -166,12 +269,11 @@ public class MicroInventory implements Serializable {
 	 * @param capacity
 	 */
 	public void removeCapacity(int resource, double capacity) {
-		AmountStored s = amountStorage.get(resource);
-
-		if (s != null) {
-			s.capacity -= capacity;
-			if (s.capacity < 0D) {
-				s.capacity = 0D;
+		int idx = findAmount(resource);
+		if (idx >= 0) {
+			amountCapacities[idx] -= capacity;
+			if (amountCapacities[idx] < 0D) {
+				amountCapacities[idx] = 0D;
 			}
 		}
 	}
@@ -201,8 +303,8 @@ public class MicroInventory implements Serializable {
 	 * @return
 	 */
 	public boolean isEmpty(int resource) {
-		AmountStored s = amountStorage.get(resource);
-		return (s == null) || (s.storedAmount == 0D);
+		int idx = findAmount(resource);
+		return (idx < 0) || (amountStored[idx] == 0D);
 	}
 
 	/**
@@ -213,16 +315,16 @@ public class MicroInventory implements Serializable {
 	 * @return excess quantity that cannot be stored
 	 */
 	public double storeAmountResource(int resource, double quantity) {
-		AmountStored s = amountStorage.get(resource);
-		if (s == null) {
+		int idx = findAmount(resource);
+		if (idx < 0) {
 			return quantity;
 		}
-			
-		double remaining =  + s.capacity - s.storedAmount;
+
+		double remaining = amountCapacities[idx] - amountStored[idx];
 		double excess = 0D;
 		if (remaining < quantity) {
 			excess = quantity - remaining;
-			
+
 			// TODO: May make use of sharedCapacity to restore excess amount resource
 
 			quantity = remaining;
@@ -233,12 +335,10 @@ public class MicroInventory implements Serializable {
 			}
 		}
 
-		s.storedAmount += quantity;
-
-		// Update the amount total mass
-		updateAmountResourceTotalMass();
+		// Update the amount and total mass
+		setAmountStored(idx, amountStored[idx] + quantity);
 		// Fire the unit event type
-		owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource); //ResourceUtil.findAmountResource(resource));
+		owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
 		return excess;
 	}
 
@@ -250,40 +350,31 @@ public class MicroInventory implements Serializable {
 	 * @return excess quantity that cannot be stored
 	 */
 	public int storeItemResource(int resource, int quantity) {
-		ItemStored s = itemStorage.get(resource);
-		if (s == null) {
-			s = new ItemStored();
-			s.massPerItem = ItemResourceUtil.findItemResource(resource).getMassPerItem();
-			s.totalMass = 0;
-
+		int idx = findItem(resource);
+		if (idx < 0) {
 			// Save the item resource
-			itemStorage.put(resource, s);
+			idx = insertItem(idx, resource, ItemResourceUtil.findItemResource(resource).getMassPerItem());
 		}
 
-		double massPerItem = s.massPerItem;
-		double totalMass = s.totalMass;
+		double massPerItem = itemMasses[idx];
+		double totalMass = itemQuantities[idx] * massPerItem;
 
 		double rCap = sharedCapacity - totalMass;
 		int itemCap = (int)Math.floor(rCap / massPerItem);
 		int missing = 0;
 
 		if (itemCap > 0) {
+			int stored = quantity;
 			if (quantity > itemCap) {
-				s.quantity += itemCap;
+				stored = itemCap;
 				missing = quantity - itemCap;
 				logger.warning(owner, "Storing " + itemCap + "x "
 						+ ItemResourceUtil.findItemResource(resource).getName()
 						+ ", returning the surplus " + missing + ".");
 			}
-			else {
-				s.quantity += quantity;
-				missing = 0;
-			}
 
-			s.totalMass = s.quantity * s.massPerItem;
-
-			// Update the item total mass
-			updateItemResourceTotalMass();
+			// Update the quantity and item total mass
+			setItemQuantity(idx, itemQuantities[idx] + stored);
 
 			// Fire the unit event type
 			owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
@@ -297,12 +388,48 @@ public class MicroInventory implements Serializable {
 		return missing;
 	}
 
+	/**
+	 * Sets the stored amount of a resource and keeps the total mass up to date. The total
+	 * is summed again when a resource runs out so rounding does not build up.
+	 */
+	private void setAmountStored(int idx, double amount) {
+		double old = amountStored[idx];
+		amountStored[idx] = amount;
+		if (amount == 0D) {
+			double result = 0D;
+			for (int i = 0; i < numAmounts; i++) {
+				result += amountStored[i];
+			}
+			amountTotalMass = result;
+		}
+		else {
+			amountTotalMass += amount - old;
+		}
+	}
+
+	/**
+	 * Sets the quantity of an item resource and keeps the total mass up to date.
+	 */
+	private void setItemQuantity(int idx, int quantity) {
+		int old = itemQuantities[idx];
+		itemQuantities[idx] = quantity;
+		if (quantity == 0) {
+			updateItemResourceTotalMass();
+		}
+		else {
+			itemTotalMass += (quantity - old) * itemMasses[idx];
+		}
+	}
+
 	/**
 	 * Recalculates the amount resource total mass.
 	 */
 	private void updateAmountResourceTotalMass() {
-		// Note: to avoid ConcurrentModificationException, use new ArrayList
-		amountTotalMass = amountStorage.values().stream().mapToDouble(r -> r.storedAmount).sum();
+		double result = 0D;
+		for (int i = 0; i < numAmounts; i++) {
+			result += amountStored[i];
+		}
+		amountTotalMass = result;
 	}
 
 	/**
@@ -310,13 +437,8 @@ public class MicroInventory implements Serializable {
 	 */
 	private void updateItemResourceTotalMass() {
 		double result = 0;
-		for (int resource: itemStorage.keySet()) {
-			int q = itemStorage.get(resource).quantity;
-			if (q > 0) {
-				ItemResource ir = ItemResourceUtil.findItemResource(resource);
-				if (ir != null)
-					result += ir.getMassPerItem() * q;
-			}
+		for (int i = 0; i < numItems; i++) {
+			result += itemQuantities[i] * itemMasses[i];
 		}
 
 		itemTotalMass = result;
@@ -330,13 +452,13 @@ public class MicroInventory implements Serializable {
 	 * @return quantity that cannot be retrieved
 	 */
 	public double retrieveAmountResource(int resource, double quantity) {
-		AmountStored s = amountStorage.get(resource);
-		if (s == null) {
+		int idx = findAmount(resource);
+		if (idx < 0) {
 			return quantity;
 		}
 
 		double shortfall = 0D;
-		double remaining = s.storedAmount - quantity;
+		double remaining = amountStored[idx] - quantity;
 
 		if (remaining < 0) {
 			shortfall = -remaining;
@@ -349,22 +471,46 @@ public class MicroInventory implements Serializable {
 			remaining = 0;
 		}
 
-		// Update the stored amount
-		s.storedAmount = remaining;
-
-		// Remove this 'general' resource since its capacity is not set
-//		if (s.storedAmount == 0 && s.capacity == 0) {
-//			storageMap.remove(resource);
-//		}
-
-		// Update the total mass
-		updateAmountResourceTotalMass();
+		// Update the stored amount and total mass
+		setAmountStored(idx, remaining);
 
 		// Fire the unit event type
 		owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
 		return shortfall;
 	}
 
+	/**
+	 * Stores and retrieves several amount resources as one change. Each amount is kept
+	 * between empty and the capacity. One event is fired for all the resources.
+	 *
+	 * @param resources Resource ids
+	 * @param changes Amount to store if positive or retrieve if negative
+	 */
+	public void changeAmountResources(int[] resources, double[] changes) {
+		boolean changed = false;
+		for (int i = 0; i < resources.length; i++) {
+			int idx = findAmount(resources[i]);
+			if ((idx >= 0) && (changes[i] != 0D)) {
+				double newAmount = amountStored[idx] + changes[i];
+				if (newAmount > amountCapacities[idx]) {
+					logger.warning(owner, 120_000L, "Storage is full. Excess "
+							+ Math.round((newAmount - amountCapacities[idx]) * 1_000.0)/1_000.0 + " kg "
+							+ ResourceUtil.findAmountResourceName(resources[i]) + ".");
+					newAmount = amountCapacities[idx];
+				}
+				amountStored[idx] = Math.max(0D, newAmount);
+				changed = true;
+			}
+		}
+
+		if (changed) {
+			// Update the amount total mass
+			updateAmountResourceTotalMass();
+			// Fire the unit event type with all the resources
+			owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resources);
+		}
+	}
+
 	/**
 	 * Retrieves the item resource.
 	 *
@@ -373,13 +519,13 @@ public class MicroInventory implements Serializable {
 	 * @return quantity that cannot be retrieved
 	 */
 	public int retrieveItemResource(int resource, int quantity) {
-		ItemStored s = itemStorage.get(resource);
-		if (s == null) {
+		int idx = findItem(resource);
+		if (idx < 0) {
 			return quantity;
 		}
 
 		int shortfall = 0;
-		int remaining = s.quantity - quantity;
+		int remaining = itemQuantities[idx] - quantity;
 
 		if (remaining < 0) {
 			shortfall = -remaining;
@@ -391,16 +537,8 @@ public class MicroInventory implements Serializable {
 			remaining = 0;
 		}
 
-		// Update the quantity
-		s.quantity = remaining;
-
-		// Remove this 'general' resource since its capacity is not set
-//		if (s.quantity == 0 && s.capacity == 0) {
-//			storageMap.remove(resource);
-//		}
-
-		// Update the total mass
-		updateItemResourceTotalMass();
+		// Update the quantity and total mass
+		setItemQuantity(idx, remaining);
 
 		// Fire the unit event type
 		owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
@@ -413,10 +551,13 @@ public class MicroInventory implements Serializable {
 	 * @return
 	 */
 	public Set<Integer> getResourcesStored() {
-		return amountStorage.keySet()
-				.stream()
-				.filter(i -> (amountStorage.get(i).storedAmount > 0))
-				.collect(Collectors.toSet());
+		Set<Integer> result = new HashSet<>();
+		for (int i = 0; i < numAmounts; i++) {
+			if (amountStored[i] > 0) {
+				result.add(amountIds[i]);
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -425,10 +566,13 @@ public class MicroInventory implements Serializable {
 	 * @return
 	 */
 	public Set<Integer> getItemsStored() {
-		return itemStorage.keySet()
-				.stream()
-				.filter(i -> (itemStorage.get(i).quantity > 0))
-				.collect(Collectors.toSet());
+		Set<Integer> result = new HashSet<>();
+		for (int i = 0; i < numItems; i++) {
+			if (itemQuantities[i] > 0) {
+				result.add(itemIds[i]);
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -438,28 +582,28 @@ public class MicroInventory implements Serializable {
 	 * @return quantity
 	 */
 	public double getAmountResourceRemainingCapacity(int resource) {
-		AmountStored s = amountStorage.get(resource);
-		if (s != null) {
-			return s.capacity - s.storedAmount;
+		int idx = findAmount(resource);
+		if (idx >= 0) {
+			return amountCapacities[idx] - amountStored[idx];
 		}
 		return 0;
 	}
 
 	/**
 	 * Does it have unused space or capacity for a particular resource ?
-	 * 
+	 *
 	 * @param resource
 	 * @return
 	 */
 	public boolean hasAmountResourceRemainingCapacity(int resource) {
-		AmountStored s = amountStorage.get(resource);
-		if (s != null) {
-			return s.capacity > s.storedAmount;
+		int idx = findAmount(resource);
+		if (idx >= 0) {
+			return amountCapacities[idx] > amountStored[idx];
 		}
-		
+
 		return false;
 	}
-	
+
 	/**
 	 * Obtains the remaining storage quantity of a particular item resource.
 	 *
@@ -467,12 +611,10 @@ public class MicroInventory implements Serializable {
 	 * @return quantity
 	 */
 	public int getItemResourceRemainingQuantity(int resource) {
-		ItemStored s = itemStorage.get(resource);
-		if (s != null) {
-//			double massPerItem = ItemResourceUtil.findItemResource(resource).getMassPerItem();
-//			double totalMass = s.quantity * massPerItem;
-			double rCap = sharedCapacity - s.totalMass;
-			return (int)Math.floor(rCap / s.massPerItem);
+		int idx = findItem(resource);
+		if (idx >= 0) {
+			double rCap = sharedCapacity - (itemQuantities[idx] * itemMasses[idx]);
+			return (int)Math.floor(rCap / itemMasses[idx]);
 		}
 		return 0;
 	}
@@ -484,9 +626,9 @@ public class MicroInventory implements Serializable {
 	 * @return quantity
 	 */
 	public double getAmountResourceStored(int resource) {
-		AmountStored s = amountStorage.get(resource);
-		if (s != null) {
-			return s.storedAmount;
+		int idx = findAmount(resource);
+		if (idx >= 0) {
+			return amountStored[idx];
 		}
 		return 0;
 	}
@@ -498,9 +640,9 @@ public class MicroInventory implements Serializable {
 	 * @return quantity
 	 */
 	public int getItemResourceStored(int resource) {
-		ItemStored s = itemStorage.get(resource);
-		if (s != null) {
-			return s.quantity;
+		int idx = findItem(resource);
+		if (idx >= 0) {
+			return itemQuantities[idx];
 		}
 		return 0;
 	}
@@ -512,7 +654,7 @@ public class MicroInventory implements Serializable {
 	 * @return
 	 */
 	public boolean isResourceSupported(int resource) {
-		return amountStorage.containsKey(resource);
+		return findAmount(resource) >= 0;
 	}
 
 
@@ -520,7 +662,92 @@ public class MicroInventory implements Serializable {
 	 * Cleans this container for future use.
 	 */
 	public void clean() {
-		amountStorage.clear();
-		itemStorage.clear();
+		numAmounts = 0;
+		numItems = 0;
+		amountTotalMass = 0D;
+		itemTotalMass = 0D;
+	}
+
+	/**
+	 * Saves the resources as the maps of AmountStored and ItemStored.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		Map<Integer, AmountStored> amountStorage = new HashMap<>();
+		for (int i = 0; i < numAmounts; i++) {
+			AmountStored s = new AmountStored(amountCapacities[i]);
+			s.storedAmount = amountStored[i];
+			amountStorage.put(amountIds[i], s);
+		}
+
+		Map<Integer, ItemStored> itemStorage = new HashMap<>();
+		for (int i = 0; i < numItems; i++) {
+			ItemStored s = new ItemStored();
+			s.quantity = itemQuantities[i];
+			s.massPerItem = itemMasses[i];
+			s.totalMass = itemQuantities[i] * itemMasses[i];
+			itemStorage.put(itemIds[i], s);
+		}
+
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("owner", owner);
+		fields.put("amountStorage", amountStorage);
+		fields.put("itemStorage", itemStorage);
+		fields.put("amountTotalMass", amountTotalMass);
+		fields.put("itemTotalMass", itemTotalMass);
+		fields.put("sharedCapacity", sharedCapacity);
+		out.writeFields();
+	}
+
+	/**
+	 * Loads the maps of AmountStored and ItemStored into the arrays.
+	 *
+	 * @param in
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		owner = (Unit) fields.get("owner", null);
+		sharedCapacity = fields.get("sharedCapacity", 0D);
+
+		amountIds = NO_IDS;
+		amountCapacities = NO_DOUBLES;
+		amountStored = NO_DOUBLES;
+		numAmounts = 0;
+		Map<Integer, AmountStored> amountStorage = (Map<Integer, AmountStored>) fields.get("amountStorage", null);
+		if (amountStorage != null) {
+			for (Map.Entry<Integer, AmountStored> e : amountStorage.entrySet()) {
+				int idx = insertAmount(findAmount(e.getKey()), e.getKey(), e.getValue().capacity);
+				amountStored[idx] = e.getValue().storedAmount;
+			}
+		}
+
+		itemIds = NO_IDS;
+		itemQuantities = NO_INTS;
+		itemMasses = NO_DOUBLES;
+		numItems = 0;
+		Map<Integer, ItemStored> itemStorage = (Map<Integer, ItemStored>) fields.get("itemStorage", null);
+		if (itemStorage != null) {
+			for (Map.Entry<Integer, ItemStored> e : itemStorage.entrySet()) {
+				ItemStored s = e.getValue();
+				double massPerItem = s.massPerItem;
+				if (massPerItem == 0D) {
+					ItemResource ir = ItemResourceUtil.findItemResource(e.getKey());
+					if (ir != null) {
+						massPerItem = ir.getMassPerItem();
+					}
+				}
+				int idx = insertItem(findItem(e.getKey()), e.getKey(), massPerItem);
+				itemQuantities[idx] = s.quantity;
+			}
+		}
+
+		// The totals are worked out again rather than trusted
+		updateAmountResourceTotalMass();
+		updateItemResourceTotalMass();
 	}
 }
@@ -6,9 +6,14 @@
  */
 package org.mars_sim.msp.core.events;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 import org.mars_sim.msp.core.time.ClockPulse;
@@ -17,11 +22,24 @@ import org.mars_sim.msp.core.time.MasterClock;
 import org.mars_sim.msp.core.time.Temporal;
 
 /**
- * This class manages a list off future scheduled events.
+ * This class manages a list off future scheduled events. The events are held in a binary
+ * heap ordered by time so adding and cancelling an event is O(log n) and the next event
+ * is found in O(1).
  */
 public class ScheduledEventManager implements Serializable, Temporal {
 
 	private static final long serialVersionUID = 1L;
+
+    /** The fields that are saved; these are the fields of the list based version. */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("master", MasterClock.class),
+        new ObjectStreamField("eventQueue", List.class)
+    };
+
+    /** Event is not in the queue. */
+    private static final int NOT_QUEUED = -1;
+    /** Event has been taken from the queue to be executed in this pulse. */
+    private static final int IN_BATCH = -2;
 	
     /**
      * Represents an event that is scheduled for future execution.
@@ -32,6 +50,10 @@ public class ScheduledEventManager implements Serializable, Temporal {
 		
         private MarsTime when;
         private ScheduledEventHandler handler;
+        /** Order of adding; keeps events at the same time in the order added. */
+        private transient long sequence;
+        /** Position in the heap or one of the not queued markers. */
+        private transient int index = NOT_QUEUED;
 
 
         public ScheduledEvent(MarsTime when, ScheduledEventHandler handler) {
@@ -79,12 +101,54 @@ public class ScheduledEventManager implements Serializable, Temporal {
          */
         @Override
         public int compareTo(ScheduledEvent o) {
-            return Double.compare(when.getTotalMillisols(), o.when.getTotalMillisols());
+            int result = Double.compare(when.getTotalMillisols(), o.when.getTotalMillisols());
+            if (result == 0) {
+                result = Long.compare(sequence, o.sequence);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A read only view of the queue in time order. The sorted copy is only rebuilt when
+     * the queue has changed.
+     */
+    private class EventView extends AbstractList<ScheduledEvent> {
+
+        private int sortedVersion = -1;
+        private ScheduledEvent[] sorted;
+
+        private ScheduledEvent[] getSorted() {
+            synchronized(ScheduledEventManager.this) {
+                if (sortedVersion != version) {
+                    sorted = Arrays.copyOf(heap, size);
+                    Arrays.sort(sorted);
+                    sortedVersion = version;
+                }
+                return sorted;
+            }
+        }
+
+        @Override
+        public ScheduledEvent get(int i) {
+            return getSorted()[i];
+        }
+
+        @Override
+        public int size() {
+            return size;
         }
     }
 
     private MasterClock master;
-    private List<ScheduledEvent> eventQueue = new ArrayList<>();
+    private ScheduledEvent[] heap = new ScheduledEvent[16];
+    private int size = 0;
+    private long nextSequence = 0;
+    /** Events taken from the queue in this pulse; those still waiting are IN_BATCH. */
+    private transient List<ScheduledEvent> batch = new ArrayList<>();
+    /** Changes whenever the queue changes. */
+    private transient int version = 0;
+    private transient EventView view;
 
     public ScheduledEventManager(MasterClock clock) {
         this.master = clock;
@@ -119,72 +183,237 @@ public class ScheduledEventManager implements Serializable, Temporal {
     }
 
 
-    private void addEvent(ScheduledEvent newEvent) {
-        synchronized(eventQueue) {
-            eventQueue.add(newEvent);
-            Collections.sort(eventQueue);
+    private synchronized void addEvent(ScheduledEvent newEvent) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
         }
+        newEvent.sequence = nextSequence++;
+        newEvent.index = size;
+        heap[size++] = newEvent;
+        siftUp(newEvent.index);
+        version++;
     }
 
     /**
-     * Removes a previously registered event against a handler.
+     * Cancels an event previously returned when it was added. An event already executed
+     * is ignored.
+     * 
+     * @param event Event to cancel
+     */
+    public synchronized void cancelEvent(ScheduledEvent event) {
+        if (event.index >= 0) {
+            removeAt(event.index);
+        }
+        else if (event.index == IN_BATCH) {
+            // Taken for this pulse but not yet executed
+            event.index = NOT_QUEUED;
+        }
+    }
+
+    /**
+     * Removes a previously registered event against a handler. If the handler has several
+     * events the earliest is removed.
      * 
      * @param handler Handler to be removed
      */
-    public void removeEvent(ScheduledEventHandler handler) {
-        synchronized(eventQueue) {
-            for(ScheduledEvent event : eventQueue) {
-                if (event.handler.equals(handler)) {
-                    eventQueue.remove(event);
-                    return;
-                }
+    public synchronized void removeEvent(ScheduledEventHandler handler) {
+        for(ScheduledEvent event : batch) {
+            if ((event.index == IN_BATCH) && event.handler.equals(handler)) {
+                cancelEvent(event);
+                return;
             }
         }
+
+        ScheduledEvent earliest = null;
+        for (int i = 0; i < size; i++) {
+            ScheduledEvent event = heap[i];
+            if (event.handler.equals(handler)
+                    && ((earliest == null) || (event.compareTo(earliest) < 0))) {
+                earliest = event;
+            }
+        }
+        if (earliest != null) {
+            removeAt(earliest.index);
+        }
     }
 
     /**
-     * Returns a list of events are scheduled for the future.
+     * Returns a list of events are scheduled for the future in time order. The list is a
+     * read only view that follows changes to the queue.
      * 
      * @return
      */
-    public List<ScheduledEvent> getEvents() {
-        return Collections.unmodifiableList(eventQueue);
+    public synchronized List<ScheduledEvent> getEvents() {
+        if (view == null) {
+            view = new EventView();
+        }
+        return view;
+    }
+
+    /**
+     * Gets the time of the next event.
+     * 
+     * @return Time of the next event or null if none are scheduled
+     */
+    public synchronized MarsTime getNextEventTime() {
+        return (size == 0 ? null : heap[0].when);
+    }
+
+    /**
+     * Removes the event at a position in the heap.
+     * 
+     * @param i
+     */
+    private void removeAt(int i) {
+        ScheduledEvent removed = heap[i];
+        removed.index = NOT_QUEUED;
+        size--;
+        if (i != size) {
+            ScheduledEvent last = heap[size];
+            heap[i] = last;
+            last.index = i;
+            siftDown(i);
+            if (heap[i] == last) {
+                siftUp(i);
+            }
+        }
+        heap[size] = null;
+        version++;
+    }
+
+    private void siftUp(int i) {
+        ScheduledEvent event = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            ScheduledEvent p = heap[parent];
+            if (event.compareTo(p) >= 0) {
+                break;
+            }
+            heap[i] = p;
+            p.index = i;
+            i = parent;
+        }
+        heap[i] = event;
+        event.index = i;
+    }
+
+    private void siftDown(int i) {
+        ScheduledEvent event = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = (i << 1) + 1;
+            int right = child + 1;
+            if ((right < size) && (heap[right].compareTo(heap[child]) < 0)) {
+                child = right;
+            }
+            if (event.compareTo(heap[child]) <= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            heap[i].index = i;
+            i = child;
+        }
+        heap[i] = event;
+        event.index = i;
+    }
+
+    /**
+     * Takes all the events due at a time from the queue into the batch.
+     * 
+     * @param now Current millisols
+     * @return The events in time order
+     */
+    private synchronized List<ScheduledEvent> takeDue(double now) {
+        batch.clear();
+        while ((size > 0) && (heap[0].when.getTotalMillisols() <= now)) {
+            ScheduledEvent next = heap[0];
+            removeAt(0);
+            next.index = IN_BATCH;
+            batch.add(next);
+        }
+        return new ArrayList<>(batch);
     }
 
     /**
-     * Processes any expired events.
+     * Processes any expired events. All the events due are taken from the queue in one
+     * batch and executed outside the lock; repeating events that are due again are
+     * executed in a following batch.
      * 
      * @param clockPulse
      */
     @Override
     public boolean timePassing(ClockPulse clockPulse) {
-        synchronized(eventQueue) {
-            MarsTime currentTime = clockPulse.getMarsTime();
-
-            if (!eventQueue.isEmpty()) {
-                ScheduledEvent next = eventQueue.get(0);
-
-                // Keep executing events that have past
-                while((next != null) && next.when.getTotalMillisols() <= currentTime.getTotalMillisols()) {
-                    eventQueue.remove(next);
-                    int repeatInterval = next.handler.execute(currentTime);
-                    if (repeatInterval > 0) {
-                        // Update the when and add back intot he queue
-                        next.when = next.when.addTime(repeatInterval);
-                        addEvent(next);
-                    }
+        if (getNextEventTime() == null) {
+            // Nothing scheduled
+            return true;
+        }
 
-                    // Get next event
-                    if (eventQueue.isEmpty()) {
-                        next = null;
-                    }
-                    else {
-                        next = eventQueue.get(0);
+        MarsTime currentTime = clockPulse.getMarsTime();
+        double now = currentTime.getTotalMillisols();
+
+        // Keep executing events that have past
+        List<ScheduledEvent> due = takeDue(now);
+        while (!due.isEmpty()) {
+            for (ScheduledEvent next : due) {
+                synchronized(this) {
+                    // May have been cancelled by an earlier event in the batch
+                    if (next.index != IN_BATCH) {
+                        continue;
                     }
+                    next.index = NOT_QUEUED;
+                }
+
+                int repeatInterval = next.handler.execute(currentTime);
+                if (repeatInterval > 0) {
+                    // Update the when and add back into the queue
+                    next.when = next.when.addTime(repeatInterval);
+                    addEvent(next);
                 }
             }
+            due = takeDue(now);
         }
         
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * Saves the queue as the list of events in time order.
+     * 
+     * @param out
+     * @throws IOException
+     */
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        ScheduledEvent[] sorted = Arrays.copyOf(heap, size);
+        Arrays.sort(sorted);
+
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("master", master);
+        fields.put("eventQueue", new ArrayList<>(Arrays.asList(sorted)));
+        out.writeFields();
+    }
+
+    /**
+     * Loads the list of events into the heap. The list is in time order so events at the
+     * same time keep their order.
+     * 
+     * @param in
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        master = (MasterClock) fields.get("master", null);
+
+        heap = new ScheduledEvent[16];
+        size = 0;
+        nextSequence = 0;
+        batch = new ArrayList<>();
+        List<ScheduledEvent> eventQueue = (List<ScheduledEvent>) fields.get("eventQueue", null);
+        if (eventQueue != null) {
+            for (ScheduledEvent event : eventQueue) {
+                addEvent(event);
+            }
+        }
+    }
+}
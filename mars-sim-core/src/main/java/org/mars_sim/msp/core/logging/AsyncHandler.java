@@ -0,0 +1,185 @@
+/*
+ * Mars Simulation Project
+ * AsyncHandler.java
+ * @date 2023-07-21
+ * @author Barry Evans
+ */
+
+package org.mars_sim.msp.core.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * A Handler that passes records to other Handlers from a background thread so the
+ * formatting and output do not hold up the simulation threads. Records are held in a
+ * bounded queue; when it is full the caller waits so nothing is lost.
+ * It is configured in the logging properties like the JDK MemoryHandler:
+ * <ul>
+ * <li>org.mars_sim.msp.core.logging.AsyncHandler.handlers - class names of the target Handlers</li>
+ * <li>org.mars_sim.msp.core.logging.AsyncHandler.capacity - size of the queue, default 4096</li>
+ * <li>org.mars_sim.msp.core.logging.AsyncHandler.level - default ALL</li>
+ * </ul>
+ */
+public class AsyncHandler extends Handler {
+
+	private static final int DEFAULT_CAPACITY = 4096;
+	private static final long POLL_MS = 500;
+
+	private final BlockingQueue<LogRecord> queue;
+	private final List<Handler> targets;
+	private final Thread appender;
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates a handler from the logging properties.
+	 */
+	public AsyncHandler() {
+		this(createTargets(), getCapacity());
+
+		String level = LogManager.getLogManager().getProperty(getClass().getName() + ".level");
+		if (level != null) {
+			setLevel(Level.parse(level.trim()));
+		}
+	}
+
+	/**
+	 * Creates a handler for some target Handlers.
+	 *
+	 * @param targets Handlers that do the output
+	 * @param capacity Size of the queue
+	 */
+	public AsyncHandler(List<Handler> targets, int capacity) {
+		this.targets = targets;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+
+		appender = new Thread(this::drain, "log-appender");
+		appender.setDaemon(true);
+		appender.start();
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (closed || !isLoggable(record)) {
+			return;
+		}
+
+		try {
+			queue.put(record);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			reportError("Interrupted queueing a record", e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Passes the queued records to the targets until closed.
+	 */
+	private void drain() {
+		while (!closed || !queue.isEmpty()) {
+			try {
+				LogRecord record = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+				if (record != null) {
+					publishToTargets(record);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void publishToTargets(LogRecord record) {
+		for (Handler h : targets) {
+			try {
+				h.publish(record);
+			}
+			catch (RuntimeException e) {
+				reportError("Target handler failed", e, ErrorManager.WRITE_FAILURE);
+			}
+		}
+	}
+
+	/**
+	 * Writes out the records queued so far on the calling thread.
+	 */
+	@Override
+	public void flush() {
+		List<LogRecord> pending = new ArrayList<>();
+		queue.drainTo(pending);
+		pending.forEach(this::publishToTargets);
+		targets.forEach(Handler::flush);
+	}
+
+	/**
+	 * Writes out all queued records and closes the targets.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			appender.join(POLL_MS * 2);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+		targets.forEach(Handler::close);
+	}
+
+	/**
+	 * Number of records waiting to be output.
+	 *
+	 * @return
+	 */
+	public int getQueued() {
+		return queue.size();
+	}
+
+	private static int getCapacity() {
+		String value = LogManager.getLogManager().getProperty(AsyncHandler.class.getName() + ".capacity");
+		if (value != null) {
+			try {
+				return Integer.parseInt(value.trim());
+			}
+			catch (NumberFormatException e) {
+				// Use the default
+			}
+		}
+		return DEFAULT_CAPACITY;
+	}
+
+	/**
+	 * Creates the target Handlers named in the logging properties.
+	 */
+	private static List<Handler> createTargets() {
+		List<Handler> result = new ArrayList<>();
+		String names = LogManager.getLogManager().getProperty(AsyncHandler.class.getName() + ".handlers");
+		if (names != null) {
+			for (String name : names.split("[,\\s]+")) {
+				if (name.isBlank()) {
+					continue;
+				}
+				try {
+					Class<?> handlerClass = ClassLoader.getSystemClassLoader().loadClass(name);
+					result.add((Handler) handlerClass.getDeclaredConstructor().newInstance());
+				}
+				catch (ReflectiveOperationException | ClassCastException e) {
+					new ErrorManager().error("Can not create log handler " + name, e,
+											 ErrorManager.GENERIC_FAILURE);
+				}
+			}
+		}
+		return result;
+	}
+}
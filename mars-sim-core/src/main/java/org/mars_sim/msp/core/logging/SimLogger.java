@@ -7,9 +7,13 @@
 
 package org.mars_sim.msp.core.logging;
 
+import java.lang.StackWalker.StackFrame;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,27 +29,53 @@ import org.mars_sim.msp.core.structure.construction.ConstructionSite;
 public class SimLogger {
 
 	/**
-	 * TimeAndCount keeps track of the between time and the number of times the message has appeared.
+	 * Identifies a rate limited message by where it is logged and the actor.
+	 */
+	private static record CallSite(String fileName, int lineNumber, String actor) {}
+
+	/**
+	 * TimeAndCount keeps track of when a message was last logged and the number of times it
+	 * has been skipped since. It is updated without locking; if two threads log the same
+	 * message at once only one wins.
 	 */
 	private static class TimeAndCount {
-		protected long startTime;
-		protected int count;
+		private final AtomicLong startTime;
+		private final AtomicInteger skipped = new AtomicInteger();
 
-		TimeAndCount() {
-			this.startTime = System.currentTimeMillis();
-			this.count = 1;
+		TimeAndCount(long now) {
+			this.startTime = new AtomicLong(now);
+		}
+
+		/**
+		 * Claims the right to log the message again.
+		 *
+		 * @param now Time now
+		 * @param timeBetweenLogs Milliseconds to wait between similar log messages
+		 * @return The number of appearances since the last log or -1 if it should be skipped
+		 */
+		int claim(long now, long timeBetweenLogs) {
+			long start = startTime.get();
+			if ((now - start < timeBetweenLogs) || !startTime.compareAndSet(start, now)) {
+				skipped.incrementAndGet();
+				return -1;
+			}
+			return skipped.getAndSet(0) + 1;
 		}
 	}
 
+	/** Walks only as far as the first frame outside the logger. */
+	private static final StackWalker WALKER = StackWalker.getInstance();
+
 	private static Map<String, SimLogger> loggers = new HashMap<>();
-	private static Map<String, TimeAndCount> lastLogged = new ConcurrentHashMap<>();
+	private static Map<CallSite, TimeAndCount> lastLogged = new ConcurrentHashMap<>();
 
 	private static final String OPEN_BRACKET = " [x";
 	private static final String CLOSED_BRACKET = "]";
 	private static final String CLOSED_BRACKET_SPACE = "] ";
 	private static final String COLON = " : [";
 	private static final String DASH = " - ";
-	private static final String QUESTION = "?";
+	private static final String UNKNOWN = "unknown";
+	private static final String LOGGER_CLASS = SimLogger.class.getName();
 	private static final long DEFAULT_WARNING_TIME = 1000;
 	public static final long DEFAULT_SEVERE_TIME = 500;
 	private static final long DEFAULT_INFO_TIME = 0;
@@ -179,29 +209,28 @@ public class SimLogger {
 			return;
 		}
 
-		long dTime = timeBetweenLogs;
-
-		String uniqueIdentifier = getUniqueIdentifer(actor);
-		TimeAndCount lastTimeAndCount = lastLogged.get(uniqueIdentifier);
-		StringBuilder outputMessage = null;
-		if (lastTimeAndCount != null) {
-			synchronized (lastTimeAndCount) {
-				long now = System.currentTimeMillis();
-				if (now - lastTimeAndCount.startTime < dTime) {
-					// Increment count only since the message in the same and is within the time prescribed
-					lastTimeAndCount.count++;
+		StringBuilder outputMessage = new StringBuilder(sourceName);
+
+		// Without a time between logs nothing is skipped so the call site is not needed
+		if (timeBetweenLogs > 0) {
+			long now = System.currentTimeMillis();
+			CallSite site = getCallSite(actor);
+			TimeAndCount lastTimeAndCount = lastLogged.get(site);
+			if (lastTimeAndCount == null) {
+				// First time for this message, unless another thread just got in first
+				lastTimeAndCount = lastLogged.putIfAbsent(site, new TimeAndCount(now));
+			}
+			if (lastTimeAndCount != null) {
+				int count = lastTimeAndCount.claim(now, timeBetweenLogs);
+				if (count < 0) {
+					// Message is the same and is within the time prescribed
 					return;
 				}
 
 				// Print the log statement with counts
-				outputMessage = new StringBuilder(sourceName);
-				outputMessage.append(OPEN_BRACKET).append(lastTimeAndCount.count).append(CLOSED_BRACKET);
+				outputMessage.append(OPEN_BRACKET).append(count).append(CLOSED_BRACKET);
 			}
 		}
-		else {
-			// First time for this message
-			outputMessage = new StringBuilder(sourceName);
-		}
 
 		// Add body, contents Settlement, Unit nickname message"
 		outputMessage.append(COLON);
@@ -227,38 +256,27 @@ public class SimLogger {
 
 		outputMessage.append(message);
 
+		// Give the source so the record does not have to find it from the stack
 		if (t == null) {
-			rootLogger.log(level, outputMessage.toString());
+			rootLogger.logp(level, LOGGER_CLASS, null, outputMessage.toString());
 		}
 		else {
-			rootLogger.log(level, outputMessage.toString(), t);
+			rootLogger.logp(level, LOGGER_CLASS, null, outputMessage.toString(), t);
 		}
-
-		// Register the message
-		lastLogged.put(uniqueIdentifier, new TimeAndCount());
 	}
 
 	/**
-	 * Returns the line.
+	 * Gets the place outside of SimLogger the message was logged from. Only the frames up
+	 * to the caller are walked.
 	 *
 	 * @return
 	 */
-	private static String getUniqueIdentifer(Loggable actor) {
-		StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-		String loggerClass = SimLogger.class.getName();
-		String nickName = (actor != null ? actor.getName() : "unknown");
-
-		// Skip the first frame as it is the "getStackTrace" call
-		for (int idx = 1; idx < stackTrace.length; idx++) {
-			StackTraceElement ste = stackTrace[idx];
-			if (!ste.getClassName().equals(loggerClass)) {
-				// We have now file/line before entering SimLogger.
-				StringBuilder key = new StringBuilder();
-				key.append(ste.getFileName()).append(ste.getLineNumber()).append(nickName);
-				return key.toString();
-			}
-		}
-		return QUESTION;
+	private static CallSite getCallSite(Loggable actor) {
+		String nickName = (actor != null ? actor.getName() : UNKNOWN);
+		Optional<StackFrame> caller = WALKER.walk(s -> s.dropWhile(f -> f.getClassName().equals(LOGGER_CLASS))
+														.findFirst());
+		return caller.map(f -> new CallSite(f.getFileName(), f.getLineNumber(), nickName))
+					 .orElseGet(() -> new CallSite(null, -1, nickName));
 	}
 
 	/**
@@ -268,7 +286,9 @@ public class SimLogger {
 	 * @param message
 	 */
 	public void log(Level level, String message) {
-		rootLogger.log(level, sourceName + " : " + message);
+		if (rootLogger.isLoggable(level)) {
+			rootLogger.logp(level, LOGGER_CLASS, null, sourceName + " : " + message);
+		}
 	}
 
 	/**
@@ -279,7 +299,9 @@ public class SimLogger {
 	 * @param e Exception
 	 */
 	public void log(Level level, String message, Throwable e) {
-		rootLogger.log(level, sourceName + " : " + message, e);
+		if (rootLogger.isLoggable(level)) {
+			rootLogger.logp(level, LOGGER_CLASS, null, sourceName + " : " + message, e);
+		}
 	}
 
 	/**
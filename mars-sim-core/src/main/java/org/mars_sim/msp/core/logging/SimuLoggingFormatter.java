@@ -12,7 +12,10 @@ import java.io.StringWriter;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Formatter;
+import java.util.logging.Level;
 import java.util.logging.LogRecord;
 
 import org.mars_sim.msp.core.time.MarsTime;
@@ -38,6 +41,9 @@ public class SimuLoggingFormatter extends Formatter {
 	private static final String COLON = " : ";
 
 	private static String lastMarsTimestamp;
+
+	// Level names as shown in the output
+	private static Map<Level, String> levelNames = new ConcurrentHashMap<>();
 	
 	private static final DateTimeFormatter DATE_TIME_FORMATTER
 						= DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT);
@@ -56,7 +62,7 @@ public class SimuLoggingFormatter extends Formatter {
 		String msg = formatMessage(record);
 
 		// Build the messge output using a fixed format
-	    StringBuffer sb = new StringBuffer();
+	    StringBuilder sb = new StringBuilder();
 	    if (masterClock != null) {
 			if (timeStampType == 0) {
 				sb.append(getLocalTime());
@@ -75,7 +81,8 @@ public class SimuLoggingFormatter extends Formatter {
 
 		// Get the level name and add it to the buffer
 		sb.append(O_PAREN);
-		sb.append(Conversion.capitalize(record.getLevel().getName().toLowerCase()));
+		sb.append(levelNames.computeIfAbsent(record.getLevel(),
+									l -> Conversion.capitalize(l.getName().toLowerCase())));
 		sb.append(C_PAREN);
 		
 		// If not using LogConsolidated class to generate the log statement
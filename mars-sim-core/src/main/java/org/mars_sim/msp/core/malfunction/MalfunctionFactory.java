@@ -9,12 +9,15 @@ package org.mars_sim.msp.core.malfunction;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.mars_sim.msp.core.SimulationConfig;
 import org.mars_sim.msp.core.Unit;
@@ -40,6 +43,107 @@ import org.mars_sim.msp.core.vehicle.Vehicle;
  */
 public final class MalfunctionFactory implements Serializable {
 
+	/**
+	 * The malfunctions that can happen to one set of scopes, with their cumulative
+	 * probabilities, and the repair parts they need.
+	 */
+	private static final class ScopeTable {
+		private final int version;
+		private final MalfunctionMeta[] malfunctions;
+		private final double[] cumulative;
+		private final Map<Integer, Double> repairParts;
+
+		private ScopeTable(int version, List<MalfunctionMeta> matched) {
+			this.version = version;
+			this.malfunctions = matched.toArray(new MalfunctionMeta[0]);
+			this.cumulative = new double[malfunctions.length];
+			this.repairParts = new HashMap<>();
+
+			double total = 0D;
+			for (int i = 0; i < malfunctions.length; i++) {
+				MalfunctionMeta m = malfunctions[i];
+				total += m.getProbability();
+				cumulative[i] = total;
+
+				double malfunctionProbability = m.getProbability() / 100D;
+				for (RepairPart p : m.getParts()) {
+					double partProbability = p.getRepairProbability() / 100D;
+					double averageNumber = RandomUtil.getIntegerAverageValue(p.getNumber());
+					repairParts.merge(p.getPartID(), averageNumber * partProbability * malfunctionProbability,
+									  Double::sum);
+				}
+			}
+		}
+
+		private double getTotal() {
+			return (cumulative.length > 0 ? cumulative[cumulative.length - 1] : 0D);
+		}
+
+		/**
+		 * Finds the malfunction covering a point in the cumulative probabilities.
+		 *
+		 * @param r Point between 0 and the total
+		 */
+		private MalfunctionMeta find(double r) {
+			int idx = Arrays.binarySearch(cumulative, r);
+			// An exact match is the end of that entry so the next one covers it
+			idx = (idx < 0 ? -idx - 1 : idx + 1);
+			return malfunctions[Math.min(idx, malfunctions.length - 1)];
+		}
+	}
+
+	/**
+	 * The malfunction definitions with their scopes held as bit sets.
+	 */
+	private static final class ScopeIndex {
+		private final List<MalfunctionMeta> source;
+		private final Map<String, Integer> scopeIds = new HashMap<>();
+		private final BitSet[] systems;
+		private final Map<Set<String>, ScopeTable> tables = new ConcurrentHashMap<>();
+
+		private ScopeIndex(List<MalfunctionMeta> source) {
+			this.source = source;
+			this.systems = new BitSet[source.size()];
+			for (int i = 0; i < systems.length; i++) {
+				systems[i] = new BitSet();
+				for (String s : source.get(i).getSystems()) {
+					int id = scopeIds.computeIfAbsent(s.toLowerCase(), k -> scopeIds.size());
+					systems[i].set(id);
+				}
+			}
+		}
+
+		/**
+		 * Gets the table for a set of scopes. It is built if the probabilities have changed.
+		 */
+		private ScopeTable getTable(Collection<String> scopes) {
+			int version = probabilityVersion.get();
+			// Tables are keyed on sets so the order of the scopes does not matter
+			ScopeTable table = tables.get((scopes instanceof Set<?>) ? scopes : Set.copyOf(scopes));
+			if ((table == null) || (table.version != version)) {
+				BitSet unitScopes = new BitSet();
+				for (String s : scopes) {
+					Integer id = scopeIds.get(s.toLowerCase());
+					if (id != null) {
+						unitScopes.set(id);
+					}
+				}
+
+				List<MalfunctionMeta> matched = new ArrayList<>();
+				for (int i = 0; i < systems.length; i++) {
+					if (systems[i].intersects(unitScopes)) {
+						matched.add(source.get(i));
+					}
+				}
+
+				table = new ScopeTable(version, matched);
+				// Key on a copy as the caller's scopes may change
+				tables.put(Set.copyOf(scopes), table);
+			}
+			return table;
+		}
+	}
+
 	/** default serial id. */
 	private static final long serialVersionUID = 1L;
 
@@ -55,6 +159,12 @@ public final class MalfunctionFactory implements Serializable {
 	public static MalfunctionConfig mc = simulationConfig.getMalfunctionConfiguration();
 	public static PartConfig partConfig = simulationConfig.getPartConfiguration();
 
+	/** Changes whenever a malfunction or repair part probability changes. */
+	private static AtomicInteger probabilityVersion = new AtomicInteger();
+	private static volatile ScopeIndex scopeIndex;
+	/** Maintenance parts per set of scopes; these come from the fixed configuration. */
+	private static Map<Set<String>, Map<Integer, Double>> maintenanceParts = new ConcurrentHashMap<>();
+
 	/**
 	 * Constructs a MalfunctionFactory object.
 	 *
@@ -71,38 +181,15 @@ public final class MalfunctionFactory implements Serializable {
 	 * @return a randomly-picked malfunction or null if there are none available.
 	 */
 	public MalfunctionMeta pickAMalfunction(Collection<String> scopes) {
-		MalfunctionMeta choosenMalfunction = null;
-
-		List<MalfunctionMeta> malfunctions = new ArrayList<>(mc.getMalfunctionList());
-		double totalProbability = 0D;
-		// Total probability is fixed
-		for (MalfunctionMeta m : malfunctions) {
-			if (m.isMatched(scopes)) {
-				totalProbability += m.getProbability();
-			}
-		}
-
-		double r = RandomUtil.getRandomDouble(totalProbability);
-		// Shuffle the malfunction list
-		Collections.shuffle(malfunctions);
-		for (MalfunctionMeta m : malfunctions) {
-			double probability = m.getProbability();
-			
-			if (m.isMatched(scopes) && (choosenMalfunction == null)) {
-				if (r < probability) {
-					// will only pick one malfunction at a time 
-					choosenMalfunction = m;
-					break;
-				} else
-					r -= probability;
-			}
+		ScopeTable table = getScopeTable(scopes);
+		double totalProbability = table.getTotal();
+		if (totalProbability <= 0D) {
+			// Nothing can go wrong with these scopes
+			return null;
 		}
 
-		// Safety check if probability failed to pick malfunction
-		if (choosenMalfunction == null) {
-			logger.warning("Failed to pick a malfunction by probability " + totalProbability + ".");
-			choosenMalfunction = malfunctions.get(0);
-		}
+		// Will only pick one malfunction at a time
+		MalfunctionMeta choosenMalfunction = table.find(RandomUtil.getRandomDouble(totalProbability));
 
 		double failureRate = choosenMalfunction.getProbability();
 		// Note : the composite probability of a malfunction is dynamically updated as
@@ -114,6 +201,29 @@ public final class MalfunctionFactory implements Serializable {
 		return choosenMalfunction;
 	}
 
+	/**
+	 * Gets the compiled table of malfunctions for a set of scopes.
+	 *
+	 * @param scopes
+	 * @return
+	 */
+	private static ScopeTable getScopeTable(Collection<String> scopes) {
+		ScopeIndex index = scopeIndex;
+		if ((index == null) || (index.source != mc.getMalfunctionList())) {
+			index = new ScopeIndex(mc.getMalfunctionList());
+			scopeIndex = index;
+		}
+		return index.getTable(scopes);
+	}
+
+	/**
+	 * Records that a malfunction or repair part probability has changed so the compiled
+	 * tables are rebuilt when next used.
+	 */
+	static void probabilitiesChanged() {
+		probabilityVersion.incrementAndGet();
+	}
+
 	/**
 	 * Gets a collection of malfunctionable entities local to the given person.
 	 *
@@ -245,25 +355,8 @@ public final class MalfunctionFactory implements Serializable {
 	 * @throws Exception if error finding repair part probabilities.
 	 */
 	public static Map<Integer, Double> getRepairPartProbabilities(Collection<String> scope) {
-		Map<Integer, Double> repairPartProbabilities = new HashMap<>();
-
-		for (MalfunctionMeta m : mc.getMalfunctionList()) {
-			if (m.isMatched(scope)) {
-				double malfunctionProbability = m.getProbability() / 100D;
-
-				for (RepairPart p : m.getParts()) {
-					double partProbability = p.getRepairProbability() / 100D;
-					double averageNumber = RandomUtil.getIntegerAverageValue(p.getNumber());
-					double totalNumber = averageNumber * partProbability * malfunctionProbability;
-
-					int id = p.getPartID();
-					if (repairPartProbabilities.containsKey(id))
-						totalNumber += repairPartProbabilities.get(id);
-					repairPartProbabilities.put(id, totalNumber);
-				}
-			}
-		}
-		return repairPartProbabilities;
+		// Callers may change the result
+		return new HashMap<>(getScopeTable(scope).repairParts);
 	}
 
 	/**
@@ -276,6 +369,15 @@ public final class MalfunctionFactory implements Serializable {
 	 * @throws Exception if error finding maintenance part probabilities.
 	 */
 	static Map<Integer, Double> getMaintenancePartProbabilities(Set<String> scope) {
+		Map<Integer, Double> cached = maintenanceParts.get(scope);
+		if (cached == null) {
+			cached = computeMaintenancePartProbabilities(scope);
+			maintenanceParts.put(Set.copyOf(scope), cached);
+		}
+		return new HashMap<>(cached);
+	}
+
+	private static Map<Integer, Double> computeMaintenancePartProbabilities(Set<String> scope) {
 		Map<Integer, Double> maintenancePartProbabilities = new HashMap<>();
 		for (MaintenanceScope maintenance : partConfig.getMaintenance(scope)) {
 			double prob = maintenance.getProbability() / 100D;
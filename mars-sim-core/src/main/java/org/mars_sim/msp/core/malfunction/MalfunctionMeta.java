@@ -118,6 +118,7 @@ public class MalfunctionMeta implements Serializable {
 	 */
 	public void setProbability(double p) {
 		probability = p;
+		MalfunctionFactory.probabilitiesChanged();
 	}
 
 	/**
@@ -129,6 +130,15 @@ public class MalfunctionMeta implements Serializable {
 		return repairEffort;
 	}
 
+	/**
+	 * Gets the scope strings this malfunction applies to.
+	 *
+	 * @return
+	 */
+	Set<String> getSystems() {
+		return systems;
+	}
+
 	/**
 	 * Checks if a unit's scope strings have any matches with the malfunction's
 	 * scope strings.
@@ -55,5 +55,6 @@ class RepairPart implements Serializable {
 	
 	protected void setRepairProbability(double value) {
 		repairProbability = value;
+		MalfunctionFactory.probabilitiesChanged();
 	}
 }
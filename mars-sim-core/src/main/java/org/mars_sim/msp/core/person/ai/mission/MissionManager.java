@@ -8,10 +8,8 @@ package org.mars_sim.msp.core.person.ai.mission;
 
 import java.io.Serializable;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
@@ -24,7 +22,7 @@ import org.mars_sim.msp.core.person.ai.mission.meta.MetaMissionUtil;
 import org.mars_sim.msp.core.person.ai.task.EVAOperation;
 import org.mars_sim.msp.core.reportingAuthority.PreferenceKey;
 import org.mars_sim.msp.core.structure.Settlement;
-import org.mars_sim.msp.core.tool.RandomUtil;
+import org.mars_sim.msp.core.tool.WeightedSampler;
 
 /**
  * This class keeps track of ongoing missions in the simulation.<br>
@@ -188,10 +186,7 @@ public class MissionManager implements Serializable {
 		Mission result = null;
 
 		// Probably must be calculated as a local otherwise method is not threadsafe using a shared cache
-		Map<MetaMission, Double> missionProbCache = new HashMap<>();
-
-		// Get a random number from 0 to the total weight
-		double totalProbCache = 0D;
+		WeightedSampler<MetaMission> missionProbCache = new WeightedSampler<>();
 
 		Settlement startingSettlement = person.getAssociatedSettlement();
 
@@ -216,33 +211,20 @@ public class MissionManager implements Serializable {
 									+ " base prob: " + Math.round(baseProb * 100.0)/100.0
 									+ " sponsor: " + settlementRatio);
 					if (probability > 0) {
-						missionProbCache.put(metaMission, probability);
-						totalProbCache += probability;
+						missionProbCache.add(metaMission, probability);
 					}
 				}
 			}
 		}
 
-		if (totalProbCache == 0D) {
+		if (missionProbCache.getTotal() == 0D) {
 			logger.fine(person, "Has zero total mission probability weight. No mission selected.");
 
 			return null;
 		}
 
-		// Get a random number from 0 to the total probability weight.
-		double r = RandomUtil.getRandomDouble(totalProbCache);
-
 		// Determine which mission is selected.
-		MetaMission selectedMetaMission = null;
-		for (Entry<MetaMission, Double> possible : missionProbCache.entrySet()) {
-			double probWeight = possible.getValue();
-			if (r <= probWeight) {
-				selectedMetaMission = possible.getKey();
-				break;
-			} 
-
-			r -= probWeight;
-		}
+		MetaMission selectedMetaMission = missionProbCache.sample();
 
 		if (selectedMetaMission == null) {
 			throw new IllegalStateException(person + " could not determine a new mission.");
@@ -92,8 +92,9 @@ public class ManufactureConstructionMaterialsMeta extends FactoryMetaTask {
                     result *= getBuildingModifier(manufacturingBuilding, person);
 
                     // Manufacturing good value modifier.
-                    result *= ManufactureConstructionMaterials.getHighestManufacturingProcessValue(person,
-                            manufacturingBuilding);
+                    result *= getSharedScore(manufacturingBuilding, skill,
+                            () -> ManufactureConstructionMaterials.getHighestManufacturingProcessValue(person,
+                                    manufacturingBuilding));
                     
             		result *= person.getSettlement().getGoodsManager().getManufacturingFactor();
 
@@ -142,9 +143,13 @@ public class ManufactureConstructionMaterialsMeta extends FactoryMetaTask {
                     result *= TaskProbabilityUtil.getCrowdingProbabilityModifier(robot,
                             manufacturingBuilding);
 
+                    SkillManager skillManager = robot.getSkillManager();
+                    int skill = skillManager.getEffectiveSkillLevel(SkillType.MATERIALS_SCIENCE);
+
                     // Manufacturing good value modifier.
-                    result *= ManufactureConstructionMaterials.getHighestManufacturingProcessValue(robot,
-                            manufacturingBuilding);
+                    result *= getSharedScore(manufacturingBuilding, skill,
+                            () -> ManufactureConstructionMaterials.getHighestManufacturingProcessValue(robot,
+                                    manufacturingBuilding));
 
                     // Cap the result to a max value of 100.
                     if (result > 100D) {
@@ -153,8 +158,6 @@ public class ManufactureConstructionMaterialsMeta extends FactoryMetaTask {
 
                     // If manufacturing building has process requiring work, add
                     // modifier.
-                    SkillManager skillManager = robot.getSkillManager();
-                    int skill = skillManager.getEffectiveSkillLevel(SkillType.MATERIALS_SCIENCE);
                     
                     if (ManufactureConstructionMaterials.hasProcessRequiringWork(manufacturingBuilding, skill)) {
                         result += 10D;
@@ -94,7 +94,8 @@ public class ManufactureGoodMeta extends FactoryMetaTask {
 
 
                 // Manufacturing good value modifier.
-                result *= ManufactureGood.getHighestManufacturingProcessValue(person, manufacturingBuilding);
+                result *= getSharedScore(manufacturingBuilding, skill,
+                        () -> ManufactureGood.getHighestManufacturingProcessValue(person, manufacturingBuilding));
         		result *= person.getSettlement().getGoodsManager().getManufacturingFactor();
 
                 result *= getPersonModifier(person);
@@ -94,7 +94,8 @@ public class ProduceFoodMeta extends FactoryMetaTask {
 
 
                 // FoodProduction good value modifier.
-                result *= ProduceFood.getHighestFoodProductionProcessValue(person, foodProductionBuilding);
+                result *= getSharedScore(foodProductionBuilding, skill,
+                        () -> ProduceFood.getHighestFoodProductionProcessValue(person, foodProductionBuilding));
         		result *= person.getSettlement().getGoodsManager().getCropFarmFactor();
 
     	        result *= getPersonModifier(person);
@@ -132,15 +133,17 @@ public class ProduceFoodMeta extends FactoryMetaTask {
                 if (foodProductionBuilding != null) {
                     result += 100D;
 
-                    // FoodProduction good value modifier.
-                    result *= ProduceFood.getHighestFoodProductionProcessValue(robot, foodProductionBuilding);
-
-                    // If foodProduction building has process requiring work, add modifier.
                     SkillManager skillManager = robot.getSkillManager();
                     int skill = skillManager.getEffectiveSkillLevel(SkillType.COOKING) * 5;
                     skill += skillManager.getEffectiveSkillLevel(SkillType.MATERIALS_SCIENCE) * 2;
                     skill = (int) Math.round(skill / 7D);
 
+                    // FoodProduction good value modifier.
+                    result *= getSharedScore(foodProductionBuilding, skill,
+                            () -> ProduceFood.getHighestFoodProductionProcessValue(robot, foodProductionBuilding));
+
+                    // If foodProduction building has process requiring work, add modifier.
+
                     if (ProduceFood.hasProcessRequiringWork(foodProductionBuilding, skill)) {
                         result += 100D;
                     }
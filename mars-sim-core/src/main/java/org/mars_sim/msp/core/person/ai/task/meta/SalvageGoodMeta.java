@@ -76,8 +76,12 @@ public class SalvageGoodMeta extends FactoryMetaTask {
                 // Crowding modifier.
                 result *= getBuildingModifier(manufacturingBuilding, person);
 
+                SkillManager skillManager = person.getSkillManager();
+                int skill = skillManager.getEffectiveSkillLevel(SkillType.MATERIALS_SCIENCE);
+
                 // Salvaging good value modifier.
-                result *= SalvageGood.getHighestSalvagingProcessValue(person, manufacturingBuilding);
+                result *= getSharedScore(manufacturingBuilding, skill,
+                        () -> SalvageGood.getHighestSalvagingProcessValue(person, manufacturingBuilding));
 
                 if (result > 100D) {
                     result = 100D;
@@ -85,8 +89,6 @@ public class SalvageGoodMeta extends FactoryMetaTask {
 
                 // If manufacturing building has salvage process requiring work, add
                 // modifier.
-                SkillManager skillManager = person.getSkillManager();
-                int skill = skillManager.getEffectiveSkillLevel(SkillType.MATERIALS_SCIENCE);
                 if (SalvageGood.hasSalvageProcessRequiringWork(manufacturingBuilding, skill)) {
                     result += 10D;
                 }
@@ -8,9 +8,11 @@ package org.mars_sim.msp.core.person.ai.task.util;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.DoubleSupplier;
 
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.robot.Robot;
+import org.mars_sim.msp.core.structure.building.Building;
 
 /**
  * THis represents a MetaTask instance that creates a single Task per evaluaton. These
@@ -92,6 +94,26 @@ public abstract class FactoryMetaTask extends MetaTask {
 	}
 
 	
+	/**
+	 * Gets a part of the score that depends on the state of a Building and one attribute
+	 * of the Worker. This is calculated once per pulse by the Settlement and shared with
+	 * every Worker with the same attribute value; the personal modifiers are applied
+	 * on top by the caller.
+	 * 
+	 * @param building Building being scored
+	 * @param level Worker attribute the score depends on, e.g. a skill level
+	 * @param calculator Calculates the score if it is not already known
+	 * @return
+	 */
+	protected double getSharedScore(Building building, int level, DoubleSupplier calculator) {
+		SettlementTaskManager stm = building.getSettlement().getTaskManager();
+		if (stm == null) {
+			// Settlement is not fully initialised
+			return calculator.getAsDouble();
+		}
+		return stm.getSharedScore(this, building, level, calculator);
+	}
+
 	/**
 	 * Creates a TaskJob instance delegate where this instance handles Task creation.
 	 * 
@@ -161,7 +161,7 @@ public class PersonTaskManager extends TaskManager {
 		}
 
 		// Check if the map cache is empty
-		if (newCache.getTasks().isEmpty()) {
+		if (newCache.isEmpty()) {
 			if (person.isOutside()) {
 				newCache = getDefaultOutsideTasks();
 			}
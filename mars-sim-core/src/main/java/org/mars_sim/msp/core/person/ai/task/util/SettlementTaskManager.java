@@ -9,6 +9,10 @@ package org.mars_sim.msp.core.person.ai.task.util;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
 
 import org.mars_sim.msp.core.UnitEventType;
 import org.mars_sim.msp.core.person.Person;
@@ -64,6 +68,11 @@ public class SettlementTaskManager implements Serializable {
         }
     }
 
+    /**
+     * Identifies a shared score; the MetaTask, what it is scoring and the Worker attribute it depends on.
+     */
+    private static record SharedScoreKey(MetaTask meta, Object context, int level) {}
+
 //	Can add back private static final SimLogger logger = SimLogger.getLogger(SettlementTaskManager.class.getName())
 
     private Settlement owner;
@@ -74,6 +83,12 @@ public class SettlementTaskManager implements Serializable {
     private int buildCount = 0;
     private int executedCount = 0;
 
+    /** Settlement scoped parts of MetaTask scores that are shared by all Workers in a pulse. */
+    private transient Map<SharedScoreKey, Double> sharedScores;
+    /** Workers of a settlement may score in parallel so these are shared counters. */
+    private final LongAdder scoreCallCount = new LongAdder();
+    private final LongAdder scoreBuildCount = new LongAdder();
+
     public SettlementTaskManager(Settlement owner) {
         this.owner = owner;
     }
@@ -177,10 +192,48 @@ public class SettlementTaskManager implements Serializable {
         return (double)callCount/buildCount;
     }
 
+    /**
+     * Gets part of a MetaTask score that depends only on the Settlement state and a single
+     * Worker attribute. It is calculated once per pulse and reused by every other Worker
+     * asking for the same context and level.
+     * 
+     * @param meta MetaTask calculating the score
+     * @param context What the score applies to, e.g. a Building
+     * @param level Worker attribute the score depends on, e.g. a skill level
+     * @param calculator Calculates the score if not already known
+     * @return
+     */
+    public double getSharedScore(MetaTask meta, Object context, int level, DoubleSupplier calculator) {
+        if (sharedScores == null) {
+            sharedScores = new ConcurrentHashMap<>();
+        }
+        scoreCallCount.increment();
+
+        SharedScoreKey key = new SharedScoreKey(meta, context, level);
+        Double score = sharedScores.get(key);
+        if (score == null) {
+            score = calculator.getAsDouble();
+            sharedScores.put(key, score);
+            scoreBuildCount.increment();
+        }
+        return score;
+    }
+
+    /**
+     * This is the reuse score of how many times a shared MetaTask score is reused by other Workers.
+     */
+    public double getSharedScoreReuse() {
+        long builds = scoreBuildCount.sum();
+        return (builds == 0 ? 0D : (double)scoreCallCount.sum()/builds);
+    }
+
     /**
      * Time has progressed so mark the tasks to be refresh on the next demand.
      */
     public void timePassing() {
         refreshTasks = true;
+        if (sharedScores != null) {
+            sharedScores.clear();
+        }
     }
 }
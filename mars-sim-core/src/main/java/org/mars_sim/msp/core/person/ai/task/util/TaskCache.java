@@ -6,19 +6,19 @@
  */
 package org.mars_sim.msp.core.person.ai.task.util;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.random.RandomGenerator;
 
 import org.mars_sim.msp.core.time.MarsClock;
 import org.mars_sim.msp.core.tool.RandomUtil;
+import org.mars_sim.msp.core.tool.WeightedSampler;
 
 /**
  * Class represents a set of TaskJob that can be used to select a new Task for a Work. 
  * They are weighted to the probability of being selected.
  */
 public class TaskCache {
-	private List<TaskJob> tasks = new ArrayList<>();
-    private double totalProb = 0;
+	private WeightedSampler<TaskJob> tasks;
     private String context;
     private MarsClock createdOn;
     private TaskJob lastSelected;
@@ -31,6 +31,18 @@ public class TaskCache {
      * @param createdOn If this is non-null then the cache works in transient mode.
      */
     public TaskCache(String context, MarsClock createdOn) {
+        this(context, createdOn, RandomUtil.getRandom());
+    }
+
+    /**
+     * Create a cache of Tasks that draws from a specific random generator.
+     * 
+     * @param context Descriptive context of the purpose
+     * @param createdOn If this is non-null then the cache works in transient mode.
+     * @param random Source of the random selections
+     */
+    public TaskCache(String context, MarsClock createdOn, RandomGenerator random) {
+        this.tasks = new WeightedSampler<>(random, 32);
         this.context = context;
         if (createdOn != null) {
             this.createdOn = new MarsClock(createdOn);
@@ -42,14 +54,12 @@ public class TaskCache {
      * @param job The new potential Task.
      */
 	public void put(TaskJob job) {
-		tasks.add(job);
-		totalProb += job.getScore();
+		tasks.add(job, job.getScore());
 	}
 
     public void add(List<TaskJob> jobs) {
         for(TaskJob j : jobs) {
-            tasks.add(j);
-            totalProb += j.getScore(); 
+            tasks.add(j, j.getScore());
         }
     }
 
@@ -65,7 +75,7 @@ public class TaskCache {
      * @return
      */
     public double getTotal() {
-        return totalProb;
+        return tasks.getTotal();
     }
 
     /**
@@ -77,10 +87,18 @@ public class TaskCache {
     }
 
     /**
-     * Get the jobs registered
+     * Get the jobs registered. This is a copy taken now; it does not follow later
+     * selections from a transient cache and changing it does not change the cache.
      */
     public List<TaskJob> getTasks() {
-        return tasks;
+        return tasks.getItems();
+    }
+
+    /**
+     * Are there no jobs left to select ? This avoids copying the jobs.
+     */
+    public boolean isEmpty() {
+        return tasks.isEmpty();
     }
 
     /**
@@ -94,28 +112,21 @@ public class TaskCache {
      * Choose a Task to work at random.
     */
     TaskJob getRandomSelection() {		
-        TaskJob lastEntry = null;
-
-        // Comes up with a random double based on probability
-        double r = RandomUtil.getRandomDouble(totalProb);
-        // Determine which task is selected.
-        for (TaskJob entry: tasks) {
-            double probWeight = entry.getScore();
-            if (r <= probWeight) {
-                // THis is a transient cache so remove the selected entry
-                if (createdOn != null) {
-                    lastSelected = entry;
-                    tasks.remove(entry);
-                    totalProb -= entry.getScore();
-                }
-                return entry;
+        int slot = tasks.sampleSlot();
+        if (slot < 0) {
+            // Only zero scores left so fall back to the first one
+            slot = tasks.firstSlot();
+            if (slot < 0) {
+                return null;
             }
-            
-            r -= probWeight;
-            lastEntry = entry;
         }
 
-        // Should never get here but return the last one
-        return lastEntry;
+        TaskJob selected = tasks.getItem(slot);
+        // This is a transient cache so remove the selected entry
+        if (createdOn != null) {
+            lastSelected = selected;
+            tasks.remove(slot);
+        }
+        return selected;
     }
 }
\ No newline at end of file
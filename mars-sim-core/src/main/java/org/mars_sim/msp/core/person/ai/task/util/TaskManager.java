@@ -29,6 +29,8 @@ import org.mars_sim.msp.core.structure.building.Building;
 import org.mars_sim.msp.core.time.ClockPulse;
 import org.mars_sim.msp.core.time.MarsClock;
 import org.mars_sim.msp.core.time.MarsClockFormat;
+import org.mars_sim.msp.core.time.PulseMetrics;
+import org.mars_sim.msp.core.time.PulseTimer;
 import org.mars_sim.msp.core.time.Temporal;
 import org.mars_sim.msp.core.vehicle.Vehicle;
 
@@ -42,6 +44,11 @@ public abstract class TaskManager implements Serializable, Temporal {
 	private static final long serialVersionUID = 1L;
 	/** default logger. */
 	private static final SimLogger logger = SimLogger.getLogger(TaskManager.class.getName());
+
+	/** Time taken to build the TaskCache. */
+	private static final PulseTimer REBUILD_TIMER = PulseMetrics.getTimer("task.rebuildCache");
+	/** Time taken to select and create a Task. */
+	private static final PulseTimer SELECT_TIMER = PulseMetrics.getTimer("task.select");
 	
 	/*
 	 * This class represents a record of a given activity (task or mission)
@@ -494,9 +501,11 @@ public abstract class TaskManager implements Serializable, Temporal {
 
 		// If cache is not current, calculate the probabilities. If it is a static cache, i.e. no createdOn then
 		// ignore the cache
-		if ((taskProbCache == null)  || (taskProbCache.getCreatedOn() == null) || taskProbCache.getTasks().isEmpty()
+		if ((taskProbCache == null)  || (taskProbCache.getCreatedOn() == null) || taskProbCache.isEmpty()
 				|| (marsClock.getMillisol() != taskProbCache.getCreatedOn().getMillisol())) {
+			long start = System.nanoTime();
 			taskProbCache = rebuildTaskCache();
+			REBUILD_TIMER.lap(start);
 			
 			// Comment out to stop capturing stats
 			//captureStats();
@@ -507,16 +516,18 @@ public abstract class TaskManager implements Serializable, Temporal {
 			}
 		}
 
-		if (taskProbCache.getTasks().isEmpty()) { 
+		if (taskProbCache.isEmpty()) { 
 			// SHhould never happen since TaskManagers have to return a populated list
 			// with doable defaults if needed
 			logger.severe(worker, "No normal Tasks available in " + taskProbCache.getContext());
 		}
 		else {
+			long start = System.nanoTime();
 			selectedJob = taskProbCache.getRandomSelection();
 
 			// Call constructInstance of the selected Meta Task to commence the ai task
 			selectedTask = createTask(selectedJob);
+			SELECT_TIMER.lap(start);
 
 			// Start this new task
 			startTask(selectedTask);
@@ -202,7 +202,7 @@ public class BotTaskManager extends TaskManager {
 		SettlementTaskManager stm = robot.getAssociatedSettlement().getTaskManager();
 		newCache.add(stm.getTasks(robot));
 
-		if (newCache.getTasks().isEmpty()) {
+		if (newCache.isEmpty()) {
 			newCache = getChargeTaskMap();
 		}
 		return newCache;
@@ -0,0 +1,159 @@
+/*
+ * Mars Simulation Project
+ * ChunkedInputStream.java
+ * @date 2023-07-04
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.saving;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.mars_sim.msp.core.saving.ChunkedSaveCodec.BlockEntry;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reads the blocks of a chunked save file. The blocks ahead of the reader are 
+ * decompressed in parallel.
+ */
+class ChunkedInputStream extends InputStream {
+
+	private FileChannel channel;
+	private BlockEntry[] blocks;
+	private ExecutorService executor;
+	private Deque<Future<byte[]>> pending = new ArrayDeque<>();
+	private int maxPending;
+	private int nextBlock = 0;
+
+	private byte[] current = new byte[0];
+	private int offset = 0;
+
+	ChunkedInputStream(FileChannel channel, BlockEntry[] blocks, int threads) {
+		this.channel = channel;
+		this.blocks = blocks;
+		this.maxPending = threads * 2;
+		this.executor = Executors.newFixedThreadPool(threads,
+					new ThreadFactoryBuilder().setNameFormat("load-decompress-%d").setDaemon(true).build());
+		fillPending();
+	}
+
+	/**
+	 * Queues the next blocks for decompression.
+	 */
+	private void fillPending() {
+		while ((pending.size() < maxPending) && (nextBlock < blocks.length)) {
+			BlockEntry entry = blocks[nextBlock++];
+			pending.add(executor.submit(() -> decompress(entry)));
+		}
+	}
+
+	/**
+	 * Reads and decompresses a block.
+	 * 
+	 * @param entry
+	 * @return
+	 * @throws IOException
+	 * @throws DataFormatException
+	 */
+	private byte[] decompress(BlockEntry entry) throws IOException, DataFormatException {
+		ByteBuffer compressed = ByteBuffer.allocate(entry.compressedLength());
+		ChunkedSaveCodec.readFully(channel, compressed, entry.position());
+
+		byte[] raw = new byte[entry.rawLength()];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed.array());
+			int size = 0;
+			while (size < raw.length && !inflater.finished()) {
+				int n = inflater.inflate(raw, size, raw.length - size);
+				if (n == 0 && inflater.needsInput()) {
+					break;
+				}
+				size += n;
+			}
+			if (size != raw.length) {
+				throw new IOException("Save block at " + entry.position() + " is truncated");
+			}
+		}
+		finally {
+			inflater.end();
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(raw);
+		if ((int) crc.getValue() != entry.checksum()) {
+			throw new IOException("Save block at " + entry.position() + " is corrupted");
+		}
+		return raw;
+	}
+
+	/**
+	 * Makes sure there are bytes available in the current block.
+	 * 
+	 * @return false if the end of the stream is reached
+	 * @throws IOException
+	 */
+	private boolean ensureAvailable() throws IOException {
+		while (offset >= current.length) {
+			if (pending.isEmpty()) {
+				return false;
+			}
+			try {
+				current = pending.removeFirst().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted decompressing save block", e);
+			} catch (ExecutionException e) {
+				throw new IOException("Problem decompressing save block", e.getCause());
+			}
+			offset = 0;
+			fillPending();
+		}
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!ensureAvailable()) {
+			return -1;
+		}
+		return current[offset++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!ensureAvailable()) {
+			return -1;
+		}
+		int size = Math.min(len, current.length - offset);
+		System.arraycopy(current, offset, b, off, size);
+		offset += size;
+		return size;
+	}
+
+	@Override
+	public int available() {
+		return current.length - offset;
+	}
+
+	@Override
+	public void close() throws IOException {
+		executor.shutdownNow();
+		channel.close();
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * Mars Simulation Project
+ * ChunkedOutputStream.java
+ * @date 2023-07-04
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.saving;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.mars_sim.msp.core.saving.ChunkedSaveCodec.BlockEntry;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Splits the bytes written into blocks which are compressed in parallel. The compressed 
+ * blocks are written to the file in order followed by the table of contents. The header
+ * is only written once every block is in the file so a failed save is never mistaken for
+ * a complete one.
+ */
+class ChunkedOutputStream extends OutputStream {
+
+	/**
+	 * A block once compressed.
+	 */
+	private static record CompressedBlock(byte[] data, int rawLength, int checksum) {}
+
+	private FileChannel channel;
+	private ExecutorService executor;
+	private Deque<Future<CompressedBlock>> pending = new ArrayDeque<>();
+	private List<BlockEntry> blocks = new ArrayList<>();
+	private int maxPending;
+	private long position = ChunkedSaveCodec.HEADER_SIZE;
+
+	private byte[] buffer;
+	private int count = 0;
+	private boolean closed = false;
+	/** A block could not be compressed or written. */
+	private boolean failed = false;
+
+	ChunkedOutputStream(FileChannel channel, int blockSize, int threads) {
+		this.channel = channel;
+		this.buffer = new byte[blockSize];
+		// Bound the number of blocks held in memory
+		this.maxPending = threads * 2;
+		this.executor = Executors.newFixedThreadPool(threads,
+					new ThreadFactoryBuilder().setNameFormat("save-compress-%d").setDaemon(true).build());
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (count == buffer.length) {
+			submitBlock();
+		}
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (count == buffer.length) {
+				submitBlock();
+			}
+			int size = Math.min(len, buffer.length - count);
+			System.arraycopy(b, off, buffer, count, size);
+			count += size;
+			off += size;
+			len -= size;
+		}
+	}
+
+	/**
+	 * Hands the current buffer over to be compressed.
+	 * 
+	 * @throws IOException
+	 */
+	private void submitBlock() throws IOException {
+		if (count == 0) {
+			return;
+		}
+		if (failed) {
+			throw new IOException("An earlier block of the save could not be written");
+		}
+		final byte[] raw = buffer;
+		final int length = count;
+		pending.add(executor.submit(() -> compress(raw, length)));
+
+		buffer = new byte[raw.length];
+		count = 0;
+
+		while (pending.size() >= maxPending) {
+			writeBlock(pending.removeFirst());
+		}
+	}
+
+	/**
+	 * Compresses a block.
+	 * 
+	 * @param raw
+	 * @param length
+	 * @return
+	 */
+	private static CompressedBlock compress(byte[] raw, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(raw, 0, length);
+
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(raw, 0, length);
+			deflater.finish();
+			byte[] out = new byte[length + (length >> 4) + 64];
+			int size = 0;
+			while (!deflater.finished()) {
+				if (size == out.length) {
+					out = Arrays.copyOf(out, out.length * 2);
+				}
+				size += deflater.deflate(out, size, out.length - size);
+			}
+			return new CompressedBlock(Arrays.copyOf(out, size), length, (int) crc.getValue());
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Waits for a block to be compressed and writes it to the file.
+	 * 
+	 * @param result
+	 * @throws IOException
+	 */
+	private void writeBlock(Future<CompressedBlock> result) throws IOException {
+		CompressedBlock block;
+		try {
+			block = result.get();
+		} catch (InterruptedException e) {
+			failed = true;
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted compressing save block", e);
+		} catch (ExecutionException e) {
+			failed = true;
+			throw new IOException("Problem compressing save block", e.getCause());
+		}
+
+		try {
+			writeFully(ByteBuffer.wrap(block.data()), position);
+		}
+		catch (IOException | RuntimeException e) {
+			failed = true;
+			throw e;
+		}
+		blocks.add(new BlockEntry(position, block.data().length, block.rawLength(), block.checksum()));
+		position += block.data().length;
+	}
+
+	private void writeFully(ByteBuffer data, long at) throws IOException {
+		while (data.hasRemaining()) {
+			at += channel.write(data, at);
+		}
+	}
+
+	/**
+	 * Writes the remaining blocks, the table of contents and finally the header. If a block
+	 * failed the header is not written so the file is not a valid save.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			if (failed) {
+				// The write that failed has already reported it
+				return;
+			}
+			submitBlock();
+			while (!pending.isEmpty()) {
+				writeBlock(pending.removeFirst());
+			}
+
+			// Table of contents goes after the last block
+			ByteBuffer toc = ByteBuffer.allocate(Integer.BYTES + blocks.size() * ChunkedSaveCodec.ENTRY_SIZE);
+			toc.putInt(blocks.size());
+			for (BlockEntry b : blocks) {
+				toc.putLong(b.position());
+				toc.putInt(b.compressedLength());
+				toc.putInt(b.rawLength());
+				toc.putInt(b.checksum());
+			}
+			toc.flip();
+			long tocPosition = position;
+			writeFully(toc, tocPosition);
+
+			// Header is written last as it points to the table of contents
+			ByteBuffer header = ByteBuffer.allocate(ChunkedSaveCodec.HEADER_SIZE);
+			header.put(ChunkedSaveCodec.MAGIC);
+			header.putInt(ChunkedSaveCodec.VERSION);
+			header.putLong(tocPosition);
+			header.flip();
+			writeFully(header, 0);
+		}
+		finally {
+			executor.shutdownNow();
+			channel.close();
+		}
+	}
+}
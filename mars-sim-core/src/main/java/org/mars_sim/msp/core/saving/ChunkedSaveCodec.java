@@ -0,0 +1,150 @@
+/*
+ * Mars Simulation Project
+ * ChunkedSaveCodec.java
+ * @date 2023-07-04
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.saving;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A save format that splits the serialized stream into fixed size blocks that are
+ * compressed, and decompressed, in parallel on all the cores.
+ * The layout of the file is:
+ * <ul>
+ * <li>Header: magic, version and the position of the table of contents</li>
+ * <li>The compressed blocks</li>
+ * <li>Table of contents: the number of blocks followed by the position, compressed length, 
+ * raw length and checksum of each block</li>
+ * </ul>
+ * Java serialization keeps the references between objects within one stream so the blocks
+ * are slices of a single stream rather than one stream per manager.
+ */
+public class ChunkedSaveCodec implements SaveCodec {
+
+	public static final String NAME = "chunked";
+
+	static final byte[] MAGIC = {'M', 'S', 'P', 'C', 'H', 'U', 'N', 'K'};
+	static final int VERSION = 1;
+	/** Size of the header; magic, version and table of contents position. */
+	static final int HEADER_SIZE = MAGIC.length + Integer.BYTES + Long.BYTES;
+	/** Size of each entry in the table of contents. */
+	static final int ENTRY_SIZE = Long.BYTES + 3 * Integer.BYTES;
+	/** Default size of an uncompressed block. */
+	static final int DEFAULT_BLOCK_SIZE = 4 * 1024 * 1024;
+
+	private int blockSize;
+	private int threads;
+
+	/**
+	 * Creates a codec with the default block size that uses all the cores.
+	 */
+	public ChunkedSaveCodec() {
+		this(DEFAULT_BLOCK_SIZE, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a codec.
+	 * 
+	 * @param blockSize Size of an uncompressed block in bytes
+	 * @param threads Number of threads for compression
+	 */
+	public ChunkedSaveCodec(int blockSize, int threads) {
+		this.blockSize = blockSize;
+		this.threads = Math.max(1, threads);
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public boolean canRead(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			if (raf.length() < HEADER_SIZE) {
+				return false;
+			}
+			byte[] magic = new byte[MAGIC.length];
+			raf.readFully(magic);
+			return Arrays.equals(MAGIC, magic);
+		}
+	}
+
+	@Override
+	public OutputStream openOutput(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+								StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		return new ChunkedOutputStream(channel, blockSize, threads);
+	}
+
+	@Override
+	public InputStream openInput(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			readFully(channel, header, 0);
+			byte[] magic = new byte[MAGIC.length];
+			header.get(magic);
+			if (!Arrays.equals(MAGIC, magic)) {
+				throw new IOException("Not a chunked save file " + file.getName());
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported chunked save version " + version);
+			}
+			long tocPosition = header.getLong();
+
+			// Load the table of contents
+			ByteBuffer count = ByteBuffer.allocate(Integer.BYTES);
+			readFully(channel, count, tocPosition);
+			int numBlocks = count.getInt();
+			ByteBuffer toc = ByteBuffer.allocate(numBlocks * ENTRY_SIZE);
+			readFully(channel, toc, tocPosition + Integer.BYTES);
+
+			BlockEntry[] blocks = new BlockEntry[numBlocks];
+			for (int i = 0; i < numBlocks; i++) {
+				blocks[i] = new BlockEntry(toc.getLong(), toc.getInt(), toc.getInt(), toc.getInt());
+			}
+
+			return new ChunkedInputStream(channel, blocks, threads);
+		}
+		catch (IOException ioe) {
+			channel.close();
+			throw ioe;
+		}
+	}
+
+	/**
+	 * Reads the buffer completely from a position in the channel and flips it ready to be read.
+	 * 
+	 * @param channel
+	 * @param buffer
+	 * @param position
+	 * @throws IOException
+	 */
+	static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Unexpected end of chunked save file");
+			}
+			position += read;
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * The details of one block in the table of contents.
+	 */
+	static record BlockEntry(long position, int compressedLength, int rawLength, int checksum) {}
+}
@@ -0,0 +1,136 @@
+/*
+ * Mars Simulation Project
+ * DeltaInputStream.java
+ * @date 2023-07-08
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.saving;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.mars_sim.msp.core.saving.DeltaSaveCodec.ChunkEntry;
+
+/**
+ * Rebuilds the serialized stream of a delta save from the chunks held across the
+ * files of its chain.
+ */
+class DeltaInputStream extends InputStream {
+
+	private File[] files;
+	private RandomAccessFile[] readers;
+	private ChunkEntry[] chunks;
+	private int nextChunk = 0;
+
+	private byte[] current = new byte[0];
+	private int offset = 0;
+
+	private Inflater inflater = new Inflater();
+	private CRC32 crc = new CRC32();
+
+	DeltaInputStream(File[] files, ChunkEntry[] chunks) {
+		this.files = files;
+		this.readers = new RandomAccessFile[files.length];
+		this.chunks = chunks;
+	}
+
+	/**
+	 * Makes sure there are bytes in the current chunk.
+	 *
+	 * @return false at the end of the stream
+	 * @throws IOException
+	 */
+	private boolean fill() throws IOException {
+		while (offset >= current.length) {
+			if (nextChunk >= chunks.length) {
+				return false;
+			}
+			current = load(nextChunk++);
+			offset = 0;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads and decompresses a chunk from whichever file of the chain holds it.
+	 *
+	 * @param chunk Position of the chunk in the stream
+	 * @return
+	 * @throws IOException
+	 */
+	private byte[] load(int chunk) throws IOException {
+		ChunkEntry entry = chunks[chunk];
+		int idx = entry.fileIndex();
+		if (readers[idx] == null) {
+			readers[idx] = new RandomAccessFile(files[idx], "r");
+		}
+		byte[] compressed = new byte[entry.compressedLength()];
+		readers[idx].seek(entry.position());
+		readers[idx].readFully(compressed);
+
+		byte[] raw = new byte[entry.rawLength()];
+		try {
+			inflater.reset();
+			inflater.setInput(compressed);
+			int size = 0;
+			while (size < raw.length && !inflater.finished()) {
+				int n = inflater.inflate(raw, size, raw.length - size);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					// Nothing more can be inflated from this chunk
+					break;
+				}
+				size += n;
+			}
+			if (size != raw.length) {
+				throw new IOException("Chunk " + chunk + " in " + files[idx].getName() + " is truncated");
+			}
+		}
+		catch (DataFormatException e) {
+			throw new IOException("Chunk " + chunk + " in " + files[idx].getName() + " is corrupted", e);
+		}
+
+		crc.reset();
+		crc.update(raw);
+		if ((int) crc.getValue() != entry.checksum()) {
+			throw new IOException("Checksum mismatch in chunk " + chunk + " of " + files[idx].getName());
+		}
+		return raw;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!fill()) {
+			return -1;
+		}
+		return current[offset++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!fill()) {
+			return -1;
+		}
+		int n = Math.min(len, current.length - offset);
+		System.arraycopy(current, offset, b, off, n);
+		offset += n;
+		return n;
+	}
+
+	@Override
+	public void close() throws IOException {
+		inflater.end();
+		for (RandomAccessFile r : readers) {
+			if (r != null) {
+				r.close();
+			}
+		}
+	}
+}
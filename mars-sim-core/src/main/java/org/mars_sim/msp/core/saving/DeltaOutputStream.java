@@ -0,0 +1,261 @@
+/*
+ * Mars Simulation Project
+ * DeltaOutputStream.java
+ * @date 2023-07-08
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.saving;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.mars_sim.msp.core.saving.DeltaSaveCodec.ChunkKey;
+import org.mars_sim.msp.core.saving.DeltaSaveCodec.ChunkLocation;
+
+/**
+ * Collects the stream and on close rewrites its back references into stable keys. The
+ * result is cut into content defined chunks using a gear rolling hash and the chunks
+ * not already known to the chain are written.
+ */
+class DeltaOutputStream extends OutputStream {
+
+	private static final Logger logger = Logger.getLogger(DeltaOutputStream.class.getName());
+
+	/** Smallest chunk unless the stream ends. */
+	private static final int MIN_CHUNK = 16 * 1024;
+	/** Largest chunk. */
+	private static final int MAX_CHUNK = 256 * 1024;
+	/** Boundary mask giving an average chunk of about 64KiB above the minimum. */
+	private static final long BOUNDARY_MASK = (1L << 16) - 1;
+
+	/** Fixed table so the same content always gives the same boundaries. */
+	private static final long[] GEAR = new long[256];
+
+	static {
+		Random rand = new Random(0x4D53504445L);
+		for (int i = 0; i < GEAR.length; i++) {
+			GEAR[i] = rand.nextLong();
+		}
+	}
+
+	private DeltaSaveCodec codec;
+	private File file;
+	private int depth;
+	private Map<ChunkKey, ChunkLocation> known;
+	private Map<ChunkKey, ChunkLocation> added = new LinkedHashMap<>();
+	private List<ChunkLocation> recipe = new ArrayList<>();
+
+	private DataOutputStream out;
+	private long position;
+	private boolean closed = false;
+
+	/** The stream as written; held until close. */
+	private byte[] stream = new byte[1024 * 1024];
+	private int streamLength = 0;
+
+	private byte[] chunk = new byte[MAX_CHUNK];
+	private int length = 0;
+	private long hash = 0;
+
+	private byte[] compressed = new byte[64 * 1024];
+	private Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private CRC32 crc = new CRC32();
+	private MessageDigest digest;
+
+	DeltaOutputStream(DeltaSaveCodec codec, File file, int depth, Map<ChunkKey, ChunkLocation> known)
+			throws IOException {
+		this.codec = codec;
+		this.file = file;
+		this.depth = depth;
+		this.known = known;
+		try {
+			this.digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IOException("No digest for delta saves", e);
+		}
+
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+
+		// Header is written when the table of contents position is known
+		out.write(new byte[DeltaSaveCodec.HEADER_SIZE]);
+		position = DeltaSaveCodec.HEADER_SIZE;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensure(1);
+		stream[streamLength++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensure(len);
+		System.arraycopy(b, off, stream, streamLength, len);
+		streamLength += len;
+	}
+
+	private void ensure(int n) throws IOException {
+		if (closed) {
+			throw new IOException("Delta save already closed");
+		}
+		if (streamLength + n > stream.length) {
+			stream = Arrays.copyOf(stream, Math.max(stream.length * 2, streamLength + n));
+		}
+	}
+
+	/**
+	 * Adds a byte to the current chunk and cuts the chunk at a boundary.
+	 *
+	 * @param b
+	 * @throws IOException
+	 */
+	private void append(byte b) throws IOException {
+		chunk[length++] = b;
+		hash = (hash << 1) + GEAR[b & 0xff];
+		if (((length >= MIN_CHUNK) && ((hash & BOUNDARY_MASK) == 0)) || (length == MAX_CHUNK)) {
+			endChunk();
+		}
+	}
+
+	/**
+	 * Ends the current chunk; it is written unless the chain already holds it.
+	 *
+	 * @throws IOException
+	 */
+	private void endChunk() throws IOException {
+		if (length == 0) {
+			return;
+		}
+
+		digest.update(chunk, 0, length);
+		ByteBuffer d = ByteBuffer.wrap(digest.digest());
+		ChunkKey key = new ChunkKey(d.getLong(), d.getLong(), length);
+
+		ChunkLocation location = known.get(key);
+		if (location == null) {
+			location = added.get(key);
+		}
+		if (location == null) {
+			location = writeChunk();
+			added.put(key, location);
+		}
+		recipe.add(location);
+
+		length = 0;
+		hash = 0;
+	}
+
+	/**
+	 * Compresses the current chunk into the file.
+	 *
+	 * @return Location of the chunk
+	 * @throws IOException
+	 */
+	private ChunkLocation writeChunk() throws IOException {
+		crc.reset();
+		crc.update(chunk, 0, length);
+
+		deflater.reset();
+		deflater.setInput(chunk, 0, length);
+		deflater.finish();
+		int compressedLength = 0;
+		while (!deflater.finished()) {
+			int n = deflater.deflate(compressed);
+			out.write(compressed, 0, n);
+			compressedLength += n;
+		}
+
+		ChunkLocation location = new ChunkLocation(file, position, compressedLength, length, (int) crc.getValue());
+		position += compressedLength;
+		return location;
+	}
+
+	/**
+	 * Writes the table of contents and header, then adds the file to the chain.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			int version = DeltaSaveCodec.VERSION_STABLE;
+			byte[] data;
+			int size;
+			try {
+				data = codec.createRewriter().rewrite(stream, streamLength);
+				size = data.length;
+			}
+			catch (IOException | RuntimeException | StackOverflowError e) {
+				// Still a valid save, only the deltas after it will be larger
+				logger.warning("Delta save " + file.getName() + " keeps the stream as it is: " + e);
+				version = DeltaSaveCodec.VERSION_RAW;
+				data = stream;
+				size = streamLength;
+			}
+			stream = null;
+
+			for (int i = 0; i < size; i++) {
+				append(data[i]);
+			}
+			endChunk();
+
+			// Earlier files of the chain referenced by this file
+			long tocPosition = position;
+			Map<File, Integer> fileIndex = new LinkedHashMap<>();
+			fileIndex.put(file, 0);
+			for (ChunkLocation l : recipe) {
+				fileIndex.putIfAbsent(l.file(), fileIndex.size());
+			}
+			out.writeInt(fileIndex.size() - 1);
+			for (File f : fileIndex.keySet()) {
+				if (!f.equals(file)) {
+					out.writeUTF(f.getName());
+				}
+			}
+
+			out.writeInt(recipe.size());
+			for (ChunkLocation l : recipe) {
+				out.writeInt(fileIndex.get(l.file()));
+				out.writeLong(l.position());
+				out.writeInt(l.compressedLength());
+				out.writeInt(l.rawLength());
+				out.writeInt(l.checksum());
+			}
+			out.close();
+
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.write(DeltaSaveCodec.MAGIC);
+				raf.writeInt(version);
+				raf.writeInt(depth);
+				raf.writeLong(tocPosition);
+			}
+		}
+		finally {
+			out.close();
+			deflater.end();
+		}
+
+		codec.commit(file, depth, added);
+	}
+}
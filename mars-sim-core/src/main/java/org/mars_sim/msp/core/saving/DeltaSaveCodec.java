@@ -0,0 +1,285 @@
+/*
+ * Mars Simulation Project
+ * DeltaSaveCodec.java
+ * @date 2023-07-08
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.saving;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.mars_sim.msp.core.Unit;
+
+/**
+ * A save format that writes a full base save followed by a chain of small delta saves.
+ * The back references of the serialized stream are first rewritten into keys that do not
+ * move, e.g. the identifier of the Unit holding the object, see {@link HandleRewriter}.
+ * The result is cut into content defined chunks so the bytes of units that have not
+ * changed produce the same chunks as before, even when earlier parts of the stream have
+ * grown or shrunk. A delta only stores the chunks that are not already held by an
+ * earlier file of the chain and refers to the rest.
+ * The layout of each file is:
+ * <ul>
+ * <li>Header: magic, version, depth in the chain (0 for a base) and the position of the
+ * table of contents</li>
+ * <li>The compressed chunks new in this file</li>
+ * <li>Table of contents: the names of the earlier files of the chain it refers to followed
+ * by the file index, position, compressed length, raw length and checksum of every chunk of
+ * the stream in order</li>
+ * </ul>
+ * The codec remembers the chain it has written so far. Once the chain holds the maximum
+ * number of deltas the next save is a new base; this folds the chain back into one file.
+ */
+public class DeltaSaveCodec implements SaveCodec {
+
+	public static final String NAME = "delta";
+
+	/** Default number of deltas written before compacting into a new base. */
+	public static final int DEFAULT_MAX_DELTAS = 10;
+
+	static final byte[] MAGIC = {'M', 'S', 'P', 'D', 'E', 'L', 'T', 'A'};
+	/** The chunks hold the stream as it is. */
+	static final int VERSION_RAW = 1;
+	/** The chunks hold the stream with rewritten back references. */
+	static final int VERSION_STABLE = 2;
+	/** Size of the header; magic, version, depth and table of contents position. */
+	static final int HEADER_SIZE = MAGIC.length + 2 * Integer.BYTES + Long.BYTES;
+
+	private static final Logger logger = Logger.getLogger(DeltaSaveCodec.class.getName());
+
+	/** The int field keying a Unit; spelt as it is in Unit. */
+	private static final String UNIT_KEY = "identifer";
+
+	private int maxDeltas;
+	private String anchorClass;
+	private String anchorField;
+
+	/** Files of the current chain, the base first. */
+	private List<File> chain = new ArrayList<>();
+	/** Where each chunk held by the current chain is stored. */
+	private Map<ChunkKey, ChunkLocation> index = new HashMap<>();
+
+	/**
+	 * Creates a codec that compacts after the default number of deltas.
+	 */
+	public DeltaSaveCodec() {
+		this(DEFAULT_MAX_DELTAS);
+	}
+
+	/**
+	 * Creates a codec.
+	 *
+	 * @param maxDeltas Number of deltas written on a base before a new base is written
+	 */
+	public DeltaSaveCodec(int maxDeltas) {
+		this(maxDeltas, Unit.class.getName(), UNIT_KEY);
+	}
+
+	/**
+	 * Creates a codec with its own anchor objects.
+	 *
+	 * @param maxDeltas Number of deltas written on a base before a new base is written
+	 * @param anchorClass Name of the class whose objects anchor the back references
+	 * @param anchorField Name of the int field keying an anchor object
+	 */
+	DeltaSaveCodec(int maxDeltas, String anchorClass, String anchorField) {
+		this.maxDeltas = maxDeltas;
+		this.anchorClass = anchorClass;
+		this.anchorField = anchorField;
+	}
+
+	/**
+	 * Creates a rewriter of the back references into stable keys.
+	 *
+	 * @return
+	 */
+	HandleRewriter createRewriter() {
+		return new HandleRewriter(anchorClass, anchorField);
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public boolean canRead(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			if (raf.length() < HEADER_SIZE) {
+				return false;
+			}
+			byte[] magic = new byte[MAGIC.length];
+			raf.readFully(magic);
+			return Arrays.equals(MAGIC, magic);
+		}
+	}
+
+	/**
+	 * Opens a new file of the chain. It is a delta unless the chain is full, broken or
+	 * held elsewhere.
+	 */
+	@Override
+	public synchronized OutputStream openOutput(File file) throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+		boolean isBase = chain.isEmpty() || (chain.size() > maxDeltas)
+				|| chain.stream().anyMatch(f -> !f.isFile() || f.equals(file.getAbsoluteFile())
+											|| !f.getParentFile().equals(dir));
+		if (isBase) {
+			if (!chain.isEmpty()) {
+				logger.config("Compacting the chain of " + (chain.size() - 1) + " delta saves into a new base.");
+			}
+			chain.clear();
+			index.clear();
+		}
+
+		return new DeltaOutputStream(this, file.getAbsoluteFile(), chain.size(), new HashMap<>(index));
+	}
+
+	/**
+	 * Reads the header of a delta save and moves to its table of contents.
+	 *
+	 * @param raf
+	 * @param file
+	 * @return The version of the format
+	 * @throws IOException
+	 */
+	private static int seekTableOfContents(RandomAccessFile raf, File file) throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		raf.readFully(magic);
+		if (!Arrays.equals(MAGIC, magic)) {
+			throw new IOException("Not a delta save file " + file.getName());
+		}
+		int version = raf.readInt();
+		if ((version != VERSION_RAW) && (version != VERSION_STABLE)) {
+			throw new IOException("Unsupported delta save version " + version);
+		}
+		raf.readInt(); // Depth is only informative
+		raf.seek(raf.readLong());
+		return version;
+	}
+
+	/**
+	 * Gets the earlier files of the chain that a save needs to be loaded.
+	 *
+	 * @param file
+	 * @return Files referred to; empty if the file is not a delta save
+	 * @throws IOException
+	 */
+	public static List<File> getReferencedFiles(File file) throws IOException {
+		List<File> result = new ArrayList<>();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			byte[] magic = new byte[MAGIC.length];
+			if ((raf.length() < HEADER_SIZE) || (raf.read(magic) != magic.length)
+					|| !Arrays.equals(MAGIC, magic)) {
+				return result;
+			}
+			raf.seek(0);
+			seekTableOfContents(raf, file);
+			File dir = file.getAbsoluteFile().getParentFile();
+			int count = raf.readInt();
+			for (int i = 0; i < count; i++) {
+				result.add(new File(dir, raf.readUTF()));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public InputStream openInput(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			int version = seekTableOfContents(raf, file);
+
+			// Load the table of contents
+			File dir = file.getAbsoluteFile().getParentFile();
+			File[] files = new File[raf.readInt() + 1];
+			files[0] = file;
+			for (int i = 1; i < files.length; i++) {
+				files[i] = new File(dir, raf.readUTF());
+				if (!files[i].isFile()) {
+					throw new FileNotFoundException("Missing save " + files[i].getName()
+								+ " needed by the delta save " + file.getName());
+				}
+			}
+
+			ChunkEntry[] chunks = new ChunkEntry[raf.readInt()];
+			for (int i = 0; i < chunks.length; i++) {
+				chunks[i] = new ChunkEntry(raf.readInt(), raf.readLong(), raf.readInt(),
+										raf.readInt(), raf.readInt());
+			}
+
+			InputStream chain = new DeltaInputStream(files, chunks);
+			if (version == VERSION_RAW) {
+				return chain;
+			}
+
+			// References can point anywhere back so the stream is restored in one go
+			try (chain) {
+				byte[] stream = chain.readAllBytes();
+				return new ByteArrayInputStream(new HandleRewriter().rewrite(stream, stream.length));
+			}
+		}
+	}
+
+	/**
+	 * Records a file successfully written by this codec as the end of the chain.
+	 *
+	 * @param file
+	 * @param depth Position in the chain
+	 * @param added The chunks stored in the file
+	 */
+	synchronized void commit(File file, int depth, Map<ChunkKey, ChunkLocation> added) {
+		if (depth != chain.size()) {
+			// Another file was written in between; cannot trust the chain
+			logger.warning("Delta save chain out of step; the next save will be a new base.");
+			chain.clear();
+			index.clear();
+			return;
+		}
+		chain.add(file);
+		index.putAll(added);
+	}
+
+	/**
+	 * Forces the next save to be a new base.
+	 */
+	public synchronized void compact() {
+		chain.clear();
+		index.clear();
+	}
+
+	/**
+	 * Gets the files of the current chain; these must be kept to load the latest save.
+	 *
+	 * @return
+	 */
+	public synchronized List<File> getChainFiles() {
+		return List.copyOf(chain);
+	}
+
+	/**
+	 * The identity of a chunk; a digest of the content plus the length.
+	 */
+	static record ChunkKey(long high, long low, int length) {}
+
+	/**
+	 * Where a chunk is stored.
+	 */
+	static record ChunkLocation(File file, long position, int compressedLength, int rawLength, int checksum) {}
+
+	/**
+	 * One chunk in the table of contents; the file index is 0 for the file itself.
+	 */
+	static record ChunkEntry(int fileIndex, long position, int compressedLength, int rawLength, int checksum) {}
+}
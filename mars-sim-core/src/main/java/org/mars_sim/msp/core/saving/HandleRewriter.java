@@ -0,0 +1,658 @@
+/*
+ * Mars Simulation Project
+ * HandleRewriter.java
+ * @date 2023-07-29
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.saving;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectStreamConstants;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites the back references of a Java serialization stream so they stay the same
+ * when objects are added or removed earlier in the stream, and back again.
+ * A back reference normally holds the sequence number of the object it points to, so
+ * one new object shifts every reference after it. Here a reference is held as a key
+ * that does not move:
+ * <ul>
+ * <li>a class descriptor by the hash of its class name</li>
+ * <li>an object inside an anchor by the anchor key plus the position of the object
+ * within that anchor</li>
+ * </ul>
+ * An anchor is an object of the anchor class, e.g. a Unit keyed by its identifier, or one
+ * of the top level objects keyed by its position. The objects an anchor owns are numbered
+ * from the anchor, skipping those owned by any anchor nested inside it.
+ * Anything else is copied as it is. The stream is walked using the grammar of the object
+ * serialization specification so the rewrite is exact; a stream it cannot walk raises an
+ * exception and should be stored as it is. The rewritten stream starts with the anchor
+ * class and field so it can be restored without knowing them.
+ */
+final class HandleRewriter {
+
+	/** Reference stored as the original handle. */
+	private static final int RAW = 0;
+	/** Reference to a class descriptor by the hash of the class name. */
+	private static final int CLASS_DESC = 1;
+	/** Reference to an object owned by a top level object. */
+	private static final int TOP_LEVEL = 2;
+	/** Reference to an object owned by an anchor object. */
+	private static final int ANCHOR = 3;
+
+	private static final int NO_KEY = Integer.MIN_VALUE;
+
+	private final boolean encode;
+	private String anchorClass;
+	private String anchorField;
+
+	private byte[] in;
+	private int length;
+	private int pos;
+
+	private byte[] out;
+	private int outLength;
+
+	/** Anchor and position within the anchor of each handle. */
+	private int[] handleAnchor = new int[1024];
+	private int[] handleLocal = new int[1024];
+	private int nextHandle = 0;
+
+	private Map<Integer, ClassDesc> descs = new HashMap<>();
+	private Map<Integer, Integer> descByHash = new HashMap<>();
+
+	private List<Anchor> anchors = new ArrayList<>();
+	private Map<Integer, Integer> topLevelAnchors = new HashMap<>();
+	private Map<Integer, Integer> keyedAnchors = new HashMap<>();
+	private Deque<Anchor> openAnchors = new ArrayDeque<>();
+
+	/**
+	 * Creates a rewriter into stable keys.
+	 *
+	 * @param anchorClass Name of the class whose objects are anchors; may be null
+	 * @param anchorField Name of the int field keying an anchor
+	 */
+	HandleRewriter(String anchorClass, String anchorField) {
+		this.encode = true;
+		this.anchorClass = anchorClass;
+		this.anchorField = anchorField;
+	}
+
+	/**
+	 * Creates a rewriter back into handles.
+	 */
+	HandleRewriter() {
+		this.encode = false;
+	}
+
+	/**
+	 * Rewrites a complete stream.
+	 *
+	 * @param stream
+	 * @param size Number of bytes of the stream to use
+	 * @return The rewritten stream
+	 * @throws IOException If the stream cannot be walked
+	 */
+	byte[] rewrite(byte[] stream, int size) throws IOException {
+		in = stream;
+		length = size;
+		pos = 0;
+		out = new byte[size + (size / 8) + 64];
+		outLength = 0;
+
+		if (encode) {
+			writeName(anchorClass);
+			writeName(anchorField);
+		}
+		else {
+			anchorClass = readName();
+			anchorField = readName();
+		}
+
+		// Magic and version
+		if ((readShort(pos) != (ObjectStreamConstants.STREAM_MAGIC & 0xffff))
+				|| (readShort(pos + 2) != ObjectStreamConstants.STREAM_VERSION)) {
+			throw new StreamCorruptedException("Not an object stream");
+		}
+		copy(4);
+
+		int topLevel = 0;
+		while (pos < length) {
+			int tag = peek();
+			if ((tag == ObjectStreamConstants.TC_BLOCKDATA) || (tag == ObjectStreamConstants.TC_BLOCKDATALONG)) {
+				blockData();
+			}
+			else {
+				Anchor a = openAnchor(TOP_LEVEL);
+				a.key = topLevel;
+				topLevelAnchors.put(topLevel++, a.index);
+				content();
+				openAnchors.pop();
+			}
+		}
+
+		return Arrays.copyOf(out, outLength);
+	}
+
+	/**
+	 * Walks one object of any kind.
+	 *
+	 * @return The class descriptor if the object is one
+	 */
+	private ClassDesc content() throws IOException {
+		int tag = peek();
+		switch (tag) {
+			case ObjectStreamConstants.TC_NULL:
+				copy(1);
+				return null;
+
+			case ObjectStreamConstants.TC_REFERENCE:
+				copy(1);
+				return descs.get(reference());
+
+			case ObjectStreamConstants.TC_CLASSDESC:
+			case ObjectStreamConstants.TC_PROXYCLASSDESC:
+				return newClassDesc();
+
+			case ObjectStreamConstants.TC_OBJECT:
+				newObject();
+				return null;
+
+			case ObjectStreamConstants.TC_STRING:
+				copy(1);
+				assignHandle();
+				copy(readShort(pos) + 2);
+				return null;
+
+			case ObjectStreamConstants.TC_LONGSTRING:
+				copy(1);
+				assignHandle();
+				long utfLength = readLong(pos);
+				if ((utfLength < 0) || (utfLength > length)) {
+					throw new StreamCorruptedException("Bad long string at " + pos);
+				}
+				copy(8 + (int) utfLength);
+				return null;
+
+			case ObjectStreamConstants.TC_ARRAY:
+				newArray();
+				return null;
+
+			case ObjectStreamConstants.TC_ENUM:
+				copy(1);
+				classDesc();
+				assignHandle();
+				content();
+				return null;
+
+			case ObjectStreamConstants.TC_CLASS:
+				copy(1);
+				classDesc();
+				assignHandle();
+				return null;
+
+			default:
+				throw new StreamCorruptedException("Unsupported tag " + tag + " at " + pos);
+		}
+	}
+
+	/**
+	 * Walks a class descriptor that must be present.
+	 */
+	private ClassDesc classDesc() throws IOException {
+		int tag = peek();
+		ClassDesc desc = content();
+		if ((desc == null) && (tag != ObjectStreamConstants.TC_NULL)) {
+			throw new StreamCorruptedException("Expected a class descriptor at " + pos);
+		}
+		return desc;
+	}
+
+	private ClassDesc newClassDesc() throws IOException {
+		ClassDesc desc = new ClassDesc();
+		if (peek() == ObjectStreamConstants.TC_PROXYCLASSDESC) {
+			copy(1);
+			descs.put(assignHandle(), desc);
+			int count = readInt(pos);
+			copy(4);
+			for (int i = 0; i < count; i++) {
+				copy(readShort(pos) + 2);
+			}
+		}
+		else {
+			copy(1);
+			desc.name = copyName();
+			copy(8);
+
+			int handle = assignHandle();
+			descs.put(handle, desc);
+			int hash = desc.name.hashCode();
+			if (descByHash.putIfAbsent(hash, handle) != null) {
+				// Another class has the same hash so neither can be found by it
+				descByHash.put(hash, -1);
+			}
+
+			desc.flags = in(pos);
+			copy(1);
+			int count = readShort(pos);
+			copy(2);
+			desc.types = new char[count];
+			desc.fields = new String[count];
+			for (int i = 0; i < count; i++) {
+				desc.types[i] = (char) in(pos);
+				copy(1);
+				desc.fields[i] = copyName();
+				if ((desc.types[i] == '[') || (desc.types[i] == 'L')) {
+					// Type name of the field
+					content();
+				}
+			}
+		}
+
+		annotation();
+		desc.superDesc = classDesc();
+		return desc;
+	}
+
+	private void newObject() throws IOException {
+		copy(1);
+		ClassDesc desc = classDesc();
+		if (desc == null) {
+			throw new StreamCorruptedException("Object without a class at " + pos);
+		}
+
+		boolean isAnchor = desc.isAnchor(anchorClass);
+		Anchor anchor = (isAnchor ? openAnchor(ANCHOR) : null);
+		assignHandle();
+
+		if ((desc.flags & ObjectStreamConstants.SC_EXTERNALIZABLE) != 0) {
+			if ((desc.flags & ObjectStreamConstants.SC_BLOCK_DATA) == 0) {
+				throw new StreamCorruptedException("Externalizable data without blocks at " + pos);
+			}
+			annotation();
+		}
+		else {
+			// Class data is written from the top super class down
+			List<ClassDesc> chain = new ArrayList<>();
+			for (ClassDesc d = desc; d != null; d = d.superDesc) {
+				chain.add(d);
+			}
+			for (int i = chain.size() - 1; i >= 0; i--) {
+				ClassDesc d = chain.get(i);
+				if ((d.flags & ObjectStreamConstants.SC_SERIALIZABLE) != 0) {
+					values(d, (anchor != null) && d.name.equals(anchorClass) ? anchor : null);
+					if ((d.flags & ObjectStreamConstants.SC_WRITE_METHOD) != 0) {
+						annotation();
+					}
+				}
+			}
+		}
+
+		if (anchor != null) {
+			openAnchors.pop();
+		}
+	}
+
+	/**
+	 * Walks the field values of one class of an object.
+	 *
+	 * @param desc
+	 * @param anchor Anchor to key from a field; may be null
+	 */
+	private void values(ClassDesc desc, Anchor anchor) throws IOException {
+		for (int i = 0; i < desc.types.length; i++) {
+			char type = desc.types[i];
+			if ((type == '[') || (type == 'L')) {
+				content();
+			}
+			else {
+				if ((anchor != null) && (type == 'I') && desc.fields[i].equals(anchorField)) {
+					int key = readInt(pos);
+					if (keyedAnchors.containsKey(key)) {
+						// Key is used twice so neither can be found by it
+						keyedAnchors.put(key, -1);
+					}
+					else {
+						anchor.key = key;
+						keyedAnchors.put(key, anchor.index);
+					}
+				}
+				copy(primitiveSize(type));
+			}
+		}
+	}
+
+	private void newArray() throws IOException {
+		copy(1);
+		ClassDesc desc = classDesc();
+		if ((desc == null) || (desc.name == null) || (desc.name.length() < 2)) {
+			throw new StreamCorruptedException("Array without a class at " + pos);
+		}
+		assignHandle();
+		int size = readInt(pos);
+		copy(4);
+		char type = desc.name.charAt(1);
+		if ((type == '[') || (type == 'L')) {
+			for (int i = 0; i < size; i++) {
+				content();
+			}
+		}
+		else {
+			long bytes = (long) size * primitiveSize(type);
+			if ((size < 0) || (bytes > length)) {
+				throw new StreamCorruptedException("Bad array size at " + pos);
+			}
+			copy((int) bytes);
+		}
+	}
+
+	/**
+	 * Walks the optional data written by a class up to the end marker.
+	 */
+	private void annotation() throws IOException {
+		while (peek() != ObjectStreamConstants.TC_ENDBLOCKDATA) {
+			int tag = peek();
+			if ((tag == ObjectStreamConstants.TC_BLOCKDATA) || (tag == ObjectStreamConstants.TC_BLOCKDATALONG)) {
+				blockData();
+			}
+			else {
+				content();
+			}
+		}
+		copy(1);
+	}
+
+	private void blockData() throws IOException {
+		if (peek() == ObjectStreamConstants.TC_BLOCKDATA) {
+			copy(2 + in(pos + 1));
+		}
+		else {
+			int size = readInt(pos + 1);
+			if (size < 0) {
+				throw new StreamCorruptedException("Bad block size at " + pos);
+			}
+			copy(5 + size);
+		}
+	}
+
+	private static int primitiveSize(char type) throws StreamCorruptedException {
+		switch (type) {
+			case 'B': case 'Z': return 1;
+			case 'C': case 'S': return 2;
+			case 'I': case 'F': return 4;
+			case 'J': case 'D': return 8;
+			default: throw new StreamCorruptedException("Unknown field type " + type);
+		}
+	}
+
+	/**
+	 * Starts an anchor that owns the handles assigned until it ends.
+	 */
+	private Anchor openAnchor(int mode) {
+		Anchor a = new Anchor(anchors.size(), mode);
+		anchors.add(a);
+		openAnchors.push(a);
+		return a;
+	}
+
+	private int assignHandle() {
+		if (nextHandle == handleAnchor.length) {
+			handleAnchor = Arrays.copyOf(handleAnchor, nextHandle * 2);
+			handleLocal = Arrays.copyOf(handleLocal, nextHandle * 2);
+		}
+		Anchor a = openAnchors.peek();
+		if (a == null) {
+			// Only the top level objects are outside an anchor
+			handleAnchor[nextHandle] = -1;
+		}
+		else {
+			handleAnchor[nextHandle] = a.index;
+			handleLocal[nextHandle] = a.add(nextHandle);
+		}
+		return nextHandle++;
+	}
+
+	/**
+	 * Rewrites the handle of a back reference.
+	 *
+	 * @return The handle referred to
+	 */
+	private int reference() throws IOException {
+		return (encode ? encodeReference() : decodeReference());
+	}
+
+	private int encodeReference() throws IOException {
+		int wire = readInt(pos);
+		pos += 4;
+		int handle = wire - ObjectStreamConstants.baseWireHandle;
+
+		if ((handle >= 0) && (handle < nextHandle)) {
+			ClassDesc desc = descs.get(handle);
+			if ((desc != null) && (desc.name != null)) {
+				int hash = desc.name.hashCode();
+				if (descByHash.get(hash) == handle) {
+					write(CLASS_DESC);
+					writeInt(hash);
+					return handle;
+				}
+			}
+
+			int idx = handleAnchor[handle];
+			if (idx >= 0) {
+				Anchor a = anchors.get(idx);
+				Map<Integer, Integer> keyed = (a.mode == TOP_LEVEL ? topLevelAnchors : keyedAnchors);
+				if ((a.key != NO_KEY) && (keyed.getOrDefault(a.key, -1) == idx)) {
+					write(a.mode);
+					writeVarInt((a.key << 1) ^ (a.key >> 31));
+					writeVarInt(handleLocal[handle]);
+					return handle;
+				}
+			}
+		}
+
+		write(RAW);
+		writeInt(wire);
+		return handle;
+	}
+
+	private int decodeReference() throws IOException {
+		int mode = in(pos++);
+		int handle;
+		switch (mode) {
+			case RAW:
+				handle = readInt(pos) - ObjectStreamConstants.baseWireHandle;
+				pos += 4;
+				break;
+
+			case CLASS_DESC:
+				handle = descByHash.getOrDefault(readInt(pos), -1);
+				pos += 4;
+				break;
+
+			case TOP_LEVEL:
+			case ANCHOR:
+				int zigzag = readVarInt();
+				int key = (zigzag >>> 1) ^ -(zigzag & 1);
+				int local = readVarInt();
+				Map<Integer, Integer> keyed = (mode == TOP_LEVEL ? topLevelAnchors : keyedAnchors);
+				int idx = keyed.getOrDefault(key, -1);
+				if ((idx < 0) || (local >= anchors.get(idx).size)) {
+					throw new StreamCorruptedException("Unknown reference " + key + "/" + local);
+				}
+				handle = anchors.get(idx).handles[local];
+				break;
+
+			default:
+				throw new StreamCorruptedException("Unknown reference mode " + mode + " at " + pos);
+		}
+
+		if (handle < 0) {
+			throw new StreamCorruptedException("Unknown reference at " + pos);
+		}
+		writeInt(handle + ObjectStreamConstants.baseWireHandle);
+		return handle;
+	}
+
+	private int readVarInt() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in(pos++);
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new StreamCorruptedException("Bad number at " + pos);
+	}
+
+	private void writeVarInt(int value) {
+		while ((value & ~0x7f) != 0) {
+			write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		write(value);
+	}
+
+	private int peek() throws IOException {
+		return in(pos);
+	}
+
+	private int in(int p) throws IOException {
+		if (p >= length) {
+			throw new EOFException("End of stream at " + p);
+		}
+		return in[p] & 0xff;
+	}
+
+	private int readShort(int p) throws IOException {
+		return (in(p) << 8) | in(p + 1);
+	}
+
+	private int readInt(int p) throws IOException {
+		return (readShort(p) << 16) | readShort(p + 2);
+	}
+
+	private long readLong(int p) throws IOException {
+		return ((long) readInt(p) << 32) | (readInt(p + 4) & 0xffffffffL);
+	}
+
+	/**
+	 * Copies bytes that are the same in both forms.
+	 */
+	private void copy(int n) throws IOException {
+		if ((n < 0) || (pos + n > length)) {
+			throw new EOFException("End of stream at " + pos);
+		}
+		ensure(n);
+		System.arraycopy(in, pos, out, outLength, n);
+		outLength += n;
+		pos += n;
+	}
+
+	/**
+	 * Copies a short UTF string.
+	 *
+	 * @return The string
+	 */
+	private String copyName() throws IOException {
+		int start = pos + 2;
+		copy(readShort(pos) + 2);
+		return new String(in, start, pos - start, StandardCharsets.UTF_8);
+	}
+
+	private void writeName(String name) {
+		byte[] b = (name != null ? name.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+		write(b.length >>> 8);
+		write(b.length);
+		ensure(b.length);
+		System.arraycopy(b, 0, out, outLength, b.length);
+		outLength += b.length;
+	}
+
+	private String readName() throws IOException {
+		int size = readShort(pos);
+		if (pos + 2 + size > length) {
+			throw new EOFException("End of stream at " + pos);
+		}
+		String name = new String(in, pos + 2, size, StandardCharsets.UTF_8);
+		pos += 2 + size;
+		return (name.isEmpty() ? null : name);
+	}
+
+	private void write(int b) {
+		ensure(1);
+		out[outLength++] = (byte) b;
+	}
+
+	private void writeInt(int v) {
+		write(v >>> 24);
+		write(v >>> 16);
+		write(v >>> 8);
+		write(v);
+	}
+
+	private void ensure(int n) {
+		if (outLength + n > out.length) {
+			out = Arrays.copyOf(out, Math.max(out.length * 2, outLength + n));
+		}
+	}
+
+	/**
+	 * What is needed of a class descriptor to walk the objects using it.
+	 */
+	private static final class ClassDesc {
+		/** Null for a proxy. */
+		String name;
+		int flags;
+		char[] types = new char[0];
+		String[] fields = new String[0];
+		ClassDesc superDesc;
+		Boolean anchor;
+
+		boolean isAnchor(String anchorClass) {
+			if (anchor == null) {
+				anchor = (anchorClass != null) && ((anchorClass.equals(name))
+							|| ((superDesc != null) && superDesc.isAnchor(anchorClass)));
+			}
+			return anchor;
+		}
+	}
+
+	/**
+	 * An object that owns the handles assigned whilst it is walked.
+	 */
+	private static final class Anchor {
+		final int index;
+		final int mode;
+		int key = NO_KEY;
+		int[] handles = new int[8];
+		int size = 0;
+
+		Anchor(int index, int mode) {
+			this.index = index;
+			this.mode = mode;
+		}
+
+		/**
+		 * Adds a handle.
+		 *
+		 * @return Position of the handle within the anchor
+		 */
+		int add(int handle) {
+			if (size == handles.length) {
+				handles = Arrays.copyOf(handles, size * 2);
+			}
+			handles[size] = handle;
+			return size++;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Mars Simulation Project
+ * JavaSaveCodec.java
+ * @date 2023-07-04
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.saving;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The original save format; the Java serialization stream is written as a single 
+ * GZIP stream.
+ */
+public class JavaSaveCodec implements SaveCodec {
+
+	public static final String NAME = "java";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public boolean canRead(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			int magic = Short.toUnsignedInt(Short.reverseBytes(in.readShort()));
+			return magic == GZIPInputStream.GZIP_MAGIC;
+		}
+	}
+
+	@Override
+	public OutputStream openOutput(File file) throws IOException {
+		return new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+	}
+
+	@Override
+	public InputStream openInput(File file) throws IOException {
+		return new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)));
+	}
+}
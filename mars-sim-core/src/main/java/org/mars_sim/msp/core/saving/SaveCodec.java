@@ -0,0 +1,54 @@
+/*
+ * Mars Simulation Project
+ * SaveCodec.java
+ * @date 2023-07-04
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.saving;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Encodes the serialized stream of a saved simulation to and from a file. 
+ * The Simulation writes its objects through an ObjectOutputStream so a codec only
+ * controls how the bytes are laid out and compressed on disk.
+ */
+public interface SaveCodec {
+
+	/**
+	 * Gets the name of the codec.
+	 * 
+	 * @return
+	 */
+	String getName();
+
+	/**
+	 * Checks whether the file is encoded in the format of this codec.
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	boolean canRead(File file) throws IOException;
+
+	/**
+	 * Opens a stream that encodes the bytes written to it into a file.
+	 * 
+	 * @param file Destination
+	 * @return
+	 * @throws IOException
+	 */
+	OutputStream openOutput(File file) throws IOException;
+
+	/**
+	 * Opens a stream that decodes a file.
+	 * 
+	 * @param file Source
+	 * @return
+	 * @throws IOException
+	 */
+	InputStream openInput(File file) throws IOException;
+}
@@ -0,0 +1,80 @@
+/*
+ * Mars Simulation Project
+ * SaveCodecFactory.java
+ * @date 2023-07-04
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.saving;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Static helper to find the codec for saving and loading simulations.
+ */
+public final class SaveCodecFactory {
+
+	private static final Logger logger = Logger.getLogger(SaveCodecFactory.class.getName());
+
+	private static final List<SaveCodec> CODECS = List.of(new JavaSaveCodec(), new ChunkedSaveCodec(),
+											new DeltaSaveCodec());
+
+	private SaveCodecFactory() {
+	}
+
+	/**
+	 * Gets the codec used when none is specified; the original format.
+	 * 
+	 * @return
+	 */
+	public static SaveCodec getDefault() {
+		return CODECS.get(0);
+	}
+
+	/**
+	 * Gets the names of the available codecs.
+	 * 
+	 * @return
+	 */
+	public static List<String> getNames() {
+		return CODECS.stream().map(SaveCodec::getName).toList();
+	}
+
+	/**
+	 * Gets a codec by name.
+	 * 
+	 * @param name
+	 * @return
+	 */
+	public static SaveCodec getCodec(String name) {
+		for (SaveCodec c : CODECS) {
+			if (c.getName().equalsIgnoreCase(name)) {
+				return c;
+			}
+		}
+		throw new IllegalArgumentException("No save codec called " + name);
+	}
+
+	/**
+	 * Finds the codec that can read an existing file.
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException if no codec recognises the file
+	 */
+	public static SaveCodec detect(File file) throws IOException {
+		for (SaveCodec c : CODECS) {
+			try {
+				if (c.canRead(file)) {
+					return c;
+				}
+			}
+			catch (IOException ioe) {
+				logger.fine("Codec " + c.getName() + " cannot read " + file + ": " + ioe.getMessage());
+			}
+		}
+		throw new IOException("Unknown save format for " + file.getName());
+	}
+}
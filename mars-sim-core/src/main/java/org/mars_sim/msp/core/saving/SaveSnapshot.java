@@ -0,0 +1,93 @@
+/*
+ * Mars Simulation Project
+ * SaveSnapshot.java
+ * @date 2023-07-06
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.saving;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * An immutable copy of the simulation state held as the raw serialized bytes.
+ * Capturing is the only part of a save that needs the simulation to be still; the
+ * compression and disk write of the snapshot can then happen on another thread while
+ * the simulation carries on.
+ */
+public final class SaveSnapshot {
+
+	/**
+	 * Writes the state to be saved onto a stream.
+	 */
+	@FunctionalInterface
+	public interface StateWriter {
+		void write(ObjectOutputStream oos) throws IOException;
+	}
+
+	/** Initial buffer size when there is no hint. */
+	private static final int DEFAULT_SIZE = 16 * 1024 * 1024;
+
+	private final ByteArrayOutputStream buffer;
+	private final long captureTime;
+
+	private SaveSnapshot(ByteArrayOutputStream buffer, long captureTime) {
+		this.buffer = buffer;
+		this.captureTime = captureTime;
+	}
+
+	/**
+	 * Captures the state into memory.
+	 *
+	 * @param writer Writes the state
+	 * @param sizeHint Expected size in bytes, e.g. the size of the previous snapshot
+	 * @return
+	 * @throws IOException
+	 */
+	public static SaveSnapshot capture(StateWriter writer, int sizeHint) throws IOException {
+		long start = System.currentTimeMillis();
+
+		// Leave some headroom so the buffer is not copied whilst growing
+		int initialSize = (sizeHint > 0 ? sizeHint + (sizeHint / 8) : DEFAULT_SIZE);
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(initialSize);
+		try (ObjectOutputStream oos = new ObjectOutputStream(buffer)) {
+			writer.write(oos);
+		}
+
+		return new SaveSnapshot(buffer, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Encodes the snapshot into a file.
+	 *
+	 * @param codec Format of the file
+	 * @param file Destination
+	 * @throws IOException
+	 */
+	public void writeTo(SaveCodec codec, File file) throws IOException {
+		try (OutputStream out = codec.openOutput(file)) {
+			buffer.writeTo(out);
+		}
+	}
+
+	/**
+	 * Gets the size of the serialized state in bytes.
+	 *
+	 * @return
+	 */
+	public int getSize() {
+		return buffer.size();
+	}
+
+	/**
+	 * Gets how long the capture took.
+	 *
+	 * @return Milliseconds
+	 */
+	public long getCaptureTime() {
+		return captureTime;
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Mars Simulation Project
+ * ResourceLedger.java
+ * @date 2023-07-22
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.structure;
+
+import java.util.Arrays;
+
+import org.mars_sim.msp.core.logging.SimLogger;
+import org.mars_sim.msp.core.resource.ResourceUtil;
+
+/**
+ * Collects the amount resource flows of a Settlement while its buildings are pulsed and
+ * applies them to the storage in one go. Producers and consumers post what they store and
+ * retrieve; the amounts are summed per resource and committed as a single change with one
+ * inventory event.
+ * A post is granted against what is stored plus the flows already posted, so a consumer
+ * only gets what is left when it asks and a producer only stores what still fits; the
+ * part not granted is returned to the caller as it would be by the Settlement.
+ * When the ledger is not open a post goes straight to the Settlement.
+ */
+public class ResourceLedger {
+
+	/* default logger. */
+	private static final SimLogger logger = SimLogger.getLogger(ResourceLedger.class.getName());
+
+	private static final double SMALL_AMOUNT = 0.000001;
+
+	private Settlement settlement;
+
+	/** Amounts posted this pulse; indexed by resource id. */
+	private double[] supplied = new double[ResourceUtil.FIRST_ITEM_RESOURCE_ID];
+	private double[] demanded = new double[ResourceUtil.FIRST_ITEM_RESOURCE_ID];
+
+	private boolean[] posted = new boolean[ResourceUtil.FIRST_ITEM_RESOURCE_ID];
+	/** Resource ids that have been posted; in order of first post. */
+	private int[] touched = new int[16];
+	private int numTouched = 0;
+
+	private boolean open = false;
+
+	ResourceLedger(Settlement settlement) {
+		this.settlement = settlement;
+	}
+
+	/**
+	 * Starts collecting the flows.
+	 */
+	void open() {
+		open = true;
+	}
+
+	/**
+	 * Are flows being collected ?
+	 *
+	 * @return
+	 */
+	public boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * Gets the amount of a resource that can be retrieved. This includes what has been
+	 * posted but not committed.
+	 *
+	 * @param resource
+	 * @return Amount [kg]
+	 */
+	public double getAmountResourceStored(int resource) {
+		double stored = settlement.getAmountResourceStored(resource);
+		if (!open) {
+			return stored;
+		}
+		return Math.max(0D, stored + supplied[resource] - demanded[resource]);
+	}
+
+	/**
+	 * Gets the storage space left for a resource. This includes what has been posted
+	 * but not committed.
+	 *
+	 * @param resource
+	 * @return Amount [kg]
+	 */
+	public double getAmountResourceRemainingCapacity(int resource) {
+		double remaining = settlement.getAmountResourceRemainingCapacity(resource);
+		if (!open) {
+			return remaining;
+		}
+		return Math.max(0D, remaining - supplied[resource] + demanded[resource]);
+	}
+
+	/**
+	 * Posts an amount to store. Only the part that fits in the remaining capacity is
+	 * posted.
+	 *
+	 * @param resource
+	 * @param quantity
+	 * @return The quantity that does not fit in the storage
+	 */
+	public double storeAmountResource(int resource, double quantity) {
+		if (!open) {
+			return settlement.storeAmountResource(resource, quantity);
+		}
+		if (quantity <= 0D) {
+			return 0D;
+		}
+
+		double stored = Math.min(quantity, getAmountResourceRemainingCapacity(resource));
+		if (stored > 0D) {
+			touch(resource);
+			supplied[resource] += stored;
+		}
+		return quantity - stored;
+	}
+
+	/**
+	 * Posts an amount to retrieve. Only the part that is available is posted.
+	 *
+	 * @param resource
+	 * @param quantity
+	 * @return The quantity that is missing
+	 */
+	public double retrieveAmountResource(int resource, double quantity) {
+		if (!open) {
+			return settlement.retrieveAmountResource(resource, quantity);
+		}
+		if (quantity <= 0D) {
+			return 0D;
+		}
+
+		double retrieved = Math.min(quantity, getAmountResourceStored(resource));
+		if (retrieved > 0D) {
+			touch(resource);
+			demanded[resource] += retrieved;
+		}
+		return quantity - retrieved;
+	}
+
+	private void touch(int resource) {
+		if (!posted[resource]) {
+			posted[resource] = true;
+			if (numTouched == touched.length) {
+				touched = Arrays.copyOf(touched, numTouched * 2);
+			}
+			touched[numTouched++] = resource;
+		}
+	}
+
+	/**
+	 * Applies the posted flows to the Settlement storage and stops collecting.
+	 */
+	void commit() {
+		open = false;
+		if (numTouched == 0) {
+			return;
+		}
+
+		double[] changes = new double[numTouched];
+		for (int i = 0; i < numTouched; i++) {
+			int resource = touched[i];
+			double in = supplied[resource];
+			double out = demanded[resource];
+			double available = settlement.getAmountResourceStored(resource) + in;
+
+			if (out > available + SMALL_AMOUNT) {
+				// Retrieves are granted against what is available so only the storage
+				// changing outside the ledger gets here
+				logger.warning(settlement, 30_000L, "Only " + Math.round(available / out * 100D)
+						+ "% of the " + ResourceUtil.findAmountResourceName(resource)
+						+ " granted is still available.");
+				out = available;
+			}
+			changes[i] = in - out;
+
+			supplied[resource] = 0D;
+			demanded[resource] = 0D;
+			posted[resource] = false;
+		}
+
+		settlement.changeAmountResources(Arrays.copyOf(touched, numTouched), changes);
+		numTouched = 0;
+	}
+}
@@ -85,6 +85,8 @@ import org.mars_sim.msp.core.structure.construction.ConstructionManager;
 import org.mars_sim.msp.core.time.ClockPulse;
 import org.mars_sim.msp.core.time.MarsClock;
 import org.mars_sim.msp.core.time.MarsTime;
+import org.mars_sim.msp.core.time.PulseMetrics;
+import org.mars_sim.msp.core.time.PulseTimer;
 import org.mars_sim.msp.core.time.Temporal;
 import org.mars_sim.msp.core.tool.RandomUtil;
 import org.mars_sim.msp.core.vehicle.Drone;
@@ -110,6 +112,17 @@ public class Settlement extends Structure implements Temporal,
 	private static final String MINING_OUTPOST = "Mining Outpost";
 	private static final String ASTRONOMY_OBSERVATORY = "Astronomy Observatory";
 
+	// Timers for the phases of a pulse; shared by all settlements
+	private static final PulseTimer EVENTS_TIMER = PulseMetrics.getTimer("phase.events");
+	private static final PulseTimer POWER_TIMER = PulseMetrics.getTimer("phase.power");
+	private static final PulseTimer THERMAL_TIMER = PulseMetrics.getTimer("phase.thermal");
+	private static final PulseTimer BUILDINGS_TIMER = PulseMetrics.getTimer("phase.buildings");
+	private static final PulseTimer TASKS_TIMER = PulseMetrics.getTimer("phase.tasks");
+	private static final PulseTimer CITIZENS_TIMER = PulseMetrics.getTimer("phase.citizens");
+	private static final PulseTimer VEHICLES_TIMER = PulseMetrics.getTimer("phase.vehicles");
+	private static final PulseTimer ROBOTS_TIMER = PulseMetrics.getTimer("phase.robots");
+	private static final PulseTimer END_OF_DAY_TIMER = PulseMetrics.getTimer("phase.endOfDay");
+	private static final PulseTimer TRACKING_TIMER = PulseMetrics.getTimer("phase.tracking");
 
 	private static final int MAX = 6000;
 	private static final int UPDATE_GOODS_PERIOD = (1000/20); // Update 20 times per day
@@ -275,6 +288,8 @@ public class Settlement extends Structure implements Temporal,
 	private DustStorm storm;
 	/** The settlement's EquipmentInventory instance. */
 	private EquipmentInventory eqmInventory;
+	/** Collects the resource flows of the buildings in a pulse. */
+	private transient ResourceLedger resourceLedger;
 	/** The settlement's CreditManager instance manages trade credit between settlements. */
 	private CreditManager creditManager;
 	/** Mamanges the shifts */
@@ -882,21 +897,38 @@ public class Settlement extends Structure implements Temporal,
 		}
 
 		// Calls other time passings
+		long t = System.nanoTime();
 		futureEvents.timePassing(pulse);
+		t = EVENTS_TIMER.lap(t);
 		powerGrid.timePassing(pulse);
+		t = POWER_TIMER.lap(t);
 		thermalSystem.timePassing(pulse);
-		buildingManager.timePassing(pulse);
+		t = THERMAL_TIMER.lap(t);
+		ResourceLedger ledger = getResourceLedger();
+		ledger.open();
+		try {
+			buildingManager.timePassing(pulse);
+		}
+		finally {
+			ledger.commit();
+		}
+		t = BUILDINGS_TIMER.lap(t);
 		taskManager.timePassing();
+		t = TASKS_TIMER.lap(t);
 
 		// Update citizens
 		timePassingCitizens(pulse);
+		t = CITIZENS_TIMER.lap(t);
 
 		// Update remaining Units
 		timePassing(pulse, ownedVehicles);
+		t = VEHICLES_TIMER.lap(t);
 		timePassing(pulse, ownedRobots);
+		t = ROBOTS_TIMER.lap(t);
 
 		if (pulse.isNewSol()) {
 			performEndOfDayTasks(pulse.getMarsTime());
+			t = END_OF_DAY_TIMER.lap(t);
 		}
 
 		// Keeps track of things based on msol
@@ -904,6 +936,7 @@ public class Settlement extends Structure implements Temporal,
 
 		// Computes the average air pressure & temperature of the life support system.
 		computeEnvironmentalAverages();
+		TRACKING_TIMER.lap(t);
 
 		return true;
 	}
@@ -3215,6 +3248,29 @@ public class Settlement extends Structure implements Temporal,
 		return eqmInventory.retrieveAmountResource(resource, quantity);
 	}
 
+	/**
+	 * Stores and retrieves several amount resources as one change.
+	 *
+	 * @param resources Resource ids
+	 * @param changes Amount to store if positive or retrieve if negative
+	 */
+	void changeAmountResources(int[] resources, double[] changes) {
+		eqmInventory.changeAmountResources(resources, changes);
+	}
+
+	/**
+	 * Gets the ledger that collects the resource flows of the buildings. Flows posted
+	 * while the buildings are pulsed are applied together at the end.
+	 *
+	 * @return
+	 */
+	public ResourceLedger getResourceLedger() {
+		if (resourceLedger == null) {
+			resourceLedger = new ResourceLedger(this);
+		}
+		return resourceLedger;
+	}
+
 	/**
 	 * Gets the capacity of a particular amount resource
 	 *
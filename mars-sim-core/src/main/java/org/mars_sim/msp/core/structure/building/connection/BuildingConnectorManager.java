@@ -61,6 +61,9 @@ public class BuildingConnectorManager implements Serializable {
 	private Settlement settlement;
 	
 	private Set<BuildingConnector> buildingConnections;
+
+	/** The connections as a graph; built when first needed after a change. */
+	private transient BuildingGraph graph;
 		
 	/**
 	 * Constructor
@@ -82,6 +85,7 @@ public class BuildingConnectorManager implements Serializable {
 	public void initialize(Settlement settlement, List<BuildingTemplate> buildingTemplates) {
 		
 		buildingConnections = ConcurrentHashMap.newKeySet();
+		graph = null;
 
 		BuildingManager buildingManager = settlement.getBuildingManager();
 
@@ -205,10 +209,15 @@ public class BuildingConnectorManager implements Serializable {
 	 * 
 	 * @param buildingConnector new building connector.
 	 */
-	public void addBuildingConnection(BuildingConnector buildingConnector) {
+	public synchronized void addBuildingConnection(BuildingConnector buildingConnector) {
 
 		if (!buildingConnections.contains(buildingConnector)) {
 			buildingConnections.add(buildingConnector);
+
+			BuildingGraph current = graph;
+			if (current != null) {
+				current.addConnector(buildingConnector);
+			}
 		} else {
 			throw new IllegalArgumentException("BuildingConnector already exists.");
 		}
@@ -219,10 +228,13 @@ public class BuildingConnectorManager implements Serializable {
 	 * 
 	 * @param buildingConnector old building connector.
 	 */
-	public void removeBuildingConnection(BuildingConnector buildingConnector) {
+	public synchronized void removeBuildingConnection(BuildingConnector buildingConnector) {
 
 		if (buildingConnections.contains(buildingConnector)) {
 			buildingConnections.remove(buildingConnector);
+
+			// Removing may split a group of buildings so start again
+			graph = null;
 		} else {
 			throw new IllegalArgumentException("BuildingConnector does not exists.");
 		}
@@ -316,27 +328,37 @@ public class BuildingConnectorManager implements Serializable {
 	 */
 	public boolean hasValidPath(Building building1, Building building2) {
 
-		boolean result = false;
-
 		if ((building1 == null) || (building2 == null)) {
 			throw new IllegalArgumentException("Building arguments cannot be null");
 		}
 
-		InsideBuildingPath validPath = determineShortestPath(building1, building1.getPosition(),
-															building2, building2.getPosition());
+		boolean result = getGraph().isConnected(building1, building2);
 
-		if (validPath != null) {
-			result = true;
-		}
-		else if (logger.isLoggable(Level.FINEST)) {
+		if (!result && logger.isLoggable(Level.FINEST)) {
 			logger.fine(building1, "Unable to find valid interior walking path to " + building2);
 		}
 
 		return result;
 	}
 
+	/**
+	 * Gets the graph of the connections; it is built if there were changes.
+	 * 
+	 * @return
+	 */
+	private synchronized BuildingGraph getGraph() {
+		BuildingGraph result = graph;
+		if (result == null) {
+			result = new BuildingGraph(buildingConnections);
+			graph = result;
+		}
+		return result;
+	}
+
 	/**
 	 * Determines the shortest building path between two locations in buildings.
+	 * The route between the buildings is chosen from their centres and remembered,
+	 * so it does not depend on the start and end positions.
 	 * 
 	 * @param startBuilding     the first building.
 	 * @param startPositionc the starting position in the first building.
@@ -356,8 +378,11 @@ public class BuildingConnectorManager implements Serializable {
 
 		InsideBuildingPath finalPath = null;
 		if (!startBuilding.equals(endBuilding)) {
-			// Check shortest path to target building from this building.
-			finalPath = determineShortestPath(startingPath, startBuilding, endBuilding, end);
+			// Follow the shortest route to target building from this building.
+			List<BuildingConnector> route = getGraph().getRoute(startBuilding, endBuilding);
+			if (route != null) {
+				finalPath = createPath(startingPath, startBuilding, route, end);
+			}
 		} else {
 			finalPath = startingPath;
 			finalPath.addPathLocation(end);
@@ -372,86 +397,40 @@ public class BuildingConnectorManager implements Serializable {
 	}
 
 	/**
-	 * Recursive method to determine the shortest path between two buildings.
+	 * Creates the path that follows a route of building connectors.
 	 * 
-	 * @param existingPath    the current path.
-	 * @param currentBuilding the current building.
-	 * @param targetBuilding  the target building.
+	 * @param path            the path holding the starting location.
+	 * @param startBuilding   the starting building.
+	 * @param route           the connectors to pass through.
 	 * @param endingLocation  the end building location.
-	 * @return shortest path or null if none found.
+	 * @return the completed path.
 	 */
-	private InsideBuildingPath determineShortestPath(InsideBuildingPath existingPath, Building currentBuilding,
-			Building targetBuilding, BuildingLocation endingLocation) {
-
-		InsideBuildingPath result = null;
+	private InsideBuildingPath createPath(InsideBuildingPath path, Building startBuilding,
+			List<BuildingConnector> route, BuildingLocation endingLocation) {
 
-		// Try each building connection from current building.
-		Iterator<BuildingConnector> i = getConnectionsToBuilding(currentBuilding).iterator();
-		while (i.hasNext()) {
-			BuildingConnector connector = i.next();
-
-			Building connectionBuilding = null;
-			Hatch nearHatch = null;
-			Hatch farHatch = null;
-			if (connector.getBuilding1().equals(currentBuilding)) {
-				connectionBuilding = connector.getBuilding2();
-				nearHatch = connector.getHatch1();
-				farHatch = connector.getHatch2();
-			} else {
-				connectionBuilding = connector.getBuilding1();
-				nearHatch = connector.getHatch2();
-				farHatch = connector.getHatch1();
-			}
-
-			// Make sure building or connection is not already in existing path.
-			boolean inExistingPath = existingPath.containsPathLocation(connectionBuilding);
-            if (existingPath.containsPathLocation(connector)) {
-				inExistingPath = true;
-			}
-			if (existingPath.containsPathLocation(nearHatch)) {
-				inExistingPath = true;
-			}
-			if (existingPath.containsPathLocation(farHatch)) {
-				inExistingPath = true;
-			}
-			if (inExistingPath) {
-				continue;
-			}
+		Building currentBuilding = startBuilding;
+		for (BuildingConnector connector : route) {
+			Building connectionBuilding = BuildingGraph.getOtherBuilding(connector, currentBuilding);
 
-			// Copy existing path to create new path.
-			InsideBuildingPath newPath = new InsideBuildingPath(existingPath);
-
-			// Add building connector to new path.
+			// Add building connector to path.
 			if (connector.isSplitConnection()) {
-				newPath.addPathLocation(nearHatch);
-				newPath.addPathLocation(connector);
-				newPath.addPathLocation(farHatch);
+				path.addPathLocation(BuildingGraph.getHatch(connector, currentBuilding));
+				path.addPathLocation(connector);
+				path.addPathLocation(BuildingGraph.getHatch(connector, connectionBuilding));
 			} else {
-				newPath.addPathLocation(connector);
+				path.addPathLocation(connector);
 			}
 
-			InsideBuildingPath bestPath = null;
-			if (connectionBuilding.equals(targetBuilding)) {
+			if (connectionBuilding.equals(endingLocation.getBuilding())) {
 				// Add ending location within connection building.
-				newPath.addPathLocation(endingLocation);
-				bestPath = newPath;
+				path.addPathLocation(endingLocation);
 			} else {
-				// Add connection building to new path.
-				newPath.addPathLocation(connectionBuilding);
-
-				// Recursively call this method with new path and connection building.
-				// Note: how to avoid StackOverflow ?
-				bestPath = determineShortestPath(newPath, connectionBuilding, targetBuilding, endingLocation);
-			}
-
-			if (bestPath != null) {
-				if ((result == null) || (bestPath.getPathLength() < result.getPathLength())) {
-					result = bestPath;
-				}
+				path.addPathLocation(connectionBuilding);
 			}
+			currentBuilding = connectionBuilding;
 		}
 
-		return result;
+		return path;
 	}
 
 	/**
@@ -797,6 +776,7 @@ public class BuildingConnectorManager implements Serializable {
 		}
 		// buildingConnections.clear();
 		buildingConnections = null;
+		graph = null;
 	}
 
 	/**
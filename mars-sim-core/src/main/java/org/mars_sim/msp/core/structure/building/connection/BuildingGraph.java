@@ -0,0 +1,203 @@
+/*
+ * Mars Simulation Project
+ * BuildingGraph.java
+ * @date 2023-07-21
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.structure.building.connection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.mars_sim.msp.core.LocalPosition;
+import org.mars_sim.msp.core.structure.building.Building;
+
+/**
+ * The buildings of a settlement as a graph with the BuildingConnectors as edges.
+ * Groups of connected buildings are held in a union-find so a reachability check is
+ * a near constant lookup. Routes are found with Dijkstra and are remembered for each
+ * pair of buildings until the connections change.
+ * The cost of a route runs from the centre of each building through the hatches to
+ * the centre of the next building; this is how an InsideBuildingPath is measured.
+ */
+class BuildingGraph {
+
+	/**
+	 * A building reached by the search and the cost to reach it.
+	 */
+	private static record Step(Building building, double cost) {}
+
+	private Map<Building, List<BuildingConnector>> connections = new HashMap<>();
+	private Map<Building, Building> parents = new HashMap<>();
+	private Map<Building, Map<Building, List<BuildingConnector>>> routes = new HashMap<>();
+
+	/**
+	 * Creates a graph for a set of building connectors.
+	 *
+	 * @param connectors
+	 */
+	BuildingGraph(Collection<BuildingConnector> connectors) {
+		connectors.forEach(this::addConnector);
+	}
+
+	/**
+	 * Adds a new connector. This can only join groups of buildings so the existing groups
+	 * are kept; the remembered routes may be beaten and are dropped.
+	 *
+	 * @param connector
+	 */
+	synchronized void addConnector(BuildingConnector connector) {
+		Building b1 = connector.getBuilding1();
+		Building b2 = connector.getBuilding2();
+		connections.computeIfAbsent(b1, k -> new ArrayList<>()).add(connector);
+		connections.computeIfAbsent(b2, k -> new ArrayList<>()).add(connector);
+
+		Building root1 = find(b1);
+		Building root2 = find(b2);
+		if (!root1.equals(root2)) {
+			parents.put(root1, root2);
+		}
+		routes.clear();
+	}
+
+	/**
+	 * Are two buildings connected by any number of connectors ?
+	 *
+	 * @param building1
+	 * @param building2
+	 * @return
+	 */
+	synchronized boolean isConnected(Building building1, Building building2) {
+		return building1.equals(building2) || find(building1).equals(find(building2));
+	}
+
+	/**
+	 * Gets the cheapest route between two different buildings.
+	 *
+	 * @param start
+	 * @param end
+	 * @return Connectors in the order to pass through them; null if there is no route
+	 */
+	synchronized List<BuildingConnector> getRoute(Building start, Building end) {
+		if (!isConnected(start, end)) {
+			return null;
+		}
+		return routes.computeIfAbsent(start, k -> new HashMap<>())
+					 .computeIfAbsent(end, k -> findRoute(start, end));
+	}
+
+	/**
+	 * Finds the root of the group holding a building; the path is halved on the way.
+	 */
+	private Building find(Building building) {
+		Building current = building;
+		Building parent = parents.get(current);
+		while (parent != null) {
+			Building grandParent = parents.get(parent);
+			if (grandParent != null) {
+				parents.put(current, grandParent);
+			}
+			current = parent;
+			parent = grandParent;
+		}
+		return current;
+	}
+
+	/**
+	 * Dijkstra search from the start to the end building.
+	 */
+	private List<BuildingConnector> findRoute(Building start, Building end) {
+		Map<Building, Double> costs = new HashMap<>();
+		Map<Building, BuildingConnector> via = new HashMap<>();
+		PriorityQueue<Step> queue = new PriorityQueue<>(Comparator.comparingDouble(Step::cost));
+
+		costs.put(start, 0D);
+		queue.add(new Step(start, 0D));
+		while (!queue.isEmpty()) {
+			Step current = queue.poll();
+			Building building = current.building();
+			if (building.equals(end)) {
+				break;
+			}
+			if (current.cost() > costs.get(building)) {
+				// A cheaper way was found after this was queued
+				continue;
+			}
+
+			for (BuildingConnector c : connections.getOrDefault(building, Collections.emptyList())) {
+				Building next = getOtherBuilding(c, building);
+				if (next.equals(building)) {
+					continue;
+				}
+				double cost = current.cost() + getCost(c, building, next);
+				Double known = costs.get(next);
+				if ((known == null) || (cost < known)) {
+					costs.put(next, cost);
+					via.put(next, c);
+					queue.add(new Step(next, cost));
+				}
+			}
+		}
+
+		if (!via.containsKey(end)) {
+			return null;
+		}
+
+		LinkedList<BuildingConnector> route = new LinkedList<>();
+		Building building = end;
+		while (!building.equals(start)) {
+			BuildingConnector c = via.get(building);
+			route.addFirst(c);
+			building = getOtherBuilding(c, building);
+		}
+		return Collections.unmodifiableList(route);
+	}
+
+	/**
+	 * Gets the building on the other side of a connector.
+	 *
+	 * @param connector
+	 * @param building One of the connected buildings
+	 * @return
+	 */
+	static Building getOtherBuilding(BuildingConnector connector, Building building) {
+		return (connector.getBuilding1().equals(building) ? connector.getBuilding2()
+														  : connector.getBuilding1());
+	}
+
+	/**
+	 * Gets the hatch of a connector in a building.
+	 *
+	 * @param connector
+	 * @param building One of the connected buildings
+	 * @return
+	 */
+	static Hatch getHatch(BuildingConnector connector, Building building) {
+		return (connector.getBuilding1().equals(building) ? connector.getHatch1()
+														  : connector.getHatch2());
+	}
+
+	/**
+	 * Gets the walking distance from the centre of one building through a connector to
+	 * the centre of the next.
+	 */
+	private static double getCost(BuildingConnector connector, Building from, Building to) {
+		LocalPosition fromPos = from.getPosition();
+		LocalPosition toPos = to.getPosition();
+		LocalPosition middle = connector.getPosition();
+		if (connector.isSplitConnection()) {
+			LocalPosition near = getHatch(connector, from).getPosition();
+			LocalPosition far = getHatch(connector, to).getPosition();
+			return fromPos.getDistanceTo(near) + near.getDistanceTo(middle)
+					+ middle.getDistanceTo(far) + far.getDistanceTo(toPos);
+		}
+		return fromPos.getDistanceTo(middle) + middle.getDistanceTo(toPos);
+	}
+}
@@ -12,6 +12,7 @@ import java.util.Set;
 import org.mars_sim.msp.core.goods.GoodsManager;
 import org.mars_sim.msp.core.logging.SimLogger;
 import org.mars_sim.msp.core.resource.ResourceUtil;
+import org.mars_sim.msp.core.structure.ResourceLedger;
 import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.building.ResourceProcessEngine;
 import org.mars_sim.msp.core.time.ClockPulse;
@@ -248,13 +249,15 @@ public class ResourceProcess implements Serializable {
 //						+ "  processInterval: " + processInterval);
 	
 				double bottleneck = 1D;
+				// Flows are posted to the ledger and applied at the end of the building pulse
+				ResourceLedger ledger = settlement.getResourceLedger();
 
 				// Input resources from inventory.
 				for(Integer resource : engine.getInputResources()) {
 					double maxRate = engine.getMaxInputRate(resource);
 					double resourceRate = maxRate * level;
 					double required = resourceRate * accumulatedTime;
-					double stored = settlement.getAmountResourceStored(resource);
+					double stored = ledger.getAmountResourceStored(resource);
 					
 					// Get resource bottleneck
 					double desiredResourceAmount = maxRate * time;
@@ -264,21 +267,17 @@ public class ResourceProcess implements Serializable {
 					if (bottleneck > proportionAvailable)
 						bottleneck = proportionAvailable;
 					
-					// Retrieve the right amount
+					// Retrieve the right amount; the ledger only grants what is available
 					if (stored > SMALL_AMOUNT) {
-						if (required > stored) {
+						double shortfall = ledger.retrieveAmountResource(resource, required);
+						if (shortfall > SMALL_AMOUNT) {
 							logger.fine(settlement, 30_000, "Case A. Used up all '" + ResourceUtil.findAmountResourceName(resource)
 								+ "' input to start '" + name + "'. Required: " + Math.round(required * 1000.0)/1000.0 + " kg. Remaining: "
-								+ Math.round(stored * 1000.0)/1000.0 + " kg in storage.");
-							required = stored;
-							settlement.retrieveAmountResource(resource, required);
+								+ Math.round((required - shortfall) * 1000.0)/1000.0 + " kg in storage.");
 							setProcessRunning(false);
 							break;
 							// Note: turn on a yellow flag and indicate which the input resource is missing
 						}
-						else
-							settlement.retrieveAmountResource(resource, required);
-						
 					}
 					else {
 						logger.fine(settlement, 30_000, "Case B. Not enough '" + ResourceUtil.findAmountResourceName(resource)
@@ -298,24 +297,20 @@ public class ResourceProcess implements Serializable {
 					double maxRate = engine.getMaxOutputRate(resource);
 					double resourceRate = maxRate * level;
 					double required = resourceRate * accumulatedTime;
-					double remainingCap = settlement.getAmountResourceRemainingCapacity(resource);
+					double remainingCap = ledger.getAmountResourceRemainingCapacity(resource);
 					
-					// Store the right amount
+					// Store the right amount; the ledger only takes what fits
 					if (remainingCap > SMALL_AMOUNT) {
-						if (required > remainingCap) {
+						double excess = ledger.storeAmountResource(resource, required);
+						if (excess > SMALL_AMOUNT) {
 							logger.fine(settlement, 30_000, "Case C. Used up all remaining space for storing '" 
 									+ ResourceUtil.findAmountResourceName(resource)
-									+ "' output in '" + name + "'. Required: " + Math.round((required - remainingCap) * 1000.0)/1000.0 
+									+ "' output in '" + name + "'. Required: " + Math.round(excess * 1000.0)/1000.0 
 									+ " kg of storage. Remaining cap: 0 kg.");
-							required = remainingCap;
-							settlement.storeAmountResource(resource, required);
 							setProcessRunning(false);						
 							break;
 							// Note: turn on a yellow flag and indicate which the output resource is missing
 						}
-						else
-							settlement.storeAmountResource(resource, required);
-						
 					}
 					else {
 						logger.fine(settlement, 30_000, "Case D. Not enough space for storing '" 
@@ -1039,7 +1039,7 @@ public class Crop implements Comparable<Crop>, Loggable, Serializable {
 		if (waterRequired <= 0)
 			return;
 		// Determine the amount of grey water available.
-		double gw = building.getSettlement().getAmountResourceStored(GREY_WATER_ID);
+		double gw = building.getSettlement().getResourceLedger().getAmountResourceStored(GREY_WATER_ID);
 		double greyWaterAvailable = Math.min(gw * greyFilterRate * time, gw);
 		double waterUsed = 0;
 		double greyWaterUsed = 0;
@@ -1059,7 +1059,7 @@ public class Crop implements Comparable<Crop>, Loggable, Serializable {
 			retrieveWater(greyWaterUsed, GREY_WATER_ID);
 
 			waterRequired = waterRequired - greyWaterUsed;
-			double waterAvailable = building.getSettlement().getAmountResourceStored(WATER_ID);
+			double waterAvailable = building.getSettlement().getResourceLedger().getAmountResourceStored(WATER_ID);
 
 			if (waterAvailable >= waterRequired) {
 				waterUsed = waterRequired;
@@ -1077,7 +1077,7 @@ public class Crop implements Comparable<Crop>, Loggable, Serializable {
 				waterModifier = (greyWaterUsed + waterUsed) / (waterRequired + .0001);
 			}
 
-			double fertilizerAvailable = building.getSettlement().getAmountResourceStored(FERTILIZER_ID);
+			double fertilizerAvailable = building.getSettlement().getResourceLedger().getAmountResourceStored(FERTILIZER_ID);
 			// The amount of fertilizer to be used depends on the water used
 			double fertilizerRequired = FERTILIZER_NEEDED_WATERING * time * waterUsed;
 			double fertilizerUsed = fertilizerRequired;
@@ -1120,7 +1120,7 @@ public class Crop implements Comparable<Crop>, Loggable, Serializable {
 		if (watt < 40) {
 
 			double o2Required = compositeFactor * averageOxygenNeeded;
-			double o2Available = building.getSettlement().getAmountResourceStored(OXYGEN_ID);
+			double o2Available = building.getSettlement().getResourceLedger().getAmountResourceStored(OXYGEN_ID);
 			double o2Used = o2Required;
 
 			o2Modifier = o2Available / o2Required;
@@ -1141,7 +1141,7 @@ public class Crop implements Comparable<Crop>, Loggable, Serializable {
 
 			// Determine harvest modifier by amount of carbon dioxide available.
 			double cO2Req = compositeFactor * averageCarbonDioxideNeeded;
-			double cO2Available = building.getSettlement().getAmountResourceStored(CO2_ID);
+			double cO2Available = building.getSettlement().getResourceLedger().getAmountResourceStored(CO2_ID);
 			double cO2Used = cO2Req;
 
 			// TODO: allow higher concentration of co2 to be pumped to increase the harvest
@@ -1314,7 +1314,7 @@ public class Crop implements Comparable<Crop>, Loggable, Serializable {
 	 * @return
 	 */
 	private boolean retrieve(double amount, int resource, boolean value) {
-		if (building.getSettlement().retrieveAmountResource(resource, amount) == 0)
+		if (building.getSettlement().getResourceLedger().retrieveAmountResource(resource, amount) == 0)
 			return true;
 		return false;
 	}
@@ -1348,7 +1348,7 @@ public class Crop implements Comparable<Crop>, Loggable, Serializable {
 	 * @return
 	 */
 	private boolean store(double amount, int resource, String source) {
-		if (building.getSettlement().storeAmountResource(resource, amount) == 0)
+		if (building.getSettlement().getResourceLedger().storeAmountResource(resource, amount) == 0)
 			return true;
 		return false;
 	}
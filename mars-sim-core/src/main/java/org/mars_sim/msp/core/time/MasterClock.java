@@ -9,16 +9,23 @@ package org.mars_sim.msp.core.time;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoField;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 
 import org.mars_sim.msp.core.Simulation;
@@ -34,6 +41,16 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
  */
 public class MasterClock implements Serializable {
 
+	/**
+	 * How the clock listeners are dispatched for each pulse.
+	 */
+	public enum ListenerDispatch {
+		/** One listener at a time, in dependency order. */
+		SEQUENTIAL,
+		/** All independent listeners at once with a completion barrier. */
+		PARALLEL
+	}
+
 	/** default serial id. */
 	static final long serialVersionUID = 1L;
 
@@ -52,6 +69,12 @@ public class MasterClock implements Serializable {
 	
 	/** The maximum allowable elapsed time [in ms] before action is taken. */
 	private static final long MAX_ELAPSED = 30000;
+	/** Outcome of a listener task that is still busy with an earlier pulse. */
+	private static final String BUSY = "busy";
+	/** The maximum number of threads used for parallel dispatch of clock listeners. */
+	private static final int MAX_LISTENER_THREADS = 8;
+	/** Time taken for all the clock listeners to handle a pulse. */
+	private static final PulseTimer PULSE_TIMER = PulseMetrics.getTimer("clock.pulse");
 
 	/** The maximum pulse time allowed in one frame for a task phase. */
 	private static final double MAX_PULSE_TIME = .25;
@@ -76,6 +99,18 @@ public class MasterClock implements Serializable {
 	private transient ExecutorService clockExecutor;
 	/** A list of clock listener tasks. */
 	private transient Collection<ClockListenerTask> clockListenerTasks;
+	/** The clock listener tasks grouped into dependency levels. */
+	private transient List<List<ClockListenerTask>> dispatchLevels;
+	/** How the clock listeners are dispatched. */
+	private transient ListenerDispatch listenerDispatch = ListenerDispatch.SEQUENTIAL;
+	/** The maximum time [in ms] to wait for a clock listener to complete a pulse. */
+	private transient long listenerTimeout = MAX_ELAPSED;
+	/** The time [in ns] spent waiting on the listener barrier in the last pulse. */
+	private transient long lastBarrierWait;
+	/** The accumulated time [in ns] spent waiting on the listener barrier. */
+	private transient long totalBarrierWait;
+	/** The number of pulses that have gone through the listener barrier. */
+	private transient long barrierCount;
 	/** The clock pulse. */
 	private transient ClockPulse currentPulse;
 	
@@ -162,6 +197,9 @@ public class MasterClock implements Serializable {
 		
 		maxWaitTimeBetweenPulses = simulationConfig.getDefaultPulsePeriod();
 
+		listenerDispatch = simulationConfig.getListenerDispatch();
+		listenerTimeout = simulationConfig.getListenerTimeout();
+
 		// Safety check
 		if (minMilliSolPerPulse > maxMilliSolPerPulse) {
 			logger.severe("The min pulse millisol is higher than the max pule.");
@@ -247,17 +285,30 @@ public class MasterClock implements Serializable {
 	 * quicker than the min duration. The delivered Pulse will have the full elapsed times including
 	 * the skipped Pulses.
 	 *
+	 * The listener can declare other listeners that must have completed the pulse before 
+	 * it is called. Listeners without any dependency between them may be called concurrently
+	 * when the dispatch is {@link ListenerDispatch#PARALLEL}.
 	 *
 	 * @param newListener the listener to add.
 	 * @Param minDuration The minimum duration in milliseconds between pulses.
+	 * @param predecessors The listeners that must complete a pulse before this one.
 	 */
-	public final void addClockListener(ClockListener newListener, long minDuration) {
+	public final void addClockListener(ClockListener newListener, long minDuration,
+									ClockListener... predecessors) {
 		// Check if clockListenerTaskList already contain the newListener's task,
 		// if it doesn't, create one
 		if (clockListenerTasks == null)
 			clockListenerTasks = Collections.synchronizedSet(new HashSet<>());
 		if (!hasClockListenerTask(newListener)) {
-			clockListenerTasks.add(new ClockListenerTask(newListener, minDuration));
+			// Tolerate duplicate, null and self predecessors
+			Set<ClockListener> after = new HashSet<>();
+			for (ClockListener p : predecessors) {
+				if ((p != null) && (p != newListener)) {
+					after.add(p);
+				}
+			}
+			clockListenerTasks.add(new ClockListenerTask(newListener, minDuration, after));
+			dispatchLevels = null;
 		}
 	}
 
@@ -270,6 +321,7 @@ public class MasterClock implements Serializable {
 		ClockListenerTask task = retrieveClockListenerTask(oldListener);
 		if (task != null) {
 			clockListenerTasks.remove(task);
+			dispatchLevels = null;
 		}
 	}
 
@@ -360,6 +412,73 @@ public class MasterClock implements Serializable {
 		return desiredTR;
 	}
 	
+	/**
+	 * Sets how the clock listeners are dispatched on each pulse.
+	 *
+	 * @param dispatch
+	 */
+	public void setListenerDispatch(ListenerDispatch dispatch) {
+		if (listenerDispatch != dispatch) {
+			listenerDispatch = dispatch;
+			logger.config("Clock listener dispatch " + dispatch);
+
+			// The pool size depends on the dispatch
+			if (listenerExecutor != null) {
+				listenerExecutor.shutdown();
+				listenerExecutor = null;
+				startClockListenerExecutor();
+			}
+		}
+	}
+
+	/**
+	 * Gets how the clock listeners are dispatched on each pulse.
+	 *
+	 * @return
+	 */
+	public ListenerDispatch getListenerDispatch() {
+		// Transient so will be undefined after a reload
+		if (listenerDispatch == null) {
+			listenerDispatch = SimulationConfig.instance().getListenerDispatch();
+		}
+		return listenerDispatch;
+	}
+
+	/**
+	 * Sets the maximum time a clock listener can take to process a pulse before
+	 * the clock moves on without it.
+	 *
+	 * @param timeout Timeout in milliseconds
+	 */
+	public void setListenerTimeout(long timeout) {
+		if (timeout > 0) {
+			listenerTimeout = timeout;
+		}
+	}
+
+	/**
+	 * Gets the time [in ms] spent waiting for the clock listeners to complete
+	 * the last pulse.
+	 *
+	 * @return
+	 */
+	public double getLastBarrierWaitTime() {
+		return lastBarrierWait / 1_000_000D;
+	}
+
+	/**
+	 * Gets the average time [in ms] spent waiting for the clock listeners to complete
+	 * a pulse.
+	 *
+	 * @return
+	 */
+	public double getAverageBarrierWaitTime() {
+		if (barrierCount == 0) {
+			return 0D;
+		}
+		return totalBarrierWait / 1_000_000D / barrierCount;
+	}
+
 	/**
 	 * Gets the actual time ratio. The value varies over time.
 	 *
@@ -616,24 +735,81 @@ public class MasterClock implements Serializable {
 	 * Prepares clock listener tasks for setting up threads.
 	 */
 	public class ClockListenerTask implements Callable<String>{
+		/** Pulse time not yet delivered; guarded by this task. */
 		private double msolsSkipped = 0;
 		private long lastPulseDelivered = 0;
 		private ClockListener listener;
 		private long minDuration;
+		private Set<ClockListener> predecessors;
+		/** Is the listener still handling an earlier pulse ? */
+		private AtomicBoolean running = new AtomicBoolean(false);
+		/** Time [in ns] taken to deliver the last pulse. */
+		private volatile long lastCost;
+		private PulseTimer timer;
+		private LongAdder skipped;
 
 		public ClockListener getClockListener() {
 			return listener;
 		}
 
-		private ClockListenerTask(ClockListener listener, long minDuration) {
+		/**
+		 * Gets the time taken by the listener to handle the last pulse delivered.
+		 *
+		 * @return Nanoseconds
+		 */
+		public long getLastCost() {
+			return lastCost;
+		}
+
+		private ClockListenerTask(ClockListener listener, long minDuration, Set<ClockListener> predecessors) {
 			this.listener = listener;
 			this.minDuration = minDuration;
+			this.predecessors = predecessors;
 			this.lastPulseDelivered = System.currentTimeMillis();
+
+			String name = "listener." + listener.getClass().getSimpleName();
+			this.timer = PulseMetrics.getTimer(name);
+			this.skipped = PulseMetrics.getCounter(name + ".skipped");
+		}
+
+		/**
+		 * Records pulse time that the listener did not get. It is added to the next
+		 * pulse delivered.
+		 * 
+		 * @param msols
+		 */
+		private synchronized void addSkipped(double msols) {
+			msolsSkipped += msols;
+		}
+
+		/**
+		 * Takes the pulse time that the listener has not had yet.
+		 * 
+		 * @return
+		 */
+		private synchronized double takeSkipped() {
+			double result = msolsSkipped;
+			msolsSkipped = 0;
+			return result;
+		}
+
+		/**
+		 * The listener misses the current pulse because a predecessor has not completed it.
+		 */
+		private void skipPulse() {
+			addSkipped(currentPulse.getElapsed());
+			skipped.increment();
 		}
 
 		@Override
 		public String call() throws Exception {
 			if (!isPaused) {
+				// A previous pulse timed out and the listener is still busy with it
+				if (!running.compareAndSet(false, true)) {
+					skipPulse();
+					return BUSY;
+				}
+
 				try {
 					// The most important job for ClockListener is to send a clock pulse to listener
 					// gets updated.
@@ -645,24 +821,30 @@ public class MasterClock implements Serializable {
 						long timeNow = System.currentTimeMillis();
 						if ((timeNow - lastPulseDelivered) < minDuration) {
 							// Less than the minimum so record elapse and skip
-							msolsSkipped += currentPulse.getElapsed();
+							addSkipped(currentPulse.getElapsed());
 							return "skip";
 						}
-
-						// Build new pulse to include skipped time
-						activePulse = currentPulse.addElapsed(msolsSkipped);
-
-						// Reset count
 						lastPulseDelivered = timeNow;
-						msolsSkipped = 0;
+					}
+
+					// Previous pulses were missed so include their time
+					double missed = takeSkipped();
+					if (missed > 0) {
+						activePulse = currentPulse.addElapsed(missed);
 					}
 
 					// Call handler
+					long start = System.nanoTime();
 					listener.clockPulse(activePulse);
+					lastCost = System.nanoTime() - start;
+					timer.record(lastCost);
 				}
 				catch (Exception e) {
 					logger.log(Level.SEVERE, "Can't send out clock pulse: ", e);
 				}
+				finally {
+					running.set(false);
+				}
 			}
 			return "done";
 		}
@@ -672,6 +854,46 @@ public class MasterClock implements Serializable {
 		return nextPulseId;
 	}
 
+	/**
+	 * Gets the tasks delivering the pulses to the clock listeners.
+	 *
+	 * @return
+	 */
+	public List<ClockListenerTask> getClockListenerTasks() {
+		if (clockListenerTasks == null) {
+			return Collections.emptyList();
+		}
+		synchronized (clockListenerTasks) {
+			return new ArrayList<>(clockListenerTasks);
+		}
+	}
+
+	/**
+	 * Advances the clocks by a fixed pulse width and delivers the pulse to the listeners
+	 * straight away. There is no sleeping to match the time ratio so the simulation runs
+	 * as fast as the listeners allow. The clock thread must not be running.
+	 *
+	 * @param msols Width of the pulse in millisols
+	 */
+	public void stepPulse(double msols) {
+		if (keepRunning) {
+			throw new IllegalStateException("The clock thread is running.");
+		}
+		if (msols <= 0) {
+			throw new IllegalArgumentException("Pulse width must be positive: " + msols);
+		}
+
+		startClockListenerExecutor();
+
+		lastPulseTime = msols;
+		long earthMillisec = (long)(msols * MILLISECONDS_PER_MILLISOL);
+		earthTime = earthTime.plus(earthMillisec, ChronoField.MILLI_OF_SECOND.getBaseUnit());
+		marsClock.addTime(msols);
+		marsTime = marsTime.addTime(msols);
+
+		fireClockPulse(msols);
+	}
+
 	/**
 	 * Prints the new mission sol.
 	 */
@@ -718,10 +940,134 @@ public class MasterClock implements Serializable {
 		// Note: Using .parallelStream().forEach() in a quad cpu machine would reduce TPS and unable to increase it beyond 512x
 		// Not using clockListenerTasks.forEach(s -> { }) for now
 
-		// Execute all listener concurrently and wait for all to complete before advancing
+		// Execute all listener and wait for all to complete before advancing
 		// Ensure that Settlements stay synch'ed and some don't get ahead of others as tasks queue
-		// May use parallelStream() after it's proven to be safe
-		Collections.synchronizedSet(new HashSet<>(clockListenerTasks)).stream().forEach(this::executeClockListenerTask);
+		long barrierStart = System.nanoTime();
+		// Listeners that have not completed this pulse
+		Set<ClockListener> incomplete = new HashSet<>();
+		for (List<ClockListenerTask> level : getDispatchLevels()) {
+			if (getListenerDispatch() == ListenerDispatch.PARALLEL) {
+				// A listener must not run ahead of a predecessor that is still busy
+				List<ClockListenerTask> ready = new ArrayList<>(level.size());
+				for (ClockListenerTask t : level) {
+					if (!incomplete.isEmpty() && t.predecessors.stream().anyMatch(incomplete::contains)) {
+						t.skipPulse();
+						incomplete.add(t.listener);
+					}
+					else {
+						ready.add(t);
+					}
+				}
+				incomplete.addAll(executeClockListenerTasks(ready));
+			}
+			else {
+				level.forEach(this::executeClockListenerTask);
+			}
+		}
+		lastBarrierWait = System.nanoTime() - barrierStart;
+		PULSE_TIMER.record(lastBarrierWait);
+		totalBarrierWait += lastBarrierWait;
+		barrierCount++;
+	}
+
+	/**
+	 * Gets the clock listener tasks grouped into levels. A task only appears in a level 
+	 * after all of its predecessors. The tasks within a level are independent.
+	 * 
+	 * @return
+	 */
+	private List<List<ClockListenerTask>> getDispatchLevels() {
+		List<List<ClockListenerTask>> levels = dispatchLevels;
+		if (levels != null) {
+			return levels;
+		}
+
+		List<ClockListenerTask> remaining;
+		synchronized (clockListenerTasks) {
+			remaining = new ArrayList<>(clockListenerTasks);
+		}
+		Set<ClockListener> registered = new HashSet<>();
+		remaining.forEach(t -> registered.add(t.listener));
+
+		levels = new ArrayList<>();
+		Set<ClockListener> done = new HashSet<>();
+		while (!remaining.isEmpty()) {
+			List<ClockListenerTask> level = new ArrayList<>();
+			for (ClockListenerTask t : remaining) {
+				// Predecessors that are not registered are ignored
+				boolean ready = t.predecessors.stream()
+									.allMatch(p -> done.contains(p) || !registered.contains(p));
+				if (ready) {
+					level.add(t);
+				}
+			}
+
+			if (level.isEmpty()) {
+				logger.severe("Circular dependency between clock listeners; ignoring the dependencies.");
+				level.addAll(remaining);
+			}
+
+			remaining.removeAll(level);
+			level.forEach(t -> done.add(t.listener));
+			levels.add(level);
+		}
+
+		dispatchLevels = levels;
+		return levels;
+	}
+
+	/**
+	 * Executes a set of independent clock listener tasks concurrently and waits for them 
+	 * all to complete. A task that does not complete within the listener timeout is left
+	 * running and will skip pulses until it catches up.
+	 *
+	 * @param tasks
+	 * @return The listeners that have not completed the pulse
+	 */
+	private Set<ClockListener> executeClockListenerTasks(List<ClockListenerTask> tasks) {
+		Set<ClockListener> incomplete = new HashSet<>();
+		if (tasks.isEmpty()) {
+			return incomplete;
+		}
+
+		List<Future<String>> results = new ArrayList<>(tasks.size());
+		try {
+			for (ClockListenerTask task : tasks) {
+				results.add(listenerExecutor.submit(task));
+			}
+
+			// Transient so will be undefined after a reload
+			if (listenerTimeout <= 0) {
+				listenerTimeout = SimulationConfig.instance().getListenerTimeout();
+			}
+			long timeout = listenerTimeout;
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+			for (int i = 0; i < results.size(); i++) {
+				try {
+					String outcome = results.get(i).get(Math.max(0, deadline - System.nanoTime()),
+														TimeUnit.NANOSECONDS);
+					if (BUSY.equals(outcome)) {
+						incomplete.add(tasks.get(i).listener);
+					}
+				} catch (TimeoutException te) {
+					incomplete.add(tasks.get(i).listener);
+					logger.warning(tasks.get(i).listener.getClass().getSimpleName()
+							+ " did not complete the pulse in " + timeout + " ms.");
+				} catch (ExecutionException ee) {
+					logger.log(Level.SEVERE, "ExecutionException. Problem with clock listener tasks: ", ee);
+				}
+			}
+		} catch (RejectedExecutionException ree) {
+			// Application shutting down
+			Thread.currentThread().interrupt();
+			// Executor is shutdown and cannot complete queued tasks
+			logger.log(Level.SEVERE, "RejectedExecutionException. Problem with clock listener tasks: ", ree);
+		} catch (InterruptedException ie) {
+			// Program closing down
+			Thread.currentThread().interrupt();
+			logger.log(Level.SEVERE, "InterruptedException. Problem with clock listener tasks: ", ie);
+		}
+		return incomplete;
 	}
 
 	/**
@@ -777,6 +1123,8 @@ public class MasterClock implements Serializable {
 	public void start() {
 		keepRunning = true;
 
+		PulseMetrics.registerMBean();
+
 		startClockListenerExecutor();
 
 		if (clockExecutor == null) {
@@ -860,7 +1208,10 @@ public class MasterClock implements Serializable {
 	 */
 	private void startClockListenerExecutor() {
 		if (listenerExecutor == null) {
-			int num = Math.min(1, Simulation.NUM_THREADS - simulationConfig.getUnusedCores());
+			int num = 1;
+			if (getListenerDispatch() == ListenerDispatch.PARALLEL) {
+				num = Math.min(MAX_LISTENER_THREADS, Simulation.NUM_THREADS - simulationConfig.getUnusedCores());
+			}
 			if (num <= 0) num = 1;
 			logger.config("Setting up " + num + " thread(s) for clock listener.");
 			listenerExecutor = Executors.newFixedThreadPool(num,
@@ -0,0 +1,158 @@
+/*
+ * Mars Simulation Project
+ * PulseMetrics.java
+ * @date 2023-07-20
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.time;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.mars_sim.msp.core.logging.SimLogger;
+
+/**
+ * Holds the timers and counters that show where the time of a pulse goes, e.g. each
+ * clock listener, each settlement and the phases of a settlement pulse. They are
+ * published over JMX once the clock starts.
+ * Timers are named with a dotted group prefix, e.g. "settlement.power".
+ */
+public final class PulseMetrics {
+
+	private static final SimLogger logger = SimLogger.getLogger(PulseMetrics.class.getName());
+
+	/** JMX name of the metrics. */
+	public static final String OBJECT_NAME = "org.mars_sim.msp:type=PulseMetrics";
+
+	/**
+	 * Publishes the static metrics as an MXBean.
+	 */
+	private static class Bean implements PulseMetricsMXBean {
+
+		@Override
+		public List<PulseTimer.Stats> getTimers() {
+			return PulseMetrics.getTimers().stream().map(PulseTimer::getStats).toList();
+		}
+
+		@Override
+		public Map<String, Long> getCounters() {
+			return PulseMetrics.getCounters();
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return PulseMetrics.isEnabled();
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			PulseMetrics.setEnabled(enabled);
+		}
+
+		@Override
+		public void reset() {
+			PulseMetrics.reset();
+		}
+	}
+
+	private static volatile boolean enabled = true;
+
+	private static Map<String, PulseTimer> timers = new ConcurrentHashMap<>();
+
+	private static Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+	private static AtomicBoolean registered = new AtomicBoolean(false);
+
+	private PulseMetrics() {
+		// Static helper class
+	}
+
+	/**
+	 * Gets a timer; it is created on first use. Callers should keep the timer rather
+	 * than look it up on every pulse.
+	 *
+	 * @param name
+	 * @return
+	 */
+	public static PulseTimer getTimer(String name) {
+		return timers.computeIfAbsent(name, PulseTimer::new);
+	}
+
+	/**
+	 * Gets a counter; it is created on first use.
+	 *
+	 * @param name
+	 * @return
+	 */
+	public static LongAdder getCounter(String name) {
+		return counters.computeIfAbsent(name, n -> new LongAdder());
+	}
+
+	/**
+	 * Gets the timers in name order.
+	 *
+	 * @return
+	 */
+	public static List<PulseTimer> getTimers() {
+		return timers.values().stream()
+						.sorted(Comparator.comparing(PulseTimer::getName))
+						.toList();
+	}
+
+	/**
+	 * Gets the current counter values in name order.
+	 *
+	 * @return
+	 */
+	public static Map<String, Long> getCounters() {
+		Map<String, Long> result = new TreeMap<>();
+		counters.forEach((k, v) -> result.put(k, v.sum()));
+		return result;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turns the recording on or off. The timers keep their values.
+	 *
+	 * @param enable
+	 */
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+
+	/**
+	 * Clears all the timers and counters.
+	 */
+	public static void reset() {
+		timers.values().forEach(PulseTimer::reset);
+		counters.values().forEach(LongAdder::reset);
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server. Only the first call has
+	 * any effect.
+	 */
+	public static void registerMBean() {
+		if (registered.compareAndSet(false, true)) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(),
+													new ObjectName(OBJECT_NAME));
+			}
+			catch (JMException e) {
+				logger.warning("Can not register the pulse metrics: " + e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,29 @@
+/*
+ * Mars Simulation Project
+ * PulseMetricsMXBean.java
+ * @date 2023-07-20
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.time;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Management interface publishing the pulse timers over JMX.
+ */
+public interface PulseMetricsMXBean {
+
+	List<PulseTimer.Stats> getTimers();
+
+	Map<String, Long> getCounters();
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	/**
+	 * Clears all the timers and counters.
+	 */
+	void reset();
+}
@@ -0,0 +1,213 @@
+/*
+ * Mars Simulation Project
+ * PulseTimer.java
+ * @date 2023-07-20
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.time;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the durations of a repeated step of the pulse in a log-linear histogram.
+ * Each power of two is split into 8 buckets so a percentile is within 12.5% of the
+ * true value. Recording is lock free and cheap enough to be left on in a live
+ * simulation.
+ */
+public final class PulseTimer {
+
+	/**
+	 * A copy of the timer values for reporting.
+	 */
+	public static class Stats {
+		private final String name;
+		private final long count;
+		private final double totalMs;
+		private final double p50Ms;
+		private final double p99Ms;
+		private final double maxMs;
+
+		@ConstructorProperties({"name", "count", "totalMs", "p50Ms", "p99Ms", "maxMs"})
+		public Stats(String name, long count, double totalMs, double p50Ms, double p99Ms, double maxMs) {
+			this.name = name;
+			this.count = count;
+			this.totalMs = totalMs;
+			this.p50Ms = p50Ms;
+			this.p99Ms = p99Ms;
+			this.maxMs = maxMs;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public double getTotalMs() {
+			return totalMs;
+		}
+
+		public double getMeanMs() {
+			return (count > 0 ? totalMs / count : 0D);
+		}
+
+		public double getP50Ms() {
+			return p50Ms;
+		}
+
+		public double getP99Ms() {
+			return p99Ms;
+		}
+
+		public double getMaxMs() {
+			return maxMs;
+		}
+	}
+
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS;
+	private static final double NANOS_PER_MS = 1_000_000D;
+
+	private final String name;
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	PulseTimer(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param nanos Nanoseconds taken
+	 */
+	public void record(long nanos) {
+		if (!PulseMetrics.isEnabled() || (nanos < 0)) {
+			return;
+		}
+
+		buckets.incrementAndGet(bucketIndex(nanos));
+		count.increment();
+		total.add(nanos);
+
+		long m = max.get();
+		while ((nanos > m) && !max.compareAndSet(m, nanos)) {
+			m = max.get();
+		}
+	}
+
+	/**
+	 * Records the time since a start and returns the current time so it can start the next
+	 * step.
+	 *
+	 * @param start Start of the step from {@link System#nanoTime()}
+	 * @return The time now
+	 */
+	public long lap(long start) {
+		long now = System.nanoTime();
+		record(now - start);
+		return now;
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Gets the total time recorded.
+	 *
+	 * @return Nanoseconds
+	 */
+	public long getTotal() {
+		return total.sum();
+	}
+
+	/**
+	 * Gets the longest time recorded.
+	 *
+	 * @return Nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Gets a percentile of the recorded times.
+	 *
+	 * @param p Percentile between 0 and 100
+	 * @return Nanoseconds; this is the top of the bucket holding the percentile
+	 */
+	public long getPercentile(double p) {
+		long n = getCount();
+		if (n == 0) {
+			return 0;
+		}
+
+		long target = Math.max(1, (long) Math.ceil((p / 100D) * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= target) {
+				return Math.min(bucketTop(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Clears the recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		total.reset();
+		max.set(0);
+	}
+
+	public Stats getStats() {
+		return new Stats(name, getCount(), getTotal() / NANOS_PER_MS,
+						getPercentile(50) / NANOS_PER_MS, getPercentile(99) / NANOS_PER_MS,
+						getMax() / NANOS_PER_MS);
+	}
+
+	/**
+	 * Small values have a bucket each; larger ones are split by their top bit and the
+	 * next SUB_BITS bits.
+	 */
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exp = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return ((exp - SUB_BITS + 1) * SUB_BUCKETS) + sub;
+	}
+
+	/**
+	 * Gets the largest value held by a bucket.
+	 */
+	static long bucketTop(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exp = (index / SUB_BUCKETS) + SUB_BITS - 1;
+		int sub = index % SUB_BUCKETS;
+		int shift = exp - SUB_BITS;
+		long bottom = ((long) (SUB_BUCKETS + sub)) << shift;
+		return bottom + (1L << shift) - 1;
+	}
+}
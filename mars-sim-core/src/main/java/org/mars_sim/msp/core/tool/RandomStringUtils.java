@@ -23,14 +23,14 @@
  */
 package org.mars_sim.msp.core.tool;
 
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 import org.apache.commons.lang3.StringUtils;
 
 /**
  * <p>Generates random {@code String}s.</p>
  *
- * <p><b>Caveat: Instances of {@link Random}, upon which the implementation of this
+ * <p><b>Caveat: Instances of {@link RandomGenerator}, upon which the implementation of this
  * class relies, are not cryptographically secure.</b></p>
  *
  * <p>RandomStringUtils is intended for simple use cases. For more advanced
@@ -63,7 +63,7 @@ public class RandomStringUtils {
      * same millisecond.</p>
      */
 
-	private static final Random RANDOM = RandomUtil.getRandom();
+	private static final RandomGenerator RANDOM = RandomUtil.getRandom();
 
     /**
      * <p>{@code RandomStringUtils} instances should NOT be constructed in
@@ -312,9 +312,9 @@ public class RandomStringUtils {
      * default source of randomness.</p>
      *
      * <p>This method has exactly the same semantics as
-     * {@link #random(int,int,int,boolean,boolean,char[],Random)}, but
+     * {@link #random(int,int,int,boolean,boolean,char[],RandomGenerator)}, but
      * instead of using an externally supplied source of randomness, it uses
-     * the internal static {@link Random} instance.</p>
+     * the internal static {@link RandomGenerator} instance.</p>
      *
      * @param count  the length of random string to create
      * @param start  the position in set of chars to start at
@@ -346,9 +346,9 @@ public class RandomStringUtils {
      * <p>If set is not {@code null}, characters between start and
      * end are chosen.</p>
      *
-     * <p>This method accepts a user-supplied {@link Random}
+     * <p>This method accepts a user-supplied {@link RandomGenerator}
      * instance to use as a source of randomness. By seeding a single
-     * {@link Random} instance with a fixed seed and using it for each call,
+     * {@link RandomGenerator} instance with a fixed seed and using it for each call,
      * the same random sequence of strings can be generated repeatedly
      * and predictably.</p>
      *
@@ -369,7 +369,7 @@ public class RandomStringUtils {
      * @since 2.0
      */
     public static String random(int count, int start, int end, final boolean letters, final boolean numbers,
-                                final char[] chars, final Random random) {
+                                final char[] chars, final RandomGenerator random) {
         if (count == 0) {
             return StringUtils.EMPTY;
         } else if (count < 0) {
@@ -61,6 +61,9 @@ public abstract class AbstractMarsSimUnitTest extends TestCase {
 	    
 	    sim = Simulation.instance();
 	    sim.testRun();
+
+	    // Deliver unit events in the test thread
+	    UnitEventDispatcher.setSynchronous(true);
 	    
 	    // Clear out existing settlements in simulation.
 	    unitManager = sim.getUnitManager();
@@ -7,6 +7,14 @@
 
 package org.mars_sim.msp.core;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Map;
+import java.util.Set;
+
 import org.mars_sim.msp.core.equipment.MicroInventory;
 import org.mars_sim.msp.core.resource.ResourceUtil;
 import org.mars_sim.msp.core.structure.MockSettlement;
@@ -133,5 +141,60 @@ extends TestCase {
 		inv.storeAmountResource(resource2, 100D);
 		assertEquals("Total mass after combined load", (CAPACITY_AMOUNT/2 + 100D), inv.getStoredMass());
 
+		inv.retrieveAmountResource(resource, CAPACITY_AMOUNT/2);
+		inv.retrieveAmountResource(resource2, 100D);
+		assertTrue("Empty after unload", inv.isEmpty());
+	}
+
+	/*
+	 * Test the saved form is the one of the map based inventory
+	 */
+	public void testSavedForm() throws Exception {
+		ObjectStreamClass desc = ObjectStreamClass.lookup(MicroInventory.class);
+		assertEquals("Serial id", 1L, desc.getSerialVersionUID());
+		assertEquals("Saved fields", 6, desc.getFields().length);
+		assertEquals("Amount storage", Map.class, desc.getField("amountStorage").getType());
+		assertEquals("Item storage", Map.class, desc.getField("itemStorage").getType());
+		assertEquals("Owner", Unit.class, desc.getField("owner").getType());
+		assertEquals("Shared capacity", double.class, desc.getField("sharedCapacity").getType());
+	}
+
+	/*
+	 * Test an inventory is the same after being saved and loaded
+	 */
+	public void testSaveAndLoad() throws Exception {
+		MicroInventory inv = new MicroInventory(settlement, 500D);
+		int resource = ResourceUtil.co2ID;
+		int resource2  = ResourceUtil.oxygenID;
+		inv.setCapacity(resource2, 100D);
+		inv.setCapacity(resource, CAPACITY_AMOUNT);
+		inv.storeAmountResource(resource, 50D);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes) {
+				{
+					enableReplaceObject(true);
+				}
+
+				@Override
+				protected Object replaceObject(Object obj) {
+					// Leave out the owner and the rest of the simulation
+					return (obj instanceof Unit ? null : obj);
+				}
+			}) {
+			out.writeObject(inv);
+		}
+		MicroInventory loaded;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			loaded = (MicroInventory) in.readObject();
+		}
+
+		assertEquals("Loaded shared capacity", 500D, loaded.getSharedCapacity());
+		assertEquals("Loaded 1st capacity", CAPACITY_AMOUNT, loaded.getCapacity(resource));
+		assertEquals("Loaded 2nd capacity", 100D, loaded.getCapacity(resource2));
+		assertEquals("Loaded resources", Set.of(resource), loaded.getResourcesStored());
+		assertEquals("Loaded 1st stored", 50D, loaded.getAmountResourceStored(resource));
+		assertTrue("Loaded 2nd resource supported", loaded.isResourceSupported(resource2));
+		assertEquals("Loaded total mass", 50D, loaded.getStoredMass());
 	}
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package org.mars_sim.msp.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.mars_sim.msp.core.saving.DeltaSaveCodec;
+import org.mars_sim.msp.core.saving.SaveCodecFactory;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the purging of old autosaves.
+ */
+public class SimulationFilesTest extends TestCase {
+
+    private static final String EXT = ".sim";
+
+    private File saveDir;
+
+    @Override
+    public void setUp() throws IOException {
+        saveDir = Files.createTempDirectory("purge-test").toFile();
+    }
+
+    @Override
+    public void tearDown() {
+        for (File f : saveDir.listFiles()) {
+            f.delete();
+        }
+        saveDir.delete();
+    }
+
+    private File save(DeltaSaveCodec codec, int id, List<byte[]> state) throws IOException {
+        File file = new File(saveDir, "auto" + id + EXT);
+        try (OutputStream out = codec.openOutput(file);
+            ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(state);
+        }
+        // Saves are ordered by time
+        file.setLastModified(1_000_000_000_000L + (id * 60_000L));
+        return file;
+    }
+
+    private static void assertLoads(File file) throws Exception {
+        try (InputStream in = SaveCodecFactory.detect(file).openInput(file);
+            ObjectInputStream ois = new ObjectInputStream(in)) {
+            assertNotNull("Loaded " + file.getName(), ois.readObject());
+        }
+    }
+
+    public void testPurgeAcrossCompaction() throws Exception {
+        // One delta per base and only two saves retained
+        DeltaSaveCodec codec = new DeltaSaveCodec(1);
+        Random rand = new Random(42);
+        List<byte[]> state = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            byte[] unit = new byte[32 * 1024];
+            rand.nextBytes(unit);
+            state.add(unit);
+        }
+
+        List<File> saves = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            state.get(i)[100] ^= 1;
+            saves.add(save(codec, i, state));
+            if ((i % 2) == 1) {
+                assertEquals("Delta refers to its base", List.of(saves.get(i - 1).getAbsoluteFile()),
+                                DeltaSaveCodec.getReferencedFiles(saves.get(i)));
+            }
+            SimulationFiles.purgeSaves(saveDir, 2, EXT, codec.getChainFiles());
+
+            // Every save left on disk can be loaded
+            for (File f : saveDir.listFiles()) {
+                assertLoads(f);
+            }
+        }
+
+        // Base 4 and its delta 5 are retained; the rest are gone
+        assertTrue("Latest kept", saves.get(5).isFile());
+        assertTrue("Base kept", saves.get(4).isFile());
+        assertFalse("Old chain purged", saves.get(3).isFile());
+        assertFalse("Old base purged", saves.get(2).isFile());
+    }
+}
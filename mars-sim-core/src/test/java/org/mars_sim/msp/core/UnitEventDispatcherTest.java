@@ -0,0 +1,180 @@
+package org.mars_sim.msp.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.msp.core.person.Person;
+import org.mars_sim.msp.core.structure.Settlement;
+
+/**
+ * Tests the delivery of UnitEvents.
+ */
+public class UnitEventDispatcherTest extends AbstractMarsSimUnitTest {
+
+    /**
+     * Records the events and optionally blocks on the first one.
+     */
+    private static class RecordingListener implements UnitListener {
+        private List<UnitEvent> events = new ArrayList<>();
+        private List<Thread> threads = new ArrayList<>();
+        private CountDownLatch started = new CountDownLatch(1);
+        private CountDownLatch release = new CountDownLatch(0);
+        private CountDownLatch received;
+
+        RecordingListener(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void unitUpdate(UnitEvent event) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                events.add(event);
+                threads.add(Thread.currentThread());
+            }
+            received.countDown();
+        }
+    }
+
+    public void testSynchronous() {
+        Settlement s = buildSettlement();
+        RecordingListener l = new RecordingListener(1);
+        s.addUnitListener(l);
+
+        s.fireUnitUpdate(UnitEventType.NAME_EVENT, "A");
+        assertEquals("Delivered immediately", 1, l.events.size());
+        assertEquals("Delivered in caller", Thread.currentThread(), l.threads.get(0));
+
+        s.removeUnitListener(l);
+        s.fireUnitUpdate(UnitEventType.NAME_EVENT, "B");
+        assertEquals("Removed listener", 1, l.events.size());
+    }
+
+    public void testAsynchronousCoalesce() throws InterruptedException {
+        Settlement s = buildSettlement();
+        RecordingListener l = new RecordingListener(3);
+        l.release = new CountDownLatch(1);
+        s.addUnitListener(l);
+
+        UnitEventDispatcher.setSynchronous(false);
+        try {
+            s.fireUnitUpdate(UnitEventType.NAME_EVENT, "First");
+            assertTrue("Listener started", l.started.await(5, TimeUnit.SECONDS));
+
+            // Listener is busy so these are held in the mailbox
+            for (int i = 0; i < 10; i++) {
+                s.fireUnitUpdate(UnitEventType.NAME_EVENT, "Name");
+            }
+            s.fireUnitUpdate(UnitEventType.NOTES_EVENT, "Notes");
+            l.release.countDown();
+
+            assertTrue("Events received", l.received.await(5, TimeUnit.SECONDS));
+        }
+        finally {
+            UnitEventDispatcher.setSynchronous(true);
+        }
+
+        synchronized (l) {
+            assertEquals("Coalesced events", 3, l.events.size());
+            assertEquals("First event", "First", l.events.get(0).getTarget());
+            assertEquals("Coalesced name", "Name", l.events.get(1).getTarget());
+            assertEquals("Other type", UnitEventType.NOTES_EVENT, l.events.get(2).getType());
+            assertNotSame("Not caller thread", Thread.currentThread(), l.threads.get(0));
+        }
+        s.removeUnitListener(l);
+    }
+
+    public void testAsynchronousOrdered() throws InterruptedException {
+        Settlement s = buildSettlement();
+        Person p = buildPerson("Mover", s);
+        RecordingListener l = new RecordingListener(7);
+        l.release = new CountDownLatch(1);
+        s.addUnitListener(l);
+
+        UnitEventDispatcher.setSynchronous(false);
+        try {
+            s.fireUnitUpdate(UnitEventType.NAME_EVENT, "First");
+            assertTrue("Listener started", l.started.await(5, TimeUnit.SECONDS));
+
+            // Adds and removes are all delivered; resource events only merge per resource
+            s.fireUnitUpdate(UnitEventType.ADD_ASSOCIATED_PERSON_EVENT, p);
+            s.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, 1);
+            s.fireUnitUpdate(UnitEventType.REMOVE_ASSOCIATED_PERSON_EVENT, p);
+            s.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, 2);
+            s.fireUnitUpdate(UnitEventType.ADD_ASSOCIATED_PERSON_EVENT, p);
+            s.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, 1);
+            s.fireUnitUpdate(UnitEventType.INVENTORY_STORING_UNIT_EVENT, p);
+            l.release.countDown();
+
+            assertTrue("Events received", l.received.await(5, TimeUnit.SECONDS));
+        }
+        finally {
+            UnitEventDispatcher.setSynchronous(true);
+        }
+
+        synchronized (l) {
+            List<UnitEventType> types = l.events.stream().map(UnitEvent::getType).toList();
+            assertEquals("Delivered in order", List.of(UnitEventType.NAME_EVENT,
+                                UnitEventType.ADD_ASSOCIATED_PERSON_EVENT,
+                                UnitEventType.INVENTORY_RESOURCE_EVENT,
+                                UnitEventType.REMOVE_ASSOCIATED_PERSON_EVENT,
+                                UnitEventType.INVENTORY_RESOURCE_EVENT,
+                                UnitEventType.ADD_ASSOCIATED_PERSON_EVENT,
+                                UnitEventType.INVENTORY_STORING_UNIT_EVENT), types);
+            assertEquals("First resource", 1, l.events.get(2).getTarget());
+            assertEquals("Second resource", 2, l.events.get(4).getTarget());
+        }
+        s.removeUnitListener(l);
+    }
+
+    public void testFullMailbox() throws InterruptedException {
+        Settlement s = buildSettlement();
+        Person p = buildPerson("Mover", s);
+        RecordingListener l = new RecordingListener(7);
+        l.release = new CountDownLatch(1);
+        s.addUnitListener(l);
+
+        UnitEventDispatcher.setSynchronous(false);
+        UnitEventDispatcher.setCapacity(3);
+        try {
+            s.fireUnitUpdate(UnitEventType.NAME_EVENT, "First");
+            assertTrue("Listener started", l.started.await(5, TimeUnit.SECONDS));
+
+            // Listener is busy so the poster has to wait once the mailbox is full
+            CountDownLatch posted = new CountDownLatch(1);
+            Thread poster = new Thread(() -> {
+                for (int i = 0; i < 3; i++) {
+                    s.fireUnitUpdate(UnitEventType.ADD_ASSOCIATED_PERSON_EVENT, p);
+                    s.fireUnitUpdate(UnitEventType.REMOVE_ASSOCIATED_PERSON_EVENT, p);
+                }
+                posted.countDown();
+            });
+            poster.start();
+            assertFalse("Poster waits for a full mailbox", posted.await(500, TimeUnit.MILLISECONDS));
+
+            l.release.countDown();
+            assertTrue("Poster continues", posted.await(5, TimeUnit.SECONDS));
+            assertTrue("Events received", l.received.await(5, TimeUnit.SECONDS));
+        }
+        finally {
+            UnitEventDispatcher.setCapacity(10_000);
+            UnitEventDispatcher.setSynchronous(true);
+        }
+
+        synchronized (l) {
+            assertEquals("No event dropped", 7, l.events.size());
+            for (int i = 1; i < 7; i++) {
+                assertEquals("Delivered in order " + i, ((i % 2) == 1 ? UnitEventType.ADD_ASSOCIATED_PERSON_EVENT
+                                    : UnitEventType.REMOVE_ASSOCIATED_PERSON_EVENT), l.events.get(i).getType());
+            }
+        }
+        s.removeUnitListener(l);
+    }
+}
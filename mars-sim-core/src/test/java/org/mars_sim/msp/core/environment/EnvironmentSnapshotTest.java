@@ -0,0 +1,60 @@
+package org.mars_sim.msp.core.environment;
+
+import org.mars_sim.msp.core.AbstractMarsSimUnitTest;
+import org.mars_sim.msp.core.Coordinates;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.time.ClockPulse;
+import org.mars_sim.msp.core.time.MarsTime;
+
+/**
+ * Checks the readings taken at the start of a pulse are the ones served to the Units.
+ */
+public class EnvironmentSnapshotTest extends AbstractMarsSimUnitTest {
+
+    public void testSettlementInSnapshot() {
+        Settlement settlement = buildSettlement();
+        Coordinates locn = settlement.getCoordinates();
+        SurfaceFeatures surface = sim.getSurfaceFeatures();
+        Weather weather = sim.getWeather();
+
+        surface.timePassing(createPulse(1, 100, false));
+
+        EnvironmentSnapshot snapshot = surface.getEnvironmentSnapshot();
+        int i = snapshot.indexOf(locn);
+        assertTrue("Settlement covered", i >= 0);
+        assertEquals("Location", locn, snapshot.getLocation(i));
+        assertEquals("Irradiance", snapshot.getSolarIrradiance(i), surface.getSolarIrradiance(locn));
+        assertEquals("Optical depth", snapshot.getOpticalDepth(i), surface.getOpticalDepth(locn));
+        assertEquals("Temperature", snapshot.getTemperature(i), weather.getTemperature(locn));
+        assertEquals("Air pressure", snapshot.getAirPressure(i), weather.getAirPressure(locn));
+        assertEquals("Wind speed", snapshot.getWindSpeed(i), weather.getWindSpeed(locn));
+
+        // Reading again does not change the values
+        assertEquals("Repeat temperature", snapshot.getTemperature(i), weather.getTemperature(locn));
+        assertEquals("Repeat wind speed", snapshot.getWindSpeed(i), weather.getWindSpeed(locn));
+
+        assertEquals("Uncovered location", -1, snapshot.indexOf(new Coordinates(0.1D, 0.2D)));
+    }
+
+    public void testCarriedOverWithinMSol() {
+        Settlement settlement = buildSettlement();
+        Coordinates locn = settlement.getCoordinates();
+        SurfaceFeatures surface = sim.getSurfaceFeatures();
+
+        surface.timePassing(createPulse(1, 200, false));
+        EnvironmentSnapshot first = surface.getEnvironmentSnapshot();
+
+        // Another pulse in the same millisol
+        MarsTime now = sim.getMasterClock().getMarsTime();
+        surface.timePassing(new ClockPulse(1000, 0.1D, null, now, null, false, false));
+        EnvironmentSnapshot second = surface.getEnvironmentSnapshot();
+
+        assertNotSame("New snapshot", first, second);
+        int i = first.indexOf(locn);
+        int j = second.indexOf(locn);
+        assertEquals("Irradiance", first.getSolarIrradiance(i), second.getSolarIrradiance(j));
+        assertEquals("Temperature", first.getTemperature(i), second.getTemperature(j));
+        assertEquals("Air pressure", first.getAirPressure(i), second.getAirPressure(j));
+        assertEquals("Wind speed", first.getWindSpeed(i), second.getWindSpeed(j));
+    }
+}
@@ -0,0 +1,118 @@
+package org.mars_sim.msp.core.environment;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.msp.core.Coordinates;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the spatial index finds the same locations as a scan of every location.
+ */
+public class MineralLocationIndexTest extends TestCase {
+
+    private List<Coordinates> locations;
+    private MineralLocationIndex index;
+
+    @Override
+    public void setUp() {
+        Random rand = new Random(42);
+        locations = new ArrayList<>();
+        index = new MineralLocationIndex();
+        for (int i = 0; i < 5000; i++) {
+            Coordinates c = new Coordinates(rand.nextDouble() * Math.PI, rand.nextDouble() * Math.PI * 2D);
+            locations.add(c);
+            index.add(c);
+        }
+    }
+
+    private void assertWithin(Coordinates center, double range) {
+        Set<Coordinates> expected = new HashSet<>();
+        for (Coordinates c : locations) {
+            if (range > Coordinates.computeDistance(center, c)) {
+                expected.add(c);
+            }
+        }
+        assertEquals("Within " + range + "km of " + center, expected,
+                        new HashSet<>(index.findWithin(center, range)));
+    }
+
+    public void testFindWithin() {
+        assertEquals("Size", locations.size(), index.size());
+
+        assertWithin(new Coordinates(Math.PI / 2D, Math.PI), 500D);
+        assertWithin(new Coordinates(1D, 3D), 2000D);
+
+        // Crosses theta of zero
+        assertWithin(new Coordinates(Math.PI / 2D, 0.01D), 800D);
+        assertWithin(new Coordinates(Math.PI / 2D, (Math.PI * 2D) - 0.01D), 800D);
+
+        // Covers a pole
+        assertWithin(new Coordinates(0.05D, 1D), 600D);
+        assertWithin(new Coordinates(Math.PI - 0.05D, 4D), 600D);
+
+        // Covers everything
+        assertWithin(new Coordinates(1D, 1D), 20000D);
+    }
+
+    public void testVisitBox() {
+        Coordinates center = new Coordinates(1.2D, 2.5D);
+        double angle = 0.1D;
+        Set<Coordinates> expected = new HashSet<>();
+        for (Coordinates c : locations) {
+            if ((Math.abs(center.getPhi() - c.getPhi()) < angle)
+                    && (Math.abs(center.getTheta() - c.getTheta()) < angle)) {
+                expected.add(c);
+            }
+        }
+
+        Set<Coordinates> found = new HashSet<>();
+        index.visitBox(center, angle, found::add);
+        assertFalse("Some found", found.isEmpty());
+        assertEquals("Box", expected, found);
+    }
+
+    public void testConcurrentAdd() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // Two threads add while two others query the same cells
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                long seed = t;
+                results.add(executor.submit(() -> {
+                    Random rand = new Random(seed);
+                    for (int i = 0; i < 20000; i++) {
+                        index.add(new Coordinates(1D + rand.nextDouble() * 0.2D,
+                                                    2D + rand.nextDouble() * 0.2D));
+                    }
+                }));
+                results.add(executor.submit(() -> {
+                    Coordinates center = new Coordinates(1.1D, 2.1D);
+                    for (int i = 0; i < 200; i++) {
+                        index.visitBox(center, 0.1D, c -> {});
+                        index.findWithin(center, 300D);
+                    }
+                }));
+            }
+            for (Future<?> f : results) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("Size", locations.size() + 40000, index.size());
+        Set<Coordinates> found = new HashSet<>();
+        index.visitBox(new Coordinates(1.1D, 2.1D), 0.1D, found::add);
+        assertTrue("All added found", found.size() >= 40000);
+    }
+}
@@ -1,6 +1,13 @@
 package org.mars_sim.msp.core.events;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.util.Collection;
+import java.util.List;
+import java.util.Random;
 
 import org.mars_sim.msp.core.AbstractMarsSimUnitTest;
 import org.mars_sim.msp.core.events.ScheduledEventManager.ScheduledEvent;
@@ -140,5 +147,115 @@ public class TestScheduledEventManager extends AbstractMarsSimUnitTest  {
 			assertEquals("Handler executuon count", count, handler.counter);
 		}
     }
+
+	public void testCancelEvent() {
+		TestHandler first = new TestHandler("First", 0);
+		TestHandler second = new TestHandler("Second", 0);
+		TestHandler third = new TestHandler("Third", 0);
+		mgr.addEvent(100, first);
+		ScheduledEvent cancelled = mgr.addEvent(200, second);
+		mgr.addEvent(300, third);
+
+		mgr.cancelEvent(cancelled);
+		Collection<ScheduledEvent> events = mgr.getEvents();
+		assertEquals("Event cancelled", 2, events.size());
+		assertEquals("Next event", clock.getMarsTime().addTime(100), mgr.getNextEventTime());
+
+		// Cancelling again is ignored
+		mgr.cancelEvent(cancelled);
+		assertEquals("Cancel ignored", 2, events.size());
+
+		mgr.removeEvent(first);
+		assertEquals("Event removed by handler", 1, events.size());
+		assertEquals("Remaining event", "Third", events.iterator().next().getDescription());
+
+		mgr.timePassing(createPulse(clock.getMarsTime().addTime(400), false));
+		assertEquals("Cancelled not executed", 0, second.counter);
+		assertEquals("Removed not executed", 0, first.counter);
+		assertEquals("Remaining executed", 1, third.counter);
+		assertNull("No next event", mgr.getNextEventTime());
+	}
+
+	public void testManyEvents() {
+		Random rand = new Random(42);
+		TestHandler handler = new TestHandler("Handler", 0);
+		for (int i = 0; i < 1000; i++) {
+			ScheduledEvent e = mgr.addEvent(1 + rand.nextInt(5000), handler);
+			if ((i % 3) == 0) {
+				mgr.cancelEvent(e);
+			}
+		}
+
+		Collection<ScheduledEvent> events = mgr.getEvents();
+		assertEquals("Events queued", 666, events.size());
+		ScheduledEvent previous = null;
+		for (ScheduledEvent event : events) {
+			if (previous != null) {
+				assertTrue("Time order", previous.getWhen().getTimeDiff(event.getWhen()) <= 0);
+			}
+			previous = event;
+		}
+
+		// Half way executes those due only
+		MarsTime half = clock.getMarsTime().addTime(2500);
+		int due = (int) events.stream().filter(e -> e.getWhen().getTimeDiff(half) <= 0).count();
+		mgr.timePassing(createPulse(half, false));
+		assertEquals("Due events executed", due, handler.counter);
+		assertEquals("Later events queued", 666 - due, events.size());
+	}
+
+	public void testSavedForm() {
+		ObjectStreamClass desc = ObjectStreamClass.lookup(ScheduledEventManager.class);
+		assertEquals("Serial id", 1L, desc.getSerialVersionUID());
+		assertEquals("Saved fields", 2, desc.getFields().length);
+		assertEquals("Event queue", List.class, desc.getField("eventQueue").getType());
+		assertEquals("Clock", MasterClock.class, desc.getField("master").getType());
+
+		ObjectStreamClass eventDesc = ObjectStreamClass.lookup(ScheduledEvent.class);
+		assertNotNull("Event time saved", eventDesc.getField("when"));
+		assertNotNull("Event handler saved", eventDesc.getField("handler"));
+		assertNull("Event sequence not saved", eventDesc.getField("sequence"));
+		assertNull("Event index not saved", eventDesc.getField("index"));
+	}
+
+	/*
+	 * Test the queue is the same after being saved and loaded
+	 */
+	public void testSaveAndLoad() throws Exception {
+		TestHandler first = new TestHandler("First", 0);
+		mgr.addEvent(300, new TestHandler("Third", 0));
+		mgr.addEvent(100, first);
+		mgr.addEvent(200, new TestHandler("Second A", 0));
+		mgr.addEvent(200, new TestHandler("Second B", 0));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes) {
+				{
+					enableReplaceObject(true);
+				}
+
+				@Override
+				protected Object replaceObject(Object obj) {
+					// Leave out the clock and the rest of the simulation
+					return (obj instanceof MasterClock ? null : obj);
+				}
+			}) {
+			out.writeObject(mgr);
+		}
+		ScheduledEventManager loaded;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			loaded = (ScheduledEventManager) in.readObject();
+		}
+
+		List<String> order = loaded.getEvents().stream().map(ScheduledEvent::getDescription).toList();
+		assertEquals("Loaded order", List.of("First", "Second A", "Second B", "Third"), order);
+		assertEquals("Loaded next event", mgr.getNextEventTime(), loaded.getNextEventTime());
+
+		ScheduledEvent next = loaded.getEvents().get(0);
+		loaded.cancelEvent(next);
+		assertEquals("Loaded event cancelled", 3, loaded.getEvents().size());
+
+		loaded.timePassing(createPulse(clock.getMarsTime().addTime(400), false));
+		assertTrue("Loaded events executed", loaded.getEvents().isEmpty());
+	}
 }
-   
\ No newline at end of file
@@ -0,0 +1,67 @@
+package org.mars_sim.msp.core.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import junit.framework.TestCase;
+
+public class AsyncHandlerTest extends TestCase {
+
+    /**
+     * Captures the records and the thread that output them.
+     */
+    static class CapturingHandler extends Handler {
+        final List<String> messages = new ArrayList<>();
+        final List<String> threads = new ArrayList<>();
+        boolean closed = false;
+
+        @Override
+        public synchronized void publish(LogRecord record) {
+            messages.add(record.getMessage());
+            threads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void flush() {
+            // Nothing to flush
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    public void testPublishInOrder() {
+        CapturingHandler target = new CapturingHandler();
+        AsyncHandler handler = new AsyncHandler(List.of(target), 4);
+
+        // More records than the queue holds
+        for (int i = 0; i < 20; i++) {
+            handler.publish(new LogRecord(Level.INFO, "Message " + i));
+        }
+        handler.close();
+
+        assertEquals("Records output", 20, target.messages.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("Record order", "Message " + i, target.messages.get(i));
+        }
+        assertTrue("Target closed", target.closed);
+        assertFalse("Output off the caller", target.threads.contains(Thread.currentThread().getName()));
+    }
+
+    public void testLevel() {
+        CapturingHandler target = new CapturingHandler();
+        AsyncHandler handler = new AsyncHandler(List.of(target), 4);
+        handler.setLevel(Level.WARNING);
+
+        handler.publish(new LogRecord(Level.INFO, "Info"));
+        handler.publish(new LogRecord(Level.SEVERE, "Severe"));
+        handler.close();
+
+        assertEquals("Records output", List.of("Severe"), target.messages);
+    }
+}
@@ -0,0 +1,58 @@
+package org.mars_sim.msp.core.logging;
+
+import java.util.logging.Logger;
+
+import junit.framework.TestCase;
+
+public class SimLoggerTest extends TestCase {
+
+    private static final String NAME = "org.mars_sim.msp.core.logging.SimLoggerTest";
+
+    private AsyncHandlerTest.CapturingHandler capture;
+    private Logger julLogger;
+
+    @Override
+    public void setUp() {
+        capture = new AsyncHandlerTest.CapturingHandler();
+        julLogger = Logger.getLogger(NAME);
+        julLogger.setUseParentHandlers(false);
+        julLogger.addHandler(capture);
+    }
+
+    @Override
+    public void tearDown() {
+        julLogger.removeHandler(capture);
+        julLogger.setUseParentHandlers(true);
+    }
+
+    public void testRateLimited() {
+        SimLogger logger = SimLogger.getLogger(NAME);
+
+        // Same call site so only the first is logged
+        for (int i = 0; i < 5; i++) {
+            logger.warning(null, 60_000L, "Repeated");
+        }
+
+        assertEquals("Messages logged", 1, capture.messages.size());
+        assertTrue("Message text", capture.messages.get(0).endsWith("Repeated"));
+    }
+
+    public void testDifferentCallSites() {
+        SimLogger logger = SimLogger.getLogger(NAME);
+
+        logger.warning(null, 60_000L, "First");
+        logger.warning(null, 60_000L, "Second");
+
+        assertEquals("Messages logged", 2, capture.messages.size());
+    }
+
+    public void testNoTimeLimit() {
+        SimLogger logger = SimLogger.getLogger(NAME);
+
+        for (int i = 0; i < 3; i++) {
+            logger.info(null, "Always");
+        }
+
+        assertEquals("Messages logged", 3, capture.messages.size());
+    }
+}
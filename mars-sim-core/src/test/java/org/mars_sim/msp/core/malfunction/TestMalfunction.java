@@ -1,5 +1,10 @@
 package org.mars_sim.msp.core.malfunction;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.mars_sim.msp.core.tool.RandomUtil;
 import org.mars_sim.msp.core.AbstractMarsSimUnitTest;
 import org.mars_sim.msp.core.malfunction.MalfunctionMeta.EffortSpec;
 import org.mars_sim.msp.core.structure.Settlement;
@@ -75,4 +80,58 @@ public class TestMalfunction extends AbstractMarsSimUnitTest {
         	assertEquals("Available slots after re-adding worker #" + i, expectedSlots, mal.numRepairerSlotsEmpty(MalfunctionRepairWork.INSIDE));
     	}
     }
+
+    /**
+     * Sums the repair parts the long way for comparison.
+     */
+    private static Map<Integer, Double> expectedRepairParts(MalfunctionConfig config, Set<String> scopes) {
+    	Map<Integer, Double> result = new HashMap<>();
+    	for (MalfunctionMeta m : config.getMalfunctionList()) {
+    		if (m.isMatched(scopes)) {
+    			for (RepairPart p : m.getParts()) {
+    				result.merge(p.getPartID(), RandomUtil.getIntegerAverageValue(p.getNumber())
+    								* (p.getRepairProbability() / 100D) * (m.getProbability() / 100D),
+    							Double::sum);
+    			}
+    		}
+    	}
+    	return result;
+    }
+
+    private static void assertParts(String message, Map<Integer, Double> expected, Map<Integer, Double> actual) {
+    	assertEquals(message + " part count", expected.size(), actual.size());
+    	for (Map.Entry<Integer, Double> e : expected.entrySet()) {
+    		assertEquals(message + " part " + e.getKey(), e.getValue(), actual.get(e.getKey()), 0.000001D);
+    	}
+    }
+
+    public void testRepairPartProbabilities() {
+        MalfunctionConfig config = simConfig.getMalfunctionConfiguration();
+        Set<String> scopes = mgr.getScopes();
+
+    	assertParts("Initial", expectedRepairParts(config, scopes),
+    				MalfunctionFactory.getRepairPartProbabilities(scopes));
+
+    	// Change a probability to check the cached values follow
+    	MalfunctionMeta changed = config.getMalfunctionList().stream()
+    					.filter(m -> m.isMatched(scopes) && !m.getParts().isEmpty())
+    					.findFirst().orElse(null);
+    	assertNotNull("Malfunction with parts for the rover", changed);
+    	double original = changed.getProbability();
+    	try {
+    		changed.setProbability(original * 2D);
+    		assertParts("Changed", expectedRepairParts(config, scopes),
+    				MalfunctionFactory.getRepairPartProbabilities(scopes));
+    	}
+    	finally {
+    		changed.setProbability(original);
+    	}
+    }
+
+    public void testNoMatchingMalfunction() {
+    	MalfunctionFactory factory = sim.getMalfunctionFactory();
+    	assertNull("Unknown scope has no malfunction", factory.pickAMalfunction(Set.of("No Such Scope")));
+    	assertTrue("Unknown scope has no parts",
+    				MalfunctionFactory.getRepairPartProbabilities(Set.of("No Such Scope")).isEmpty());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package org.mars_sim.msp.core.person.ai.task.util;
+
+import org.mars_sim.msp.core.AbstractMarsSimUnitTest;
+import org.mars_sim.msp.core.LocalPosition;
+import org.mars_sim.msp.core.person.ai.task.meta.ManufactureGoodMeta;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.building.Building;
+
+/**
+ * Tests the shared MetaTask scores held by the SettlementTaskManager.
+ */
+public class SettlementTaskManagerTest extends AbstractMarsSimUnitTest {
+
+    private int calculations;
+
+    private double calculate() {
+        calculations++;
+        return 42D;
+    }
+
+    public void testSharedScore() {
+        Settlement settlement = buildSettlement();
+        Building building = buildBuilding(settlement.getBuildingManager(), new LocalPosition(0, 0), 0D, 0);
+        SettlementTaskManager stm = new SettlementTaskManager(settlement);
+        MetaTask meta = new ManufactureGoodMeta();
+
+        assertEquals("First score", 42D, stm.getSharedScore(meta, building, 1, this::calculate));
+        assertEquals("Reused score", 42D, stm.getSharedScore(meta, building, 1, this::calculate));
+        assertEquals("Calculated once", 1, calculations);
+
+        // Different Worker attribute is a different score
+        stm.getSharedScore(meta, building, 2, this::calculate);
+        assertEquals("Calculated for new level", 2, calculations);
+        assertEquals("Reuse ratio", 1.5D, stm.getSharedScoreReuse(), 0.001D);
+
+        // New pulse so scores are recalculated
+        stm.timePassing();
+        stm.getSharedScore(meta, building, 1, this::calculate);
+        assertEquals("Recalculated after pulse", 3, calculations);
+    }
+}
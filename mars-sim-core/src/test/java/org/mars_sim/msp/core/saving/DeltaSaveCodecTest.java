@@ -0,0 +1,339 @@
+package org.mars_sim.msp.core.saving;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the base and delta chain of the delta save format.
+ */
+public class DeltaSaveCodecTest extends TestCase {
+
+    /**
+     * An object that anchors the references of a stream, like a Unit.
+     */
+    private static class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private int id;
+        private byte[] payload;
+        private Group group;
+        private Node previous;
+        private List<String> notes = new ArrayList<>();
+
+        Node(int id, Group group, Node previous, Random rand) {
+            this.id = id;
+            this.group = group;
+            this.previous = previous;
+            this.payload = new byte[1024];
+            rand.nextBytes(payload);
+            notes.add("Node " + id);
+        }
+    }
+
+    /**
+     * An object shared by many nodes.
+     */
+    private static class Group implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+
+        Group(String name) {
+            this.name = name;
+        }
+    }
+
+    private File saveDir;
+
+    @Override
+    public void setUp() throws IOException {
+        saveDir = Files.createTempDirectory("delta-test").toFile();
+    }
+
+    @Override
+    public void tearDown() {
+        for (File f : saveDir.listFiles()) {
+            f.delete();
+        }
+        saveDir.delete();
+    }
+
+    private static List<byte[]> createState() {
+        Random rand = new Random(42);
+        List<byte[]> state = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            byte[] unit = new byte[32 * 1024];
+            rand.nextBytes(unit);
+            state.add(unit);
+        }
+        return state;
+    }
+
+    private static void save(SaveCodec codec, File file, List<byte[]> state) throws IOException {
+        try (OutputStream out = codec.openOutput(file);
+            ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(state);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<byte[]> load(File file) throws IOException, ClassNotFoundException {
+        SaveCodec codec = SaveCodecFactory.detect(file);
+        assertEquals("Format detected", DeltaSaveCodec.NAME, codec.getName());
+        try (InputStream in = codec.openInput(file);
+            ObjectInputStream ois = new ObjectInputStream(in)) {
+            return (List<byte[]>) ois.readObject();
+        }
+    }
+
+    private static void assertState(String message, List<byte[]> expected, List<byte[]> actual) {
+        assertEquals(message + " size", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(message + " unit " + i, Arrays.equals(expected.get(i), actual.get(i)));
+        }
+    }
+
+    public void testDeltaChain() throws Exception {
+        DeltaSaveCodec codec = new DeltaSaveCodec(5);
+        List<byte[]> state = createState();
+
+        File base = new File(saveDir, "base.sim");
+        save(codec, base, state);
+
+        // Change one unit and grow another so later bytes shift
+        state.get(10)[100] ^= 1;
+        state.set(40, Arrays.copyOf(state.get(40), 40 * 1024));
+        File delta1 = new File(saveDir, "delta1.sim");
+        save(codec, delta1, state);
+        assertTrue("Delta is small", delta1.length() < base.length() / 4);
+
+        state.get(60)[5] ^= 1;
+        File delta2 = new File(saveDir, "delta2.sim");
+        save(codec, delta2, state);
+        assertTrue("Second delta is small", delta2.length() < base.length() / 4);
+
+        assertEquals("Chain length", List.of(base, delta1, delta2).stream()
+                                            .map(File::getAbsoluteFile).toList(),
+                                        codec.getChainFiles());
+
+        // The latest delta rebuilds the latest state
+        assertState("Latest", state, load(delta2));
+    }
+
+    private static void saveObject(SaveCodec codec, File file, Object state) throws IOException {
+        try (OutputStream out = codec.openOutput(file);
+            ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(state);
+        }
+    }
+
+    private static Object loadObject(File file) throws IOException, ClassNotFoundException {
+        try (InputStream in = SaveCodecFactory.detect(file).openInput(file);
+            ObjectInputStream ois = new ObjectInputStream(in)) {
+            return ois.readObject();
+        }
+    }
+
+    /**
+     * Adding an object early in the stream shifts the handle of every later object;
+     * the delta must still only hold what changed.
+     */
+    @SuppressWarnings("unchecked")
+    public void testEarlyInsert() throws Exception {
+        DeltaSaveCodec codec = new DeltaSaveCodec(5, Node.class.getName(), "id");
+        Random rand = new Random(7);
+        List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            groups.add(new Group("Group " + i));
+        }
+        List<Node> nodes = new ArrayList<>();
+        Node previous = null;
+        for (int i = 0; i < 2000; i++) {
+            previous = new Node(i, groups.get(i % groups.size()), previous, rand);
+            nodes.add(previous);
+        }
+
+        File base = new File(saveDir, "base.sim");
+        saveObject(codec, base, nodes);
+
+        // New node with new shared objects at the front
+        Group extra = new Group("Extra");
+        Node early = new Node(5000, extra, nodes.get(0), rand);
+        early.notes.add("Inserted");
+        nodes.add(1, early);
+        File delta = new File(saveDir, "delta.sim");
+        saveObject(codec, delta, nodes);
+        assertTrue("Delta after an early insert is small " + delta.length() + " of " + base.length(),
+                    delta.length() < base.length() / 10);
+
+        // Shared references are restored as the same objects
+        List<Node> loaded = (List<Node>) loadObject(delta);
+        assertEquals("Nodes", nodes.size(), loaded.size());
+        assertEquals("Inserted node", 5000, loaded.get(1).id);
+        assertSame("Inserted node previous", loaded.get(0), loaded.get(1).previous);
+        for (int i = 2; i < loaded.size(); i++) {
+            Node n = loaded.get(i);
+            assertEquals("Node id", nodes.get(i).id, n.id);
+            assertTrue("Node payload " + i, Arrays.equals(nodes.get(i).payload, n.payload));
+            assertSame("Previous node " + i, loaded.get(i == 2 ? 0 : i - 1), n.previous);
+            int first = n.id % groups.size();
+            assertSame("Shared group " + i, loaded.get(first == 0 ? 0 : first + 1).group, n.group);
+        }
+    }
+
+    /**
+     * The rewrite of the references must give back exactly the same stream.
+     */
+    public void testRewriteRoundTrip() throws Exception {
+        Map<String, Object> state = new HashMap<>();
+        state.put("tree", new TreeMap<>(Map.of(3, "c", 1, "a")));
+        state.put("enum", TimeUnit.SECONDS);
+        state.put("enums", EnumSet.of(TimeUnit.DAYS, TimeUnit.HOURS));
+        state.put("date", new Date(0));
+        state.put("long", "x".repeat(70_000));
+        state.put("ints", new int[] {1, 2, 3});
+        state.put("grid", new double[][] {{1D}, {2D, 3D}});
+        state.put("class", String.class);
+        state.put("linked", new LinkedList<>(List.of("a", "b")));
+        Random rand = new Random(3);
+        Node first = new Node(1, new Group("A"), null, rand);
+        state.put("nodes", new Node[] {first, new Node(2, first.group, first, rand), first});
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(buffer)) {
+            oos.writeObject(state);
+            oos.writeInt(42);
+            oos.writeObject(first);
+        }
+        byte[] stream = buffer.toByteArray();
+
+        byte[] encoded = new HandleRewriter(Node.class.getName(), "id").rewrite(stream, stream.length);
+        byte[] decoded = new HandleRewriter().rewrite(encoded, encoded.length);
+        assertTrue("Same stream", Arrays.equals(stream, decoded));
+    }
+
+    public void testCompaction() throws Exception {
+        DeltaSaveCodec codec = new DeltaSaveCodec(1);
+        List<byte[]> state = createState();
+
+        File base = new File(saveDir, "base.sim");
+        save(codec, base, state);
+        state.get(0)[0] ^= 1;
+        save(codec, new File(saveDir, "delta.sim"), state);
+
+        // Chain is full so this is a new base
+        state.get(1)[0] ^= 1;
+        File newBase = new File(saveDir, "newbase.sim");
+        save(codec, newBase, state);
+        assertEquals("Compacted chain", List.of(newBase.getAbsoluteFile()), codec.getChainFiles());
+        assertTrue("New base is full size", newBase.length() > base.length() / 2);
+
+        // The new base stands alone
+        base.delete();
+        assertState("Compacted", state, load(newBase));
+    }
+
+    public void testMissingBase() throws Exception {
+        DeltaSaveCodec codec = new DeltaSaveCodec(5);
+        List<byte[]> state = createState();
+
+        File base = new File(saveDir, "base.sim");
+        save(codec, base, state);
+        base.delete();
+
+        // Cannot refer to a deleted base so starts a new chain
+        File next = new File(saveDir, "next.sim");
+        save(codec, next, state);
+        assertEquals("Restarted chain", List.of(next.getAbsoluteFile()), codec.getChainFiles());
+        assertState("Restarted", state, load(next));
+    }
+
+    /**
+     * Loads a file on another thread so a hang fails the test.
+     */
+    private static Throwable loadFailure(File file) throws Exception {
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<byte[]>> result = exec.submit(() -> load(file));
+            result.get(30, TimeUnit.SECONDS);
+            return null;
+        }
+        catch (ExecutionException e) {
+            return e.getCause();
+        }
+        finally {
+            exec.shutdownNow();
+        }
+    }
+
+    public void testTruncatedDelta() throws Exception {
+        DeltaSaveCodec codec = new DeltaSaveCodec(5);
+        List<byte[]> state = createState();
+        save(codec, new File(saveDir, "base.sim"), state);
+        state.get(10)[100] ^= 1;
+        File delta = new File(saveDir, "delta.sim");
+        save(codec, delta, state);
+
+        // Cut the compressed length of the first chunk held in the delta itself
+        try (RandomAccessFile raf = new RandomAccessFile(delta, "rw")) {
+            raf.seek(DeltaSaveCodec.MAGIC.length + 2 * Integer.BYTES);
+            raf.seek(raf.readLong());
+            int files = raf.readInt();
+            for (int i = 0; i < files; i++) {
+                raf.readUTF();
+            }
+            int chunks = raf.readInt();
+            boolean cut = false;
+            for (int i = 0; (i < chunks) && !cut; i++) {
+                long entry = raf.getFilePointer();
+                int fileIndex = raf.readInt();
+                raf.readLong();
+                int compressed = raf.readInt();
+                raf.readInt();
+                raf.readInt();
+                if (fileIndex == 0) {
+                    raf.seek(entry + Integer.BYTES + Long.BYTES);
+                    raf.writeInt(compressed / 2);
+                    cut = true;
+                }
+            }
+            assertTrue("Delta holds a chunk", cut);
+        }
+
+        Throwable failure = loadFailure(delta);
+        assertTrue("Truncated chunk reported " + failure, failure instanceof IOException);
+        assertTrue("Names the file", failure.getMessage().contains(delta.getName()));
+
+        // A file cut short is reported too
+        try (RandomAccessFile raf = new RandomAccessFile(delta, "rw")) {
+            raf.setLength(raf.length() / 2);
+        }
+        failure = loadFailure(delta);
+        assertTrue("Truncated file reported " + failure, failure instanceof IOException);
+    }
+}
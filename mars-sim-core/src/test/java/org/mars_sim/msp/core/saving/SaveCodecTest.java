@@ -0,0 +1,230 @@
+package org.mars_sim.msp.core.saving;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the save codecs and snapshots write and read back the same object graph.
+ */
+public class SaveCodecTest extends TestCase {
+
+    private File saveFile;
+
+    @Override
+    public void setUp() throws IOException {
+        saveFile = File.createTempFile("codec-test", ".sim");
+    }
+
+    @Override
+    public void tearDown() {
+        saveFile.delete();
+    }
+
+    private static List<Object> createGraph() {
+        Random rand = new Random(42);
+        byte[] shared = new byte[100_000];
+        rand.nextBytes(shared);
+
+        List<Object> graph = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            graph.add("Item " + i);
+            graph.add(shared);
+        }
+        return graph;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> roundTrip(SaveCodec codec) throws IOException, ClassNotFoundException {
+        try (OutputStream out = codec.openOutput(saveFile);
+            ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(createGraph());
+        }
+
+        assertEquals("Format detected", codec.getName(), SaveCodecFactory.detect(saveFile).getName());
+
+        try (InputStream in = codec.openInput(saveFile);
+            ObjectInputStream ois = new ObjectInputStream(in)) {
+            return (List<Object>) ois.readObject();
+        }
+    }
+
+    public void testJavaCodec() throws Exception {
+        List<Object> loaded = roundTrip(new JavaSaveCodec());
+
+        assertEquals("Objects loaded", 100, loaded.size());
+        assertEquals("First item", "Item 0", loaded.get(0));
+    }
+
+    public void testChunkedCodec() throws Exception {
+        // Small blocks so the graph spans many of them
+        List<Object> loaded = roundTrip(new ChunkedSaveCodec(4096, 4));
+
+        assertEquals("Objects loaded", 100, loaded.size());
+        assertEquals("Last item", "Item 49", loaded.get(98));
+        assertSame("Shared reference kept", loaded.get(1), loaded.get(99));
+        assertEquals("Shared content", 100_000, ((byte[]) loaded.get(1)).length);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testSnapshot() throws Exception {
+        List<Object> graph = createGraph();
+        SaveSnapshot snapshot = SaveSnapshot.capture(oos -> oos.writeObject(graph), 0);
+
+        // Changes after the capture are not in the snapshot
+        graph.clear();
+        assertTrue("Snapshot has content", snapshot.getSize() > 100_000);
+
+        ChunkedSaveCodec codec = new ChunkedSaveCodec(4096, 2);
+        snapshot.writeTo(codec, saveFile);
+
+        List<Object> loaded;
+        try (InputStream in = SaveCodecFactory.detect(saveFile).openInput(saveFile);
+            ObjectInputStream ois = new ObjectInputStream(in)) {
+            loaded = (List<Object>) ois.readObject();
+        }
+        assertEquals("Objects loaded", 100, loaded.size());
+    }
+
+    public void testChunkedFailedWrite() throws Exception {
+        ChunkedSaveCodec codec = new ChunkedSaveCodec(4096, 1);
+        FailingChannel channel = new FailingChannel(FileChannel.open(saveFile.toPath(),
+                                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                StandardOpenOption.TRUNCATE_EXISTING), 2);
+        byte[] data = new byte[4096];
+        new Random(42).nextBytes(data);
+
+        OutputStream out = new ChunkedOutputStream(channel, 4096, 1);
+        try {
+            for (int i = 0; i < 10; i++) {
+                out.write(data);
+            }
+            fail("Write should fail");
+        }
+        catch (IOException e) {
+            // Expected
+        }
+        out.close();
+
+        assertTrue("Blocks written", saveFile.length() > 0);
+        assertFalse("Not a complete save", codec.canRead(saveFile));
+    }
+
+    /**
+     * A file that runs out of space after a number of blocks; the header can still be written.
+     */
+    private static class FailingChannel extends FileChannel {
+        private FileChannel delegate;
+        private int blocksLeft;
+
+        FailingChannel(FileChannel delegate, int blocks) {
+            this.delegate = delegate;
+            this.blocksLeft = blocks;
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            if ((position > 0) && (blocksLeft-- <= 0)) {
+                throw new IOException("No space left");
+            }
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Mars Simulation Project
+ * ResourceLedgerTest.java
+ * @date 2023-07-22
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.structure;
+
+import org.mars_sim.msp.core.AbstractMarsSimUnitTest;
+import org.mars_sim.msp.core.resource.ResourceUtil;
+
+/**
+ * Tests the batching of resource flows in the ResourceLedger.
+ */
+public class ResourceLedgerTest extends AbstractMarsSimUnitTest {
+
+	private static final double DELTA = 0.0001D;
+
+	public void testClosed() {
+		Settlement s = buildSettlement();
+		ResourceLedger ledger = s.getResourceLedger();
+		int water = ResourceUtil.waterID;
+
+		assertFalse("Ledger starts closed", ledger.isOpen());
+		ledger.storeAmountResource(water, 10D);
+		assertEquals("Closed store is immediate", 10D, s.getAmountResourceStored(water), DELTA);
+		ledger.retrieveAmountResource(water, 4D);
+		assertEquals("Closed retrieve is immediate", 6D, s.getAmountResourceStored(water), DELTA);
+	}
+
+	public void testCommit() {
+		Settlement s = buildSettlement();
+		ResourceLedger ledger = s.getResourceLedger();
+		int water = ResourceUtil.waterID;
+		int oxygen = ResourceUtil.oxygenID;
+		s.storeAmountResource(oxygen, 20D);
+		double startWater = s.getAmountResourceStored(water);
+
+		ledger.open();
+		ledger.storeAmountResource(water, 10D);
+		ledger.retrieveAmountResource(water, 4D);
+		ledger.retrieveAmountResource(oxygen, 5D);
+
+		assertEquals("Water not stored before commit", startWater, s.getAmountResourceStored(water), DELTA);
+		assertEquals("Water posted", startWater + 6D, ledger.getAmountResourceStored(water), DELTA);
+		assertEquals("Oxygen posted", 15D, ledger.getAmountResourceStored(oxygen), DELTA);
+
+		ledger.commit();
+		assertFalse("Ledger closed by commit", ledger.isOpen());
+		assertEquals("Water committed", startWater + 6D, s.getAmountResourceStored(water), DELTA);
+		assertEquals("Oxygen committed", 15D, s.getAmountResourceStored(oxygen), DELTA);
+
+		// Nothing left over for the next pulse
+		ledger.open();
+		ledger.commit();
+		assertEquals("Water after empty commit", startWater + 6D, s.getAmountResourceStored(water), DELTA);
+	}
+
+	public void testShortage() {
+		Settlement s = buildSettlement();
+		ResourceLedger ledger = s.getResourceLedger();
+		int oxygen = ResourceUtil.oxygenID;
+		s.retrieveAmountResource(oxygen, s.getAmountResourceStored(oxygen));
+		s.storeAmountResource(oxygen, 5D);
+
+		ledger.open();
+		assertEquals("First consumer shortfall", 1D, ledger.retrieveAmountResource(oxygen, 6D), DELTA);
+		assertEquals("Second consumer shortfall", 6D, ledger.retrieveAmountResource(oxygen, 6D), DELTA);
+		ledger.storeAmountResource(oxygen, 2D);
+		assertEquals("Third consumer gets the new oxygen", 1D, ledger.retrieveAmountResource(oxygen, 3D), DELTA);
+		ledger.commit();
+
+		// 5 stored + 2 produced - 7 granted
+		assertEquals("Oxygen used up", 0D, s.getAmountResourceStored(oxygen), DELTA);
+	}
+
+	public void testCapacity() {
+		Settlement s = buildSettlement();
+		ResourceLedger ledger = s.getResourceLedger();
+		int co2 = ResourceUtil.co2ID;
+		s.getEquipmentInventory().setResourceCapacity(co2, s.getAmountResourceStored(co2) + 10D);
+		double space = s.getAmountResourceRemainingCapacity(co2);
+		double start = s.getAmountResourceStored(co2);
+
+		ledger.open();
+		assertEquals("First producer fits", 0D, ledger.storeAmountResource(co2, space - 1D), DELTA);
+		assertEquals("Second producer excess", 2D, ledger.storeAmountResource(co2, 3D), DELTA);
+		assertEquals("No space left", 0D, ledger.getAmountResourceRemainingCapacity(co2), DELTA);
+		ledger.retrieveAmountResource(co2, 4D);
+		assertEquals("Retrieve frees space", 0D, ledger.storeAmountResource(co2, 4D), DELTA);
+		ledger.commit();
+
+		assertEquals("Only what fits stored", start + space, s.getAmountResourceStored(co2), DELTA);
+	}
+}
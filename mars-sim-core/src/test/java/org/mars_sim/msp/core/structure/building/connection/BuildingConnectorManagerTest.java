@@ -257,4 +257,52 @@ public class BuildingConnectorManagerTest extends TestCase {
         assertEquals(1D, nextPath.getPosition().getY(), SMALL_DELTA);
         assertTrue(path3.isEndOfPath());
     }
+
+    private MockBuilding buildBuilding(BuildingManager buildingManager, int id, double x) {
+        MockBuilding building = new MockBuilding(buildingManager, "B" + id);
+        building.setTemplateID(id);
+        building.setName("building " + id);
+        building.setWidth(9D);
+        building.setLength(9D);
+        building.setLocation(x, 0D);
+        building.setFacing(0D);
+        buildingManager.addBuilding(building, false);
+        return building;
+    }
+
+    private BuildingConnector connect(MockBuilding building1, MockBuilding building2) {
+        LocalPosition hatch = building1.getPosition().getMidPosition(building2.getPosition());
+        return new BuildingConnector(building1, hatch, 90D, building2, hatch, 270D);
+    }
+
+    public void testPathChanges() {
+        Settlement settlement = new MockSettlement();
+        BuildingManager buildingManager = settlement.getBuildingManager();
+
+        MockBuilding building0 = buildBuilding(buildingManager, 0, 0D);
+        MockBuilding building1 = buildBuilding(buildingManager, 1, -9D);
+        MockBuilding building2 = buildBuilding(buildingManager, 2, -18D);
+        MockBuilding building3 = buildBuilding(buildingManager, 3, -100D);
+
+        BuildingConnectorManager manager = new BuildingConnectorManager(settlement, new ArrayList<>());
+        manager.addBuildingConnection(connect(building0, building1));
+        assertTrue("Adjoining buildings", manager.hasValidPath(building0, building1));
+        assertFalse("Before the 2nd connection", manager.hasValidPath(building0, building2));
+
+        manager.addBuildingConnection(connect(building1, building2));
+        assertTrue("Through a building", manager.hasValidPath(building0, building2));
+        assertTrue("Same building", manager.hasValidPath(building3, building3));
+        assertFalse("No connections", manager.hasValidPath(building0, building3));
+
+        InsideBuildingPath path = manager.determineShortestPath(building0, new LocalPosition(0D, 0D),
+                                                                building2, new LocalPosition(-18D, 0D));
+        assertNotNull("Path through a building", path);
+        assertEquals("Path length", 18D, path.getPathLength(), SMALL_DELTA);
+        assertEquals("Path steps", 4, path.getRemainingPathLocations().size());
+
+        manager.removeAllConnectionsToBuilding(building1);
+        assertFalse("Middle building removed", manager.hasValidPath(building0, building2));
+        assertNull("No path after removal", manager.determineShortestPath(building0, new LocalPosition(0D, 0D),
+                                                                building2, new LocalPosition(-18D, 0D)));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package org.mars_sim.msp.core.time;
+
+import junit.framework.TestCase;
+
+public class PulseTimerTest extends TestCase {
+
+    public void testBuckets() {
+        // Every value must fall within the range of its bucket
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123_456_789L, Long.MAX_VALUE};
+        for (long v : values) {
+            int idx = PulseTimer.bucketIndex(v);
+            assertTrue("Top of bucket for " + v, PulseTimer.bucketTop(idx) >= v);
+            if (idx > 0) {
+                assertTrue("Top of previous bucket for " + v, PulseTimer.bucketTop(idx - 1) < v);
+            }
+        }
+    }
+
+    public void testPercentiles() {
+        PulseTimer timer = new PulseTimer("test");
+        for (int i = 1; i <= 100; i++) {
+            timer.record(i * 1000L);
+        }
+
+        assertEquals("Count", 100, timer.getCount());
+        assertEquals("Total", 5050 * 1000L, timer.getTotal());
+        assertEquals("Max", 100_000L, timer.getMax());
+
+        // Log-linear buckets are within 12.5%
+        long p50 = timer.getPercentile(50);
+        assertTrue("p50 " + p50, (p50 >= 50_000L) && (p50 <= 56_250L));
+        long p99 = timer.getPercentile(99);
+        assertTrue("p99 " + p99, (p99 >= 99_000L) && (p99 <= 100_000L));
+        assertEquals("p100", 100_000L, timer.getPercentile(100));
+    }
+
+    public void testReset() {
+        PulseTimer timer = new PulseTimer("test");
+        timer.record(500);
+        timer.reset();
+
+        assertEquals("Count", 0, timer.getCount());
+        assertEquals("Max", 0, timer.getMax());
+        assertEquals("p50", 0, timer.getPercentile(50));
+    }
+
+    public void testDisabled() {
+        PulseTimer timer = new PulseTimer("test");
+        PulseMetrics.setEnabled(false);
+        try {
+            timer.record(500);
+        }
+        finally {
+            PulseMetrics.setEnabled(true);
+        }
+        assertEquals("Count", 0, timer.getCount());
+    }
+}
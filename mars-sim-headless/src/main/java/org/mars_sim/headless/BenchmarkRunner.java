@@ -0,0 +1,256 @@
+/*
+ * Mars Simulation Project
+ * BenchmarkRunner.java
+ * @date 2023-07-18
+ * @author Barry Evans
+ */
+package org.mars_sim.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.time.MasterClock;
+import org.mars_sim.msp.core.time.MasterClock.ClockListenerTask;
+import org.mars_sim.msp.core.tool.RandomUtil;
+
+/**
+ * Runs a Simulation for a number of sols as fast as possible and reports the throughput.
+ * The pulses have a fixed width and there is no sleeping between them so the results
+ * only depend on the speed of the clock listeners. This is used to size hardware and to
+ * spot performance regressions between builds.
+ */
+public class BenchmarkRunner {
+
+	/** initialized logger for this class. */
+	private static final Logger logger = Logger.getLogger(BenchmarkRunner.class.getName());
+
+	/** Default width of a pulse in millisols. */
+	public static final double DEFAULT_PULSE = 1D;
+
+	private static final double NANOS_PER_SEC = 1_000_000_000D;
+	private static final double NANOS_PER_MS = 1_000_000D;
+
+	private Simulation sim;
+	private int sols;
+	private double pulseWidth = DEFAULT_PULSE;
+
+	// Results of the run
+	private long[] pulseLatency;
+	private long wallTime;
+	private long allocated;
+	private long gcCount;
+	private long gcTime;
+	private Map<String, Long> listenerTime = new TreeMap<>();
+	private Map<String, Long> settlementTime = new TreeMap<>();
+
+	/**
+	 * Creates a runner for a Simulation that has been built but not started.
+	 *
+	 * @param sim
+	 * @param sols Number of sols to run
+	 */
+	public BenchmarkRunner(Simulation sim, int sols) {
+		if (sols <= 0) {
+			throw new IllegalArgumentException("Number of sols must be positive: " + sols);
+		}
+		this.sim = sim;
+		this.sols = sols;
+	}
+
+	/**
+	 * Sets the width of each pulse.
+	 *
+	 * @param msols Millisols per pulse
+	 */
+	public void setPulseWidth(double msols) {
+		if (msols <= 0) {
+			throw new IllegalArgumentException("Pulse width must be positive: " + msols);
+		}
+		this.pulseWidth = msols;
+	}
+
+	/**
+	 * Runs the Simulation for the requested sols.
+	 */
+	public void run() {
+		MasterClock clock = sim.getMasterClock();
+		clock.addClockListener(sim, 0);
+
+		int pulses = (int) Math.ceil(sols * 1000D / pulseWidth);
+		pulseLatency = new long[pulses];
+		logger.config("Benchmark running " + sols + " sols in " + pulses + " pulses of "
+						+ pulseWidth + " millisols.");
+
+		long allocStart = getAllocatedBytes();
+		long gcCountStart = getGCCount();
+		long gcTimeStart = getGCTime();
+		long start = System.nanoTime();
+
+		for (int i = 0; i < pulses; i++) {
+			long pulseStart = System.nanoTime();
+			clock.stepPulse(pulseWidth);
+			pulseLatency[i] = System.nanoTime() - pulseStart;
+
+			for (ClockListenerTask t : clock.getClockListenerTasks()) {
+				listenerTime.merge(t.getClockListener().getClass().getSimpleName(), t.getLastCost(), Long::sum);
+			}
+			for (Entry<Settlement, Long> e : sim.getUnitManager().getSettlementPulseCosts().entrySet()) {
+				settlementTime.merge(e.getKey().getName(), e.getValue(), Long::sum);
+			}
+		}
+
+		wallTime = System.nanoTime() - start;
+		allocated = getAllocatedBytes() - allocStart;
+		gcCount = getGCCount() - gcCountStart;
+		gcTime = getGCTime() - gcTimeStart;
+	}
+
+	/**
+	 * Gets the bytes allocated by the live threads. Threads that end during the run
+	 * are not counted.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean sunBean
+				&& sunBean.isThreadAllocatedMemorySupported()) {
+			return Arrays.stream(sunBean.getThreadAllocatedBytes(bean.getAllThreadIds()))
+							.filter(b -> b > 0)
+							.sum();
+		}
+		return 0;
+	}
+
+	private static long getGCCount() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream()
+						.mapToLong(GarbageCollectorMXBean::getCollectionCount)
+						.filter(c -> c > 0)
+						.sum();
+	}
+
+	private static long getGCTime() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream()
+						.mapToLong(GarbageCollectorMXBean::getCollectionTime)
+						.filter(c -> c > 0)
+						.sum();
+	}
+
+	/**
+	 * Gets a percentile of the pulse latency.
+	 *
+	 * @param p Percentile between 0 and 100
+	 * @return Milliseconds
+	 */
+	public double getPulseLatency(double p) {
+		long[] sorted = pulseLatency.clone();
+		Arrays.sort(sorted);
+		int idx = (int) Math.ceil((p / 100D) * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(idx, sorted.length - 1))] / NANOS_PER_MS;
+	}
+
+	public double getSolsPerSecond() {
+		return sols / (wallTime / NANOS_PER_SEC);
+	}
+
+	/**
+	 * Gets the allocation rate of the run.
+	 *
+	 * @return Megabytes per wall-second
+	 */
+	public double getAllocationRate() {
+		return (allocated / (1024D * 1024D)) / (wallTime / NANOS_PER_SEC);
+	}
+
+	/**
+	 * Prints the report of the run.
+	 *
+	 * @param out
+	 */
+	public void printReport(PrintStream out) {
+		out.println();
+		out.println("Benchmark of " + sols + " sols, " + pulseLatency.length + " pulses of "
+					+ pulseWidth + " millisols, seed " + RandomUtil.getSeed());
+		out.format("  Wall time       : %10.2f s%n", wallTime / NANOS_PER_SEC);
+		out.format("  Throughput      : %10.3f sols/s%n", getSolsPerSecond());
+		out.format("  Pulse p50       : %10.3f ms%n", getPulseLatency(50));
+		out.format("  Pulse p99       : %10.3f ms%n", getPulseLatency(99));
+		out.format("  Pulse max       : %10.3f ms%n", getPulseLatency(100));
+		out.format("  Allocation rate : %10.1f MB/s%n", getAllocationRate());
+		out.format("  GC pauses       : %10d in %d ms%n", gcCount, gcTime);
+
+		out.println("  Listeners:");
+		printTimes(out, listenerTime);
+		out.println("  Settlements:");
+		printTimes(out, settlementTime);
+	}
+
+	private void printTimes(PrintStream out, Map<String, Long> times) {
+		sortByTime(times).forEach(e ->
+			out.format("    %-30s %10.1f ms %6.1f%%%n", e.getKey(), e.getValue() / NANOS_PER_MS,
+							(100D * e.getValue()) / wallTime));
+	}
+
+	private static List<Entry<String, Long>> sortByTime(Map<String, Long> times) {
+		return times.entrySet().stream()
+						.sorted(Comparator.comparing(Entry<String, Long>::getValue).reversed())
+						.toList();
+	}
+
+	/**
+	 * Writes the results as a JSON document so runs can be compared over time.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeJSON(File file) throws IOException {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"sols\": ").append(sols).append(",\n");
+		json.append("  \"pulses\": ").append(pulseLatency.length).append(",\n");
+		json.append("  \"pulseWidth\": ").append(pulseWidth).append(",\n");
+		json.append("  \"seed\": ").append(RandomUtil.getSeed()).append(",\n");
+		json.append("  \"wallTimeMs\": ").append(wallTime / NANOS_PER_MS).append(",\n");
+		json.append("  \"solsPerSecond\": ").append(getSolsPerSecond()).append(",\n");
+		json.append("  \"pulseP50Ms\": ").append(getPulseLatency(50)).append(",\n");
+		json.append("  \"pulseP99Ms\": ").append(getPulseLatency(99)).append(",\n");
+		json.append("  \"pulseMaxMs\": ").append(getPulseLatency(100)).append(",\n");
+		json.append("  \"allocationMBPerSecond\": ").append(getAllocationRate()).append(",\n");
+		json.append("  \"gcCount\": ").append(gcCount).append(",\n");
+		json.append("  \"gcTimeMs\": ").append(gcTime).append(",\n");
+		json.append("  \"listenersMs\": ");
+		appendTimes(json, listenerTime);
+		json.append(",\n  \"settlementsMs\": ");
+		appendTimes(json, settlementTime);
+		json.append("\n}\n");
+
+		Files.writeString(file.toPath(), json, StandardCharsets.UTF_8);
+	}
+
+	private static void appendTimes(StringBuilder json, Map<String, Long> times) {
+		json.append('{');
+		boolean first = true;
+		for (Entry<String, Long> e : times.entrySet()) {
+			if (!first) {
+				json.append(", ");
+			}
+			first = false;
+			json.append('"').append(e.getKey().replace("\\", "\\\\").replace("\"", "\\\""))
+				.append("\": ").append(e.getValue() / NANOS_PER_MS);
+		}
+		json.append('}');
+	}
+}
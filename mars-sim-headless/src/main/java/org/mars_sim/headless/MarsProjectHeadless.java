@@ -40,6 +40,9 @@ public class MarsProjectHeadless {
 	private static final String DISPLAYHELP = "help";
 	private static final String RESETADMIN = "resetadmin";
 	private static final String LOAD_ARG = "load";
+	private static final String BENCHMARK_ARG = "benchmark";
+	private static final String PULSE_ARG = "pulse";
+	private static final String JSON_ARG = "json";
 
 
 	/** initialized logger for this class. */
@@ -98,9 +101,18 @@ public class MarsProjectHeadless {
 		options.addOptionGroup(remoteGrp);
 		options.addOption(Option.builder(RESETADMIN)
 				.desc("Reset the internal admin password").build());
+		options.addOption(Option.builder(BENCHMARK_ARG).argName("sols").hasArg().optionalArg(false)
+				.desc("Run the number of sols as fast as possible, report the throughput and exit").build());
+		options.addOption(Option.builder(PULSE_ARG).argName("millisols").hasArg().optionalArg(false)
+				.desc("Width of each pulse in a benchmark run [default " + BenchmarkRunner.DEFAULT_PULSE + "]").build());
+		options.addOption(Option.builder(JSON_ARG).argName("file").hasArg().optionalArg(false)
+				.desc("Write the benchmark results as JSON to the file").build());
 
 		CommandLineParser commandline = new DefaultParser();
 		boolean resetAdmin = false;
+		int benchmarkSols = 0;
+		double pulseWidth = BenchmarkRunner.DEFAULT_PULSE;
+		String jsonFile = null;
 		try {
 			CommandLine line = commandline.parse(options, args);
 
@@ -130,11 +142,25 @@ public class MarsProjectHeadless {
 				}
 				builder.setSimFile(simFile);
 			}
+			if (line.hasOption(BENCHMARK_ARG)) {
+				benchmarkSols = Integer.parseInt(line.getOptionValue(BENCHMARK_ARG));
+			}
+			if (line.hasOption(PULSE_ARG)) {
+				pulseWidth = Double.parseDouble(line.getOptionValue(PULSE_ARG));
+			}
+			if (line.hasOption(JSON_ARG)) {
+				jsonFile = line.getOptionValue(JSON_ARG);
+			}
 		}
 		catch (Exception e1) {
 			usage("Problem with arguments: " + e1.getMessage(), options);
 		}
 
+		if (benchmarkSols > 0) {
+			runBenchmark(builder, benchmarkSols, pulseWidth, jsonFile);
+			return true;
+		}
+
 		// Do it
 		try {
 			// Build and run the simulator
@@ -153,6 +179,33 @@ public class MarsProjectHeadless {
 		return true;
 	}
 
+	/**
+	 * Builds the simulation and runs it flat out for a number of sols, then exits.
+	 *
+	 * @param builder
+	 * @param sols
+	 * @param pulseWidth
+	 * @param jsonFile Optional file for the JSON results
+	 */
+	private void runBenchmark(SimulationBuilder builder, int sols, double pulseWidth, String jsonFile) {
+		try {
+			Simulation sim = builder.build();
+
+			BenchmarkRunner runner = new BenchmarkRunner(sim, sols);
+			runner.setPulseWidth(pulseWidth);
+			runner.run();
+			runner.printReport(System.out);
+
+			if (jsonFile != null) {
+				runner.writeJSON(new File(jsonFile));
+			}
+		}
+		catch(Exception e) {
+			exitWithError("Problem running benchmark " + e.getMessage(), e);
+		}
+		System.exit(0);
+	}
+
 	private void usage(String message, Options options) {
 		HelpFormatter format = new HelpFormatter();
 		System.out.println();
@@ -0,0 +1,198 @@
+/*
+ * Mars Simulation Project
+ * CpuMapRenderer.java
+ * @date 2023-07-14
+ * @author Barry Evans
+ */
+package org.mars_sim.mapdata;
+
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Renders a view of a cylindrical map onto a sphere without a GPU. The view is split
+ * into bands of rows rendered in parallel. The terms of the rotation that only depend
+ * on the row or the column are computed once per frame so each pixel only needs a
+ * square root and two inverse trigonometric calls, and nothing is allocated per pixel.
+ * The map is either a pixel array or a level of a MapTilePyramid.
+ */
+public final class CpuMapRenderer {
+
+	/** Rows in each band handed to a worker. */
+	private static final int BAND_ROWS = 16;
+
+	private static final double TWO_PI = Math.PI * 2D;
+
+	/**
+	 * Source of the map pixels for one band of rows.
+	 */
+	private interface Sampler {
+		int get(int row, int col);
+	}
+
+	/**
+	 * Samples a level of a pyramid. The tiles are looked up once per band.
+	 */
+	private static class TileSampler implements Sampler {
+
+		private MapTilePyramid pyramid;
+		private int level;
+		private int across;
+		private int[][] tiles;
+
+		TileSampler(MapTilePyramid pyramid, int level) {
+			this.pyramid = pyramid;
+			this.level = level;
+			this.across = pyramid.getTilesAcross(level);
+			this.tiles = new int[across * pyramid.getTilesDown(level)][];
+		}
+
+		@Override
+		public int get(int row, int col) {
+			int t = ((row >> MapTilePyramid.TILE_SHIFT) * across) + (col >> MapTilePyramid.TILE_SHIFT);
+			int[] tile = tiles[t];
+			if (tile == null) {
+				tile = pyramid.getTile(level, row >> MapTilePyramid.TILE_SHIFT, col >> MapTilePyramid.TILE_SHIFT);
+				tiles[t] = tile;
+			}
+			return tile[((row & MapTilePyramid.TILE_MASK) << MapTilePyramid.TILE_SHIFT)
+						+ (col & MapTilePyramid.TILE_MASK)];
+		}
+	}
+
+	private CpuMapRenderer() {
+		// Static helper class
+	}
+
+	/**
+	 * Renders the view centred on a location.
+	 *
+	 * @param pixels Source map as rows of ARGB values
+	 * @param centerPhi Center phi of the view
+	 * @param centerTheta Center theta of the view
+	 * @param width Width of the view
+	 * @param height Height of the view
+	 * @param rho Map scale; view pixels per radian
+	 * @param out ARGB values of the view; typically the data of an image
+	 */
+	public static void render(int[][] pixels, double centerPhi, double centerTheta,
+			int width, int height, double rho, int[] out) {
+		render(pixels.length, pixels[0].length, () -> (r, c) -> pixels[r][c],
+				centerPhi, centerTheta, width, height, rho, out);
+	}
+
+	/**
+	 * Renders the view centred on a location from the level of a pyramid suited to
+	 * the scale. Level 0 is read straight from the source pixels.
+	 *
+	 * @param pyramid Source map
+	 * @param centerPhi Center phi of the view
+	 * @param centerTheta Center theta of the view
+	 * @param width Width of the view
+	 * @param height Height of the view
+	 * @param rho Map scale; view pixels per radian
+	 * @param out ARGB values of the view; typically the data of an image
+	 */
+	public static void render(MapTilePyramid pyramid, double centerPhi, double centerTheta,
+			int width, int height, double rho, int[] out) {
+		int level = pyramid.getLevel(rho);
+		if (level == 0) {
+			render(pyramid.getPixels(), centerPhi, centerTheta, width, height, rho, out);
+			return;
+		}
+		render(pyramid.getHeight(level), pyramid.getWidth(level), () -> new TileSampler(pyramid, level),
+				centerPhi, centerTheta, width, height, rho, out);
+	}
+
+	private static void render(int mapHeight, int mapWidth, Supplier<Sampler> samplers,
+			double centerPhi, double centerTheta, int width, int height, double rho, int[] out) {
+
+		double sinPhi = Math.sin(centerPhi);
+		double cosPhi = Math.cos(centerPhi);
+		double sinTheta = Math.sin(centerTheta);
+		double cosTheta = Math.cos(centerTheta);
+		double rhoSquared = rho * rho;
+
+		// Column terms
+		int halfWidth = width / 2;
+		double[] xSquared = new double[width];
+		double[] xCosTheta = new double[width];
+		double[] xSinTheta = new double[width];
+		for (int col = 0; col < width; col++) {
+			double x = (double) col - halfWidth;
+			xSquared[col] = x * x;
+			xCosTheta[col] = x * cosTheta;
+			xSinTheta[col] = x * sinTheta;
+		}
+
+		int bands = (height + BAND_ROWS - 1) / BAND_ROWS;
+		IntStream.range(0, bands).parallel().forEach(band -> {
+			int start = band * BAND_ROWS;
+			int end = Math.min(height, start + BAND_ROWS);
+			renderRows(samplers.get(), mapHeight, mapWidth, start, end, width, height, rho, rhoSquared,
+					sinPhi, cosPhi, sinTheta, cosTheta,
+					xSquared, xCosTheta, xSinTheta, out);
+		});
+	}
+
+	/**
+	 * Renders a band of rows.
+	 */
+	private static void renderRows(Sampler pixels, int mapHeight, int mapWidth, int start, int end, int width, int height,
+			double rho, double rhoSquared, double sinPhi, double cosPhi, double sinTheta, double cosTheta,
+			double[] xSquared, double[] xCosTheta, double[] xSinTheta, int[] out) {
+
+		double rowScale = mapHeight / Math.PI;
+		double colScale = mapWidth / TWO_PI;
+		int halfHeight = height / 2;
+		int invalid = pixels.get(0, 0);
+
+		for (int row = start; row < end; row++) {
+			// Row terms
+			double y = (double) row - halfHeight;
+			double ySquared = y * y;
+			double yCosPhi = y * cosPhi;
+			double ySinPhi = y * sinPhi;
+
+			int index = row * width;
+			for (int col = 0; col < width; col++) {
+				double zSquared = rhoSquared - xSquared[col] - ySquared;
+				if (zSquared < 0D) {
+					// Outside the globe
+					out[index++] = invalid;
+					continue;
+				}
+				double z = Math.sqrt(zSquared);
+
+				double y2 = yCosPhi + (z * sinPhi);
+				double z2 = (z * cosPhi) - ySinPhi;
+				double x3 = xCosTheta[col] + (y2 * sinTheta);
+				double y3 = (y2 * cosTheta) - xSinTheta[col];
+
+				double phi = Math.acos(z2 / rho);
+				double theta = Math.atan2(x3, y3);
+				if (theta < 0D) {
+					theta += TWO_PI;
+				}
+
+				// Adjust theta with PI for the map offset
+				if (theta > Math.PI) {
+					theta -= Math.PI;
+				}
+				else {
+					theta += Math.PI;
+				}
+
+				int r = (int) Math.round(phi * rowScale);
+				if (r >= mapHeight) {
+					r = mapHeight - 1;
+				}
+				int c = (int) Math.round(theta * colScale);
+				if (c >= mapWidth) {
+					c = mapWidth - 1;
+				}
+				out[index++] = pixels.get(r, c);
+			}
+		}
+	}
+}
@@ -17,6 +17,7 @@ import java.awt.Image;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 import java.nio.IntBuffer;
@@ -75,19 +76,25 @@ import com.jogamp.opencl.CLProgram;
 	private CLKernel kernel;
  	
 	private transient Image mapImage = null;
+
+	/** Tiles used by the CPU rendering. */
+	private MapTilePyramid pyramid;
 	
  	/**
  	 * Constructor.
  	 * 
 	 * @param name   the name/description of the data
  	 * @param filename   the map data file name.
+ 	 * @param tileCache   the cache of the map tiles.
  	 * @throws IOException Problem loading map data
  	 */
- 	IntegerMapData(MapMetaData newMeta) throws IOException {
+ 	IntegerMapData(MapMetaData newMeta, MapTileCache tileCache) throws IOException {
 		this.meta = newMeta;
 		
 		// Load data files
 		pixels = loadMapData(newMeta.getHiResFile());
+		long modified = FileLocator.locateFile(newMeta.getHiResFile()).lastModified();
+		pyramid = new MapTilePyramid(newMeta.getHiResFile(), modified, pixels, tileCache);
 		
 		rho =  pixelHeight / Math.PI;
 		RHO_DEFAULT = rho;
@@ -279,8 +286,8 @@ import com.jogamp.opencl.CLProgram;
  		BufferedImage result = new BufferedImage(mapBoxWidth, mapBoxHeight, 
  				BufferedImage.TYPE_INT_ARGB);//.TYPE_INT_ARGB);//TYPE_4BYTE_ABGR);
 
- 		// Create an array of int RGB color values to create the map image from.
- 		int[] mapArray = new int[mapBoxWidth * mapBoxHeight];
+ 		// Draw straight into the ARGB values of the image
+ 		int[] mapArray = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
 
 		 boolean invalid = Double.isNaN(centerPhi) || Double.isNaN(centerTheta);
 		 if (invalid) {
@@ -290,21 +297,20 @@ import com.jogamp.opencl.CLProgram;
 		 // Clear all the saved point2d locations
 //		 locations.clear();
 		 
-		 if(HARDWARE_ACCELERATION || program == null || kernel == null) {
+		 if(HARDWARE_ACCELERATION && program != null && kernel != null) {
 			 try {
 				 gpu(centerPhi, centerTheta, mapBoxWidth, mapBoxHeight, mapArray);
 			 } catch(Exception e) {
 				 HARDWARE_ACCELERATION = false;
 				 logger.log(Level.SEVERE, "Disabling hardware acceleration due to exception caused while rendering: " + e.getMessage());
+				 // Still render this frame
+				 cpu(centerPhi, centerTheta, mapBoxWidth, mapBoxHeight, mapArray);
 			 }
 		 }
 		 else {
 			 cpu(centerPhi, centerTheta, mapBoxWidth, mapBoxHeight, mapArray);
 		 }
 
- 		// Create new map image.
- 		result.setRGB(0, 0, mapBoxWidth, mapBoxHeight, mapArray, 0, mapBoxWidth);
-
  		mapImage = result;
  		
  		return result;
@@ -322,21 +328,7 @@ import com.jogamp.opencl.CLProgram;
  	 * @param scale
  	 */
 	 private void cpu(double centerPhi, double centerTheta, int mapBoxWidth, int mapBoxHeight, int[] mapArray) {
-		 int halfWidth = mapBoxWidth / 2;
-		 int halfHeight = mapBoxHeight / 2;
-
-		 for(int y = 0; y < mapBoxHeight; y++) {
-			 for(int x = 0; x < mapBoxWidth; x++) {
-				 int index = x + (y * mapBoxWidth);
-
-				 Point2D loc = convertRectToSpherical(x - halfWidth, y - halfHeight, centerPhi, centerTheta, getScale());
-				 mapArray[index] = getRGBColorInt(loc.getX(), loc.getY());
-
-//				 locations.add(loc);
-			 }
-		 }
-		 
-//		 logger.info("locations: " + locations.size());
+		 CpuMapRenderer.render(pyramid, centerPhi, centerTheta, mapBoxWidth, mapBoxHeight, getScale(), mapArray);
 	 }
 
 	 /**
@@ -439,13 +431,15 @@ import com.jogamp.opencl.CLProgram;
 // 	}
 
  	/**
- 	 * Gets the RGB map color as an integer at a given location.
+ 	 * Gets the RGB map color as an integer at a given location. This is the per pixel
+ 	 * lookup of the original CPU rendering.
  	 * 
+ 	 * @param pixels the map pixels.
  	 * @param phi   the phi location.
  	 * @param theta the theta location.
  	 * @return the RGB map color as an integer.
  	 */
- 	private int getRGBColorInt(double phi, double theta) {
+ 	public static int getRGBColorInt(int[][] pixels, double phi, double theta) {
  		// Make sure phi is between 0 and PI.
  		while (phi > Math.PI)
  			phi -= Math.PI;
@@ -484,6 +478,15 @@ import com.jogamp.opencl.CLProgram;
  	public int[][] getPixels() {
  		return pixels;
  	}
+
+ 	/**
+ 	 * Gets the tiles of the map.
+ 	 * 
+ 	 * @return
+ 	 */
+ 	public MapTilePyramid getPyramid() {
+ 		return pyramid;
+ 	}
  	
 // 	public static List<Point2D> getLocations() {
 // 		return locations;
@@ -493,7 +496,11 @@ import com.jogamp.opencl.CLProgram;
 	 * Prepares map panel for deletion.
 	 */
 	public void destroy() {
+		if (pyramid != null) {
+			pyramid.release();
+		}
 	 	pixels = null;
+	 	pyramid = null;
 	 	meta = null;
 		cylindricalMapImage = null;
 		program = null;
@@ -15,17 +15,21 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.common.FileLocator;
 
-import com.google.common.io.ByteStreams;
-
 /**
  * This class reads the topographical or elevation data of MOLA Mission Experiment 
- * Gridded Data Records (MEGDRs) acquired by MGS mission. 
+ * Gridded Data Records (MEGDRs) acquired by MGS mission. The data file is memory mapped
+ * and the big-endian samples are read in place so no copy is held on the heap.
  * @See https://pds-geosciences.wustl.edu/missions/mgs/megdr.html.
  */
 public class MEGDRMapReader {
@@ -69,8 +73,8 @@ public class MEGDRMapReader {
 	
 	private String[] maps = {PATH + meg004, PATH + meg016, PATH + meg032};
 	
-	// Future: switch to using JavaFastPFOR to save memory.
-	private short[] elevation;
+	/** Read only view of the mapped data file. */
+	private ShortBuffer elevation;
 	
 	private static short mapHeight;
 	private static short mapWidth;
@@ -89,70 +93,34 @@ public class MEGDRMapReader {
 	}
 	
 	/**
-	 * Loads the elevation data into short array.
+	 * Maps the elevation data file. The samples are big-endian shorts read in place.
 	 * 
 	 * @return
 	 */
-	public short[] loadElevation(int level) {
+	public ShortBuffer loadElevation(int level) {
 		// Select the map resolution
 		String file = maps[level];
 		
-	    try (InputStream inputStream = new FileInputStream(FileLocator.locateFile(file))) {
+	    try (FileChannel channel = FileChannel.open(FileLocator.locateFile(file).toPath(),
+	    											StandardOpenOption.READ)) {
 
-			// Use ByteStreams to convert to byte array
-			byte[] bytes = ByteStreams.toByteArray(inputStream);
-			
-			elevation = convertByteArrayToShortIntArray(bytes);
+			// The mapping stays valid once the channel is closed
+			elevation = channel.map(MapMode.READ_ONLY, 0, channel.size())
+								.order(ByteOrder.BIG_ENDIAN)
+								.asShortBuffer();
 			
-			mapHeight = (short) Math.sqrt(elevation.length / 2);
+			mapHeight = (short) Math.sqrt(elevation.capacity() / 2);
 			mapWidth = (short) (mapHeight * 2);
 			
-			logger.info("Reading elevation dataset from '" + file + "' (" + mapWidth + " by " + mapHeight + ").");
+			logger.info("Mapping elevation dataset from '" + file + "' (" + mapWidth + " by " + mapHeight + ").");
 	            
-		} catch (Exception e) {
-			 System.out.println("Problems in inputStream: " + e.getMessage());
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "Problems mapping elevation dataset '" + file + "'.", e);
 		}
 	    
         return elevation;
 	}
 	
-	/**
-	 * Converts two bytes to a short int.
-	 * 
-	 * @param data
-	 * @return
-	 */
-	private short convert2ByteToShortInt(byte[] data) {
-	    if (data == null || data.length != 2) return 0x0;
-	    // ----------
-	    return (short)( // NOTE: type cast not necessary for int
-	            (0xff & data[0]) << 8  |
-	            (data[0]) << 8  |
-	            (0xff & data[1])
-	            );
-	}
-	
-	/**
-	 * Converts byte array to short array.
-	 * 
-	 * @param data
-	 * @return
-	 */
-	public short[] convertByteArrayToShortIntArray(byte[] data) {
-        if (data == null || data.length % 2 != 0) return null;
-        int size = data.length / 2;
-        short[] shorts = new short[size];
-        
-        for (int i = 0; i < shorts.length; i++) {
-        	
-        	shorts[i]  = convert2ByteToShortInt(new byte[] {
-                    data[(i*2)],
-                    data[(i*2)+1]
-            	});
-        }
-        return shorts;
-    }
-	
 	public int[] getIndex() {
 		int min = 0;
 		int max = 0; 
@@ -160,14 +128,15 @@ public class MEGDRMapReader {
 		int minIndex = 0;
 		int maxIndex = 0;
 
-		for (int i = 0; i < elevation.length; i++)  {
-			if (max < elevation[i]) {
-				max = elevation[i];
+		for (int i = 0; i < elevation.capacity(); i++)  {
+			short e = elevation.get(i);
+			if (max < e) {
+				max = e;
 				maxIndex = i;
 			}
 			
-			if (min > elevation[i]) {
-				min = elevation[i];
+			if (min > e) {
+				min = e;
 				minIndex = i;
 			}
 		}
@@ -175,8 +144,24 @@ public class MEGDRMapReader {
 		return new int[] {maxIndex, max, minIndex, min};
 	}
 	
-	public short[] getElevationArray() {
-		return elevation;
+	/**
+	 * Gets the elevation sample at an index. Reads are absolute so are safe from any
+	 * thread.
+	 * 
+	 * @param index Row * width + column
+	 * @return Elevation in metres
+	 */
+	public short getElevation(int index) {
+		return elevation.get(index);
+	}
+
+	/**
+	 * Is the elevation data loaded ?
+	 * 
+	 * @return
+	 */
+	public boolean isLoaded() {
+		return elevation != null;
 	}
 	
 	/**
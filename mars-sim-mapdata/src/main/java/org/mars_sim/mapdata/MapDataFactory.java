@@ -11,6 +11,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.logging.Level;
@@ -19,7 +21,8 @@ import java.util.logging.Logger;
 import org.mars_sim.msp.common.FileLocator;
 
 /**	
-  * A factory for map data.
+  * A factory for map data. Recently used maps are kept so switching back to one does
+  * not decode the image again.
   */
  class MapDataFactory {
 
@@ -29,9 +32,17 @@ import org.mars_sim.msp.common.FileLocator;
 	private static final String SURF_MAP = "surface";
 	private static final String MAP_PROPERTIES = "/mapdata.properties";
 
+	/** Pixels of the maps kept in memory; the latest map is always kept. */
+	private static final long MAX_CACHED_PIXELS = 40_000_000L;
+	/** Memory used by the map tiles. */
+	private static final long MAX_TILE_BYTES = 64L * 1024 * 1024;
+
 	private Map<String, MapMetaData> metaData = new HashMap<>();
 
-	private transient MapData mapData = null;
+	/** Loaded maps in order of use. */
+	private transient LinkedHashMap<String, MapData> loaded = new LinkedHashMap<>(8, 0.75F, true);
+
+	private transient MapTileCache tileCache = new MapTileCache(MAX_TILE_BYTES);
 	
  	/**
  	 * Constructor.
@@ -67,7 +78,7 @@ import org.mars_sim.msp.common.FileLocator;
  	 * @param mapType the map type.
  	 * @return the map data. Maybe null if problems
  	 */
- 	MapData getMapData(String mapType) {
+ 	synchronized MapData getMapData(String mapType) {
 
 		MapMetaData mt = metaData.get(mapType);
  		if (mt == null) {
@@ -75,28 +86,55 @@ import org.mars_sim.msp.common.FileLocator;
 			return null;
 		};
 		
- 		MapData result = null;
+ 		MapData result = loaded.get(mapType);
  		
-		if (mapData == null 
-				|| !mapData.getMetaData().getName().equals(mt.getName())) {
+		if (result == null) {
 
 			try {
 				// Obtain a new MapData instance
-				result = new IntegerMapData(mt);
-				// Save the result into the mapData cache
-				this.mapData = result;
+				result = new IntegerMapData(mt, tileCache);
+				// Save the result into the cache
+				loaded.put(mapType, result);
+				evictMaps();
 				// Patch the metadata to be locally available
 				mt.setLocallyAvailable(true);
 			} catch (IOException e) {
 				logger.log(Level.SEVERE, "Could not find the map file.", e);
 			}
 		}
-		else
-			return mapData;
 		
 		return result;
  	}
 
+	/**
+	 * Drops the least recently used maps until the pixels are within the limit. The
+	 * most recent map is always kept.
+	 */
+	private void evictMaps() {
+		long pixels = 0;
+		for (MapData m : loaded.values()) {
+			pixels += (long) m.getWidth() * m.getHeight();
+		}
+
+		Iterator<MapData> it = loaded.values().iterator();
+		while ((pixels > MAX_CACHED_PIXELS) && (loaded.size() > 1)) {
+			MapData oldest = it.next();
+			pixels -= (long) oldest.getWidth() * oldest.getHeight();
+			tileCache.removeSource(oldest.getMetaData().getHiResFile());
+			it.remove();
+			logger.config("Released map " + oldest.getMetaData().getName());
+		}
+	}
+
+	/**
+	 * Gets the cache of the map tiles.
+	 * 
+	 * @return
+	 */
+	MapTileCache getTileCache() {
+		return tileCache;
+	}
+
 	/**
 	 * Gets the available map types.
 	 * 
@@ -49,15 +49,6 @@ import java.util.Collection;
          width = reader.getWidth();
      }
      
-     /**
-      * Gets the elevation array.
-      * 
-      * @return
-      */
-     public short[] elevationArray() {
-     	return reader.getElevationArray();
- 	}
- 	
     /**
  	 * Gets the elevation as a short integer at a given location.
  	 * 
@@ -82,7 +73,7 @@ import java.util.Collection;
  		if (index > height * width)
  			index = height * width - 1;
 
- 		return elevationArray()[index];
+ 		return reader.getElevation(index);
  	}
      
      /**
@@ -102,4 +93,13 @@ import java.util.Collection;
     public Collection<MapMetaData> getMapTypes() {
         return mapDataFactory.getLoadedTypes();
     }
+
+    /**
+     * Gets the cache of the map tiles; a disk folder can be set on it.
+     * 
+     * @return
+     */
+    public MapTileCache getTileCache() {
+        return mapDataFactory.getTileCache();
+    }
  }
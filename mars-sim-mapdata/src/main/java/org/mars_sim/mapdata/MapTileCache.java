@@ -0,0 +1,208 @@
+/*
+ * Mars Simulation Project
+ * MapTileCache.java
+ * @date 2023-07-15
+ * @author Barry Evans
+ */
+package org.mars_sim.mapdata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A memory bounded least recently used cache of map tiles shared by all the map types.
+ * Tiles can also be kept in a folder on disk so they survive being evicted.
+ */
+public class MapTileCache {
+
+	private static Logger logger = Logger.getLogger(MapTileCache.class.getName());
+
+	/**
+	 * Identifies the image the tiles are cut from.
+	 *
+	 * @param name Name of the source image
+	 * @param width Width of the image in pixels
+	 * @param height Height of the image in pixels
+	 * @param modified When the image was last changed
+	 */
+	public static record TileSource(String name, int width, int height, long modified) {}
+
+	/**
+	 * Identifies a tile.
+	 *
+	 * @param source Image the tile is cut from
+	 * @param level Level in the pyramid; 1 is half resolution
+	 * @param row Tile row
+	 * @param col Tile column
+	 */
+	public static record TileKey(TileSource source, int level, int row, int col) {}
+
+	private long maxBytes;
+	private long usedBytes = 0;
+	private File diskDir = null;
+
+	private long hits = 0;
+	private long misses = 0;
+
+	private LinkedHashMap<TileKey, int[]> tiles = new LinkedHashMap<>(64, 0.75F, true);
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param maxBytes Memory the tiles may use
+	 */
+	public MapTileCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Keeps the tiles in a folder on disk as well as in memory.
+	 *
+	 * @param dir Folder or null to only use memory
+	 */
+	public synchronized void setDiskCache(File dir) {
+		if (dir != null) {
+			dir.mkdirs();
+		}
+		this.diskDir = dir;
+	}
+
+	/**
+	 * Gets a tile; building it if it is not held.
+	 *
+	 * @param key Tile wanted
+	 * @param builder Creates the tile if not cached
+	 * @return The tile pixels
+	 */
+	public int[] getTile(TileKey key, Function<TileKey, int[]> builder) {
+		File diskFile;
+		synchronized (this) {
+			int[] tile = tiles.get(key);
+			if (tile != null) {
+				hits++;
+				return tile;
+			}
+			misses++;
+			diskFile = getDiskFile(key);
+		}
+
+		// Build outside the lock; two threads may build the same tile which is harmless
+		int[] tile = readTile(diskFile);
+		if (tile == null) {
+			tile = builder.apply(key);
+			writeTile(diskFile, tile);
+		}
+
+		synchronized (this) {
+			int[] old = tiles.put(key, tile);
+			if (old != null) {
+				usedBytes -= bytes(old);
+			}
+			usedBytes += bytes(tile);
+			evict();
+		}
+		return tile;
+	}
+
+	private static long bytes(int[] tile) {
+		return tile.length * 4L;
+	}
+
+	/**
+	 * Removes the least recently used tiles until within the memory limit.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<TileKey, int[]>> it = tiles.entrySet().iterator();
+		while ((usedBytes > maxBytes) && it.hasNext()) {
+			usedBytes -= bytes(it.next().getValue());
+			it.remove();
+		}
+	}
+
+	private File getDiskFile(TileKey key) {
+		if (diskDir == null) {
+			return null;
+		}
+		// Name holds the size and time of the source so tiles of a changed image are not used
+		TileSource source = key.source();
+		String name = source.name().replaceAll("[^A-Za-z0-9_.-]", "_");
+		return new File(diskDir, name + "_" + source.width() + "x" + source.height()
+					+ "_" + source.modified() + "_L" + key.level() + "_" + key.row() + "_" + key.col() + ".tile");
+	}
+
+	private static int[] readTile(File file) {
+		if ((file == null) || !file.exists()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			int[] tile = new int[in.readInt()];
+			for (int i = 0; i < tile.length; i++) {
+				tile[i] = in.readInt();
+			}
+			return tile;
+		}
+		catch (IOException e) {
+			logger.log(Level.WARNING, "Problem reading tile " + file.getName(), e);
+			return null;
+		}
+	}
+
+	private static void writeTile(File file, int[] tile) {
+		if (file == null) {
+			return;
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(tile.length);
+			for (int p : tile) {
+				out.writeInt(p);
+			}
+		}
+		catch (IOException e) {
+			logger.log(Level.WARNING, "Problem writing tile " + file.getName(), e);
+		}
+	}
+
+	/**
+	 * Removes every tile of a source image from memory.
+	 *
+	 * @param source Name of the source image
+	 */
+	public synchronized void removeSource(String source) {
+		Iterator<Map.Entry<TileKey, int[]>> it = tiles.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<TileKey, int[]> e = it.next();
+			if (e.getKey().source().name().equals(source)) {
+				usedBytes -= bytes(e.getValue());
+				it.remove();
+			}
+		}
+	}
+
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	public synchronized int size() {
+		return tiles.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Mars Simulation Project
+ * MapTilePyramid.java
+ * @date 2023-07-15
+ * @author Barry Evans
+ */
+package org.mars_sim.mapdata;
+
+import org.mars_sim.mapdata.MapTileCache.TileKey;
+import org.mars_sim.mapdata.MapTileCache.TileSource;
+
+/**
+ * The levels of a cylindrical map cut into fixed size tiles. Level 0 is the full
+ * resolution map and is read straight from the source pixels; each further level halves
+ * the width and height. Tiles are created on demand and held in a shared MapTileCache.
+ * A level 1 tile averages 2x2 blocks of the source pixels and a tile of a lower
+ * resolution level averages the four tiles beneath it.
+ */
+public class MapTilePyramid {
+
+	/** Width and height of a tile in pixels. */
+	public static final int TILE_SIZE = 256;
+	/** Shift from a pixel to its tile. */
+	public static final int TILE_SHIFT = 8;
+	/** Mask from a pixel to its position in a tile. */
+	public static final int TILE_MASK = TILE_SIZE - 1;
+
+	/** Smallest level height kept. */
+	private static final int MIN_LEVEL_HEIGHT = TILE_SIZE;
+
+	private TileSource source;
+	private int[][] pixels;
+	private MapTileCache cache;
+	private int[] widths;
+	private int[] heights;
+
+	/**
+	 * Creates a pyramid over the map pixels.
+	 *
+	 * @param source Unique name of the source image
+	 * @param modified When the source image was last changed; tells tiles saved on disk from an older image apart
+	 * @param pixels Full resolution pixels
+	 * @param cache Cache holding the tiles
+	 */
+	public MapTilePyramid(String source, long modified, int[][] pixels, MapTileCache cache) {
+		this.source = new TileSource(source, pixels[0].length, pixels.length, modified);
+		this.pixels = pixels;
+		this.cache = cache;
+
+		int levels = 1;
+		int h = pixels.length;
+		while ((h / 2) >= MIN_LEVEL_HEIGHT) {
+			h /= 2;
+			levels++;
+		}
+
+		widths = new int[levels];
+		heights = new int[levels];
+		widths[0] = pixels[0].length;
+		heights[0] = pixels.length;
+		for (int l = 1; l < levels; l++) {
+			widths[l] = (widths[l - 1] + 1) / 2;
+			heights[l] = (heights[l - 1] + 1) / 2;
+		}
+	}
+
+	public int getLevels() {
+		return widths.length;
+	}
+
+	public int getWidth(int level) {
+		return widths[level];
+	}
+
+	public int getHeight(int level) {
+		return heights[level];
+	}
+
+	public int getTilesAcross(int level) {
+		return (widths[level] + TILE_MASK) >> TILE_SHIFT;
+	}
+
+	public int getTilesDown(int level) {
+		return (heights[level] + TILE_MASK) >> TILE_SHIFT;
+	}
+
+	/**
+	 * Chooses the level whose pixels best match the scale of a view. When the view is
+	 * zoomed out a view pixel spans several map pixels so a coarser level is used.
+	 *
+	 * @param rho Scale of the view in view pixels per radian
+	 * @return
+	 */
+	public int getLevel(double rho) {
+		double mapPerView = (heights[0] / Math.PI) / rho;
+		int level = 0;
+		while ((level + 1 < widths.length) && (mapPerView >= 2D)) {
+			mapPerView /= 2D;
+			level++;
+		}
+		return level;
+	}
+
+	/**
+	 * Gets the full resolution pixels; these are level 0.
+	 *
+	 * @return
+	 */
+	public int[][] getPixels() {
+		return pixels;
+	}
+
+	/**
+	 * Gets a tile of a reduced level; pixels past the edge of the level repeat the last
+	 * row or column. Level 0 has no tiles as it is the source pixels.
+	 *
+	 * @param level Level from 1
+	 * @param row Tile row
+	 * @param col Tile column
+	 * @return Pixels of the tile in rows
+	 */
+	public int[] getTile(int level, int row, int col) {
+		if ((level < 1) || (level >= widths.length)) {
+			throw new IllegalArgumentException("No tiles at level " + level);
+		}
+		return cache.getTile(new TileKey(source, level, row, col), this::buildTile);
+	}
+
+	private int[] buildTile(TileKey key) {
+		int[] tile = new int[TILE_SIZE * TILE_SIZE];
+		int level = key.level();
+
+		if (level == 1) {
+			// Average 2x2 blocks of the source pixels
+			int maxRow = heights[0] - 1;
+			int maxCol = widths[0] - 1;
+			int top = key.row() << (TILE_SHIFT + 1);
+			int left = key.col() << (TILE_SHIFT + 1);
+			for (int y = 0; y < TILE_SIZE; y++) {
+				int[] upper = pixels[Math.min(top + (y << 1), maxRow)];
+				int[] lower = pixels[Math.min(top + (y << 1) + 1, maxRow)];
+				for (int x = 0; x < TILE_SIZE; x++) {
+					int c = Math.min(left + (x << 1), maxCol);
+					int c1 = Math.min(left + (x << 1) + 1, maxCol);
+					tile[(y << TILE_SHIFT) + x] = average(upper[c], upper[c1], lower[c], lower[c1]);
+				}
+			}
+			return tile;
+		}
+
+		// Average 2x2 blocks of the level beneath
+		int below = level - 1;
+		int belowRows = getTilesDown(below);
+		int belowCols = getTilesAcross(below);
+		int[][] children = new int[4][];
+		for (int i = 0; i < 4; i++) {
+			int r = (key.row() * 2) + (i >> 1);
+			int c = (key.col() * 2) + (i & 1);
+			children[i] = getTile(below, Math.min(r, belowRows - 1), Math.min(c, belowCols - 1));
+		}
+
+		for (int y = 0; y < TILE_SIZE; y++) {
+			for (int x = 0; x < TILE_SIZE; x++) {
+				int[] child = children[((y >> (TILE_SHIFT - 1)) << 1) + (x >> (TILE_SHIFT - 1))];
+				int cy = (y << 1) & TILE_MASK;
+				int cx = (x << 1) & TILE_MASK;
+				int i = (cy << TILE_SHIFT) + cx;
+				tile[(y << TILE_SHIFT) + x] = average(child[i], child[i + 1],
+									child[i + TILE_SIZE], child[i + TILE_SIZE + 1]);
+			}
+		}
+		return tile;
+	}
+
+	/**
+	 * Averages each channel of four ARGB values.
+	 */
+	private static int average(int a, int b, int c, int d) {
+		int result = 0;
+		for (int shift = 0; shift < 32; shift += 8) {
+			int sum = ((a >>> shift) & 0xff) + ((b >>> shift) & 0xff)
+						+ ((c >>> shift) & 0xff) + ((d >>> shift) & 0xff);
+			result |= ((sum + 2) >> 2) << shift;
+		}
+		return result;
+	}
+
+	public TileSource getSource() {
+		return source;
+	}
+
+	/**
+	 * Removes the tiles of this map from the cache.
+	 */
+	public void release() {
+		cache.removeSource(source.name());
+	}
+}
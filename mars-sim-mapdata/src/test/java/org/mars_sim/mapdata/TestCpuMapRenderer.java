@@ -0,0 +1,58 @@
+package org.mars_sim.mapdata;
+
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the CPU renderer draws the same view as the per pixel conversion.
+ */
+public class TestCpuMapRenderer extends TestCase {
+
+    private static final int MAP_WIDTH = 720;
+    private static final int MAP_HEIGHT = 360;
+
+    private int[][] pixels;
+
+    @Override
+    public void setUp() {
+        Random rand = new Random(42);
+        pixels = new int[MAP_HEIGHT][MAP_WIDTH];
+        for (int[] row : pixels) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rand.nextInt() | 0xff000000;
+            }
+        }
+    }
+
+    private void assertView(double phi, double theta, int width, int height, double rho) {
+        int[] rendered = new int[width * height];
+        CpuMapRenderer.render(pixels, phi, theta, width, height, rho, rendered);
+
+        int mismatch = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                Point2D loc = IntegerMapData.convertRectToSpherical(x - width / 2, y - height / 2, phi, theta, rho);
+                int expected = IntegerMapData.getRGBColorInt(pixels, loc.getX(), loc.getY());
+                if (expected != rendered[x + y * width]) {
+                    mismatch++;
+                }
+            }
+        }
+
+        // Only rounding at the edge of a source pixel may differ
+        assertTrue("View at " + phi + "," + theta + " has " + mismatch + " different pixels",
+                    mismatch <= (width * height) / 1000);
+    }
+
+    public void testRender() {
+        double rho = MAP_HEIGHT / Math.PI;
+        assertView(Math.PI / 2D, 0D, 300, 300, rho);
+        assertView(0.4D, 2D, 400, 250, rho * 2D);
+        assertView(2.9D, 5.5D, 301, 199, rho);
+
+        // Globe smaller than the view
+        assertView(1D, 1D, 500, 500, rho / 4D);
+    }
+}
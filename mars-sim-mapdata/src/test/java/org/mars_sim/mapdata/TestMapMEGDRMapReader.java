@@ -1,6 +1,8 @@
 package org.mars_sim.mapdata;
 
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 
@@ -38,13 +40,24 @@ public class TestMapMEGDRMapReader extends TestCase {
         folder.delete();
     }
     /**
-     * Test the locationWithinLocalBoundedObject method.
+     * Test the mapped samples match the big-endian shorts of the file.
      */
-    public void testMEGDR() {
-    //     MEGDRMapReader reader = new MEGDRMapReader();
+    public void testMEGDR() throws IOException {
+        // Low resolution is held in the resources
+        MEGDRMapReader reader = new MEGDRMapReader(0);
+        assertTrue("MEGDR data loaded", reader.isLoaded());
+        assertEquals("MEGDR width", 1440, reader.getWidth());
+        assertEquals("MEGDR height", 720, reader.getHeight());
 
-    //     short[] data = reader.loadElevation();
-    //     assertTrue("MEGDR data has content", data.length > 0);
-        assertTrue("MEGDR data has content", true);
+        File file = FileLocator.locateFile(MEGDRMapReader.FILE);
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            int size = reader.getWidth() * reader.getHeight();
+            for (int i = 0; i < size; i++) {
+                short expected = in.readShort();
+                if ((i % 997) == 0) {
+                    assertEquals("Sample " + i, expected, reader.getElevation(i));
+                }
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package org.mars_sim.mapdata;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the tiles of the pyramid and the cache holding them.
+ */
+public class TestMapTilePyramid extends TestCase {
+
+    private static final int MAP_WIDTH = 1100;
+    private static final int MAP_HEIGHT = 550;
+    private static final int TILE_BYTES = MapTilePyramid.TILE_SIZE * MapTilePyramid.TILE_SIZE * 4;
+
+    private int[][] pixels;
+
+    @Override
+    public void setUp() {
+        Random rand = new Random(42);
+        pixels = new int[MAP_HEIGHT][MAP_WIDTH];
+        for (int[] row : pixels) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rand.nextInt() | 0xff000000;
+            }
+        }
+    }
+
+    private static int pixel(MapTilePyramid pyramid, int level, int row, int col) {
+        int[] tile = pyramid.getTile(level, row >> MapTilePyramid.TILE_SHIFT, col >> MapTilePyramid.TILE_SHIFT);
+        return tile[((row & MapTilePyramid.TILE_MASK) << MapTilePyramid.TILE_SHIFT)
+                    + (col & MapTilePyramid.TILE_MASK)];
+    }
+
+    public void testLevels() {
+        MapTilePyramid pyramid = new MapTilePyramid("test", 1L, pixels, new MapTileCache(Long.MAX_VALUE));
+        assertEquals("Levels", 2, pyramid.getLevels());
+        assertEquals("Level 1 width", 550, pyramid.getWidth(1));
+        assertEquals("Level 1 height", 275, pyramid.getHeight(1));
+        assertEquals("Level 0 tiles across", 5, pyramid.getTilesAcross(0));
+
+        // Full scale uses full resolution, zoomed out uses the coarser level
+        double rho = MAP_HEIGHT / Math.PI;
+        assertEquals("Full scale level", 0, pyramid.getLevel(rho));
+        assertEquals("Zoomed in level", 0, pyramid.getLevel(rho * 4));
+        assertEquals("Zoomed out level", 1, pyramid.getLevel(rho / 4));
+
+        // Level 0 is the source pixels and has no tiles
+        assertSame("Level 0 pixels", pixels, pyramid.getPixels());
+        try {
+            pyramid.getTile(0, 0, 0);
+            fail("Level 0 tile");
+        }
+        catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        // Level 1 is the average of 2x2 blocks
+        int expected = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int sum = 0;
+            for (int[] p : new int[][] {{300, 600}, {300, 601}, {301, 600}, {301, 601}}) {
+                sum += (pixels[p[0]][p[1]] >>> shift) & 0xff;
+            }
+            expected |= ((sum + 2) >> 2) << shift;
+        }
+        assertEquals("Averaged pixel", expected, pixel(pyramid, 1, 150, 300));
+
+        // Past the edge of the source the last row is repeated
+        expected = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int sum = (((pixels[MAP_HEIGHT - 1][10] >>> shift) & 0xff)
+                        + ((pixels[MAP_HEIGHT - 1][11] >>> shift) & 0xff)) * 2;
+            expected |= ((sum + 2) >> 2) << shift;
+        }
+        assertEquals("Edge pixel", expected, pixel(pyramid, 1, 275, 5));
+    }
+
+    public void testEviction() {
+        MapTileCache cache = new MapTileCache(3L * TILE_BYTES);
+        MapTilePyramid pyramid = new MapTilePyramid("test", 1L, pixels, cache);
+
+        pyramid.getTile(1, 0, 0);
+        pyramid.getTile(1, 0, 1);
+        pyramid.getTile(1, 0, 2);
+        assertEquals("Tiles held", 3, cache.size());
+
+        // Use the first so the second is the oldest
+        pyramid.getTile(1, 0, 0);
+        assertEquals("Hit", 1, cache.getHits());
+        pyramid.getTile(1, 1, 0);
+        assertEquals("Within limit", 3, cache.size());
+        assertEquals("Memory used", 3L * TILE_BYTES, cache.getUsedBytes());
+
+        pyramid.getTile(1, 0, 0);
+        assertEquals("Recent tile kept", 2, cache.getHits());
+        pyramid.getTile(1, 0, 1);
+        assertEquals("Oldest tile evicted", 2, cache.getHits());
+
+        pyramid.release();
+        assertEquals("Released", 0, cache.size());
+        assertEquals("Released memory", 0L, cache.getUsedBytes());
+    }
+
+    public void testDiskCache() throws IOException {
+        File dir = Files.createTempDirectory("tiles").toFile();
+        try {
+            MapTileCache cache = new MapTileCache(Long.MAX_VALUE);
+            cache.setDiskCache(dir);
+            MapTilePyramid pyramid = new MapTilePyramid("test", 1L, pixels, cache);
+            int[] built = pyramid.getTile(1, 0, 1);
+            assertEquals("Tiles on disk", 1, dir.listFiles().length);
+
+            // A new cache reads the tile from disk rather than building it
+            MapTileCache reload = new MapTileCache(Long.MAX_VALUE);
+            reload.setDiskCache(dir);
+            int[] loaded = reload.getTile(new MapTileCache.TileKey(pyramid.getSource(), 1, 0, 1),
+                                        k -> { throw new IllegalStateException("Built again"); });
+            assertTrue("Same tile", Arrays.equals(built, loaded));
+
+            // A changed source image does not use the old tiles
+            int[][] changed = new int[MAP_HEIGHT][MAP_WIDTH];
+            int[] rebuilt = new MapTilePyramid("test", 2L, changed, reload).getTile(1, 0, 1);
+            assertEquals("Changed tile", 0, rebuilt[0]);
+            assertEquals("Tiles of both images", 2, dir.listFiles().length);
+        }
+        finally {
+            for (File f : dir.listFiles()) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    public void testRenderFromTiles() {
+        MapTileCache cache = new MapTileCache(Long.MAX_VALUE);
+        MapTilePyramid pyramid = new MapTilePyramid("test", 1L, pixels, cache);
+        double rho = MAP_HEIGHT / Math.PI;
+        int[] fromPixels = new int[300 * 200];
+        int[] fromTiles = new int[300 * 200];
+        CpuMapRenderer.render(pixels, 1D, 2D, 300, 200, rho, fromPixels);
+        CpuMapRenderer.render(pyramid, 1D, 2D, 300, 200, rho, fromTiles);
+        assertTrue("Full resolution view", Arrays.equals(fromPixels, fromTiles));
+        assertEquals("Full resolution not copied to tiles", 0, cache.size());
+
+        CpuMapRenderer.render(pyramid, 1D, 2D, 300, 200, rho / 4, fromTiles);
+        assertTrue("Zoomed out view uses tiles", cache.size() > 0);
+    }
+}
@@ -10,9 +10,9 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 import org.mars_sim.msp.core.Msg;
 
@@ -21,6 +21,10 @@ import org.mars_sim.msp.core.Msg;
 
 /**
  * The RandomUtil class is a library of various random-related methods.
+ * The draws come from the stream bound to the calling thread. A stream is derived from
+ * the master seed and a key, e.g. the identifier of a Settlement, so the sequence seen by
+ * an owner does not depend on which thread runs it or what other threads draw. A thread
+ * without a bound stream draws from its own stream split off the master seed.
  */
 public final class RandomUtil {
 
@@ -51,14 +55,105 @@ public final class RandomUtil {
 //		return sr.getAlgorithm();
 //	}
 
-	private static final Random random = ThreadLocalRandom.current();
+	/** Mixes the key of a stream into the master seed. */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * The streams of a thread.
+	 */
+	private static final class ThreadStreams {
+		private RandomGenerator bound;
+		private RandomGenerator fallback;
+		private long generation = -1;
+	}
+
+	private static long masterSeed = System.nanoTime();
+	private static long generation = 0;
+	private static SplittableRandom fallbackSource = new SplittableRandom(masterSeed);
+
+	private static final ThreadLocal<ThreadStreams> streams = ThreadLocal.withInitial(ThreadStreams::new);
+
+	/** Draws from whichever stream is bound to the calling thread. */
+	private static final RandomGenerator random = () -> current().nextLong();
 
 	private RandomUtil() {}
 
-	public static Random getRandom() {
+	/**
+	 * Gets a generator that always draws from the stream of the calling thread.
+	 * 
+	 * @return
+	 */
+	public static RandomGenerator getRandom() {
 		return random;
 	}
 
+	/**
+	 * Sets the master seed that all the streams are derived from. This should be
+	 * called before the simulation is created.
+	 * 
+	 * @param seed
+	 */
+	public static synchronized void setSeed(long seed) {
+		masterSeed = seed;
+		fallbackSource = new SplittableRandom(seed);
+		generation++;
+	}
+
+	public static synchronized long getSeed() {
+		return masterSeed;
+	}
+
+	/**
+	 * Creates the stream for an owner. The same key and master seed always give
+	 * the same sequence.
+	 * 
+	 * @param key Unique key of the owner
+	 * @return
+	 */
+	public static synchronized RandomGenerator createStream(long key) {
+		return new SplittableRandom(mix(masterSeed + ((key + 1) * GOLDEN_GAMMA)));
+	}
+
+	/**
+	 * Binds a stream to the calling thread.
+	 * 
+	 * @param stream Stream to draw from; null returns to the thread's own stream
+	 * @return The previously bound stream to restore later
+	 */
+	public static RandomGenerator bindStream(RandomGenerator stream) {
+		ThreadStreams s = streams.get();
+		RandomGenerator previous = s.bound;
+		s.bound = stream;
+		return previous;
+	}
+
+	/**
+	 * Gets the stream of the calling thread.
+	 */
+	private static RandomGenerator current() {
+		ThreadStreams s = streams.get();
+		if (s.bound != null) {
+			return s.bound;
+		}
+		if (s.generation != generation) {
+			// New thread or the seed has changed
+			synchronized (RandomUtil.class) {
+				s.fallback = fallbackSource.split();
+				s.generation = generation;
+			}
+		}
+		return s.fallback;
+	}
+
+	/**
+	 * The finalizer of the SplitMix64 generator.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
 
 	/**
 	 * Returns a random element from a set.
@@ -90,7 +185,7 @@ public final class RandomUtil {
 	 * @return true if random percent is less than percentage limit
 	 */
 	public static boolean lessThanRandPercent(int randomLimit) {
-		int rand = random.nextInt(100) + 1;
+		int rand = current().nextInt(100) + 1;
 		return rand < randomLimit;
 	}
 
@@ -101,7 +196,7 @@ public final class RandomUtil {
 	 * @return true if random percent is less than percentage limit
 	 */
 	public static boolean lessThanRandPercent(double randomLimit) {
-		double rand = random.nextDouble() * 100;
+		double rand = current().nextDouble() * 100;
 		return rand < randomLimit;
 	}
 
@@ -114,7 +209,7 @@ public final class RandomUtil {
 	public static int getRandomInt(int ceiling) {
 		if (ceiling < 0)
 			throw new IllegalArgumentException(Msg.getString("RandomUtil.log.ceilingMustBePositive") + ceiling); //$NON-NLS-1$
-		return random.nextInt(ceiling + 1);
+		return current().nextInt(ceiling + 1);
 	}
 
 	/**
@@ -128,7 +223,7 @@ public final class RandomUtil {
 	public static int getRandomInt(int base, int ceiling) {
 		if (ceiling < base)
 			throw new IllegalArgumentException(Msg.getString("RandomUtil.log.ceilingMustGreaterBase")); //$NON-NLS-1$
-		return random.nextInt(ceiling - base + 1) + base;
+		return current().nextInt(ceiling - base + 1) + base;
 	}
 
 	/**
@@ -138,7 +233,7 @@ public final class RandomUtil {
 	 * @return the random number
 	 */
 	public static double getRandomDouble() {
-		return random.nextDouble();
+		return current().nextDouble();
 	}
 
 	/**
@@ -148,7 +243,7 @@ public final class RandomUtil {
 	 * @return the random number
 	 */
 	public static double getRandomDouble(double ceiling) {
-		return random.nextDouble() * ceiling;
+		return current().nextDouble() * ceiling;
 	}
 
 	/**
@@ -161,7 +256,7 @@ public final class RandomUtil {
 		if (ceiling < base)
 			throw new IllegalArgumentException(Msg.getString("RandomUtil.log.ceilingMustGreaterBase")); //$NON-NLS-1$
 		// Note: switch from using ThreadLocalRandom.current().nextDouble(base, ceiling)
-		return random.nextDouble() * (ceiling - base) + base;
+		return current().nextDouble() * (ceiling - base) + base;
 	}
 
 	/**
@@ -172,7 +267,7 @@ public final class RandomUtil {
 	 * @return the random number
 	 */
 	public static double getGaussianDouble() {
-		return random.nextGaussian();
+		return current().nextGaussian();
 	}
 
 	/**
@@ -0,0 +1,248 @@
+/*
+ * Mars Simulation Project
+ * WeightedSampler.java
+ * @date 2023-07-10
+ * @author Barry Evans
+ */
+package org.mars_sim.msp.core.tool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Selects items at random in proportion to their weights. The cumulative weights are
+ * held in a Fenwick tree so a selection and a removal are both O(log n) rather than a
+ * linear scan. Selecting without removing is read only so a fully built sampler can
+ * be shared between threads.
+ *
+ * @param <T> Type of item selected
+ */
+public class WeightedSampler<T> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private RandomGenerator random;
+
+	private Object[] items;
+	private double[] weights;
+	/** Fenwick tree of the weights; 1-based. */
+	private double[] tree;
+	private int size = 0;
+	private int live = 0;
+	private double total = 0D;
+
+	/**
+	 * Creates a sampler drawing from the shared simulation random generator.
+	 */
+	public WeightedSampler() {
+		this(RandomUtil.getRandom(), DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a sampler.
+	 *
+	 * @param random Source of the random draws
+	 * @param capacity Expected number of items
+	 */
+	public WeightedSampler(RandomGenerator random, int capacity) {
+		this.random = random;
+		int initial = Math.max(1, capacity);
+		items = new Object[initial];
+		weights = new double[initial];
+		tree = new double[initial + 1];
+	}
+
+	/**
+	 * Adds an item. Items without a positive weight are never selected.
+	 *
+	 * @param item
+	 * @param weight
+	 * @return The slot of the item; used to remove it
+	 */
+	public int add(T item, double weight) {
+		if (size == items.length) {
+			grow();
+		}
+		double w = Math.max(0D, weight);
+		int slot = size++;
+		items[slot] = item;
+		weights[slot] = w;
+		update(slot, w);
+		total += w;
+		live++;
+		return slot;
+	}
+
+	/**
+	 * Doubles the capacity and rebuilds the tree in linear time.
+	 */
+	private void grow() {
+		int capacity = items.length * 2;
+		items = Arrays.copyOf(items, capacity);
+		weights = Arrays.copyOf(weights, capacity);
+		tree = new double[capacity + 1];
+		for (int i = 1; i <= size; i++) {
+			tree[i] += weights[i - 1];
+			int parent = i + (i & -i);
+			if (parent <= capacity) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+
+	/**
+	 * Adds a change of weight to a slot in the tree.
+	 */
+	private void update(int slot, double delta) {
+		for (int i = slot + 1; i < tree.length; i += (i & -i)) {
+			tree[i] += delta;
+		}
+	}
+
+	/**
+	 * Finds the slot holding a cumulative weight.
+	 *
+	 * @param target Value between 0 and the total weight
+	 * @return Slot index or -1 if empty
+	 */
+	private int find(double target) {
+		int pos = 0;
+		double remaining = target;
+		for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+			int next = pos + step;
+			if ((next <= size) && (tree[next] <= remaining)) {
+				pos = next;
+				remaining -= tree[next];
+			}
+		}
+
+		// Rounding may step past the last live item or land on a removed one
+		if ((pos >= size) || (weights[pos] <= 0D)) {
+			pos = Math.min(pos, size - 1);
+			while ((pos >= 0) && (weights[pos] <= 0D)) {
+				pos--;
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * Selects an item at random by weight.
+	 *
+	 * @return The item or null if there are none with a positive weight
+	 */
+	public T sample() {
+		int slot = sampleSlot();
+		return (slot < 0 ? null : getItem(slot));
+	}
+
+	/**
+	 * Selects an item at random and removes it.
+	 *
+	 * @return The item or null if there are none with a positive weight
+	 */
+	public T sampleAndRemove() {
+		int slot = sampleSlot();
+		if (slot < 0) {
+			return null;
+		}
+		return remove(slot);
+	}
+
+	/**
+	 * Selects the slot of an item at random by weight.
+	 *
+	 * @return Slot index or -1 if there are no items with a positive weight
+	 */
+	public int sampleSlot() {
+		if (total <= 0D) {
+			return -1;
+		}
+		return find(random.nextDouble() * total);
+	}
+
+	/**
+	 * Removes the item in a slot.
+	 *
+	 * @param slot
+	 * @return The item removed
+	 */
+	public T remove(int slot) {
+		T item = getItem(slot);
+		double w = weights[slot];
+		if (item != null) {
+			items[slot] = null;
+			weights[slot] = 0D;
+			update(slot, -w);
+			live--;
+			// Avoid rounding drift once empty
+			total = (live == 0 ? 0D : total - w);
+		}
+		return item;
+	}
+
+	/**
+	 * Gets the item in a slot.
+	 *
+	 * @param slot
+	 * @return The item or null if removed
+	 */
+	@SuppressWarnings("unchecked")
+	public T getItem(int slot) {
+		return (T) items[slot];
+	}
+
+	/**
+	 * Gets the first slot still holding an item whatever the weight.
+	 *
+	 * @return Slot index or -1 if empty
+	 */
+	public int firstSlot() {
+		for (int i = 0; i < size; i++) {
+			if (items[i] != null) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the total weight of the items still held.
+	 *
+	 * @return
+	 */
+	public double getTotal() {
+		return total;
+	}
+
+	/**
+	 * Gets the number of items still held.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return live;
+	}
+
+	public boolean isEmpty() {
+		return live == 0;
+	}
+
+	/**
+	 * Gets the items still held in the order they were added.
+	 *
+	 * @return
+	 */
+	public List<T> getItems() {
+		List<T> result = new ArrayList<>(live);
+		for (int i = 0; i < size; i++) {
+			T item = getItem(i);
+			if (item != null) {
+				result.add(item);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,88 @@
+package org.mars_sim.msp.core.tool;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the random streams are repeatable and independent of the thread drawing.
+ */
+public class RandomUtilTest extends TestCase {
+
+    private long originalSeed;
+
+    @Override
+    public void setUp() {
+        originalSeed = RandomUtil.getSeed();
+        RandomUtil.setSeed(1234L);
+    }
+
+    @Override
+    public void tearDown() {
+        RandomUtil.setSeed(originalSeed);
+    }
+
+    /**
+     * Draws from the stream bound to this thread.
+     */
+    private static long[] draw(RandomGenerator stream, int count) {
+        RandomGenerator previous = RandomUtil.bindStream(stream);
+        try {
+            long[] result = new long[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = RandomUtil.getRandomInt(1_000_000);
+            }
+            return result;
+        }
+        finally {
+            RandomUtil.bindStream(previous);
+        }
+    }
+
+    public void testRepeatable() {
+        long[] first = draw(RandomUtil.createStream(7), 20);
+        long[] second = draw(RandomUtil.createStream(7), 20);
+        assertTrue("Same key repeats", Arrays.equals(first, second));
+
+        long[] other = draw(RandomUtil.createStream(8), 20);
+        assertFalse("Different key differs", Arrays.equals(first, other));
+
+        RandomUtil.setSeed(99L);
+        long[] reseeded = draw(RandomUtil.createStream(7), 20);
+        assertFalse("Different seed differs", Arrays.equals(first, reseeded));
+    }
+
+    public void testIndependentOfThreads() throws Exception {
+        long[] expected1 = draw(RandomUtil.createStream(1), 1000);
+        long[] expected2 = draw(RandomUtil.createStream(2), 1000);
+
+        // Draw the two streams concurrently on other threads
+        RandomGenerator s1 = RandomUtil.createStream(1);
+        RandomGenerator s2 = RandomUtil.createStream(2);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<long[]> f1 = pool.submit(() -> draw(s1, 1000));
+            Future<long[]> f2 = pool.submit(() -> draw(s2, 1000));
+            assertTrue("Stream 1", Arrays.equals(expected1, f1.get()));
+            assertTrue("Stream 2", Arrays.equals(expected2, f2.get()));
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testSharedGeneratorFollowsThread() {
+        RandomGenerator shared = RandomUtil.getRandom();
+
+        RandomGenerator previous = RandomUtil.bindStream(RandomUtil.createStream(3));
+        long viaShared = shared.nextLong();
+        RandomUtil.bindStream(previous);
+
+        long direct = RandomUtil.createStream(3).nextLong();
+        assertEquals("Shared generator draws from bound stream", direct, viaShared);
+    }
+}
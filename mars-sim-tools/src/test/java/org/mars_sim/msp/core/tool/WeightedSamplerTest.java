@@ -0,0 +1,79 @@
+package org.mars_sim.msp.core.tool;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the weighted selection of the sampler.
+ */
+public class WeightedSamplerTest extends TestCase {
+
+    public void testDistribution() {
+        WeightedSampler<String> sampler = new WeightedSampler<>(new Random(1), 2);
+        sampler.add("A", 1D);
+        sampler.add("B", 3D);
+        sampler.add("Never", 0D);
+
+        int countB = 0;
+        int draws = 40_000;
+        for (int i = 0; i < draws; i++) {
+            String s = sampler.sample();
+            assertFalse("Zero weight selected", "Never".equals(s));
+            if ("B".equals(s)) {
+                countB++;
+            }
+        }
+
+        // B should be picked 75% of the time
+        assertEquals("Proportion of B", 0.75D, (double) countB / draws, 0.02D);
+        assertEquals("Size unchanged", 3, sampler.size());
+    }
+
+    public void testSampleAndRemove() {
+        WeightedSampler<Integer> sampler = new WeightedSampler<>(new Random(7), 4);
+        for (int i = 0; i < 100; i++) {
+            sampler.add(i, 1D + (i % 5));
+        }
+        assertEquals("Total weight", 300D, sampler.getTotal(), 0.0001D);
+
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            Integer selected = sampler.sampleAndRemove();
+            assertNotNull("Item selected", selected);
+            assertTrue("Item selected once", seen.add(selected));
+        }
+
+        assertTrue("Empty", sampler.isEmpty());
+        assertNull("Nothing left", sampler.sample());
+        assertEquals("No weight left", 0D, sampler.getTotal());
+    }
+
+    public void testSeededRepeatable() {
+        WeightedSampler<Integer> first = new WeightedSampler<>(new Random(99), 16);
+        WeightedSampler<Integer> second = new WeightedSampler<>(new Random(99), 16);
+        for (int i = 0; i < 20; i++) {
+            first.add(i, i);
+            second.add(i, i);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("Same selection", first.sample(), second.sample());
+        }
+    }
+
+    public void testRemoveSlot() {
+        WeightedSampler<String> sampler = new WeightedSampler<>(new Random(3), 16);
+        int a = sampler.add("A", 5D);
+        sampler.add("B", 5D);
+
+        assertEquals("Removed", "A", sampler.remove(a));
+        assertEquals("Remaining items", List.of("B"), sampler.getItems());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("Only B left", "B", sampler.sample());
+        }
+    }
+}
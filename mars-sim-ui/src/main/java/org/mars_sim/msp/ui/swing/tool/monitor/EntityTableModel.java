@@ -7,14 +7,18 @@
 package org.mars_sim.msp.ui.swing.tool.monitor;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 
 import org.mars_sim.msp.core.Msg;
@@ -25,6 +29,8 @@ import org.mars_sim.msp.core.Msg;
  * by the sub implementation.
  * The class provides the ability to cache specific columns in a backing store to reduce the
  * computation effort.
+ * Value changes only mark the cells of an entity as dirty; the marks are flushed
+ * periodically in the UI thread as one event per range of rows.
  * 
  */
 @SuppressWarnings("serial")
@@ -33,10 +39,17 @@ public abstract class EntityTableModel<T> extends AbstractTableModel
 
 //    private static final Logger logger = Logger.getLogger(EntityTableModel.class.getName());
 
+    /** Delay in milliseconds between a value changing and the table refreshing. */
+    static final int FLUSH_DELAY = 100;
+
 	private String name;
     private String[] columnNames;
     private Class<?>[] columnTypes;
     private List<T> entities;
+    private Map<T,Integer> rowIndex;
+    private Map<T,BitSet> dirtyCells;
+    private AtomicBoolean flushPending;
+    private Timer flushTimer;
     private Map<T,Map<Integer,Object>> rowCache;
     private Set<Integer> cachedColumns;
     private boolean fireEnabled;
@@ -57,6 +70,11 @@ public abstract class EntityTableModel<T> extends AbstractTableModel
 		this.columnNames = names;
 		this.columnTypes = types;
         this.entities = new ArrayList<>();
+        this.rowIndex = new ConcurrentHashMap<>();
+        this.dirtyCells = new ConcurrentHashMap<>();
+        this.flushPending = new AtomicBoolean(false);
+        this.flushTimer = new Timer(FLUSH_DELAY, e -> flushUpdates());
+        this.flushTimer.setRepeats(false);
         this.cachedColumns = new HashSet<>();
     }
  
@@ -77,7 +95,7 @@ public abstract class EntityTableModel<T> extends AbstractTableModel
     }
 
     protected void resetCache() {
-        rowCache = new HashMap<>();   
+        rowCache = new ConcurrentHashMap<>();
     }
 
     /**
@@ -111,17 +129,18 @@ public abstract class EntityTableModel<T> extends AbstractTableModel
      * @return 
      */
     protected boolean addEntity(T newEntity) {
-        boolean add = !entities.contains(newEntity);
+        boolean add = !rowIndex.containsKey(newEntity);
         if (add) {
+            int idx = entities.size();
             entities.add(newEntity);
+            rowIndex.put(newEntity, idx);
 
             if (rowCache != null) {
                 // Add the data row now
-                rowCache.put(newEntity, new HashMap<>());
+                rowCache.put(newEntity, new ConcurrentHashMap<>());
             }
 
             if (fireEnabled) {
-                int idx = entities.indexOf(newEntity);
                 fireTableRowsInserted(idx, idx);
             }
         }
@@ -132,9 +151,18 @@ public abstract class EntityTableModel<T> extends AbstractTableModel
      * Remove a previously added Entity form the model.
      */
     protected void removeEntity(T oldEntity) {
-        int idx = entities.indexOf(oldEntity);
+        Integer found = rowIndex.remove(oldEntity);
+        if (found == null) {
+            return;
+        }
+        int idx = found;
 
-        entities.remove(oldEntity);
+        entities.remove(idx);
+        // Later rows move up one
+        for(int i = idx; i < entities.size(); i++) {
+            rowIndex.put(entities.get(i), i);
+        }
+        dirtyCells.remove(oldEntity);
         if (rowCache != null) {
             rowCache.remove(oldEntity);
         }
@@ -289,35 +317,96 @@ public abstract class EntityTableModel<T> extends AbstractTableModel
     }
 
     private void setCacheValue(T entity, int columnIndex, Object value) {
-        rowCache.computeIfAbsent(entity, k -> new HashMap<Integer,Object>()).put(columnIndex, value);
+        Map<Integer, Object> rowValues = rowCache.computeIfAbsent(entity, k -> new ConcurrentHashMap<Integer,Object>());
+        if (value != null) {
+            rowValues.put(columnIndex, value);
+        }
+        else {
+            // A missing value is recalculated on the next read
+            rowValues.remove(columnIndex);
+        }
     }
 
     /**
      * A range of column values have changed. This will recalculate any cached columns if needed
-     * and always fire a model change event asynchronously.
+     * and mark the cells as dirty; the model change event is fired later in the UI thread.
      * @param entity
      * @param firstCol
      * @param lastCol
      */
 	protected void entityValueUpdated(T entity, int firstCol, int lastCol) {
-        int rowIndex = entities.indexOf(entity);
-        if (rowIndex < 0) {
+        if (!rowIndex.containsKey(entity)) {
             return;
         }
 
-        for(int i = firstCol; i<= lastCol; i++) {
-            if (cachedColumns.contains(i)) {
-                // Recalculate cached value in this Thread to avoid problem
-                // with calculating dervied values in teh UI Thread
-                Object newValue = getEntityValue(entity, i);
-                Object cachedValue = getCacheValue(entity, i);
-                if ((cachedValue == null) || !cachedValue.equals(newValue)) {
-                    setCacheValue(entity, i, getEntityValue(entity, i));
+        if (rowCache != null) {
+            for(int i = firstCol; i<= lastCol; i++) {
+                if (cachedColumns.contains(i)) {
+                    // Recalculate cached value in this Thread to avoid problem
+                    // with calculating dervied values in teh UI Thread
+                    Object newValue = getEntityValue(entity, i);
+                    Object cachedValue = getCacheValue(entity, i);
+                    if ((cachedValue == null) || !cachedValue.equals(newValue)) {
+                        setCacheValue(entity, i, newValue);
+                    }
                 }
             }
+        }
+
+        // Only mark the cells; the bitset is updated under the lock of the map bin
+        dirtyCells.compute(entity, (k, v) -> {
+            BitSet cols = (v != null ? v : new BitSet(columnNames.length));
+            cols.set(firstCol, lastCol + 1);
+            return cols;
+        });
+
+        // One flush is scheduled for every change in the delay
+        if (flushPending.compareAndSet(false, true)) {
+            flushTimer.restart();
+        }
+    }
+
+    /**
+     * Fires the table events for the dirty cells. The dirty rows are coalesced into
+     * ranges of adjacent rows; a range where only one column changed fires a column event.
+     * This is called in the UI thread.
+     */
+    void flushUpdates() {
+        flushPending.set(false);
+        if (dirtyCells.isEmpty()) {
+            return;
+        }
+
+        // Collect the dirty rows and their columns
+        int rows = entities.size();
+        BitSet dirtyRows = new BitSet(rows);
+        BitSet[] rowCols = new BitSet[rows];
+        Iterator<T> it = dirtyCells.keySet().iterator();
+        while (it.hasNext()) {
+            T entity = it.next();
+            BitSet cols = dirtyCells.remove(entity);
+            Integer row = rowIndex.get(entity);
+            if ((cols != null) && (row != null) && (row < rows)) {
+                dirtyRows.set(row);
+                rowCols[row] = cols;
+            }
+        }
+
+        int first = dirtyRows.nextSetBit(0);
+        while (first >= 0) {
+            int last = dirtyRows.nextClearBit(first) - 1;
+            BitSet cols = new BitSet();
+            for(int r = first; r <= last; r++) {
+                cols.or(rowCols[r]);
+            }
 
-            // Fire the cell update in the bacground thread
-            SwingUtilities.invokeLater(new TableCellUpdater(rowIndex, i));
+            if (cols.cardinality() == 1) {
+                fireTableChanged(new TableModelEvent(this, first, last, cols.nextSetBit(0)));
+            }
+            else {
+                fireTableRowsUpdated(first, last);
+            }
+            first = dirtyRows.nextSetBit(last + 1);
         }
     }
 
@@ -326,7 +415,8 @@ public abstract class EntityTableModel<T> extends AbstractTableModel
      */
     @Override
 	public void destroy() {
-        // Nothing to do for this base class
+        flushTimer.stop();
+        dirtyCells.clear();
     }
 
     /**
@@ -334,21 +424,4 @@ public abstract class EntityTableModel<T> extends AbstractTableModel
      * may involve expensive calculations.
      */
     protected abstract Object getEntityValue(T entity, int column);
-
-    private class TableCellUpdater implements Runnable {
-
-        private int colIndex;
-        private int rowIndex;
-
-        public TableCellUpdater(int rowIndex, int colIndex) {
-            this.rowIndex = rowIndex;
-            this.colIndex = colIndex;
-        }
-
-        @Override
-        public void run() {
-            fireTableCellUpdated(rowIndex, colIndex);
-        }
-
-    }
 }
@@ -373,85 +373,102 @@ public class SettlementTableModel extends UnitTableModel<Settlement> {
 		else if (eventType == UnitEventType.INVENTORY_RESOURCE_EVENT)
 		{
 			// Resource change
-			int resourceID = -1;
 			if (target instanceof AmountResource) {
-				resourceID = ((AmountResource)target).getID();
+				columnNum = getResourceColumn(((AmountResource)target).getID());
 			}
 			else if (target instanceof Integer) {
 				// Note: most likely, the source is an integer id
-				resourceID = (Integer)target;
-				if (resourceID >= ResourceUtil.FIRST_ITEM_RESOURCE_ID)
-					// if it's an item resource, quit
-					return;
+				columnNum = getResourceColumn((Integer)target);
 			}
-			else {
-				return;
+			else if (target instanceof int[] resources) {
+				// Several resources changed together
+				for (int resourceID : resources) {
+					int col = getResourceColumn(resourceID);
+					if (col > -1) {
+						entityValueUpdated((Settlement)unit, col, col);
+					}
+				}
 			}
+		}
 
-			if (resourceID == OXYGEN_ID) {
-				columnNum = OXYGEN_COL;
-			}
-			else if (resourceID == HYDROGEN_ID) {
-				columnNum = HYDROGEN_COL;
-			}
-			else if (resourceID == METHANOL_ID) {
-				columnNum = METHANOL_COL;
-			}
-			else if (resourceID == METHANE_ID) {
-				columnNum = METHANE_COL;
-			}
-			else if (resourceID == WATER_ID) {
-				columnNum = WATER_COL;
-			}
-			else if (resourceID == ICE_ID) {
-				columnNum = ICE_COL;
-			}
-			else if (resourceID == SAND_ID) {
-				columnNum = SAND_COL;
-			}
-			else if (resourceID == CONCRETE_ID) {
-				columnNum = CONCRETE_COL;
-			}
-			else if (resourceID == CEMENT_ID) {
-				columnNum = CEMENT_COL;
+		if (columnNum > -1) {
+			entityValueUpdated((Settlement)unit, columnNum, columnNum);
+		}
+	}
+
+	/**
+	 * Gets the column showing an amount resource.
+	 * 
+	 * @param resourceID
+	 * @return Column number; -1 if the resource is not shown
+	 */
+	private static int getResourceColumn(int resourceID) {
+		if (resourceID >= ResourceUtil.FIRST_ITEM_RESOURCE_ID) {
+			// It's an item resource
+			return -1;
+		}
+
+		int columnNum = -1;
+		if (resourceID == OXYGEN_ID) {
+			columnNum = OXYGEN_COL;
+		}
+		else if (resourceID == HYDROGEN_ID) {
+			columnNum = HYDROGEN_COL;
+		}
+		else if (resourceID == METHANOL_ID) {
+			columnNum = METHANOL_COL;
+		}
+		else if (resourceID == METHANE_ID) {
+			columnNum = METHANE_COL;
+		}
+		else if (resourceID == WATER_ID) {
+			columnNum = WATER_COL;
+		}
+		else if (resourceID == ICE_ID) {
+			columnNum = ICE_COL;
+		}
+		else if (resourceID == SAND_ID) {
+			columnNum = SAND_COL;
+		}
+		else if (resourceID == CONCRETE_ID) {
+			columnNum = CONCRETE_COL;
+		}
+		else if (resourceID == CEMENT_ID) {
+			columnNum = CEMENT_COL;
+		}
+		else {
+			boolean found = false;
+			for (int i = 0; i < REGOLITH_IDS.length; i++) {
+				if (!found && resourceID == REGOLITH_IDS[i]) {
+					columnNum = REGOLITHS_COL;
+					found = true;
+				}
 			}
-			else {
-				boolean found = false;
-				for (int i = 0; i < REGOLITH_IDS.length; i++) {
-					if (!found && resourceID == REGOLITH_IDS[i]) {
-						columnNum = REGOLITHS_COL;
+			if (!found) {
+				for (int i = 0; i < ORE_IDS.length; i++) {
+					if (!found && resourceID == ORE_IDS[i]) {
+						columnNum = ORES_COL;
 						found = true;
 					}
 				}
-				if (!found) {
-					for (int i = 0; i < ORE_IDS.length; i++) {
-						if (!found && resourceID == ORE_IDS[i]) {
-							columnNum = ORES_COL;
-							found = true;
-						}
-					}
-				}
-				if (!found) {
-					for (int i = 0; i < MINERAL_IDS.length; i++) {
-						if (!found && resourceID == MINERAL_IDS[i]) {
-							columnNum = MINERALS_COL;
-							found = true;
-						}
+			}
+			if (!found) {
+				for (int i = 0; i < MINERAL_IDS.length; i++) {
+					if (!found && resourceID == MINERAL_IDS[i]) {
+						columnNum = MINERALS_COL;
+						found = true;
 					}
 				}
-				if (!found) {
-					for (int i = 0; i < ROCK_IDS.length; i++) {
-						if (!found && resourceID == ROCK_IDS[i]) {
-							columnNum = ROCKS_COL;
-							found = true;
-						}
+			}
+			if (!found) {
+				for (int i = 0; i < ROCK_IDS.length; i++) {
+					if (!found && resourceID == ROCK_IDS[i]) {
+						columnNum = ROCKS_COL;
+						found = true;
 					}
 				}
 			}
 		}
-
-		if (columnNum > -1) {
-			entityValueUpdated((Settlement)unit, columnNum, columnNum);
-		}
+		return columnNum;
 	}
 }
@@ -0,0 +1,126 @@
+package org.mars_sim.msp.ui.swing.tool.monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+
+import org.mars_sim.msp.core.structure.Settlement;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks value changes are coalesced into row range events.
+ */
+public class EntityTableModelTest extends TestCase {
+
+    @SuppressWarnings("serial")
+    private static class TestModel extends EntityTableModel<String> {
+
+        TestModel() {
+            super("Test", "Test", new String[] {"A", "B", "C"},
+                        new Class<?>[] {String.class, String.class, String.class});
+        }
+
+        void add(String entity) {
+            addEntity(entity);
+        }
+
+        void remove(String entity) {
+            removeEntity(entity);
+        }
+
+        void changed(String entity, int firstCol, int lastCol) {
+            entityValueUpdated(entity, firstCol, lastCol);
+        }
+
+        @Override
+        protected Object getEntityValue(String entity, int column) {
+            return entity + column;
+        }
+
+        @Override
+        public boolean getOrdered() {
+            return false;
+        }
+
+        @Override
+        public boolean setSettlementFilter(Settlement filter) {
+            return false;
+        }
+
+        @Override
+        public void setMonitorEntites(boolean activate) {
+            // Nothing to monitor
+        }
+    }
+
+    private TestModel model;
+    private List<TableModelEvent> events;
+
+    @Override
+    public void setUp() {
+        model = new TestModel();
+        for (int i = 0; i < 10; i++) {
+            model.add("E" + i);
+        }
+        events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+    }
+
+    @Override
+    public void tearDown() {
+        model.destroy();
+    }
+
+    private void flush() throws Exception {
+        SwingUtilities.invokeAndWait(model::flushUpdates);
+    }
+
+    public void testCoalesceRows() throws Exception {
+        model.changed("E2", 0, 0);
+        model.changed("E3", 1, 1);
+        model.changed("E3", 1, 1);
+        model.changed("E4", 0, 2);
+        model.changed("E8", 2, 2);
+        assertTrue("No events before flush", events.isEmpty());
+
+        flush();
+        assertEquals("Events", 2, events.size());
+
+        TableModelEvent range = events.get(0);
+        assertEquals("First row", 2, range.getFirstRow());
+        assertEquals("Last row", 4, range.getLastRow());
+        assertEquals("All columns", TableModelEvent.ALL_COLUMNS, range.getColumn());
+
+        TableModelEvent single = events.get(1);
+        assertEquals("Single row", 8, single.getFirstRow());
+        assertEquals("Single row end", 8, single.getLastRow());
+        assertEquals("Single column", 2, single.getColumn());
+
+        // Nothing left
+        events.clear();
+        flush();
+        assertTrue("Marks cleared", events.isEmpty());
+    }
+
+    public void testRowsAfterRemove() throws Exception {
+        model.remove("E1");
+        events.clear();
+        assertEquals("Row moved up", "E5", model.getEntity(4));
+
+        model.changed("E5", 0, 0);
+        model.changed("E1", 0, 0);
+        flush();
+        assertEquals("Events", 1, events.size());
+        assertEquals("New row", 4, events.get(0).getFirstRow());
+    }
+
+    public void testScheduledFlush() throws Exception {
+        model.changed("E0", 1, 1);
+        Thread.sleep(EntityTableModel.FLUSH_DELAY * 5L);
+        SwingUtilities.invokeAndWait(() -> {});
+        assertEquals("Flushed by timer", 1, events.size());
+    }
+}